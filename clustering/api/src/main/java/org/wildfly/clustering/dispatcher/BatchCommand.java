@@ -0,0 +1,85 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.dispatcher;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A command that executes a batch of commands via a single remote invocation.
+ * The batch responds with the response of each command, in order, so that the failure of one command does not affect the others.
+ * @param <R> the return value type of the batched commands
+ * @param <C> the command execution context
+ */
+public class BatchCommand<R, C> implements Command<List<CommandResponse<R>>, C> {
+    private static final long serialVersionUID = -3429372963285547651L;
+
+    private final List<Command<R, C>> commands;
+
+    public BatchCommand(List<? extends Command<R, C>> commands) {
+        this.commands = new ArrayList<Command<R, C>>(commands);
+    }
+
+    /**
+     * Returns the batched commands.
+     * @return an unmodifiable list of commands
+     */
+    public List<Command<R, C>> getCommands() {
+        return Collections.unmodifiableList(this.commands);
+    }
+
+    @Override
+    public List<CommandResponse<R>> execute(C context) {
+        List<CommandResponse<R>> responses = new ArrayList<>(this.commands.size());
+        for (Command<R, C> command: this.commands) {
+            try {
+                responses.add(new BatchCommandResponse<>(command.execute(context), null));
+            } catch (Exception e) {
+                responses.add(new BatchCommandResponse<R>(null, e));
+            }
+        }
+        return responses;
+    }
+
+    private static class BatchCommandResponse<R> implements CommandResponse<R>, Serializable {
+        private static final long serialVersionUID = 7155744618738567062L;
+
+        private final R value;
+        private final Exception exception;
+
+        BatchCommandResponse(R value, Exception exception) {
+            this.value = value;
+            this.exception = exception;
+        }
+
+        @Override
+        public R get() throws ExecutionException {
+            if (this.exception != null) {
+                throw new ExecutionException(this.exception);
+            }
+            return this.value;
+        }
+    }
+}
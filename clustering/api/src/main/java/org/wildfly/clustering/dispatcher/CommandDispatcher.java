@@ -23,6 +23,7 @@ package org.wildfly.clustering.dispatcher;
 
 import java.util.Map;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.wildfly.clustering.group.Node;
 
@@ -65,6 +66,33 @@ public interface CommandDispatcher<C> extends AutoCloseable {
      */
     <R> Map<Node, Future<R>> submitOnCluster(Command<R, C> command, Node... excludedNodes);
 
+    /**
+     * Submits the specified command on the specified node for execution, without blocking.
+     * The listener is notified of the response once it is received.
+     * @param <R> the return value type
+     * @param command the command to execute
+     * @param node the node on which to execute the command
+     * @param listener the listener to notify of the response
+     * @param timeout the maximum time to wait for a response
+     * @param unit the unit of the timeout
+     * @return the future result of the command execution
+     */
+    <R> Future<R> submitOnNode(Command<R, C> command, Node node, CommandResponseListener<R> listener, long timeout, TimeUnit unit);
+
+    /**
+     * Submits the specified command on all nodes in the group, excluding the specified nodes, for execution, without blocking.
+     * The listener is notified of the response of each node as it is received, and once all nodes responded or the timeout elapsed.
+     * Use a {@link BatchCommand} to execute several commands via a single message.
+     * @param <R> the return value type
+     * @param command the command to execute
+     * @param listener the listener to notify of each response
+     * @param timeout the maximum time to wait for responses
+     * @param unit the unit of the timeout
+     * @param excludedNodes the set of nodes to exclude
+     * @return the future command execution results per responding node
+     */
+    <R> Future<Map<Node, CommandResponse<R>>> submitOnCluster(Command<R, C> command, CommandResponseListener<R> listener, long timeout, TimeUnit unit, Node... excludedNodes);
+
     /**
      * Closes any resources used by this dispatcher.
      * Once closed, a dispatcher can no longer execute commands.
@@ -0,0 +1,47 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.dispatcher;
+
+import java.util.Map;
+
+import org.wildfly.clustering.group.Node;
+
+/**
+ * Receives the responses of an asynchronously dispatched command as they arrive.
+ * Listener methods are invoked by the thread that receives a response, and so should not block.
+ * @param <R> the response type
+ */
+public interface CommandResponseListener<R> {
+
+    /**
+     * Invoked when the specified node responds to a command.
+     * @param node the responding node
+     * @param response the response of the node
+     */
+    void responseReceived(Node node, CommandResponse<R> response);
+
+    /**
+     * Invoked once all nodes have responded to a command, or the command timed out.
+     * @param responses the responses of each node that responded
+     */
+    void completed(Map<Node, CommandResponse<R>> responses);
+}
@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.dispatcher;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link BatchCommand}.
+ */
+public class BatchCommandTestCase {
+
+    @Test
+    public void execute() throws Exception {
+        Object context = new Object();
+        IllegalStateException exception = new IllegalStateException();
+        BatchCommand<String, Object> batch = new BatchCommand<>(Arrays.asList(new ValueCommand("a"), new FailingCommand(exception), new ValueCommand("b")));
+
+        List<CommandResponse<String>> responses = batch.execute(context);
+
+        // Each command responds in order, and a failing command does not affect the others
+        assertEquals(3, responses.size());
+        assertEquals("a", responses.get(0).get());
+        try {
+            responses.get(1).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+        assertEquals("b", responses.get(2).get());
+    }
+
+    @Test
+    public void empty() {
+        assertTrue(new BatchCommand<>(Arrays.<ValueCommand>asList()).execute(new Object()).isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getCommands() {
+        BatchCommand<String, Object> batch = new BatchCommand<>(Arrays.asList(new ValueCommand("a")));
+        assertEquals(1, batch.getCommands().size());
+        batch.getCommands().clear();
+    }
+
+    static class ValueCommand implements Command<String, Object> {
+        private static final long serialVersionUID = 1L;
+        private final String value;
+
+        ValueCommand(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String execute(Object context) {
+            return this.value;
+        }
+    }
+
+    static class FailingCommand implements Command<String, Object> {
+        private static final long serialVersionUID = 1L;
+        private final Exception exception;
+
+        FailingCommand(Exception exception) {
+            this.exception = exception;
+        }
+
+        @Override
+        public String execute(Object context) throws Exception {
+            throw this.exception;
+        }
+    }
+}
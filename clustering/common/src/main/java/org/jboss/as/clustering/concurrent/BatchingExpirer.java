@@ -0,0 +1,76 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.clustering.concurrent;
+
+import java.util.Collection;
+
+/**
+ * {@link ExpirationWheel.Expirer} that expires each item of a bucket within a batch of its own.
+ * A failure to expire one item therefore neither prevents the other items of the bucket from expiring,
+ * nor repeats the side effects of expiring them, e.g. notifying listeners, as retrying a shared batch would.
+ * @param <K> the item key type
+ * @param <B> the batch type
+ */
+public abstract class BatchingExpirer<K, B> implements ExpirationWheel.Expirer<K> {
+
+    @Override
+    public void expire(Collection<K> keys) {
+        for (K key: keys) {
+            B batch = this.startBatch();
+            boolean success = false;
+            try {
+                this.remove(key);
+                success = true;
+            } catch (RuntimeException e) {
+                this.failed(key, e);
+            } finally {
+                this.endBatch(batch, success);
+            }
+        }
+    }
+
+    /**
+     * Starts the batch within which a single item is expired.
+     * @return a batch
+     */
+    protected abstract B startBatch();
+
+    /**
+     * Ends the specified batch.
+     * @param batch a batch
+     * @param success true, if the batch should be committed, false if it should be discarded
+     */
+    protected abstract void endBatch(B batch, boolean success);
+
+    /**
+     * Removes the specified expired item.
+     * @param key the item key
+     */
+    protected abstract void remove(K key);
+
+    /**
+     * Invoked if the specified item could not be expired.
+     * @param key the item key
+     * @param exception the cause of the failure
+     */
+    protected abstract void failed(K key, RuntimeException exception);
+}
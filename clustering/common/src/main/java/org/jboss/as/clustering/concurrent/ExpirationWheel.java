@@ -0,0 +1,238 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.clustering.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coarse-grained expiration index, that groups items into time buckets and expires the items of a bucket in bulk.
+ * <p/>
+ * Instead of one scheduled task per item, a single task is scheduled for the earliest bucket.
+ * Rescheduling an item into the bucket it already belongs to only updates its index entry.
+ * Rescheduling an item into another bucket, or cancelling it, also removes it from its previous bucket;
+ * any stale bucket entries left behind by concurrent updates are skipped when their bucket expires.
+ * Items expire no earlier than requested, and at most one bucket width later.
+ * The bucket width is the configured resolution, narrowed for timeouts that are short relative to it.
+ * @param <K> the item key type
+ */
+public class ExpirationWheel<K> implements AutoCloseable {
+
+    /**
+     * Callback that expires a set of items.
+     * @param <K> the item key type
+     */
+    public interface Expirer<K> {
+        /**
+         * Expires the specified items.
+         * @param keys the keys of the expired items
+         */
+        void expire(Collection<K> keys);
+    }
+
+    // Short timeouts use buckets of at most 1/16th of the timeout
+    private static final int MIN_BUCKETS_PER_TIMEOUT = 16;
+
+    private final ConcurrentMap<K, Long> deadlines = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Set<K>> buckets = new ConcurrentSkipListMap<>();
+    private final ScheduledExecutorService executor;
+    private final long resolution;
+    private final Expirer<K> expirer;
+    private final Runnable task = new ExpirationTask();
+    private final Object expirationLock = new Object();
+
+    private volatile long nextExpiration = Long.MAX_VALUE;
+    private Future<?> future;
+    private boolean closed = false;
+
+    /**
+     * Creates a new expiration wheel.
+     * @param executor the executor used to schedule bucket expiration
+     * @param resolution the maximum width of a bucket
+     * @param unit the unit of the resolution
+     * @param expirer expires the items of a bucket
+     */
+    public ExpirationWheel(ScheduledExecutorService executor, long resolution, TimeUnit unit, Expirer<K> expirer) {
+        this.executor = executor;
+        this.resolution = Math.max(unit.toMillis(resolution), 1L);
+        this.expirer = expirer;
+    }
+
+    /**
+     * Schedules the specified item to expire after the specified timeout, replacing any previous schedule.
+     * @param key the item key
+     * @param timeout the timeout
+     * @param unit the unit of the timeout
+     */
+    public void schedule(K key, long timeout, TimeUnit unit) {
+        long timeoutMillis = unit.toMillis(timeout);
+        long width = Math.max(Math.min(this.resolution, timeoutMillis / MIN_BUCKETS_PER_TIMEOUT), 1L);
+        long expiration = currentTimeMillis() + timeoutMillis;
+        Long bucket = Long.valueOf(((expiration + width - 1) / width) * width);
+        Long previous = this.deadlines.put(key, bucket);
+        if (bucket.equals(previous)) {
+            // Still in the same bucket, which already contains this item
+            return;
+        }
+        if (previous != null) {
+            this.remove(key, previous);
+        }
+        this.add(key, bucket);
+    }
+
+    /**
+     * Cancels the expiration of the specified item.
+     * @param key the item key
+     * @return true, if the item was scheduled, false otherwise
+     */
+    public boolean cancel(K key) {
+        Long previous = this.deadlines.remove(key);
+        if (previous == null) {
+            return false;
+        }
+        this.remove(key, previous);
+        return true;
+    }
+
+    private void add(K key, Long bucket) {
+        Set<K> keys;
+        do {
+            keys = this.buckets.get(bucket);
+            if (keys == null) {
+                Set<K> newKeys = Collections.newSetFromMap(new ConcurrentHashMap<K, Boolean>());
+                keys = this.buckets.putIfAbsent(bucket, newKeys);
+                if (keys == null) {
+                    keys = newKeys;
+                }
+            }
+            keys.add(key);
+            // If the bucket was expired concurrently, add the item to a new bucket
+        } while (this.buckets.get(bucket) != keys);
+        if (bucket.longValue() < this.nextExpiration) {
+            this.reschedule();
+        }
+    }
+
+    private void remove(K key, Long bucket) {
+        Set<K> keys = this.buckets.get(bucket);
+        if ((keys != null) && keys.remove(key) && bucket.equals(this.deadlines.get(key))) {
+            // The item was concurrently rescheduled into this bucket, so add it back
+            this.add(key, bucket);
+        }
+    }
+
+    // Used for testing purposes only
+    int getBucketEntryCount() {
+        int count = 0;
+        for (Set<K> keys: this.buckets.values()) {
+            count += keys.size();
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            this.closed = true;
+            this.nextExpiration = Long.MIN_VALUE;
+            if (this.future != null) {
+                this.future.cancel(false);
+                this.future = null;
+            }
+        }
+        // Wait for any in-progress expiration
+        synchronized (this.expirationLock) {
+            this.deadlines.clear();
+            this.buckets.clear();
+        }
+    }
+
+    private synchronized void reschedule() {
+        if (this.closed) {
+            return;
+        }
+        Map.Entry<Long, Set<K>> first = this.buckets.firstEntry();
+        long expiration = (first != null) ? first.getKey().longValue() : Long.MAX_VALUE;
+        if ((this.future != null) && (expiration >= this.nextExpiration)) {
+            // Already scheduled in time
+            return;
+        }
+        if (this.future != null) {
+            this.future.cancel(false);
+            this.future = null;
+        }
+        this.nextExpiration = expiration;
+        if (first != null) {
+            this.future = this.executor.schedule(this.task, Math.max(expiration - currentTimeMillis(), 0L), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    static long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private class ExpirationTask implements Runnable {
+        @Override
+        public void run() {
+            ExpirationWheel<K> wheel = ExpirationWheel.this;
+            synchronized (wheel.expirationLock) {
+                synchronized (wheel) {
+                    if (wheel.closed) {
+                        return;
+                    }
+                    wheel.future = null;
+                }
+                long now = currentTimeMillis();
+                List<K> expired = new ArrayList<>();
+                Map.Entry<Long, Set<K>> entry = wheel.buckets.firstEntry();
+                while ((entry != null) && (entry.getKey().longValue() <= now)) {
+                    Long bucket = entry.getKey();
+                    wheel.buckets.remove(bucket, entry.getValue());
+                    for (K key: entry.getValue()) {
+                        // Skip items that were cancelled or moved to another bucket
+                        if (wheel.deadlines.remove(key, bucket)) {
+                            expired.add(key);
+                        }
+                    }
+                    entry = wheel.buckets.firstEntry();
+                }
+                try {
+                    if (!expired.isEmpty()) {
+                        wheel.expirer.expire(expired);
+                    }
+                } finally {
+                    wheel.reschedule();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.clustering.marshalling;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.Unmarshaller;
+import org.jboss.modules.ModuleLoader;
+
+/**
+ * Versioned marshalling configuration whose class table learns frequently marshalled classes.
+ * Once a class missing from the current class table was marshalled a given number of times, a new version of the class table,
+ * containing the classes of the current version followed by any such classes, is proposed to a {@link ClassTableRegistry}.
+ * Each registered version is retained, so that values marshalled using any prior version can still be unmarshalled.
+ * A registered class that cannot be loaded locally keeps its position in the class table, but only fails once a value
+ * referencing it is unmarshalled.
+ */
+public class AdaptiveMarshallingConfiguration implements VersionedMarshallingConfiguration, ClassTableRegistry.Listener {
+    /** The version of the initial class table */
+    public static final int INITIAL_VERSION = 1;
+    // Class identifiers are written as a single byte
+    private static final int MAX_CLASSES = 256;
+
+    private final ModuleLoader moduleLoader;
+    private final ClassLoader loader;
+    private final ClassTableRegistry registry;
+    private final int threshold;
+    private final Map<Integer, MarshallingConfiguration> configurations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, AtomicInteger> misses = new ConcurrentHashMap<>();
+    private final AtomicBoolean learning = new AtomicBoolean(false);
+    private volatile int currentVersion;
+    private volatile List<String> currentClassNames;
+
+    /**
+     * Creates a new adaptive marshalling configuration.
+     * @param moduleLoader the module loader used to resolve classes missing from the class table
+     * @param loader the class loader used to load the classes of registered class table versions
+     * @param registry the cluster-wide registry of class table versions
+     * @param threshold the number of times a class must be marshalled before it is added to the class table
+     * @param initialClasses the classes of the initial class table
+     */
+    public AdaptiveMarshallingConfiguration(ModuleLoader moduleLoader, ClassLoader loader, ClassTableRegistry registry, int threshold, Class<?>... initialClasses) {
+        this.moduleLoader = moduleLoader;
+        this.loader = loader;
+        this.registry = registry;
+        this.threshold = threshold;
+        List<String> initialClassNames = new ArrayList<>(initialClasses.length);
+        for (Class<?> initialClass: initialClasses) {
+            initialClassNames.add(initialClass.getName());
+        }
+        this.add(INITIAL_VERSION, initialClassNames, initialClasses);
+        // Catch up with the versions already registered by other members
+        for (int version = INITIAL_VERSION + 1; ; ++version) {
+            List<String> classNames = registry.getClassNames(version);
+            if (classNames == null) break;
+            this.add(version, classNames, this.loadClasses(classNames));
+        }
+    }
+
+    @Override
+    public int getCurrentMarshallingVersion() {
+        return this.currentVersion;
+    }
+
+    @Override
+    public MarshallingConfiguration getMarshallingConfiguration(int version) {
+        MarshallingConfiguration configuration = this.configurations.get(version);
+        if (configuration == null) {
+            // Value was marshalled by a member using a version we have not yet seen
+            List<String> classNames = (version > INITIAL_VERSION) ? this.registry.getClassNames(version) : null;
+            if (classNames == null) {
+                throw new IllegalArgumentException(Integer.toString(version));
+            }
+            configuration = this.add(version, classNames, this.loadClasses(classNames));
+        }
+        return configuration;
+    }
+
+    @Override
+    public void registered(int version, List<String> classNames) {
+        try {
+            if (classNames == null) {
+                // Registration failed, so resume learning once the threshold is reached again
+                this.misses.clear();
+            } else if (!this.configurations.containsKey(version)) {
+                this.add(version, classNames, this.loadClasses(classNames));
+            }
+        } finally {
+            this.learning.set(false);
+        }
+    }
+
+    private synchronized MarshallingConfiguration add(int version, List<String> classNames, Class<?>[] classes) {
+        MarshallingConfiguration configuration = this.configurations.get(version);
+        if (configuration == null) {
+            configuration = MarshallingConfigurationFactory.createMarshallingConfiguration(this.moduleLoader);
+            configuration.setClassTable(new LearningClassTable(classNames, classes));
+            this.configurations.put(version, configuration);
+        }
+        if (version > this.currentVersion) {
+            this.currentClassNames = Collections.unmodifiableList(new ArrayList<>(classNames));
+            this.currentVersion = version;
+            this.misses.clear();
+        }
+        return configuration;
+    }
+
+    // A class that cannot be loaded is replaced by a placeholder, so that the positions of all subsequent classes are preserved
+    private Class<?>[] loadClasses(List<String> classNames) {
+        Class<?>[] classes = new Class<?>[classNames.size()];
+        for (int i = 0; i < classes.length; ++i) {
+            try {
+                classes[i] = Class.forName(classNames.get(i), false, this.loader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                classes[i] = Unresolved.class;
+            }
+        }
+        return classes;
+    }
+
+    void missed(Class<?> targetClass) {
+        if (this.currentClassNames.size() >= MAX_CLASSES) return;
+        AtomicInteger count = this.misses.get(targetClass);
+        if (count == null) {
+            count = new AtomicInteger();
+            AtomicInteger existing = this.misses.putIfAbsent(targetClass, count);
+            if (existing != null) {
+                count = existing;
+            }
+        }
+        if ((count.incrementAndGet() >= this.threshold) && this.learning.compareAndSet(false, true)) {
+            this.learn();
+        }
+    }
+
+    private void learn() {
+        List<String> currentClassNames = this.currentClassNames;
+        int version = this.currentVersion;
+        List<String> classNames = new ArrayList<>(MAX_CLASSES);
+        classNames.addAll(currentClassNames);
+        for (Map.Entry<Class<?>, AtomicInteger> entry: this.misses.entrySet()) {
+            if (classNames.size() >= MAX_CLASSES) break;
+            Class<?> targetClass = entry.getKey();
+            if ((entry.getValue().get() >= this.threshold) && this.isLoadable(targetClass)) {
+                classNames.add(targetClass.getName());
+            }
+        }
+        if (classNames.size() > currentClassNames.size()) {
+            try {
+                this.registry.registerClassNames(version + 1, classNames, this);
+            } catch (RuntimeException e) {
+                this.learning.set(false);
+                throw e;
+            }
+        } else {
+            this.misses.clear();
+            this.learning.set(false);
+        }
+    }
+
+    // Only classes that other members can resolve by name can be added to the class table
+    private boolean isLoadable(Class<?> targetClass) {
+        try {
+            return Class.forName(targetClass.getName(), false, this.loader) == targetClass;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    // Placeholder for a registered class that cannot be loaded locally
+    private static final class Unresolved {
+    }
+
+    private class LearningClassTable extends SimpleClassTable {
+        private final List<String> classNames;
+        private final Class<?>[] classes;
+
+        LearningClassTable(List<String> classNames, Class<?>... classes) {
+            super(classes);
+            this.classNames = classNames;
+            this.classes = classes;
+        }
+
+        @Override
+        public Class<?> readClass(Unmarshaller unmarshaller) throws IOException {
+            int index = unmarshaller.readUnsignedByte();
+            Class<?> targetClass = this.classes[index];
+            if (targetClass == Unresolved.class) {
+                throw new InvalidClassException(this.classNames.get(index), "Class could not be loaded");
+            }
+            return targetClass;
+        }
+
+        @Override
+        public Writer getClassWriter(Class<?> targetClass) {
+            Writer writer = super.getClassWriter(targetClass);
+            if (writer == null) {
+                AdaptiveMarshallingConfiguration.this.missed(targetClass);
+            }
+            return writer;
+        }
+    }
+}
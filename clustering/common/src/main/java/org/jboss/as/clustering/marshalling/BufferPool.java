@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.clustering.marshalling;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of byte arrays, organized into power of two size classes, used to marshal values without allocating a buffer per marshal.
+ * Arrays larger than the largest size class are neither pooled nor retained.
+ */
+public class BufferPool {
+
+    public static final BufferPool INSTANCE = new BufferPool(9, 20, 4 << 20);
+
+    private final int minShift;
+    private final Queue<byte[]>[] buffers;
+    private final AtomicInteger[] counts;
+    private final int[] capacities;
+
+    /**
+     * Creates a new buffer pool.
+     * @param minShift the base 2 logarithm of the smallest size class
+     * @param maxShift the base 2 logarithm of the largest size class
+     * @param maxRetainedBytes the maximum number of bytes retained by each size class
+     */
+    @SuppressWarnings("unchecked")
+    public BufferPool(int minShift, int maxShift, int maxRetainedBytes) {
+        this.minShift = minShift;
+        int classes = maxShift - minShift + 1;
+        this.buffers = new Queue[classes];
+        this.counts = new AtomicInteger[classes];
+        this.capacities = new int[classes];
+        for (int i = 0; i < classes; ++i) {
+            this.buffers[i] = new ConcurrentLinkedQueue<>();
+            this.counts[i] = new AtomicInteger();
+            this.capacities[i] = Math.max(maxRetainedBytes >> (minShift + i), 1);
+        }
+    }
+
+    /**
+     * Obtains a buffer of at least the specified size.
+     * @param minSize the minimum size of the buffer
+     * @return a buffer, which should be returned to this pool via {@link #release(byte[])} when no longer needed
+     */
+    public byte[] acquire(int minSize) {
+        int index = this.index(minSize);
+        if (index >= this.buffers.length) {
+            return new byte[minSize];
+        }
+        byte[] buffer = this.buffers[index].poll();
+        if (buffer != null) {
+            this.counts[index].decrementAndGet();
+            return buffer;
+        }
+        return new byte[1 << (this.minShift + index)];
+    }
+
+    /**
+     * Returns the specified buffer to this pool.
+     * @param buffer a buffer obtained via {@link #acquire(int)}
+     */
+    public void release(byte[] buffer) {
+        int index = this.index(buffer.length);
+        // Only retain buffers that exactly fit a size class, and only up to the capacity of that class
+        if ((index < this.buffers.length) && (buffer.length == (1 << (this.minShift + index)))) {
+            if (this.counts[index].incrementAndGet() <= this.capacities[index]) {
+                this.buffers[index].offer(buffer);
+            } else {
+                this.counts[index].decrementAndGet();
+            }
+        }
+    }
+
+    private int index(int size) {
+        if (size <= (1 << this.minShift)) return 0;
+        // Number of bits needed to represent size - 1, i.e. ceil(log2(size))
+        return (Integer.SIZE - Integer.numberOfLeadingZeros(size - 1)) - this.minShift;
+    }
+}
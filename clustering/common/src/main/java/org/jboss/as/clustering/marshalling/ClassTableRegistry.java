@@ -0,0 +1,59 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.clustering.marshalling;
+
+import java.util.List;
+
+/**
+ * Cluster-wide registry of the versions of a learned class table.
+ * Each version is registered at most once, so that all members agree on the class identifiers of each version.
+ */
+public interface ClassTableRegistry {
+
+    /**
+     * Returns the names of the classes of the specified class table version.
+     * @param version a class table version
+     * @return a list of class names, or null, if no such version was registered
+     */
+    List<String> getClassNames(int version);
+
+    /**
+     * Asynchronously registers the names of the classes of the specified class table version, unless that version was already registered.
+     * The specified listener is notified of the class names of that version, as registered, only once that version is visible to all members.
+     * @param version a class table version
+     * @param classNames the proposed class names for this version
+     * @param listener the listener to notify once the version was registered
+     */
+    void registerClassNames(int version, List<String> classNames, Listener listener);
+
+    /**
+     * Listener notified of the registration of a class table version.
+     */
+    interface Listener {
+        /**
+         * Invoked once the specified class table version was registered.
+         * @param version a class table version
+         * @param classNames the registered class names of this version, or null, if registration failed
+         */
+        void registered(int version, List<String> classNames);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.clustering.marshalling;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.jboss.marshalling.ByteOutput;
+
+/**
+ * A byte output that writes into buffers obtained from a {@link BufferPool}.
+ * Closing this output returns its buffer to the pool, after which its content may no longer be accessed.
+ */
+public class PooledByteOutput extends OutputStream implements ByteOutput {
+
+    private final BufferPool pool;
+    private byte[] buffer;
+    private int size = 0;
+
+    public PooledByteOutput(BufferPool pool, int sizeHint) {
+        this.pool = pool;
+        this.buffer = pool.acquire(sizeHint);
+    }
+
+    @Override
+    public void write(int b) {
+        this.ensureCapacity(this.size + 1);
+        this.buffer[this.size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        this.ensureCapacity(this.size + length);
+        System.arraycopy(bytes, offset, this.buffer, this.size, length);
+        this.size += length;
+    }
+
+    /**
+     * Writes the specified int in big-endian order, as would {@link java.io.DataOutput#writeInt(int)}.
+     */
+    public void writeInt(int value) {
+        this.ensureCapacity(this.size + 4);
+        this.buffer[this.size++] = (byte) (value >>> 24);
+        this.buffer[this.size++] = (byte) (value >>> 16);
+        this.buffer[this.size++] = (byte) (value >>> 8);
+        this.buffer[this.size++] = (byte) value;
+    }
+
+    /**
+     * Returns the current buffer of this output, whose first {@link #size()} bytes were written.
+     */
+    public byte[] getBuffer() {
+        return this.buffer;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns a copy of the bytes written to this output.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.buffer, this.size);
+    }
+
+    @Override
+    public void close() {
+        byte[] buffer = this.buffer;
+        if (buffer != null) {
+            this.buffer = null;
+            this.pool.release(buffer);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new OutOfMemoryError();
+        }
+        if (capacity > this.buffer.length) {
+            byte[] buffer = this.pool.acquire(Math.max(capacity, (this.buffer.length << 1 > 0) ? this.buffer.length << 1 : Integer.MAX_VALUE));
+            System.arraycopy(this.buffer, 0, buffer, 0, this.size);
+            this.pool.release(this.buffer);
+            this.buffer = buffer;
+        }
+    }
+}
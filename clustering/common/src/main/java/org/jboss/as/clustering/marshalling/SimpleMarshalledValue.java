@@ -23,17 +23,16 @@
 package org.jboss.as.clustering.marshalling;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jboss.marshalling.Marshaller;
 import org.jboss.marshalling.Marshalling;
 import org.jboss.marshalling.SimpleDataInput;
-import org.jboss.marshalling.SimpleDataOutput;
 import org.jboss.marshalling.Unmarshaller;
 import org.wildfly.security.manager.WildFlySecurityManager;
 
@@ -45,6 +44,14 @@ import org.wildfly.security.manager.WildFlySecurityManager;
 public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingContext>, Externalizable {
     private static final long serialVersionUID = -8852566958387608376L;
 
+    // The size of the last marshalled form of each type, used to size the buffer of the next marshal
+    private static final ClassValue<AtomicInteger> SIZE_HINTS = new ClassValue<AtomicInteger>() {
+        @Override
+        protected AtomicInteger computeValue(Class<?> type) {
+            return new AtomicInteger(0);
+        }
+    };
+
     private transient volatile MarshallingContext context;
     private transient volatile T object;
     private transient volatile byte[] bytes;
@@ -67,17 +74,33 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
         byte[] bytes = this.bytes;
         if (bytes != null) return bytes;
         if (this.object == null) return null;
+        try (PooledByteOutput output = this.marshal()) {
+            return output.toByteArray();
+        }
+    }
+
+    /**
+     * Marshals the object of this marshalled value into a pooled buffer.
+     * @return an output containing the marshalled form of this object, which must be closed by the caller
+     */
+    private PooledByteOutput marshal() throws IOException {
+        T object = this.object;
+        AtomicInteger sizeHint = SIZE_HINTS.get(object.getClass());
         int version = this.context.getCurrentVersion();
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PooledByteOutput output = new PooledByteOutput(BufferPool.INSTANCE, sizeHint.get());
         ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
-        try (SimpleDataOutput data = new SimpleDataOutput(Marshalling.createByteOutput(output))) {
-            data.writeInt(version);
+        try {
+            output.writeInt(version);
             try (Marshaller marshaller = this.context.createMarshaller(version)) {
-                marshaller.start(data);
-                marshaller.writeObject(this.object);
+                marshaller.start(output);
+                marshaller.writeObject(object);
                 marshaller.finish();
-                return output.toByteArray();
             }
+            sizeHint.set(output.size());
+            return output;
+        } catch (IOException | RuntimeException | Error e) {
+            output.close();
+            throw e;
         } finally {
             setThreadContextClassLoader(loader);
         }
@@ -147,10 +170,16 @@ public class SimpleMarshalledValue<T> implements MarshalledValue<T, MarshallingC
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
-        byte[] bytes = this.getBytes();
+        byte[] bytes = this.bytes;
         if (bytes != null) {
             out.writeInt(bytes.length);
             out.write(bytes);
+        } else if (this.object != null) {
+            // Write directly from the pooled buffer, rather than from a copy
+            try (PooledByteOutput output = this.marshal()) {
+                out.writeInt(output.size());
+                out.write(output.getBuffer(), 0, output.size());
+            }
         } else {
             out.writeInt(0);
         }
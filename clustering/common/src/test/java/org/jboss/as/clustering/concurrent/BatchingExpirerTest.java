@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.clustering.concurrent;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BatchingExpirerTest {
+
+    @Test
+    public void failureDoesNotRepeatOtherItems() {
+        final List<String> removed = new ArrayList<>();
+        final List<String> failed = new ArrayList<>();
+        final List<Boolean> batches = new ArrayList<>();
+        ExpirationWheel.Expirer<String> expirer = new BatchingExpirer<String, String>() {
+            @Override
+            protected String startBatch() {
+                return "batch";
+            }
+
+            @Override
+            protected void endBatch(String batch, boolean success) {
+                batches.add(success);
+            }
+
+            @Override
+            protected void remove(String key) {
+                removed.add(key);
+                if (key.equals("b")) {
+                    throw new IllegalStateException();
+                }
+            }
+
+            @Override
+            protected void failed(String key, RuntimeException exception) {
+                assertTrue(exception instanceof IllegalStateException);
+                failed.add(key);
+            }
+        };
+
+        expirer.expire(Arrays.asList("a", "b", "c"));
+
+        // Each item is removed exactly once, within its own batch, and only the batch of the failed item is discarded
+        assertEquals(Arrays.asList("a", "b", "c"), removed);
+        assertEquals(Arrays.asList("b"), failed);
+        assertEquals(Arrays.asList(true, false, true), batches);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.clustering.concurrent;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ExpirationWheelTest {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final BlockingQueue<Collection<String>> expirations = new LinkedBlockingQueue<>();
+    private final ExpirationWheel<String> wheel = new ExpirationWheel<>(this.executor, 1, TimeUnit.SECONDS, new ExpirationWheel.Expirer<String>() {
+        @Override
+        public void expire(Collection<String> keys) {
+            ExpirationWheelTest.this.expirations.add(keys);
+        }
+    });
+
+    @After
+    public void destroy() {
+        this.wheel.close();
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void expireInBulk() throws InterruptedException {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 100; ++i) {
+            String key = String.valueOf(i);
+            keys.add(key);
+            this.wheel.schedule(key, 1, TimeUnit.SECONDS);
+        }
+
+        Set<String> expired = new HashSet<>();
+        while (expired.size() < keys.size()) {
+            Collection<String> bulk = this.expirations.poll(5, TimeUnit.SECONDS);
+            assertNotNull(bulk);
+            expired.addAll(bulk);
+        }
+        assertEquals(keys, expired);
+        assertNull(this.expirations.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void cancel() throws InterruptedException {
+        this.wheel.schedule("canceled", 10, TimeUnit.MILLISECONDS);
+        this.wheel.schedule("expired", 20, TimeUnit.MILLISECONDS);
+        assertTrue(this.wheel.cancel("canceled"));
+        assertFalse(this.wheel.cancel("unknown"));
+
+        Collection<String> bulk = this.expirations.poll(5, TimeUnit.SECONDS);
+        assertNotNull(bulk);
+        assertEquals(1, bulk.size());
+        assertTrue(bulk.contains("expired"));
+        assertNull(this.expirations.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void reschedule() throws InterruptedException {
+        long start = System.nanoTime();
+        this.wheel.schedule("key", 10, TimeUnit.MILLISECONDS);
+        this.wheel.schedule("key", 500, TimeUnit.MILLISECONDS);
+
+        Collection<String> bulk = this.expirations.poll(5, TimeUnit.SECONDS);
+        assertNotNull(bulk);
+        assertEquals(1, bulk.size());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 500);
+        assertNull(this.expirations.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void releaseBucketEntries() {
+        for (int i = 0; i < 100; ++i) {
+            this.wheel.schedule(String.valueOf(i), 1, TimeUnit.HOURS);
+        }
+        assertEquals(100, this.wheel.getBucketEntryCount());
+
+        // Rescheduling into another bucket moves the item
+        for (int i = 0; i < 100; ++i) {
+            this.wheel.schedule(String.valueOf(i), 2, TimeUnit.HOURS);
+        }
+        assertEquals(100, this.wheel.getBucketEntryCount());
+
+        for (int i = 0; i < 100; ++i) {
+            assertTrue(this.wheel.cancel(String.valueOf(i)));
+        }
+        assertEquals(0, this.wheel.getBucketEntryCount());
+    }
+
+    @Test
+    public void concurrentReschedule() throws Exception {
+        final List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 2; ++i) {
+            keys.add(String.valueOf(i));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; ++i) {
+                final Random random = new Random(i);
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        // Moves each item between many narrow buckets
+                        for (int j = 0; j < 2000; ++j) {
+                            String key = keys.get(random.nextInt(keys.size()));
+                            if (random.nextInt(10) == 0) {
+                                ExpirationWheelTest.this.wheel.cancel(key);
+                            }
+                            ExpirationWheelTest.this.wheel.schedule(key, 1000 + random.nextInt(100), TimeUnit.MILLISECONDS);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future: futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Each item still expires exactly once
+        List<String> expired = new ArrayList<>();
+        while (expired.size() < keys.size()) {
+            Collection<String> bulk = this.expirations.poll(5, TimeUnit.SECONDS);
+            assertNotNull(bulk);
+            expired.addAll(bulk);
+        }
+        assertEquals(keys.size(), expired.size());
+        assertEquals(new HashSet<>(keys), new HashSet<>(expired));
+        assertNull(this.expirations.poll(100, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.clustering.marshalling;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.marshalling.ClassTable;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.Unmarshaller;
+import org.jboss.modules.ModuleLoader;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link AdaptiveMarshallingConfiguration}.
+ */
+public class AdaptiveMarshallingConfigurationTestCase {
+    private final LocalClassTableRegistry registry = new LocalClassTableRegistry();
+
+    @Test
+    public void learn() throws IOException {
+        AdaptiveMarshallingConfiguration configuration = this.createConfiguration();
+        assertEquals(AdaptiveMarshallingConfiguration.INITIAL_VERSION, configuration.getCurrentMarshallingVersion());
+
+        ClassTable table = getClassTable(configuration, AdaptiveMarshallingConfiguration.INITIAL_VERSION);
+        assertNotNull(table.getClassWriter(Serializable.class));
+        assertNull(table.getClassWriter(ArrayList.class));
+        assertEquals(AdaptiveMarshallingConfiguration.INITIAL_VERSION, configuration.getCurrentMarshallingVersion());
+        assertNull(table.getClassWriter(ArrayList.class));
+
+        int version = AdaptiveMarshallingConfiguration.INITIAL_VERSION + 1;
+        assertEquals(version, configuration.getCurrentMarshallingVersion());
+        assertEquals(Arrays.asList(Serializable.class.getName(), Externalizable.class.getName(), ArrayList.class.getName()), this.registry.getClassNames(version));
+        assertNotNull(getClassTable(configuration, version).getClassWriter(ArrayList.class));
+    }
+
+    @Test
+    public void agree() throws IOException {
+        int version = AdaptiveMarshallingConfiguration.INITIAL_VERSION + 1;
+        this.registry.registerClassNames(version, Arrays.asList(Serializable.class.getName(), Externalizable.class.getName(), String.class.getName()), null);
+
+        // A new member adopts existing versions
+        AdaptiveMarshallingConfiguration configuration = this.createConfiguration();
+        assertEquals(version, configuration.getCurrentMarshallingVersion());
+
+        // A member proposing a conflicting version adopts the registered version instead
+        ClassTable table = getClassTable(configuration, version);
+        table.getClassWriter(ArrayList.class);
+        table.getClassWriter(ArrayList.class);
+        assertEquals(version + 1, configuration.getCurrentMarshallingVersion());
+
+        this.registry.registerClassNames(version + 2, Arrays.asList(Serializable.class.getName()), null);
+        // Versions registered by other members are resolved on demand
+        assertNotNull(configuration.getMarshallingConfiguration(version + 2));
+        assertEquals(version + 2, configuration.getCurrentMarshallingVersion());
+    }
+
+    @Test
+    public void unloadableClass() throws Exception {
+        int version = AdaptiveMarshallingConfiguration.INITIAL_VERSION + 1;
+        this.registry.registerClassNames(version, Arrays.asList(Serializable.class.getName(), Externalizable.class.getName(), Hidden.class.getName(), Visible.class.getName()), null);
+
+        // A member that cannot load one of the registered classes still adopts the version
+        ClassLoader loader = new HidingClassLoader(this.getClass().getClassLoader(), Hidden.class.getName());
+        AdaptiveMarshallingConfiguration hiding = new AdaptiveMarshallingConfiguration((ModuleLoader) null, loader, this.registry, 2, Serializable.class, Externalizable.class);
+        assertEquals(version, hiding.getCurrentMarshallingVersion());
+        AdaptiveMarshallingConfiguration configuration = this.createConfiguration();
+
+        // Classes following the unloadable class keep their position
+        assertTrue(unmarshal(configuration, version, marshal(hiding, version, new Visible())) instanceof Visible);
+        assertTrue(unmarshal(hiding, version, marshal(configuration, version, new Visible())) instanceof Visible);
+
+        // Only values referencing the unloadable class cannot be unmarshalled
+        try {
+            unmarshal(hiding, version, marshal(configuration, version, new Hidden()));
+            fail();
+        } catch (InvalidClassException e) {
+            assertEquals(Hidden.class.getName(), e.classname);
+        }
+
+        // Versions learned by this member retain the name of the unloadable class
+        ClassTable table = getClassTable(hiding, version);
+        table.getClassWriter(ArrayList.class);
+        table.getClassWriter(ArrayList.class);
+        assertEquals(version + 1, hiding.getCurrentMarshallingVersion());
+        assertEquals(Arrays.asList(Serializable.class.getName(), Externalizable.class.getName(), Hidden.class.getName(), Visible.class.getName(), ArrayList.class.getName()), this.registry.getClassNames(version + 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownVersion() {
+        this.createConfiguration().getMarshallingConfiguration(AdaptiveMarshallingConfiguration.INITIAL_VERSION + 1);
+    }
+
+    private AdaptiveMarshallingConfiguration createConfiguration() {
+        return new AdaptiveMarshallingConfiguration((ModuleLoader) null, this.getClass().getClassLoader(), this.registry, 2, Serializable.class, Externalizable.class);
+    }
+
+    private static ClassTable getClassTable(AdaptiveMarshallingConfiguration configuration, int version) {
+        return configuration.getMarshallingConfiguration(version).getClassTable();
+    }
+
+    private static byte[] marshal(AdaptiveMarshallingConfiguration configuration, int version, Object value) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (Marshaller marshaller = getMarshallerFactory().createMarshaller(configuration.getMarshallingConfiguration(version))) {
+            marshaller.start(Marshalling.createByteOutput(output));
+            marshaller.writeObject(value);
+            marshaller.finish();
+        }
+        return output.toByteArray();
+    }
+
+    private static Object unmarshal(AdaptiveMarshallingConfiguration configuration, int version, byte[] bytes) throws IOException, ClassNotFoundException {
+        try (Unmarshaller unmarshaller = getMarshallerFactory().createUnmarshaller(configuration.getMarshallingConfiguration(version))) {
+            unmarshaller.start(Marshalling.createByteInput(new ByteArrayInputStream(bytes)));
+            Object value = unmarshaller.readObject();
+            unmarshaller.finish();
+            return value;
+        }
+    }
+
+    private static MarshallerFactory getMarshallerFactory() {
+        return Marshalling.getProvidedMarshallerFactory("river");
+    }
+
+    static class Hidden implements Serializable {
+        private static final long serialVersionUID = 1L;
+    }
+
+    static class Visible implements Serializable {
+        private static final long serialVersionUID = 1L;
+    }
+
+    static class HidingClassLoader extends ClassLoader {
+        private final String hiddenClassName;
+
+        HidingClassLoader(ClassLoader parent, String hiddenClassName) {
+            super(parent);
+            this.hiddenClassName = hiddenClassName;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.equals(this.hiddenClassName)) {
+                throw new ClassNotFoundException(name);
+            }
+            return super.loadClass(name, resolve);
+        }
+    }
+
+    static class LocalClassTableRegistry implements ClassTableRegistry {
+        private final Map<Integer, List<String>> versions = new ConcurrentHashMap<>();
+
+        @Override
+        public List<String> getClassNames(int version) {
+            return this.versions.get(version);
+        }
+
+        @Override
+        public void registerClassNames(int version, List<String> classNames, Listener listener) {
+            List<String> existing = this.versions.get(version);
+            if (existing == null) {
+                this.versions.put(version, classNames);
+            }
+            if (listener != null) {
+                listener.registered(version, (existing != null) ? existing : classNames);
+            }
+        }
+    }
+}
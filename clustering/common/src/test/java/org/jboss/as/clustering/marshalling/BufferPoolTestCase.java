@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.clustering.marshalling;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link BufferPool} and {@link PooledByteOutput}.
+ */
+public class BufferPoolTestCase {
+    private final BufferPool pool = new BufferPool(4, 6, 64);
+
+    @Test
+    public void acquire() {
+        assertEquals(16, this.pool.acquire(0).length);
+        assertEquals(16, this.pool.acquire(16).length);
+        assertEquals(32, this.pool.acquire(17).length);
+        assertEquals(64, this.pool.acquire(64).length);
+        // Larger than the largest size class
+        assertEquals(65, this.pool.acquire(65).length);
+    }
+
+    @Test
+    public void release() {
+        byte[] buffer = this.pool.acquire(32);
+        this.pool.release(buffer);
+        assertSame(buffer, this.pool.acquire(32));
+
+        // Only 64 bytes are retained per size class
+        byte[] first = this.pool.acquire(64);
+        byte[] second = this.pool.acquire(64);
+        this.pool.release(first);
+        this.pool.release(second);
+        assertSame(first, this.pool.acquire(64));
+        assertNotSame(second, this.pool.acquire(64));
+    }
+
+    @Test
+    public void output() {
+        PooledByteOutput output = new PooledByteOutput(this.pool, 0);
+        output.writeInt(0x01020304);
+        for (int i = 0; i < 20; ++i) {
+            output.write(i);
+        }
+        assertEquals(24, output.size());
+        assertEquals(32, output.getBuffer().length);
+
+        byte[] bytes = output.toByteArray();
+        assertEquals(24, bytes.length);
+        assertArrayEquals(new byte[] { 1, 2, 3, 4, 0, 1 }, Arrays.copyOf(bytes, 6));
+
+        byte[] buffer = output.getBuffer();
+        output.close();
+        assertSame(buffer, this.pool.acquire(32));
+    }
+}
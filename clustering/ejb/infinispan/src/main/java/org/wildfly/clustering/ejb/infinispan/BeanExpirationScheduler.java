@@ -21,12 +21,10 @@
  */
 package org.wildfly.clustering.ejb.infinispan;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import org.jboss.as.clustering.concurrent.BatchingExpirer;
+import org.jboss.as.clustering.concurrent.ExpirationWheel;
 import org.jboss.as.clustering.concurrent.Scheduler;
 import org.wildfly.clustering.ejb.Batch;
 import org.wildfly.clustering.ejb.Batcher;
@@ -35,6 +33,7 @@ import org.wildfly.clustering.ejb.Time;
 
 /**
  * Schedules a bean for expiration.
+ * Beans are tracked in coarse-grained time buckets, and the beans of a bucket are removed together, each within its own batch.
  *
  * @author Paul Ferraro
  *
@@ -43,15 +42,20 @@ import org.wildfly.clustering.ejb.Time;
  * @param <T> the bean type
  */
 public class BeanExpirationScheduler<G, I, T> implements Scheduler<Bean<G, I, T>> {
-    final Map<I, Future<?>> expirationFutures = new ConcurrentHashMap<>();
+    // Beans expire at most this late
+    private static final long RESOLUTION = 1;
+    private static final TimeUnit RESOLUTION_UNIT = TimeUnit.SECONDS;
+
     final Batcher batcher;
     final BeanRemover<I, T> remover;
     final ExpirationConfiguration<T> expiration;
+    private final ExpirationWheel<I> wheel;
 
     public BeanExpirationScheduler(Batcher batcher, BeanRemover<I, T> remover, ExpirationConfiguration<T> expiration) {
         this.batcher = batcher;
         this.remover = remover;
         this.expiration = expiration;
+        this.wheel = new ExpirationWheel<>(expiration.getExecutor(), RESOLUTION, RESOLUTION_UNIT, new BeanExpirer());
     }
 
     @Override
@@ -62,66 +66,44 @@ public class BeanExpirationScheduler<G, I, T> implements Scheduler<Bean<G, I, T>
             I id = bean.getId();
             TimeUnit unit = timeout.getUnit();
             InfinispanEjbLogger.ROOT_LOGGER.tracef("Scheduling stateful session bean %s to expire in %d %s", id, value, unit);
-            ExpirationTask task = new ExpirationTask(id);
-            // Make sure the expiration future map insertion happens before map removal (during task execution).
-            synchronized (task) {
-                this.expirationFutures.put(id, this.expiration.getExecutor().schedule(task, value, unit));
-            }
+            this.wheel.schedule(id, value, unit);
         }
     }
 
     @Override
     public void cancel(Bean<G, I, T> group) {
-        Future<?> future = this.expirationFutures.remove(group.getId());
-        if (future != null) {
-            future.cancel(false);
-        }
+        this.wheel.cancel(group.getId());
     }
 
     @Override
     public void close() {
-        for (Future<?> future: this.expirationFutures.values()) {
-            future.cancel(false);
+        this.wheel.close();
+    }
+
+    private class BeanExpirer extends BatchingExpirer<I, Batch> {
+        @Override
+        protected Batch startBatch() {
+            return BeanExpirationScheduler.this.batcher.startBatch();
         }
-        for (Future<?> future: this.expirationFutures.values()) {
-            if (!future.isCancelled() && !future.isDone()) {
-                try {
-                    future.get();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                } catch (ExecutionException e) {
-                    // Ignore
-                }
+
+        @Override
+        protected void endBatch(Batch batch, boolean success) {
+            if (success) {
+                batch.close();
+            } else {
+                batch.discard();
             }
         }
-        this.expirationFutures.clear();
-    }
-
-    private class ExpirationTask implements Runnable {
-        private final I id;
 
-        public ExpirationTask(I id) {
-            this.id = id;
+        @Override
+        protected void remove(I id) {
+            InfinispanEjbLogger.ROOT_LOGGER.tracef("Expiring stateful session bean %s", id);
+            BeanExpirationScheduler.this.remover.remove(id, BeanExpirationScheduler.this.expiration.getRemoveListener());
         }
 
         @Override
-        public void run() {
-            synchronized (this) {
-                BeanExpirationScheduler.this.expirationFutures.remove(this.id);
-            }
-            InfinispanEjbLogger.ROOT_LOGGER.tracef("Expiring stateful session bean %s", this.id);
-            Batch batch = BeanExpirationScheduler.this.batcher.startBatch();
-            boolean success = false;
-            try {
-                BeanExpirationScheduler.this.remover.remove(this.id, BeanExpirationScheduler.this.expiration.getRemoveListener());
-                success = true;
-            } finally {
-                if (success) {
-                    batch.close();
-                } else {
-                    batch.discard();
-                }
-            }
+        protected void failed(I id, RuntimeException exception) {
+            InfinispanEjbLogger.ROOT_LOGGER.failedToExpireBean(exception, id);
         }
     }
 }
@@ -54,4 +54,8 @@ public interface InfinispanEjbLogger extends BasicLogger {
     @LogMessage(level = WARN)
     @Message(id = 10321, value = "Failed to passivate stateful session bean group %s")
     void failedToPassivateBeanGroup(@Cause Throwable cause, Object id);
+
+    @LogMessage(level = WARN)
+    @Message(id = 10322, value = "Failed to expire stateful session bean %s")
+    void failedToExpireBean(@Cause Throwable cause, Object id);
 }
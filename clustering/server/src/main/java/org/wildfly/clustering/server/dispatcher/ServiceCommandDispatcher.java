@@ -28,10 +28,12 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.jboss.as.clustering.jgroups.Addressable;
 import org.jgroups.Address;
@@ -40,10 +42,13 @@ import org.jgroups.blocks.MessageDispatcher;
 import org.jgroups.blocks.RequestOptions;
 import org.jgroups.blocks.ResponseMode;
 import org.jgroups.blocks.RspFilter;
+import org.jgroups.util.FutureListener;
 import org.jgroups.util.Rsp;
+import org.jgroups.util.RspList;
 import org.wildfly.clustering.dispatcher.Command;
 import org.wildfly.clustering.dispatcher.CommandDispatcher;
 import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
 import org.wildfly.clustering.group.Node;
 import org.wildfly.clustering.group.NodeFactory;
 
@@ -84,21 +89,78 @@ public abstract class ServiceCommandDispatcher<C> implements CommandDispatcher<C
         try {
             RequestOptions options = this.createRequestOptions(excludedNodes);
             Map<Address, Rsp<R>> responses = this.dispatcher.castMessage(null, this.createMessage(command), options);
-            if (responses == null) return Collections.emptyMap();
+            return this.createCommandResponses(responses);
+        } catch (Exception e) {
+            return Collections.emptyMap();
+        }
+    }
 
-            Map<Node, CommandResponse<R>> results = new HashMap<>();
-            for (Map.Entry<Address, Rsp<R>> entry: responses.entrySet()) {
-                Address address = entry.getKey();
-                Rsp<R> response = entry.getValue();
-                if (response.wasReceived()) {
-                    results.put(this.factory.createNode(address), createCommandResponse(response));
-                }
+    @Override
+    public <R> Future<Map<Node, CommandResponse<R>>> submitOnCluster(Command<R, C> command, final CommandResponseListener<R> listener, long timeout, TimeUnit unit, Node... excludedNodes) {
+        // Streams each response to the listener as it is received
+        RspFilter filter = new RspFilter() {
+            @Override
+            public boolean isAcceptable(Object response, Address sender) {
+                if (response instanceof NoSuchService) return false;
+                @SuppressWarnings("unchecked")
+                CommandResponse<R> result = (response instanceof Throwable) ? new SimpleCommandResponse<R>((Throwable) response) : new SimpleCommandResponse<>((R) response);
+                listener.responseReceived(ServiceCommandDispatcher.this.factory.createNode(sender), result);
+                return true;
             }
 
-            return results;
+            @Override
+            public boolean needMoreResponses() {
+                return true;
+            }
+        };
+        RequestOptions options = this.createRequestOptions(excludedNodes).setTimeout(unit.toMillis(timeout)).setRspFilter(filter);
+        ClusterResponseFuture<R> future = new ClusterResponseFuture<>(listener);
+        try {
+            future.setResponses(this.dispatcher.castMessageWithFuture(null, this.createMessage(command), options, future));
         } catch (Exception e) {
-            return Collections.emptyMap();
+            future.setResponses(new CompletedFuture<>(new RspList<R>()));
+        }
+        return future;
+    }
+
+    @Override
+    public <R> Future<R> submitOnNode(Command<R, C> command, final Node node, final CommandResponseListener<R> listener, long timeout, TimeUnit unit) {
+        FutureListener<R> futureListener = new FutureListener<R>() {
+            @Override
+            public void futureDone(Future<R> future) {
+                CommandResponse<R> response;
+                try {
+                    response = new SimpleCommandResponse<>(future.get());
+                } catch (ExecutionException e) {
+                    response = new SimpleCommandResponse<R>(e.getCause());
+                } catch (InterruptedException | CancellationException e) {
+                    response = new SimpleCommandResponse<R>(e);
+                }
+                listener.responseReceived(node, response);
+                listener.completed(Collections.singletonMap(node, response));
+            }
+        };
+        try {
+            return this.dispatcher.sendMessageWithFuture(this.createMessage(command, node), this.createRequestOptions().setTimeout(unit.toMillis(timeout)), futureListener);
+        } catch (Throwable e) {
+            SimpleFuture<R> future = new SimpleFuture<R>(e);
+            futureListener.futureDone(future);
+            return future;
+        }
+    }
+
+    <R> Map<Node, CommandResponse<R>> createCommandResponses(Map<Address, Rsp<R>> responses) {
+        if (responses == null) return Collections.emptyMap();
+
+        Map<Node, CommandResponse<R>> results = new HashMap<>();
+        for (Map.Entry<Address, Rsp<R>> entry: responses.entrySet()) {
+            Address address = entry.getKey();
+            Rsp<R> response = entry.getValue();
+            if (response.wasReceived()) {
+                results.put(this.factory.createNode(address), createCommandResponse(response));
+            }
         }
+        return results;
     }
 
     @Override
@@ -267,4 +329,96 @@ public abstract class ServiceCommandDispatcher<C> implements CommandDispatcher<C
             return this.get();
         }
     }
+
+    /**
+     * Aggregates the responses of a command submitted on the cluster, and notifies a listener on completion.
+     */
+    private class ClusterResponseFuture<R> implements Future<Map<Node, CommandResponse<R>>>, FutureListener<RspList<R>> {
+        private final CommandResponseListener<R> listener;
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+        private volatile Future<RspList<R>> responses;
+
+        ClusterResponseFuture(CommandResponseListener<R> listener) {
+            this.listener = listener;
+        }
+
+        void setResponses(Future<RspList<R>> responses) {
+            this.responses = responses;
+            // The request completes immediately if there are no recipients, in which case we may never be notified
+            if (responses.isDone()) {
+                this.futureDone(responses);
+            }
+        }
+
+        @Override
+        public void futureDone(Future<RspList<R>> future) {
+            if (this.completed.compareAndSet(false, true)) {
+                Map<Node, CommandResponse<R>> results;
+                try {
+                    results = createCommandResponses(future.get());
+                } catch (InterruptedException | ExecutionException | CancellationException e) {
+                    results = Collections.emptyMap();
+                }
+                this.listener.completed(results);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return this.responses.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return this.responses.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return this.responses.isDone();
+        }
+
+        @Override
+        public Map<Node, CommandResponse<R>> get() throws InterruptedException, ExecutionException {
+            return createCommandResponses(this.responses.get());
+        }
+
+        @Override
+        public Map<Node, CommandResponse<R>> get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return createCommandResponses(this.responses.get(timeout, unit));
+        }
+    }
+
+    private static class CompletedFuture<T> implements Future<T> {
+        private final T value;
+
+        CompletedFuture(T value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return true;
+        }
+
+        @Override
+        public T get() {
+            return this.value;
+        }
+
+        @Override
+        public T get(long timeout, TimeUnit unit) {
+            return this.value;
+        }
+    }
 }
@@ -22,11 +22,16 @@
 package org.wildfly.clustering.server.provider;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.infinispan.Cache;
 import org.infinispan.context.Flag;
@@ -185,9 +190,15 @@ public class ServiceProviderRegistrationFactoryService implements ServiceProvide
                         }
                     }
                     if (merged) {
+                        // Query all new members concurrently, rather than waiting for each response in turn
+                        Map<Node, Future<List<Object>>> futures = new HashMap<>();
                         for (Node node: newNodes) {
+                            futures.put(node, ServiceProviderRegistrationFactoryService.this.dispatcher.submitOnNode(new ServiceRegistryCommand(), node));
+                        }
+                        for (Map.Entry<Node, Future<List<Object>>> entry: futures.entrySet()) {
+                            Node node = entry.getKey();
                             // Re-assert services for new members following merge since these may have been lost following split
-                            List<Object> services = ServiceProviderRegistrationFactoryService.this.getServices(node);
+                            List<Object> services = getServices(entry.getValue());
                             for (Object service: services) {
                                 Set<Node> nodes = new HashSet<>(Collections.singleton(node));
                                 Set<Node> existing = cache.putIfAbsent(service, nodes);
@@ -215,10 +226,13 @@ public class ServiceProviderRegistrationFactoryService implements ServiceProvide
         }
     }
 
-    List<Object> getServices(Node node) {
+    static List<Object> getServices(Future<List<Object>> future) {
         try {
-            return this.dispatcher.executeOnNode(new ServiceRegistryCommand(), node).get();
-        } catch (Exception e) {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        } catch (ExecutionException | CancellationException e) {
             return Collections.emptyList();
         }
     }
@@ -0,0 +1,235 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.dispatcher;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jgroups.Address;
+import org.jgroups.Channel;
+import org.jgroups.Message;
+import org.jgroups.blocks.MessageDispatcher;
+import org.jgroups.blocks.RequestOptions;
+import org.jgroups.blocks.RspFilter;
+import org.jgroups.util.FutureListener;
+import org.jgroups.util.NotifyingFuture;
+import org.jgroups.util.Rsp;
+import org.jgroups.util.RspList;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wildfly.clustering.dispatcher.Command;
+import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
+import org.wildfly.clustering.group.Node;
+import org.wildfly.clustering.group.NodeFactory;
+
+/**
+ * Unit tests for the listener-based {@link ServiceCommandDispatcher#submitOnCluster(Command, CommandResponseListener, long, TimeUnit, Node...)}.
+ */
+public class ServiceCommandDispatcherTestCase {
+
+    private final MessageDispatcher dispatcher = mock(MessageDispatcher.class);
+    @SuppressWarnings("unchecked")
+    private final CommandMarshaller<Object> marshaller = mock(CommandMarshaller.class);
+    @SuppressWarnings("unchecked")
+    private final NodeFactory<Address> factory = mock(NodeFactory.class);
+    @SuppressWarnings("unchecked")
+    private final Command<String, Object> command = mock(Command.class);
+    private final Address address1 = mock(Address.class);
+    private final Address address2 = mock(Address.class);
+    private final Address address3 = mock(Address.class);
+    private final Node node1 = mock(Node.class);
+    private final Node node2 = mock(Node.class);
+    private final Node node3 = mock(Node.class);
+    private final RecordingListener<String> listener = new RecordingListener<>();
+    private final Request<String> request = new Request<>();
+    private ServiceCommandDispatcher<Object> subject;
+
+    @Before
+    public void init() throws Exception {
+        when(this.dispatcher.getChannel()).thenReturn(mock(Channel.class));
+        when(this.factory.createNode(this.address1)).thenReturn(this.node1);
+        when(this.factory.createNode(this.address2)).thenReturn(this.node2);
+        when(this.factory.createNode(this.address3)).thenReturn(this.node3);
+        doAnswer(this.request).when(this.dispatcher).castMessageWithFuture(Matchers.<Collection<Address>>any(), any(Message.class), any(RequestOptions.class), Matchers.<FutureListener<RspList<String>>>any());
+
+        this.subject = new ServiceCommandDispatcher<Object>(this.dispatcher, this.marshaller, this.factory, 60000L) {
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Test
+    public void responses() throws Exception {
+        Exception exception = new Exception();
+        RspList<String> responses = new RspList<>();
+        responses.put(this.address1, new Rsp<>(this.address1, "value"));
+        responses.put(this.address2, new Rsp<String>(this.address2, exception));
+        // The service is not registered on this node
+        responses.put(this.address3, new Rsp<String>(this.address3));
+        this.request.responses = future(responses);
+
+        Future<Map<Node, CommandResponse<String>>> future = this.subject.submitOnCluster(this.command, this.listener, 10, TimeUnit.SECONDS);
+
+        // Each response is streamed to the listener as it arrives
+        RspFilter filter = this.request.options.getRspFilter();
+        assertTrue(filter.isAcceptable("value", this.address1));
+        assertTrue(filter.isAcceptable(exception, this.address2));
+        assertFalse(filter.isAcceptable(new NoSuchService(), this.address3));
+        assertEquals(2, this.listener.received.size());
+        assertEquals("value", this.listener.received.get(this.node1).get());
+        assertSame(exception, getException(this.listener.received.get(this.node2)));
+        assertTrue(this.listener.completed.isEmpty());
+
+        // Once all responses arrived, the listener is notified only once
+        this.request.listener.futureDone(this.request.responses);
+        this.request.listener.futureDone(this.request.responses);
+        assertEquals(1, this.listener.completed.size());
+        assertResponses(exception, this.listener.completed.get(0));
+        assertResponses(exception, future.get());
+    }
+
+    @Test
+    public void timeout() throws Exception {
+        RspList<String> responses = new RspList<>();
+        responses.put(this.address1, new Rsp<>(this.address1, "value"));
+        // No response was received from this node before the timeout elapsed
+        responses.put(this.address2, new Rsp<String>(this.address2));
+        this.request.responses = future(responses);
+        when(this.request.responses.get(1, TimeUnit.MILLISECONDS)).thenThrow(new TimeoutException());
+
+        Future<Map<Node, CommandResponse<String>>> future = this.subject.submitOnCluster(this.command, this.listener, 2, TimeUnit.SECONDS);
+
+        assertEquals(2000L, this.request.options.getTimeout());
+        try {
+            future.get(1, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (TimeoutException e) {
+            assertTrue(this.listener.completed.isEmpty());
+        }
+
+        // The listener completes with the responses received before the timeout elapsed
+        this.request.listener.futureDone(this.request.responses);
+        assertEquals(1, this.listener.completed.size());
+        Map<Node, CommandResponse<String>> completed = this.listener.completed.get(0);
+        assertEquals(1, completed.size());
+        assertEquals("value", completed.get(this.node1).get());
+        assertEquals(completed.keySet(), future.get().keySet());
+    }
+
+    @Test
+    public void noRecipients() throws Exception {
+        this.request.responses = future(new RspList<String>());
+        when(this.request.responses.isDone()).thenReturn(true);
+
+        Future<Map<Node, CommandResponse<String>>> future = this.subject.submitOnCluster(this.command, this.listener, 10, TimeUnit.SECONDS);
+
+        // The request completed before the listener could be registered
+        assertEquals(1, this.listener.completed.size());
+        assertTrue(this.listener.completed.get(0).isEmpty());
+        assertTrue(future.get().isEmpty());
+    }
+
+    @Test
+    public void failure() throws Exception {
+        this.request.exception = new Exception();
+
+        Future<Map<Node, CommandResponse<String>>> future = this.subject.submitOnCluster(this.command, this.listener, 10, TimeUnit.SECONDS);
+
+        assertTrue(future.isDone());
+        assertTrue(future.get().isEmpty());
+        assertEquals(1, this.listener.completed.size());
+        assertTrue(this.listener.completed.get(0).isEmpty());
+    }
+
+    private void assertResponses(Exception exception, Map<Node, CommandResponse<String>> responses) throws ExecutionException {
+        assertEquals(2, responses.size());
+        assertEquals("value", responses.get(this.node1).get());
+        assertSame(exception, getException(responses.get(this.node2)));
+    }
+
+    private static Throwable getException(CommandResponse<?> response) {
+        try {
+            response.get();
+            throw new AssertionError();
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> NotifyingFuture<RspList<R>> future(RspList<R> responses) throws Exception {
+        NotifyingFuture<RspList<R>> future = mock(NotifyingFuture.class);
+        when(future.get()).thenReturn(responses);
+        return future;
+    }
+
+    /**
+     * Captures the request options and the completion listener of a request, and responds with the configured future.
+     */
+    static class Request<R> implements Answer<NotifyingFuture<RspList<R>>> {
+        volatile NotifyingFuture<RspList<R>> responses;
+        volatile Exception exception;
+        volatile RequestOptions options;
+        volatile FutureListener<RspList<R>> listener;
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public NotifyingFuture<RspList<R>> answer(InvocationOnMock invocation) throws Exception {
+            this.options = (RequestOptions) invocation.getArguments()[2];
+            this.listener = (FutureListener<RspList<R>>) invocation.getArguments()[3];
+            if (this.exception != null) {
+                throw this.exception;
+            }
+            return this.responses;
+        }
+    }
+
+    static class RecordingListener<R> implements CommandResponseListener<R> {
+        final Map<Node, CommandResponse<R>> received = new HashMap<>();
+        final List<Map<Node, CommandResponse<R>>> completed = new ArrayList<>();
+
+        @Override
+        public void responseReceived(Node node, CommandResponse<R> response) {
+            this.received.put(node, response);
+        }
+
+        @Override
+        public void completed(Map<Node, CommandResponse<R>> responses) {
+            this.completed.add(responses);
+        }
+    }
+}
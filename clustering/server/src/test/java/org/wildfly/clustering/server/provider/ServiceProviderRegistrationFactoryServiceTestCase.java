@@ -0,0 +1,78 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.server.provider;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the retrieval of the services of a member following a merge.
+ */
+public class ServiceProviderRegistrationFactoryServiceTestCase {
+
+    @Test
+    public void getServices() throws Exception {
+        Future<List<Object>> future = mockFuture();
+        List<Object> services = Collections.<Object>singletonList("service");
+        when(future.get()).thenReturn(services);
+        assertSame(services, ServiceProviderRegistrationFactoryService.getServices(future));
+    }
+
+    @Test
+    public void failed() throws Exception {
+        Future<List<Object>> future = mockFuture();
+        when(future.get()).thenThrow(new ExecutionException(new Exception()));
+        assertTrue(ServiceProviderRegistrationFactoryService.getServices(future).isEmpty());
+    }
+
+    @Test
+    public void cancelled() throws Exception {
+        Future<List<Object>> future = mockFuture();
+        when(future.get()).thenThrow(new CancellationException());
+        assertTrue(ServiceProviderRegistrationFactoryService.getServices(future).isEmpty());
+    }
+
+    @Test
+    public void interrupted() throws Exception {
+        Future<List<Object>> future = mockFuture();
+        when(future.get()).thenThrow(new InterruptedException());
+        try {
+            assertTrue(ServiceProviderRegistrationFactoryService.getServices(future).isEmpty());
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Future<List<Object>> mockFuture() {
+        return mock(Future.class);
+    }
+}
@@ -50,4 +50,8 @@ public interface InfinispanWebLogger extends BasicLogger {
     @LogMessage(level = WARN)
     @Message(id = 10321, value = "Failed to passivate attribute %2$s of session %1$s")
     void failedToPassivateSessionAttribute(@Cause Throwable cause, String sessionId, String attribute);
+
+    @LogMessage(level = WARN)
+    @Message(id = 10322, value = "Failed to expire session %s")
+    void failedToExpireSession(@Cause Throwable cause, String sessionId);
 }
@@ -0,0 +1,74 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.infinispan.Cache;
+import org.infinispan.context.Flag;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.jboss.as.clustering.marshalling.ClassTableRegistry;
+import org.wildfly.clustering.web.infinispan.InfinispanWebLogger;
+
+/**
+ * {@link ClassTableRegistry} that stores the versions of a class table in the session cache of a deployment.
+ * Versions are registered asynchronously, and thus outside of any batch of the registering thread.
+ * The registration itself is replicated synchronously, even if the cache is asynchronous, so that the primary owner
+ * decides which of several concurrently proposed class tables wins, and so that the registering member only starts
+ * using a version once all owners of that version store it.
+ */
+public class CacheClassTableRegistry implements ClassTableRegistry {
+
+    private final Cache<ClassTableCacheKey, List<String>> cache;
+
+    public CacheClassTableRegistry(Cache<ClassTableCacheKey, List<String>> cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public List<String> getClassNames(int version) {
+        return this.cache.get(new ClassTableCacheKey(version));
+    }
+
+    @Override
+    public void registerClassNames(final int version, final List<String> classNames, final Listener listener) {
+        FutureListener<List<String>> futureListener = new FutureListener<List<String>>() {
+            @Override
+            public void futureDone(Future<List<String>> future) {
+                try {
+                    List<String> existing = future.get();
+                    listener.registered(version, (existing != null) ? existing : classNames);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    listener.registered(version, null);
+                } catch (ExecutionException e) {
+                    InfinispanWebLogger.ROOT_LOGGER.debugf(e, "Failed to register version %d of session attribute class table", version);
+                    listener.registered(version, null);
+                }
+            }
+        };
+        this.cache.getAdvancedCache().withFlags(Flag.FORCE_SYNCHRONOUS).putIfAbsentAsync(new ClassTableCacheKey(version), new ArrayList<>(classNames)).attachListener(futureListener);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jboss.as.clustering.infinispan.invoker.Mutator;
+
+/**
+ * Mutator for a session cache entry that defers the replication of a changed last accessed time.
+ * The entry is only replicated if its meta data changed otherwise, if its last accessed time advanced beyond the configured
+ * fraction of the max inactive interval since it was last replicated, or if its set of attribute names changed.
+ */
+public class DeferredAccessMutator implements Mutator {
+
+    private final Mutator mutator;
+    private final SimpleSessionMetaData metaData;
+    private final float threshold;
+    private final Set<String> attributeNames;
+    private final Set<String> originalAttributeNames;
+
+    /**
+     * Creates a mutator for a session cache entry that contains only meta data.
+     */
+    public DeferredAccessMutator(Mutator mutator, SimpleSessionMetaData metaData, float threshold) {
+        this(mutator, metaData, threshold, null);
+    }
+
+    /**
+     * Creates a mutator for a session cache entry that contains meta data and the given, mutable, set of attribute names.
+     */
+    public DeferredAccessMutator(Mutator mutator, SimpleSessionMetaData metaData, float threshold, Set<String> attributeNames) {
+        this.mutator = mutator;
+        this.metaData = metaData;
+        this.threshold = threshold;
+        this.attributeNames = attributeNames;
+        this.originalAttributeNames = (attributeNames != null) ? new HashSet<>(attributeNames) : null;
+    }
+
+    @Override
+    public void mutate() {
+        if (!this.metaData.isReplicationDeferrable(this.threshold) || ((this.attributeNames != null) && !this.attributeNames.equals(this.originalAttributeNames))) {
+            this.mutator.mutate();
+            this.metaData.setReplicated();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.util.Arrays;
+
+import org.jboss.as.clustering.infinispan.invoker.Mutator;
+
+/**
+ * Mutator for a value that the application may modify in place.
+ * Instead of replicating the value whenever it is read, {@link #mutate()} records a fingerprint of the value,
+ * and {@link #flush()} replicates the value only if its fingerprint has since changed.
+ */
+public class DirtyCheckingMutator implements Mutator {
+
+    private final Mutator mutator;
+    private final Object value;
+    private final SessionAttributeFingerprinter fingerprinter;
+    private volatile byte[] fingerprint;
+
+    public DirtyCheckingMutator(Mutator mutator, Object value, SessionAttributeFingerprinter fingerprinter) {
+        this.mutator = mutator;
+        this.value = value;
+        this.fingerprinter = fingerprinter;
+    }
+
+    @Override
+    public synchronized void mutate() {
+        // Only the state of the value when first read matters
+        if (this.fingerprint == null) {
+            this.fingerprint = this.fingerprinter.fingerprint(this.value);
+        }
+    }
+
+    /**
+     * Replicates the value if it was modified since it was first read.
+     */
+    public synchronized void flush() {
+        byte[] fingerprint = this.fingerprint;
+        if (fingerprint != null) {
+            this.fingerprint = null;
+            if (!Arrays.equals(fingerprint, this.fingerprinter.fingerprint(this.value))) {
+                this.mutator.mutate();
+            }
+        }
+    }
+}
@@ -90,6 +90,9 @@ public class InfinispanSession<L> extends InfinispanImmutableSession implements
     @Override
     public void close() {
         if (this.valid.get()) {
+            if (this.attributes instanceof DeferredSessionAttributes) {
+                ((DeferredSessionAttributes) this.attributes).flush();
+            }
             this.metaData.setLastAccessedTime(new Date());
             this.mutator.mutate();
         }
@@ -318,13 +318,22 @@ public class InfinispanSessionManager<V, L> implements SessionManager<L>, KeyGen
         Set<Address> oldAddresses = new HashSet<>(oldHash.getMembers());
         // Find members that left this cache view
         oldAddresses.removeAll(newHash.getMembers());
-        if (!oldAddresses.isEmpty()) {
+        boolean deferred = this.factory.isMetaDataReplicationDeferred();
+        if (!oldAddresses.isEmpty() || deferred) {
             // Iterate over sessions in memory
             for (Object key: cache.getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL, Flag.SKIP_CACHE_LOAD, Flag.SKIP_LOCKING).keySet()) {
                 // Cache may contain non-string keys, so ignore any others
                 if (this.accept(key)) {
                     String sessionId = (String) key;
                     Address oldOwner = oldHash.locatePrimaryOwner(sessionId);
+                    // If we were the primary owner of this session, the new owner needs its deferred meta data to schedule its expiration
+                    if (deferred && localAddress.equals(oldOwner)) {
+                        Address newOwner = newHash.locatePrimaryOwner(sessionId);
+                        if (!localAddress.equals(newOwner)) {
+                            this.replicateDeferredMetaData(cache, sessionId, newOwner);
+                        }
+                        continue;
+                    }
                     // If the old owner of this session has left the cache view...
                     if (oldAddresses.contains(oldOwner)) {
                         Address newOwner = newHash.locatePrimaryOwner(sessionId);
@@ -356,6 +365,23 @@ public class InfinispanSessionManager<V, L> implements SessionManager<L>, KeyGen
         }
     }
 
+    private void replicateDeferredMetaData(Cache<String, ?> cache, String sessionId, Address newOwner) {
+        boolean started = cache.startBatch();
+        boolean success = false;
+        try {
+            V value = this.factory.findValue(sessionId);
+            if (value != null) {
+                InfinispanWebLogger.ROOT_LOGGER.tracef("Replicating deferred meta data of session %s to new owner: %s", sessionId, newOwner);
+                this.factory.replicateDeferredMetaData(sessionId, value);
+            }
+            success = true;
+        } finally {
+            if (started) {
+                cache.endBatch(success);
+            }
+        }
+    }
+
     static void triggerPrePassivationEvents(ImmutableSession session) {
         List<HttpSessionActivationListener> listeners = findListeners(session);
         if (!listeners.isEmpty()) {
@@ -21,17 +21,22 @@
  */
 package org.wildfly.clustering.web.infinispan.session;
 
+import java.io.Externalizable;
+import java.io.Serializable;
+import java.util.List;
 import java.util.Map;
 
 import org.infinispan.Cache;
 import org.jboss.as.clustering.infinispan.affinity.KeyAffinityServiceFactory;
 import org.jboss.as.clustering.infinispan.invoker.CacheInvoker;
 import org.jboss.as.clustering.infinispan.invoker.RetryingCacheInvoker;
+import org.jboss.as.clustering.marshalling.AdaptiveMarshallingConfiguration;
 import org.jboss.as.clustering.marshalling.MarshalledValue;
 import org.jboss.as.clustering.marshalling.MarshalledValueFactory;
 import org.jboss.as.clustering.marshalling.MarshallingContext;
 import org.jboss.as.clustering.marshalling.SimpleMarshalledValueFactory;
 import org.jboss.as.clustering.marshalling.SimpleMarshallingContextFactory;
+import org.jboss.as.clustering.marshalling.VersionedMarshallingConfiguration;
 import org.jboss.metadata.web.jboss.JBossWebMetaData;
 import org.jboss.modules.Module;
 import org.jboss.msc.inject.Injector;
@@ -59,6 +64,22 @@ import org.wildfly.clustering.web.session.SessionManagerFactory;
  */
 @SuppressWarnings("rawtypes")
 public class InfinispanSessionManagerFactory extends AbstractService<SessionManagerFactory> implements SessionManagerFactory {
+    /**
+     * Servlet context parameter that, if true, replicates mutable session attributes only if they were modified in place,
+     * rather than whenever they are read.
+     */
+    public static final String DIRTY_DETECTION_PARAMETER = "org.wildfly.clustering.web.session.dirty-detection";
+    /**
+     * Servlet context parameter specifying the fraction of the max inactive interval of a session by which its last accessed time
+     * must advance before it is replicated.  By default, the last accessed time is replicated on every request.
+     */
+    public static final String ACCESS_REPLICATION_THRESHOLD_PARAMETER = "org.wildfly.clustering.web.session.access-replication-threshold";
+    /**
+     * Servlet context parameter specifying the number of times a session attribute class must be marshalled
+     * before it is added to a class table shared by the cluster.  By default, the class table does not learn.
+     */
+    public static final String CLASS_TABLE_THRESHOLD_PARAMETER = "org.wildfly.clustering.web.session.class-table-threshold";
+
     private final Module module;
     private final JBossWebMetaData metaData;
     private final CacheInvoker invoker = new RetryingCacheInvoker(10, 100);
@@ -85,21 +106,26 @@ public class InfinispanSessionManagerFactory extends AbstractService<SessionMana
     }
 
     private <L> SessionFactory<?, L> getSessionFactory(SessionContext context, LocalContextFactory<L> localContextFactory) {
-        MarshallingContext marshallingContext = new SimpleMarshallingContextFactory().createMarshallingContext(new SessionAttributeMarshallingContext(this.module), this.module.getClassLoader());
+        String classTableThreshold = context.getServletContext().getInitParameter(CLASS_TABLE_THRESHOLD_PARAMETER);
+        VersionedMarshallingConfiguration configuration = (classTableThreshold != null) ? this.createAdaptiveMarshallingConfiguration(Integer.parseInt(classTableThreshold.trim())) : new SessionAttributeMarshallingContext(this.module);
+        MarshallingContext marshallingContext = new SimpleMarshallingContextFactory().createMarshallingContext(configuration, this.module.getClassLoader());
         MarshalledValueFactory<MarshallingContext> factory = new SimpleMarshalledValueFactory(marshallingContext);
+        SessionAttributeFingerprinter fingerprinter = Boolean.parseBoolean(context.getServletContext().getInitParameter(DIRTY_DETECTION_PARAMETER)) ? new SessionAttributeFingerprinter(marshallingContext) : null;
+        String threshold = context.getServletContext().getInitParameter(ACCESS_REPLICATION_THRESHOLD_PARAMETER);
+        float accessReplicationThreshold = (threshold != null) ? Float.parseFloat(threshold.trim()) : 0;
 
         switch (this.metaData.getReplicationConfig().getReplicationGranularity()) {
             case ATTRIBUTE: {
                 Cache<String, FineSessionCacheEntry<L>> sessionCache = this.cache.getValue();
                 Cache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> attributeCache = this.cache.getValue();
                 SessionAttributeMarshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller = new MarshalledValueSessionAttributeMarshaller<>(factory, marshallingContext);
-                return new FineSessionFactory<>(sessionCache, attributeCache, this.invoker, context, marshaller, localContextFactory);
+                return new FineSessionFactory<>(sessionCache, attributeCache, this.invoker, context, marshaller, localContextFactory, fingerprinter, accessReplicationThreshold);
             }
             case SESSION: {
                 Cache<String, CoarseSessionCacheEntry<L>> sessionCache = this.cache.getValue();
                 Cache<SessionAttributesCacheKey, MarshalledValue<Map<String, Object>, MarshallingContext>> attributesCache = this.cache.getValue();
                 SessionAttributeMarshaller<Map<String, Object>, MarshalledValue<Map<String, Object>, MarshallingContext>> marshaller = new MarshalledValueSessionAttributeMarshaller<>(factory, marshallingContext);
-                return new CoarseSessionFactory<>(sessionCache, attributesCache, this.invoker, context, marshaller, localContextFactory);
+                return new CoarseSessionFactory<>(sessionCache, attributesCache, this.invoker, context, marshaller, localContextFactory, fingerprinter, accessReplicationThreshold);
             }
             default: {
                 throw InfinispanWebMessages.MESSAGES.unknownReplicationGranularity(this.metaData.getReplicationConfig().getReplicationGranularity());
@@ -107,6 +133,12 @@ public class InfinispanSessionManagerFactory extends AbstractService<SessionMana
         }
     }
 
+    private VersionedMarshallingConfiguration createAdaptiveMarshallingConfiguration(int threshold) {
+        Cache<ClassTableCacheKey, List<String>> cache = this.cache.getValue();
+        // Starts with the same class table as SessionAttributeMarshallingContext
+        return new AdaptiveMarshallingConfiguration(this.module.getModuleLoader(), this.module.getClassLoader(), new CacheClassTableRegistry(cache), threshold, Serializable.class, Externalizable.class);
+    }
+
     Injector<NodeFactory> getNodeFactoryInjector() {
         return this.nodeFactory;
     }
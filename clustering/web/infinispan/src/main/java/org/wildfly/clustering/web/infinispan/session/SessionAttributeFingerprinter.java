@@ -0,0 +1,91 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.jboss.as.clustering.marshalling.MarshallingContext;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.Marshalling;
+import org.jboss.marshalling.SimpleDataOutput;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Computes a digest of the marshalled form of a session attribute value, used to detect whether a value was modified in place.
+ * The marshalled form is digested as it is written, so it is never buffered.
+ */
+public class SessionAttributeFingerprinter {
+    private static final String ALGORITHM = "SHA-1";
+
+    private final MarshallingContext context;
+
+    public SessionAttributeFingerprinter(MarshallingContext context) {
+        this.context = context;
+    }
+
+    public byte[] fingerprint(Object object) {
+        MessageDigest digest = createDigest();
+        int version = this.context.getCurrentVersion();
+        ClassLoader loader = setThreadContextClassLoader(this.context.getClassLoader());
+        try (SimpleDataOutput data = new SimpleDataOutput(Marshalling.createByteOutput(new DigestOutputStream(NullOutputStream.INSTANCE, digest)))) {
+            data.writeInt(version);
+            try (Marshaller marshaller = this.context.createMarshaller(version)) {
+                marshaller.start(data);
+                marshaller.writeObject(object);
+                marshaller.finish();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        } finally {
+            setThreadContextClassLoader(loader);
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ClassLoader setThreadContextClassLoader(ClassLoader loader) {
+        return (loader != null) ? WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(loader) : null;
+    }
+
+    private static class NullOutputStream extends OutputStream {
+        static final OutputStream INSTANCE = new NullOutputStream();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -22,14 +22,13 @@
 package org.wildfly.clustering.web.infinispan.session;
 
 import java.security.AccessController;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
+import org.jboss.as.clustering.concurrent.BatchingExpirer;
+import org.jboss.as.clustering.concurrent.ExpirationWheel;
 import org.jboss.as.clustering.concurrent.Scheduler;
 import org.jboss.as.clustering.infinispan.invoker.Remover;
 import org.jboss.threads.JBossThreadFactory;
@@ -42,14 +41,19 @@ import org.wildfly.security.manager.action.GetAccessControlContextAction;
 /**
  * Session expiration scheduler that eagerly expires sessions as soon as they are eligible.
  * If/When Infinispan implements expiration notifications (ISPN-694), this will be obsolete.
+ * Sessions are tracked in coarse-grained time buckets, and the sessions of a bucket are removed together, each within its own batch.
  * @author Paul Ferraro
  */
 public class SessionExpirationScheduler implements Scheduler<ImmutableSession> {
 
-    final Map<String, Future<?>> expirationFutures = new ConcurrentHashMap<>();
+    // Sessions expire at most this late
+    private static final long RESOLUTION = 1;
+    private static final TimeUnit RESOLUTION_UNIT = TimeUnit.SECONDS;
+
     final Batcher batcher;
     final Remover<String> remover;
     private final ScheduledExecutorService executor;
+    private final ExpirationWheel<String> wheel;
 
     public SessionExpirationScheduler(Batcher batcher, Remover<String> remover) {
         this(batcher, remover, createScheduledExecutor(createThreadFactory()));
@@ -69,14 +73,12 @@ public class SessionExpirationScheduler implements Scheduler<ImmutableSession> {
         this.batcher = batcher;
         this.remover = remover;
         this.executor = executor;
+        this.wheel = new ExpirationWheel<>(executor, RESOLUTION, RESOLUTION_UNIT, new SessionExpirer());
     }
 
     @Override
     public void cancel(ImmutableSession session) {
-        Future<?> future = this.expirationFutures.remove(session.getId());
-        if (future != null) {
-            future.cancel(false);
-        }
+        this.wheel.cancel(session.getId());
     }
 
     @Override
@@ -85,38 +87,40 @@ public class SessionExpirationScheduler implements Scheduler<ImmutableSession> {
         if (timeout > 0) {
             String id = session.getId();
             InfinispanWebLogger.ROOT_LOGGER.tracef("Session %s will expire in %d ms", id, timeout);
-            this.expirationFutures.put(id, this.executor.schedule(new ExpirationTask(id), timeout, TimeUnit.MILLISECONDS));
+            this.wheel.schedule(id, timeout, TimeUnit.MILLISECONDS);
         }
     }
 
     @Override
     public void close() {
+        this.wheel.close();
         this.executor.shutdown();
     }
 
-    private class ExpirationTask implements Runnable {
-        private final String id;
-
-        public ExpirationTask(String id) {
-            this.id = id;
+    private class SessionExpirer extends BatchingExpirer<String, Batch> {
+        @Override
+        protected Batch startBatch() {
+            return SessionExpirationScheduler.this.batcher.startBatch();
         }
 
         @Override
-        public void run() {
-            SessionExpirationScheduler.this.expirationFutures.remove(this.id);
-            InfinispanWebLogger.ROOT_LOGGER.tracef("Expiring session %s", this.id);
-            Batch batch = SessionExpirationScheduler.this.batcher.startBatch();
-            boolean success = false;
-            try {
-                SessionExpirationScheduler.this.remover.remove(this.id);
-                success = true;
-            } finally {
-                if (success) {
-                    batch.close();
-                } else {
-                    batch.discard();
-                }
+        protected void endBatch(Batch batch, boolean success) {
+            if (success) {
+                batch.close();
+            } else {
+                batch.discard();
             }
         }
+
+        @Override
+        protected void remove(String id) {
+            InfinispanWebLogger.ROOT_LOGGER.tracef("Expiring session %s", id);
+            SessionExpirationScheduler.this.remover.remove(id);
+        }
+
+        @Override
+        protected void failed(String id, RuntimeException exception) {
+            InfinispanWebLogger.ROOT_LOGGER.failedToExpireSession(exception, id);
+        }
     }
 }
@@ -35,4 +35,17 @@ import org.wildfly.clustering.web.session.Session;
 public interface SessionFactory<V, L> extends Creator<String, V>, Locator<String, V>, Remover<String>, Evictor<String> {
     Session<L> createSession(String id, V value);
     ImmutableSession createImmutableSession(String id, V value);
+
+    /**
+     * Indicates whether this factory defers the replication of session meta data changes.
+     * @return true, if meta data replication is deferred, false otherwise
+     */
+    boolean isMetaDataReplicationDeferred();
+
+    /**
+     * Replicates any meta data changes of the specified session whose replication was deferred.
+     * @param id a session identifier
+     * @param value the cache value of the session
+     */
+    void replicateDeferredMetaData(String id, V value);
 }
@@ -35,18 +35,54 @@ public class SimpleSessionMetaData implements SessionMetaData {
     private final Date creationTime;
     private volatile Date lastAccessedTime;
     private volatile Time maxInactiveInterval;
+    // The state of this meta data as of its last replication
+    private volatile Date replicatedLastAccessedTime;
+    private volatile Time replicatedMaxInactiveInterval;
 
     public SimpleSessionMetaData() {
         Date now = new Date();
         this.creationTime = now;
         this.lastAccessedTime = now;
         this.maxInactiveInterval = new Time(0, TimeUnit.MILLISECONDS);
+        this.setReplicated();
     }
 
     public SimpleSessionMetaData(Date creationTime, Date lastAccessedTime, Time maxInactiveInterval) {
         this.creationTime = creationTime;
         this.lastAccessedTime = lastAccessedTime;
         this.maxInactiveInterval = maxInactiveInterval;
+        this.setReplicated();
+    }
+
+    /**
+     * Indicates whether replication of this meta data can be deferred, i.e. whether it differs from its replicated state
+     * only by a last accessed time that is within the specified fraction of the max inactive interval of the replicated last accessed time.
+     * @param threshold a fraction of the max inactive interval
+     * @return true, if replication can be deferred, false otherwise
+     */
+    public boolean isReplicationDeferrable(float threshold) {
+        Time maxInactiveInterval = this.maxInactiveInterval;
+        if (!maxInactiveInterval.equals(this.replicatedMaxInactiveInterval)) return false;
+        long interval = maxInactiveInterval.convert(TimeUnit.MILLISECONDS);
+        // The last accessed time of a session that never expires is irrelevant
+        if (interval <= 0) return true;
+        return (this.lastAccessedTime.getTime() - this.replicatedLastAccessedTime.getTime()) < (long) (interval * threshold);
+    }
+
+    /**
+     * Indicates whether the current state of this meta data was replicated.
+     * @return true, if this meta data has no pending changes, false otherwise
+     */
+    public boolean isReplicated() {
+        return this.lastAccessedTime.equals(this.replicatedLastAccessedTime) && this.maxInactiveInterval.equals(this.replicatedMaxInactiveInterval);
+    }
+
+    /**
+     * Records the current state of this meta data as replicated.
+     */
+    public void setReplicated() {
+        this.replicatedLastAccessedTime = this.lastAccessedTime;
+        this.replicatedMaxInactiveInterval = this.maxInactiveInterval;
     }
 
     @Override
@@ -27,19 +27,32 @@ import org.jboss.as.clustering.infinispan.invoker.Mutator;
 import org.jboss.as.clustering.marshalling.MarshalledValue;
 import org.jboss.as.clustering.marshalling.MarshallingContext;
 import org.wildfly.clustering.web.infinispan.session.CacheMutator;
+import org.wildfly.clustering.web.infinispan.session.DeferredSessionAttributes;
+import org.wildfly.clustering.web.infinispan.session.DirtyCheckingMutator;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributeFingerprinter;
 import org.wildfly.clustering.web.infinispan.session.SessionAttributeMarshaller;
-import org.wildfly.clustering.web.session.SessionAttributes;
 
 /**
  * Exposes session attributes for a coarse granularity session.
  * @author Paul Ferraro
  */
-public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes implements SessionAttributes {
+public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes implements DeferredSessionAttributes {
     private final Mutator mutator;
+    private final SessionAttributeFingerprinter fingerprinter;
+    private volatile DirtyCheckingMutator accessMutator;
 
     public CoarseSessionAttributes(MarshalledValue<Map<String, Object>, MarshallingContext> attributes, SessionAttributeMarshaller<Map<String, Object>, MarshalledValue<Map<String, Object>, MarshallingContext>> marshaller, Mutator mutator) {
+        this(attributes, marshaller, mutator, null);
+    }
+
+    /**
+     * Creates session attributes that, if a fingerprinter is specified, replicate mutable attributes that were read
+     * only if the attributes were modified in place by the time the session is closed.
+     */
+    public CoarseSessionAttributes(MarshalledValue<Map<String, Object>, MarshallingContext> attributes, SessionAttributeMarshaller<Map<String, Object>, MarshalledValue<Map<String, Object>, MarshallingContext>> marshaller, Mutator mutator, SessionAttributeFingerprinter fingerprinter) {
         super(attributes, marshaller);
         this.mutator = mutator;
+        this.fingerprinter = fingerprinter;
     }
 
     @Override
@@ -61,8 +74,26 @@ public class CoarseSessionAttributes extends CoarseImmutableSessionAttributes im
     public Object getAttribute(String name) {
         Object value = super.getAttribute(name);
         if (CacheMutator.isMutable(value)) {
-            this.mutator.mutate();
+            this.getAccessMutator().mutate();
         }
         return value;
     }
+
+    @Override
+    public void flush() {
+        DirtyCheckingMutator mutator = this.accessMutator;
+        if (mutator != null) {
+            mutator.flush();
+        }
+    }
+
+    private Mutator getAccessMutator() {
+        if (this.fingerprinter == null) return this.mutator;
+        synchronized (this) {
+            if (this.accessMutator == null) {
+                this.accessMutator = new DirtyCheckingMutator(this.mutator, this.getAttributes(), this.fingerprinter);
+            }
+            return this.accessMutator;
+        }
+    }
 }
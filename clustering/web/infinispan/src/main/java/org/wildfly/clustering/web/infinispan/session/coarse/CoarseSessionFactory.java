@@ -33,8 +33,10 @@ import org.jboss.as.clustering.marshalling.MarshallingContext;
 import org.wildfly.clustering.web.LocalContextFactory;
 import org.wildfly.clustering.web.infinispan.InfinispanWebLogger;
 import org.wildfly.clustering.web.infinispan.session.CacheMutator;
+import org.wildfly.clustering.web.infinispan.session.DeferredAccessMutator;
 import org.wildfly.clustering.web.infinispan.session.InfinispanImmutableSession;
 import org.wildfly.clustering.web.infinispan.session.InfinispanSession;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributeFingerprinter;
 import org.wildfly.clustering.web.infinispan.session.SessionAttributeMarshaller;
 import org.wildfly.clustering.web.infinispan.session.SessionFactory;
 import org.wildfly.clustering.web.infinispan.session.SimpleSessionMetaData;
@@ -60,14 +62,27 @@ public class CoarseSessionFactory<L> implements SessionFactory<CoarseSessionEntr
     private final CacheInvoker invoker;
     private final SessionAttributeMarshaller<Map<String, Object>, MarshalledValue<Map<String, Object>, MarshallingContext>> marshaller;
     private final LocalContextFactory<L> localContextFactory;
+    private final SessionAttributeFingerprinter fingerprinter;
+    private final float accessReplicationThreshold;
 
     public CoarseSessionFactory(Cache<String, CoarseSessionCacheEntry<L>> sessionCache, Cache<SessionAttributesCacheKey, MarshalledValue<Map<String, Object>, MarshallingContext>> attributesCache, CacheInvoker invoker, SessionContext context, SessionAttributeMarshaller<Map<String, Object>, MarshalledValue<Map<String, Object>, MarshallingContext>> marshaller, LocalContextFactory<L> localContextFactory) {
+        this(sessionCache, attributesCache, invoker, context, marshaller, localContextFactory, null, 0);
+    }
+
+    /**
+     * Creates a session factory whose sessions, if a fingerprinter is specified, replicate mutable attributes only if they were modified in place,
+     * and, if a positive access replication threshold is specified, defer the replication of their last accessed time
+     * until it advances beyond that fraction of their max inactive interval.
+     */
+    public CoarseSessionFactory(Cache<String, CoarseSessionCacheEntry<L>> sessionCache, Cache<SessionAttributesCacheKey, MarshalledValue<Map<String, Object>, MarshallingContext>> attributesCache, CacheInvoker invoker, SessionContext context, SessionAttributeMarshaller<Map<String, Object>, MarshalledValue<Map<String, Object>, MarshallingContext>> marshaller, LocalContextFactory<L> localContextFactory, SessionAttributeFingerprinter fingerprinter, float accessReplicationThreshold) {
         this.sessionCache = sessionCache;
         this.attributesCache = attributesCache;
         this.invoker = invoker;
         this.context = context;
         this.marshaller = marshaller;
         this.localContextFactory = localContextFactory;
+        this.fingerprinter = fingerprinter;
+        this.accessReplicationThreshold = accessReplicationThreshold;
     }
 
     @Override
@@ -76,8 +91,11 @@ public class CoarseSessionFactory<L> implements SessionFactory<CoarseSessionEntr
         SessionMetaData metaData = cacheEntry.getMetaData();
         MarshalledValue<Map<String, Object>, MarshallingContext> value = entry.getAttributes();
         Mutator attributesMutator = metaData.isNew() ? Mutator.PASSIVE : new CacheMutator<>(this.attributesCache, this.invoker, new SessionAttributesCacheKey(id), value, Flag.SKIP_LOCKING);
-        SessionAttributes attributes = new CoarseSessionAttributes(value, this.marshaller, attributesMutator);
+        SessionAttributes attributes = new CoarseSessionAttributes(value, this.marshaller, attributesMutator, this.fingerprinter);
         Mutator sessionMutator = metaData.isNew() ? Mutator.PASSIVE : new CacheMutator<>(this.sessionCache, this.invoker, id, cacheEntry);
+        if (this.isMetaDataReplicationDeferred()) {
+            sessionMutator = new DeferredAccessMutator(sessionMutator, (SimpleSessionMetaData) metaData, this.accessReplicationThreshold);
+        }
         return new InfinispanSession<>(id, metaData, attributes, cacheEntry.getLocalContext(), this.localContextFactory, this.context, sessionMutator, this);
     }
 
@@ -90,6 +108,21 @@ public class CoarseSessionFactory<L> implements SessionFactory<CoarseSessionEntr
         return new InfinispanImmutableSession(id, metaData, attributes, this.context);
     }
 
+    @Override
+    public boolean isMetaDataReplicationDeferred() {
+        return this.accessReplicationThreshold > 0;
+    }
+
+    @Override
+    public void replicateDeferredMetaData(String id, CoarseSessionEntry<L> entry) {
+        CoarseSessionCacheEntry<L> cacheEntry = entry.getCacheEntry();
+        SimpleSessionMetaData metaData = (SimpleSessionMetaData) cacheEntry.getMetaData();
+        if (!metaData.isReplicated()) {
+            new CacheMutator<>(this.sessionCache, this.invoker, id, cacheEntry).mutate();
+            metaData.setReplicated();
+        }
+    }
+
     @Override
     public CoarseSessionEntry<L> createValue(String id) {
         CoarseSessionCacheEntry<L> cacheEntry = new CoarseSessionCacheEntry<>(new SimpleSessionMetaData());
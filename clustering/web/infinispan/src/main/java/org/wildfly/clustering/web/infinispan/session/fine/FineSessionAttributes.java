@@ -21,37 +21,55 @@
  */
 package org.wildfly.clustering.web.infinispan.session.fine;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.infinispan.Cache;
 import org.infinispan.context.Flag;
 import org.jboss.as.clustering.infinispan.invoker.CacheInvoker;
+import org.jboss.as.clustering.infinispan.invoker.Mutator;
 import org.jboss.as.clustering.infinispan.invoker.Remover;
 import org.jboss.as.clustering.infinispan.invoker.CacheInvoker.Operation;
 import org.wildfly.clustering.web.infinispan.session.CacheMutator;
+import org.wildfly.clustering.web.infinispan.session.DeferredSessionAttributes;
+import org.wildfly.clustering.web.infinispan.session.DirtyCheckingMutator;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributeFingerprinter;
 import org.wildfly.clustering.web.infinispan.session.SessionAttributeMarshaller;
-import org.wildfly.clustering.web.session.SessionAttributes;
 
 /**
  * Exposes session attributes for fine granularity sessions.
  * @author Paul Ferraro
  */
-public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V> implements SessionAttributes {
+public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V> implements DeferredSessionAttributes {
     private final Set<String> attributes;
     private final Cache<SessionAttributeCacheKey, V> cache;
     private final CacheInvoker invoker;
     private final SessionAttributeMarshaller<Object, V> marshaller;
+    private final SessionAttributeFingerprinter fingerprinter;
+    // Mutators of the mutable attributes read through this session, keyed by attribute name
+    private final Map<String, DirtyCheckingMutator> mutators = new ConcurrentHashMap<>();
 
     public FineSessionAttributes(String id, Set<String> attributes, Cache<SessionAttributeCacheKey, V> attributeCache, CacheInvoker invoker, SessionAttributeMarshaller<Object, V> marshaller) {
+        this(id, attributes, attributeCache, invoker, marshaller, null);
+    }
+
+    /**
+     * Creates session attributes that, if a fingerprinter is specified, replicate only those mutable attributes
+     * that were modified in place by the time the session is closed.
+     */
+    public FineSessionAttributes(String id, Set<String> attributes, Cache<SessionAttributeCacheKey, V> attributeCache, CacheInvoker invoker, SessionAttributeMarshaller<Object, V> marshaller, SessionAttributeFingerprinter fingerprinter) {
         super(id, attributes, attributeCache, invoker, marshaller);
         this.attributes = attributes;
         this.cache = attributeCache;
         this.invoker = invoker;
         this.marshaller = marshaller;
+        this.fingerprinter = fingerprinter;
     }
 
     @Override
     public Object removeAttribute(String name) {
+        this.mutators.remove(name);
         return this.attributes.remove(name) ? this.marshaller.read(this.invoker.invoke(this.cache, new Remover.RemoveOperation<SessionAttributeCacheKey, V>(this.createKey(name)), Flag.SKIP_LOCKING)) : null;
     }
 
@@ -60,6 +78,7 @@ public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V>
         if (attribute == null) {
             return this.removeAttribute(name);
         }
+        this.mutators.remove(name);
         final SessionAttributeCacheKey key = this.createKey(name);
         final V value = this.marshaller.write(attribute);
         Operation<SessionAttributeCacheKey, V, V> operation = new Operation<SessionAttributeCacheKey, V, V>() {
@@ -79,8 +98,28 @@ public class FineSessionAttributes<V> extends FineImmutableSessionAttributes<V>
         Object attribute = this.marshaller.read(value);
         // If the object is mutable, we need to indicate that the attribute should be replicated
         if (CacheMutator.isMutable(attribute)) {
-            new CacheMutator<>(this.cache, this.invoker, key, value, Flag.SKIP_LOCKING).mutate();
+            Mutator mutator = new CacheMutator<>(this.cache, this.invoker, key, value, Flag.SKIP_LOCKING);
+            if (this.fingerprinter != null) {
+                DirtyCheckingMutator dirtyCheckingMutator = this.mutators.get(name);
+                if (dirtyCheckingMutator == null) {
+                    dirtyCheckingMutator = new DirtyCheckingMutator(mutator, attribute, this.fingerprinter);
+                    DirtyCheckingMutator existing = this.mutators.putIfAbsent(name, dirtyCheckingMutator);
+                    if (existing != null) {
+                        dirtyCheckingMutator = existing;
+                    }
+                }
+                mutator = dirtyCheckingMutator;
+            }
+            mutator.mutate();
         }
         return attribute;
     }
+
+    @Override
+    public void flush() {
+        for (DirtyCheckingMutator mutator: this.mutators.values()) {
+            mutator.flush();
+        }
+        this.mutators.clear();
+    }
 }
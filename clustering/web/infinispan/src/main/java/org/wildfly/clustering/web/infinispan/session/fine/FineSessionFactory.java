@@ -31,8 +31,10 @@ import org.jboss.as.clustering.marshalling.MarshallingContext;
 import org.wildfly.clustering.web.LocalContextFactory;
 import org.wildfly.clustering.web.infinispan.InfinispanWebLogger;
 import org.wildfly.clustering.web.infinispan.session.CacheMutator;
+import org.wildfly.clustering.web.infinispan.session.DeferredAccessMutator;
 import org.wildfly.clustering.web.infinispan.session.InfinispanImmutableSession;
 import org.wildfly.clustering.web.infinispan.session.InfinispanSession;
+import org.wildfly.clustering.web.infinispan.session.SessionAttributeFingerprinter;
 import org.wildfly.clustering.web.infinispan.session.SessionAttributeMarshaller;
 import org.wildfly.clustering.web.infinispan.session.SessionFactory;
 import org.wildfly.clustering.web.infinispan.session.SimpleSessionMetaData;
@@ -58,21 +60,37 @@ public class FineSessionFactory<L> implements SessionFactory<FineSessionCacheEnt
     private final SessionContext context;
     private final SessionAttributeMarshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller;
     private final LocalContextFactory<L> localContextFactory;
+    private final SessionAttributeFingerprinter fingerprinter;
+    private final float accessReplicationThreshold;
 
     public FineSessionFactory(Cache<String, FineSessionCacheEntry<L>> sessionCache, Cache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> attributeCache, CacheInvoker invoker, SessionContext context, SessionAttributeMarshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller, LocalContextFactory<L> localContextFactory) {
+        this(sessionCache, attributeCache, invoker, context, marshaller, localContextFactory, null, 0);
+    }
+
+    /**
+     * Creates a session factory whose sessions, if a fingerprinter is specified, replicate mutable attributes only if they were modified in place,
+     * and, if a positive access replication threshold is specified, defer the replication of their last accessed time
+     * until it advances beyond that fraction of their max inactive interval.
+     */
+    public FineSessionFactory(Cache<String, FineSessionCacheEntry<L>> sessionCache, Cache<SessionAttributeCacheKey, MarshalledValue<Object, MarshallingContext>> attributeCache, CacheInvoker invoker, SessionContext context, SessionAttributeMarshaller<Object, MarshalledValue<Object, MarshallingContext>> marshaller, LocalContextFactory<L> localContextFactory, SessionAttributeFingerprinter fingerprinter, float accessReplicationThreshold) {
         this.sessionCache = sessionCache;
         this.attributeCache = attributeCache;
         this.invoker = invoker;
         this.context = context;
         this.marshaller = marshaller;
         this.localContextFactory = localContextFactory;
+        this.fingerprinter = fingerprinter;
+        this.accessReplicationThreshold = accessReplicationThreshold;
     }
 
     @Override
     public Session<L> createSession(String id, FineSessionCacheEntry<L> entry) {
         SessionMetaData metaData = entry.getMetaData();
         Mutator mutator = metaData.isNew() ? Mutator.PASSIVE : new CacheMutator<>(this.sessionCache, this.invoker, id, entry);
-        SessionAttributes attributes = new FineSessionAttributes<>(id, entry.getAttributes(), this.attributeCache, this.invoker, this.marshaller);
+        if (this.isMetaDataReplicationDeferred()) {
+            mutator = new DeferredAccessMutator(mutator, (SimpleSessionMetaData) metaData, this.accessReplicationThreshold, entry.getAttributes());
+        }
+        SessionAttributes attributes = new FineSessionAttributes<>(id, entry.getAttributes(), this.attributeCache, this.invoker, this.marshaller, this.fingerprinter);
         return new InfinispanSession<>(id, entry.getMetaData(), attributes, entry.getLocalContext(), this.localContextFactory, this.context, mutator, this);
     }
 
@@ -82,6 +100,20 @@ public class FineSessionFactory<L> implements SessionFactory<FineSessionCacheEnt
         return new InfinispanImmutableSession(id, entry.getMetaData(), attributes, this.context);
     }
 
+    @Override
+    public boolean isMetaDataReplicationDeferred() {
+        return this.accessReplicationThreshold > 0;
+    }
+
+    @Override
+    public void replicateDeferredMetaData(String id, FineSessionCacheEntry<L> entry) {
+        SimpleSessionMetaData metaData = (SimpleSessionMetaData) entry.getMetaData();
+        if (!metaData.isReplicated()) {
+            new CacheMutator<>(this.sessionCache, this.invoker, id, entry).mutate();
+            metaData.setReplicated();
+        }
+    }
+
     @Override
     public FineSessionCacheEntry<L> findValue(String id) {
         return this.invoker.invoke(this.sessionCache, new FindOperation<String, FineSessionCacheEntry<L>>(id));
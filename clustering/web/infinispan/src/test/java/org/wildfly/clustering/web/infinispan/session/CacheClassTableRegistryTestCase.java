@@ -0,0 +1,155 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.Cache;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+import org.infinispan.context.Flag;
+import org.jboss.as.clustering.marshalling.ClassTableRegistry;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class CacheClassTableRegistryTestCase {
+
+    @Test
+    public void concurrentRegistration() throws Exception {
+        // Stands in for the primary owner of each class table version, which decides between concurrent registrations
+        ConcurrentMap<ClassTableCacheKey, List<String>> owner = new ConcurrentHashMap<>();
+        Cache<ClassTableCacheKey, List<String>> cache1 = mock(Cache.class);
+        Cache<ClassTableCacheKey, List<String>> cache2 = mock(Cache.class);
+        AdvancedCache<ClassTableCacheKey, List<String>> syncCache1 = mockMember(cache1, owner);
+        AdvancedCache<ClassTableCacheKey, List<String>> syncCache2 = mockMember(cache2, owner);
+        final ClassTableRegistry registry1 = new CacheClassTableRegistry(cache1);
+        final ClassTableRegistry registry2 = new CacheClassTableRegistry(cache2);
+        final List<String> classNames1 = Arrays.asList("java.io.Serializable", "java.lang.String");
+        final List<String> classNames2 = Arrays.asList("java.io.Serializable", "java.util.Date");
+        final RecordingListener listener1 = new RecordingListener();
+        final RecordingListener listener2 = new RecordingListener();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<Void> registration1 = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    registry1.registerClassNames(2, classNames1, listener1);
+                    return null;
+                }
+            });
+            Future<Void> registration2 = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    registry2.registerClassNames(2, classNames2, listener2);
+                    return null;
+                }
+            });
+            start.countDown();
+            registration1.get(10, TimeUnit.SECONDS);
+            registration2.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        // Both members must agree on the class identifiers of the version, whichever proposal won
+        List<String> registered = owner.get(new ClassTableCacheKey(2));
+        assertTrue(registered.equals(classNames1) || registered.equals(classNames2));
+        assertEquals(registered, listener1.classNames);
+        assertEquals(registered, listener2.classNames);
+        assertEquals(registered, registry1.getClassNames(2));
+        assertEquals(registered, registry2.getClassNames(2));
+
+        // Registration must not complete before all owners store the version, even if the cache is asynchronous
+        verify(cache1, never()).putIfAbsentAsync(any(ClassTableCacheKey.class), any(List.class));
+        verify(cache2, never()).putIfAbsentAsync(any(ClassTableCacheKey.class), any(List.class));
+        verify(syncCache1).putIfAbsentAsync(new ClassTableCacheKey(2), classNames1);
+        verify(syncCache2).putIfAbsentAsync(new ClassTableCacheKey(2), classNames2);
+    }
+
+    private static AdvancedCache<ClassTableCacheKey, List<String>> mockMember(Cache<ClassTableCacheKey, List<String>> cache, final ConcurrentMap<ClassTableCacheKey, List<String>> owner) {
+        AdvancedCache<ClassTableCacheKey, List<String>> advancedCache = mock(AdvancedCache.class);
+        AdvancedCache<ClassTableCacheKey, List<String>> syncCache = mock(AdvancedCache.class);
+        when(cache.getAdvancedCache()).thenReturn(advancedCache);
+        when(advancedCache.withFlags(Flag.FORCE_SYNCHRONOUS)).thenReturn(syncCache);
+        when(cache.get(any())).thenAnswer(new Answer<List<String>>() {
+            @Override
+            public List<String> answer(InvocationOnMock invocation) {
+                return owner.get(invocation.getArguments()[0]);
+            }
+        });
+        when(syncCache.putIfAbsentAsync(any(ClassTableCacheKey.class), any(List.class))).thenAnswer(new Answer<NotifyingFuture<List<String>>>() {
+            @Override
+            public NotifyingFuture<List<String>> answer(InvocationOnMock invocation) throws Exception {
+                ClassTableCacheKey key = (ClassTableCacheKey) invocation.getArguments()[0];
+                List<String> classNames = (List<String>) invocation.getArguments()[1];
+                return completedFuture(owner.putIfAbsent(key, classNames));
+            }
+        });
+        return syncCache;
+    }
+
+    private static NotifyingFuture<List<String>> completedFuture(List<String> result) throws Exception {
+        final NotifyingFuture<List<String>> future = mock(NotifyingFuture.class);
+        when(future.isDone()).thenReturn(true);
+        when(future.get()).thenReturn(result);
+        when(future.attachListener(any(FutureListener.class))).thenAnswer(new Answer<NotifyingFuture<List<String>>>() {
+            @Override
+            public NotifyingFuture<List<String>> answer(InvocationOnMock invocation) {
+                ((FutureListener<List<String>>) invocation.getArguments()[0]).futureDone(future);
+                return future;
+            }
+        });
+        return future;
+    }
+
+    static class RecordingListener implements ClassTableRegistry.Listener {
+        volatile List<String> classNames;
+
+        @Override
+        public void registered(int version, List<String> classNames) {
+            this.classNames = classNames;
+        }
+    }
+}
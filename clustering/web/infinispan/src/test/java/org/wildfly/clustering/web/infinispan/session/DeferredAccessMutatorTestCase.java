@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import static org.mockito.Mockito.*;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.clustering.infinispan.invoker.Mutator;
+import org.junit.Test;
+
+public class DeferredAccessMutatorTestCase {
+    private final Mutator mutator = mock(Mutator.class);
+    private final Date now = new Date();
+    private final SimpleSessionMetaData metaData = new SimpleSessionMetaData(this.now, this.now, new Time(1, TimeUnit.MINUTES));
+
+    @Test
+    public void deferred() {
+        this.metaData.setLastAccessedTime(new Date(this.now.getTime() + 1000));
+
+        new DeferredAccessMutator(this.mutator, this.metaData, 0.5f).mutate();
+
+        verify(this.mutator, never()).mutate();
+    }
+
+    @Test
+    public void thresholdExceeded() {
+        this.metaData.setLastAccessedTime(new Date(this.now.getTime() + TimeUnit.MINUTES.toMillis(1)));
+
+        new DeferredAccessMutator(this.mutator, this.metaData, 0.5f).mutate();
+
+        verify(this.mutator).mutate();
+
+        new DeferredAccessMutator(this.mutator, this.metaData, 0.5f).mutate();
+
+        verify(this.mutator, times(1)).mutate();
+    }
+
+    @Test
+    public void attributeNamesChanged() {
+        Set<String> names = new HashSet<>();
+        Mutator subject = new DeferredAccessMutator(this.mutator, this.metaData, 0.5f, names);
+
+        names.add("name");
+        subject.mutate();
+
+        verify(this.mutator).mutate();
+    }
+}
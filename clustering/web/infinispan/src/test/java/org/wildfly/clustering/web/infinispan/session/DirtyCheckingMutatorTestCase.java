@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.wildfly.clustering.web.infinispan.session;
+
+import static org.mockito.Mockito.*;
+
+import org.jboss.as.clustering.infinispan.invoker.Mutator;
+import org.junit.Test;
+
+public class DirtyCheckingMutatorTestCase {
+    private final Mutator mutator = mock(Mutator.class);
+    private final SessionAttributeFingerprinter fingerprinter = mock(SessionAttributeFingerprinter.class);
+    private final Object value = new Object();
+
+    @Test
+    public void unmodified() {
+        DirtyCheckingMutator subject = new DirtyCheckingMutator(this.mutator, this.value, this.fingerprinter);
+
+        when(this.fingerprinter.fingerprint(this.value)).thenReturn(new byte[] { 1 });
+
+        subject.mutate();
+        subject.mutate();
+
+        verify(this.fingerprinter, times(1)).fingerprint(this.value);
+
+        subject.flush();
+
+        verify(this.mutator, never()).mutate();
+    }
+
+    @Test
+    public void modified() {
+        DirtyCheckingMutator subject = new DirtyCheckingMutator(this.mutator, this.value, this.fingerprinter);
+
+        when(this.fingerprinter.fingerprint(this.value)).thenReturn(new byte[] { 1 }, new byte[] { 2 });
+
+        subject.mutate();
+        subject.flush();
+
+        verify(this.mutator).mutate();
+    }
+
+    @Test
+    public void notAccessed() {
+        DirtyCheckingMutator subject = new DirtyCheckingMutator(this.mutator, this.value, this.fingerprinter);
+
+        subject.flush();
+
+        verifyZeroInteractions(this.fingerprinter);
+        verify(this.mutator, never()).mutate();
+    }
+}
@@ -57,4 +57,26 @@ public class SimpleSessionMetaDataTestCase {
         metaData.setLastAccessedTime(new Date(now.getTime() - metaData.getMaxInactiveInterval(TimeUnit.MILLISECONDS) - 1));
         assertTrue(metaData.isExpired());
     }
+
+    @Test
+    public void isReplicationDeferrable() {
+        Date now = new Date();
+        SimpleSessionMetaData metaData = new SimpleSessionMetaData(now, now, new Time(1, TimeUnit.MINUTES));
+        assertTrue(metaData.isReplicated());
+        assertTrue(metaData.isReplicationDeferrable(0.5f));
+
+        metaData.setLastAccessedTime(new Date(now.getTime() + TimeUnit.SECONDS.toMillis(29)));
+        assertFalse(metaData.isReplicated());
+        assertTrue(metaData.isReplicationDeferrable(0.5f));
+
+        metaData.setLastAccessedTime(new Date(now.getTime() + TimeUnit.SECONDS.toMillis(30)));
+        assertFalse(metaData.isReplicationDeferrable(0.5f));
+
+        metaData.setReplicated();
+        assertTrue(metaData.isReplicated());
+        assertTrue(metaData.isReplicationDeferrable(0.5f));
+
+        metaData.setMaxInactiveInterval(2, TimeUnit.MINUTES);
+        assertFalse(metaData.isReplicationDeferrable(0.5f));
+    }
 }
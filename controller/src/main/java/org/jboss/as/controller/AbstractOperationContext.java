@@ -116,6 +116,8 @@ abstract class AbstractOperationContext implements OperationContext {
     private final List<ModelNode> controllerOperations = new ArrayList<ModelNode>(2);
     private boolean auditLogged;
     private final AuditLogger auditLogger;
+    /** A committed persistence resource whose flush to permanent storage has yet to be awaited */
+    private ConfigurationPersister.DeferredPersistenceResource deferredPersistenceResource;
 
     enum ContextFlag {
         ROLLBACK_ON_FAIL, ALLOW_RESOURCE_SERVICE_RESTART,
@@ -265,7 +267,24 @@ abstract class AbstractOperationContext implements OperationContext {
      * @return the result action
      */
     ResultAction executeOperation() {
-        return completeStepInternal();
+        try {
+            return completeStepInternal();
+        } finally {
+            awaitDeferredPersistence();
+        }
+    }
+
+    /**
+     * Waits for any deferred configuration persistence to reach permanent storage. This happens after the step
+     * locks have been released, so that the writes of concurrently executing operations can be coalesced, but before
+     * the response is returned to the caller.
+     */
+    private void awaitDeferredPersistence() {
+        final ConfigurationPersister.DeferredPersistenceResource resource = deferredPersistenceResource;
+        if (resource != null) {
+            deferredPersistenceResource = null;
+            resource.awaitCommit();
+        }
     }
 
     private ResultAction completeStepInternal() {
@@ -546,6 +565,9 @@ abstract class AbstractOperationContext implements OperationContext {
                 persistenceResource.rollback();
             } else {
                 persistenceResource.commit();
+                if (persistenceResource instanceof ConfigurationPersister.DeferredPersistenceResource) {
+                    deferredPersistenceResource = (ConfigurationPersister.DeferredPersistenceResource) persistenceResource;
+                }
             }
         }
 
@@ -486,6 +486,13 @@ public interface ControllerLogger extends BasicLogger {
     @Message(id = 13409, value = "[%d] consecutive management operation audit logging failures have occurred in handler '%s'; disabling this handler for audit logging")
     void disablingLogHandlerDueToFailures(int failureCount, String name);
 
+    /**
+     * Logs a warning message indicating that audit log items were discarded because the audit log queue was full.
+     */
+    @LogMessage(level = Level.WARN)
+    @Message(id = 13410, value = "[%d] management operation audit log items have been discarded because the audit log queue is full")
+    void discardedAuditLogItems(long count);
+
     // 13449 IS END OF 134xx SERIES USABLE FOR LOGGER MESSAGES
 
 }
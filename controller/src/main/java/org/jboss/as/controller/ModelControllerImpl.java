@@ -54,6 +54,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.jboss.as.controller.access.Authorizer;
@@ -86,7 +87,7 @@ import org.wildfly.security.manager.action.GetAccessControlContextAction;
  *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
-class ModelControllerImpl implements ModelController {
+class ModelControllerImpl implements ModelController, ModelGenerationProvider {
 
     private final ServiceRegistry serviceRegistry;
     private final ServiceTarget serviceTarget;
@@ -109,6 +110,11 @@ class ModelControllerImpl implements ModelController {
 
     /** Tracks the relationship between domain resources and hosts and server groups */
     private final HostServerGroupTracker hostServerGroupTracker;
+    /** The generation of the last committed model change, and of the last change within each changed subtree */
+    private final AtomicLong modelGeneration = new AtomicLong();
+    private final ConcurrentMap<PathAddress, Long> subtreeGenerations = new ConcurrentHashMap<>();
+    /** The generation of the last change made directly to each changed resource, e.g. its removal or re-creation */
+    private final ConcurrentMap<PathAddress, Long> resourceGenerations = new ConcurrentHashMap<>();
 
     ModelControllerImpl(final ServiceRegistry serviceRegistry, final ServiceTarget serviceTarget, final ManagementResourceRegistration rootRegistration,
                         final ContainerStateMonitor stateMonitor, final ConfigurationPersister persister,
@@ -564,10 +570,10 @@ class ModelControllerImpl implements ModelController {
         };
     }
 
-    ConfigurationPersister.PersistenceResource writeModel(final Resource resource, Set<PathAddress> affectedAddresses) throws ConfigurationPersistenceException {
+    ConfigurationPersister.PersistenceResource writeModel(final Resource resource, final Set<PathAddress> affectedAddresses) throws ConfigurationPersistenceException {
         final ModelNode newModel = Resource.Tools.readModel(resource);
         final ConfigurationPersister.PersistenceResource delegate = persister.store(newModel, affectedAddresses);
-        return new ConfigurationPersister.PersistenceResource() {
+        return new ConfigurationPersister.DeferredPersistenceResource() {
 
             @Override
             public void commit() {
@@ -576,7 +582,11 @@ class ModelControllerImpl implements ModelController {
                 if (hostServerGroupTracker != null) {
                     hostServerGroupTracker.invalidate();
                 }
+                // The published model is not modified anymore, so later operations can share rather than copy it
+                Resource.Tools.share(resource);
                 model.set(resource);
+                // Only advance the generations once the new model is visible, see getModelGeneration
+                advanceGenerations(affectedAddresses);
                 delegate.commit();
             }
 
@@ -584,9 +594,45 @@ class ModelControllerImpl implements ModelController {
             public void rollback() {
                 delegate.rollback();
             }
+
+            @Override
+            public void awaitCommit() {
+                if (delegate instanceof ConfigurationPersister.DeferredPersistenceResource) {
+                    ((ConfigurationPersister.DeferredPersistenceResource) delegate).awaitCommit();
+                }
+            }
         };
     }
 
+    private void advanceGenerations(final Set<PathAddress> affectedAddresses) {
+        final Long generation = modelGeneration.incrementAndGet();
+        for (PathAddress address : affectedAddresses) {
+            resourceGenerations.put(address, generation);
+            for (int i = address.size(); i > 0; i--) {
+                subtreeGenerations.put(address.subAddress(0, i), generation);
+            }
+        }
+        subtreeGenerations.put(PathAddress.EMPTY_ADDRESS, generation);
+    }
+
+    @Override
+    public long getModelGeneration(final PathAddress address) {
+        final ImmutableManagementResourceRegistration registration = rootRegistration.getSubModel(address);
+        if (registration == null || registration.isRemote()) {
+            return -1;
+        }
+        final Long generation = subtreeGenerations.get(address);
+        long result = generation == null ? 0 : generation;
+        // A change to an ancestor, e.g. removing and adding it again, may replace the whole subtree
+        for (int i = address.size() - 1; i >= 0; i--) {
+            final Long ancestorGeneration = resourceGenerations.get(address.subAddress(0, i));
+            if (ancestorGeneration != null && ancestorGeneration > result) {
+                result = ancestorGeneration;
+            }
+        }
+        return result;
+    }
+
     void acquireLock(Integer permit, final boolean interruptibly, OperationContext context) throws InterruptedException {
         if (interruptibly) {
             //noinspection LockAcquiredButNotSafelyReleased
@@ -712,7 +758,8 @@ class ModelControllerImpl implements ModelController {
 
     /**
      * The root resource, maintains a read-only reference to the current model. All write operations have to performed
-     * after acquiring the write lock on a clone of the underlying model.
+     * after acquiring the write lock on a clone of the underlying model. As the published model is shared, such a clone
+     * only copies the resources it navigates to.
      */
     private final class RootResource implements Resource {
 
@@ -0,0 +1,43 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller;
+
+/**
+ * Optionally implemented by a {@link ModelController} to expose how often parts of its model have changed, so that
+ * callers can tell whether a previously read result is still current without executing the read again.
+ */
+public interface ModelGenerationProvider {
+
+    /**
+     * Gets the generation of the model subtree rooted at the given address. The value is increased whenever a
+     * change to the model at or below {@code address}, or to any of its ancestors, is committed, so that removing and
+     * adding a parent resource again invalidates every result previously read below it. The new value is published
+     * only after the changed model is visible to subsequent operations. A value read before executing a read
+     * operation therefore never describes a model older than the one the operation saw.
+     *
+     * @param address the address of the subtree
+     * @return the generation of the subtree, or {@code -1} if changes to the subtree are not tracked, for example
+     *         because it is handled by a proxied controller
+     */
+    long getModelGeneration(PathAddress address);
+}
@@ -23,6 +23,7 @@ package org.jboss.as.controller.audit;
 
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.jboss.as.controller.ControllerLogger;
@@ -80,11 +81,57 @@ abstract class AuditLogHandler {
             writeLogItem(formattedItem);
             failureCount = 0;
         } catch (Throwable t) {
-            failureCount++;
-            ControllerLogger.MGMT_OP_LOGGER.logHandlerWriteFailed(t, name);
-            if (isDisabledDueToFailures()) {
-                ControllerLogger.MGMT_OP_LOGGER.disablingLogHandlerDueToFailures(failureCount, name);
-            }
+            writeFailed(t);
+        }
+    }
+
+    /**
+     * Formats and encodes the item for a later call to {@link #writeLogItems(List)}.
+     *
+     * @param item the log item
+     * @return the encoded item, or {@code null} if it could not be formatted
+     */
+    byte[] encodeLogItem(AuditLogItem item) {
+        try {
+            return formatter.encodeAuditLogItem(item);
+        } catch (Throwable t) {
+            writeFailed(t);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a batch of items encoded by {@link #encodeLogItem(AuditLogItem)}.
+     *
+     * @param encodedItems the encoded items
+     */
+    void writeLogItems(List<byte[]> encodedItems) {
+        try {
+            initialize();
+            writeEncodedLogItems(encodedItems);
+            failureCount = 0;
+        } catch (Throwable t) {
+            writeFailed(t);
+        }
+    }
+
+    private void writeFailed(Throwable t) {
+        failureCount++;
+        ControllerLogger.MGMT_OP_LOGGER.logHandlerWriteFailed(t, name);
+        if (isDisabledDueToFailures()) {
+            ControllerLogger.MGMT_OP_LOGGER.disablingLogHandlerDueToFailures(failureCount, name);
+        }
+    }
+
+    /**
+     * Writes a batch of encoded items. Handlers able to send several items at once should override this, the
+     * default writes them one at a time.
+     *
+     * @param encodedItems the encoded items
+     */
+    void writeEncodedLogItems(List<byte[]> encodedItems) throws IOException {
+        for (byte[] encodedItem : encodedItems) {
+            writeLogItem(new String(encodedItem));
         }
     }
 
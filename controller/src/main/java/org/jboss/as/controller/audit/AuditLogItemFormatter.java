@@ -35,6 +35,7 @@ public abstract class AuditLogItemFormatter {
 
     protected final String name;
     private volatile String formattedString;
+    private volatile byte[] encodedItem;
     private volatile boolean includeDate ;
     private volatile String dateSeparator;
     //SimpleDateFormat is not good to store among threads, since it stores intermediate results in its fields
@@ -106,6 +107,23 @@ public abstract class AuditLogItemFormatter {
      */
     void clear() {
         formattedString = null;
+        encodedItem = null;
+    }
+
+    /**
+     * Formats, encodes and caches the audit log item, so that handlers sharing this formatter write the same bytes.
+     * The cached bytes are discarded by the {@link #clear()} method.
+     *
+     * @param item the log item
+     * @return the formatted item encoded using the platform default charset
+     */
+    byte[] encodeAuditLogItem(AuditLogItem item) {
+        byte[] encoded = encodedItem;
+        if (encoded == null) {
+            encoded = item.format(this).getBytes();
+            encodedItem = encoded;
+        }
+        return encoded;
     }
 
     protected void appendDate(StringBuilder sb, AuditLogItem auditLogItem) {
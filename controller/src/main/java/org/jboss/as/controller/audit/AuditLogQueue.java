@@ -0,0 +1,208 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller.audit;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded, lock-free ring buffer handing audit log items from the threads logging them to a dedicated writer thread.
+ * <p/>
+ * Any number of threads may {@link #offer(Object)} items. They are taken off the queue in batches using
+ * {@link #drainTo(List, int)}, which callers must serialize; the writer thread does so by invoking the
+ * {@link Runnable} passed to the constructor whenever items are available. The writer thread is started on demand
+ * and exits once the queue has been idle for a while.
+ *
+ * @param <E> the type of the queued items
+ */
+final class AuditLogQueue<E> {
+
+    /** How long the writer thread waits for items before exiting */
+    private static final long IDLE_TIMEOUT = TimeUnit.SECONDS.toNanos(30);
+    /** How long a thread blocked on a full queue waits before trying again */
+    private static final long FULL_RETRY_INTERVAL = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final AtomicReferenceArray<E> items;
+    /** The sequence number each slot expects next: its index while free for a producer, or one more once filled */
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final boolean block;
+    private final Runnable drainer;
+    private final String threadName;
+
+    private final AtomicLong tail = new AtomicLong();
+    /** Only written by the callers of drainTo, but read by the writer thread */
+    private volatile long head;
+
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Thread writer;
+    private volatile boolean parked;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param capacity the minimum number of items the queue can hold
+     * @param block {@code true} if threads offering items to a full queue should wait, {@code false} if the items
+     *              should be discarded
+     * @param drainer the task run by the writer thread whenever items are available
+     * @param threadName the name of the writer thread
+     */
+    AuditLogQueue(int capacity, boolean block, Runnable drainer, String threadName) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.items = new AtomicReferenceArray<E>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.block = block;
+        this.drainer = drainer;
+        this.threadName = threadName;
+    }
+
+    /**
+     * Adds an item to the queue. If the queue is full, either waits for room or discards the item, as configured.
+     *
+     * @param item the item
+     * @return {@code true} if the item was queued, {@code false} if it was discarded
+     */
+    boolean offer(E item) {
+        while (!tryOffer(item)) {
+            if (!block) {
+                discarded.incrementAndGet();
+                return false;
+            }
+            wakeWriter();
+            LockSupport.parkNanos(this, FULL_RETRY_INTERVAL);
+        }
+        wakeWriter();
+        return true;
+    }
+
+    private boolean tryOffer(E item) {
+        for (;;) {
+            final long position = tail.get();
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items.set(index, item);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                // The slot has not yet been drained since the previous lap
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Moves up to the given number of queued items into the given list. Calls to this method must not be concurrent.
+     *
+     * @param batch the list receiving the items
+     * @param max the maximum number of items to move
+     * @return the number of items moved
+     */
+    int drainTo(List<E> batch, int max) {
+        long position = head;
+        int count = 0;
+        while (count < max) {
+            final int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            batch.add(items.get(index));
+            items.set(index, null);
+            // Free the slot for the producer of the next lap
+            sequences.set(index, position + mask + 1);
+            position++;
+            count++;
+        }
+        head = position;
+        return count;
+    }
+
+    /**
+     * Gets and resets the number of items discarded because the queue was full.
+     *
+     * @return the number of items discarded since the previous call
+     */
+    long getAndResetDiscardedCount() {
+        return discarded.getAndSet(0);
+    }
+
+    private void wakeWriter() {
+        if (!running.get() && running.compareAndSet(false, true)) {
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    write();
+                }
+            }, threadName);
+            thread.setDaemon(true);
+            writer = thread;
+            thread.start();
+        } else if (parked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void write() {
+        for (;;) {
+            if (hasItems()) {
+                drainer.run();
+                continue;
+            }
+            parked = true;
+            try {
+                if (!hasItems()) {
+                    final long deadline = System.nanoTime() + IDLE_TIMEOUT;
+                    LockSupport.parkNanos(this, IDLE_TIMEOUT);
+                    if (!hasItems() && System.nanoTime() - deadline >= 0) {
+                        running.set(false);
+                        // An item may have been offered before running was cleared, without starting a new writer
+                        if (!hasItems() || !running.compareAndSet(false, true)) {
+                            return;
+                        }
+                    }
+                }
+            } finally {
+                parked = false;
+            }
+        }
+    }
+
+    private boolean hasItems() {
+        final long head = this.head;
+        return sequences.get((int) head & mask) == head + 1;
+    }
+}
@@ -29,7 +29,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import org.jboss.as.controller.ControllerMessages;
 import org.jboss.as.controller.services.path.PathManagerService;
@@ -96,13 +98,20 @@ public class FileAuditLogHandler extends AuditLogHandler {
 
     @Override
     void writeLogItem(String formattedItem) throws IOException {
+        writeEncodedLogItems(Collections.singletonList(formattedItem.getBytes()));
+    }
+
+    @Override
+    void writeEncodedLogItems(List<byte[]> encodedItems) throws IOException {
         final FileOutputStream fos = new FileOutputStream(file, true);
         final BufferedOutputStream output = new BufferedOutputStream(fos);
         try {
-            output.write(formattedItem.getBytes());
-            output.write(LINE_TERMINATOR);
+            for (byte[] encodedItem : encodedItems) {
+                output.write(encodedItem);
+                output.write(LINE_TERMINATOR);
+            }
 
-            //Flush and force the file to sync
+            //Flush and force the file to sync once for the whole batch
             output.flush();
             fos.getFD().sync();
         } finally {
@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -43,6 +44,7 @@ import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.registry.Resource;
 import org.jboss.as.core.security.AccessMechanism;
 import org.jboss.dmr.ModelNode;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
  * Audit logger wrapper
@@ -54,13 +56,28 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
     /** Maximum number of consecutive logging failures before we stop logging */
     private static final short MAX_FAILURE_COUNT = 10;
 
+    /**
+     * System property setting the capacity of the queue through which a dedicated thread writes the items logged
+     * while the logger is in the LOGGING state. If not set, items are written by the thread logging them.
+     */
+    private static final String QUEUE_SIZE_PROPERTY = "jboss.audit-log.queue-size";
+
+    /**
+     * System property setting what happens to items logged while the queue is full: {@code block} (the default)
+     * waits for room, {@code discard} drops them.
+     */
+    private static final String QUEUE_OVERFLOW_PROPERTY = "jboss.audit-log.queue-overflow";
+
+    /** Maximum number of queued items written, and flushed, at once */
+    private static final int MAX_BATCH_SIZE = 256;
+
     private final List<ManagedAuditLoggerImpl> childImpls;
 
     /** If we are the core audit logger, list the children */
     private final ManagedAuditLogConfiguration config;
 
     /** Guarded by config's auditLock - updates to the handlers */
-    private HandlerUpdateTask handlerUpdateTask;
+    private volatile HandlerUpdateTask handlerUpdateTask;
 
     /** Guarded by config's auditLock - the messages logged while in the QUEUEING state */
     private final List<AuditLogItem> queuedItems = new ArrayList<AuditLogItem>();
@@ -82,6 +99,14 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
     @Override
     public void log(boolean readOnly, ResultAction resultAction, String userId, String domainUUID, AccessMechanism accessMechanism,
             InetAddress remoteAddress, Resource resultantModel, List<ModelNode> operations) {
+        if (isQueueing()) {
+            if (!readOnly || config.isLogReadOnly()) {
+                config.queueLogItem(
+                        AuditLogItem.createModelControllerItem(config.getAsVersion(), readOnly, false, resultAction, userId, domainUUID,
+                                accessMechanism, remoteAddress, resultantModel, operations));
+            }
+            return;
+        }
         config.lock();
         try {
             if (config.isBooting() && !isLogBoot()) {
@@ -105,6 +130,14 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
     @Override
     public void logJmxMethodAccess(boolean readOnly, String userId, String domainUUID, AccessMechanism accessMechanism,
             InetAddress remoteAddress, String methodName, String[] methodSignature, Object[] methodParams, Throwable error) {
+        if (isQueueing()) {
+            if (!readOnly || config.isLogReadOnly()) {
+                config.queueLogItem(
+                        AuditLogItem.createMethodAccessItem(config.getAsVersion(), readOnly, false, userId, domainUUID, accessMechanism,
+                                remoteAddress, methodName, methodSignature, methodParams, error));
+            }
+            return;
+        }
         config.lock();
         try {
             if (config.isBooting() && !isLogBoot()) {
@@ -124,6 +157,15 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
         }
     }
 
+    /**
+     * Whether items can be handed over to the asynchronous writer without taking the lock. This is only the case in
+     * the steady state: once booted, while logging, and with no pending handler updates. Any other state is handled
+     * with the lock taken, after the queued items have been written.
+     */
+    private boolean isQueueing() {
+        return config.isAsynchronous() && config.getLoggerStatus() == Status.LOGGING && !config.isBooting() && handlerUpdateTask == null;
+    }
+
     public ManagedAuditLoggerImpl createNewConfiguration(boolean manualCommit) {
         if (childImpls == null) {
             throw ControllerMessages.MESSAGES.canOnlyCreateChildAuditLoggerForMainAuditLogger();
@@ -201,6 +243,7 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
             if (newStatus == Status.DISABLE_NEXT && config.getLoggerStatus() == Status.DISABLED) {
                 return;
             }
+            config.writeQueuedItems();
             config.setLoggerStatus(newStatus);
             if (newStatus == Status.LOGGING){
                 for (AuditLogItem record : queuedItems) {
@@ -226,9 +269,11 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
                 queuedItems.add(item);
                 break;
             case LOGGING:
+                config.writeQueuedItems();
                 writeLogItem(item);
                 break;
             case DISABLE_NEXT:
+                config.writeQueuedItems();
                 writeLogItem(item);
                 config.setLoggerStatus(Status.DISABLED);
             case DISABLED:
@@ -365,6 +410,7 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
     /** Call with lock taken */
     private void applyHandlerUpdates() {
         if (handlerUpdateTask != null) {
+            config.writeQueuedItems();
             handlerUpdateTask.applyChanges();
             handlerUpdateTask = null;
         }
@@ -509,6 +555,20 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
             sharedConfiguration.unlock();
         }
 
+        boolean isAsynchronous() {
+            return sharedConfiguration.queue != null;
+        }
+
+        /** Only call if asynchronous, does not need the lock */
+        void queueLogItem(AuditLogItem item) {
+            sharedConfiguration.queue.offer(new QueuedLogItem(this, item));
+        }
+
+        /** Call with lock taken */
+        void writeQueuedItems() {
+            sharedConfiguration.writeQueuedItems();
+        }
+
         String getAsVersion() {
             return sharedConfiguration.getAsVersion();
         }
@@ -670,12 +730,99 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
         private final Map<String, AuditLogHandler> configuredHandlers = new HashMap<String, AuditLogHandler>();
 
         /** Guarded by auditLock - whether we are boothing or not */
-        private boolean booting = true;
+        private volatile boolean booting = true;
+
+        /** The items waiting to be written by the writer thread, or null if items are written synchronously */
+        final AuditLogQueue<QueuedLogItem> queue;
 
 
         SharedConfiguration(String asVersion, boolean server) {
             this.asVersion = asVersion;
             this.server = server;
+            this.queue = createQueue(new Runnable() {
+                @Override
+                public void run() {
+                    lock();
+                    try {
+                        writeQueuedBatch();
+                    } catch (Exception e) {
+                        ControllerLogger.MGMT_OP_LOGGER.failedToUpdateAuditLog(e);
+                    } finally {
+                        unlock();
+                    }
+                }
+            });
+        }
+
+        private static AuditLogQueue<QueuedLogItem> createQueue(Runnable drainer) {
+            final String size = WildFlySecurityManager.getPropertyPrivileged(QUEUE_SIZE_PROPERTY, null);
+            if (size == null) {
+                return null;
+            }
+            final int capacity;
+            try {
+                capacity = Integer.parseInt(size);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (capacity <= 0) {
+                return null;
+            }
+            final boolean block = !"discard".equalsIgnoreCase(WildFlySecurityManager.getPropertyPrivileged(QUEUE_OVERFLOW_PROPERTY, "block"));
+            return new AuditLogQueue<QueuedLogItem>(capacity, block, drainer, "Management audit log writer");
+        }
+
+        /** Call with lock taken - writes all queued items */
+        void writeQueuedItems() {
+            if (queue != null) {
+                while (writeQueuedBatch() > 0) {
+                    // keep going until the queue is empty
+                }
+            }
+        }
+
+        /**
+         * Call with lock taken - writes a batch of queued items, flushing each handler once. Handlers sharing a
+         * formatter write the same encoded bytes.
+         *
+         * @return the number of items taken off the queue
+         */
+        private int writeQueuedBatch() {
+            final long discarded = queue.getAndResetDiscardedCount();
+            if (discarded > 0) {
+                ControllerLogger.MGMT_OP_LOGGER.discardedAuditLogItems(discarded);
+            }
+            final List<QueuedLogItem> items = new ArrayList<QueuedLogItem>();
+            final int count = queue.drainTo(items, MAX_BATCH_SIZE);
+            final Map<AuditLogHandler, List<byte[]>> batches = new LinkedHashMap<AuditLogHandler, List<byte[]>>();
+            for (QueuedLogItem queued : items) {
+                if (queued.config.getLoggerStatus() != Status.LOGGING) {
+                    continue;
+                }
+                final Set<String> formatterNames = new HashSet<String>();
+                try {
+                    for (AuditLogHandler handler : queued.config.getHandlersForLogging()) {
+                        formatterNames.add(handler.getFormatterName());
+                        final byte[] encoded = handler.encodeLogItem(queued.item);
+                        if (encoded != null) {
+                            List<byte[]> batch = batches.get(handler);
+                            if (batch == null) {
+                                batch = new ArrayList<byte[]>();
+                                batches.put(handler, batch);
+                            }
+                            batch.add(encoded);
+                        }
+                    }
+                } finally {
+                    for (String formatterName : formatterNames) {
+                        getFormatter(formatterName).clear();
+                    }
+                }
+            }
+            for (Map.Entry<AuditLogHandler, List<byte[]>> entry : batches.entrySet()) {
+                entry.getKey().writeLogItems(entry.getValue());
+            }
+            return count;
         }
 
         public void recycleHandler(String name) {
@@ -738,6 +885,19 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
     }
 
 
+    /**
+     * An item waiting to be written by the writer thread, along with the configuration it was logged with
+     */
+    private static class QueuedLogItem {
+        final ManagedAuditLogConfiguration config;
+        final AuditLogItem item;
+
+        QueuedLogItem(ManagedAuditLogConfiguration config, AuditLogItem item) {
+            this.config = config;
+            this.item = item;
+        }
+    }
+
     /**
      * When we add an handler(reference) we want that to be part of the current write.
      * If we remove/change and handler, and or reference, we don't want that to take effect until the next write.
@@ -918,6 +1078,7 @@ public class ManagedAuditLoggerImpl implements ManagedAuditLogger, ManagedAuditL
     public void startBoot() {
         config.lock();
         try {
+            config.writeQueuedItems();
             config.setBooting(true);
             if (childImpls != null) {
                 childImpls.clear();
@@ -188,6 +188,8 @@ public class ReadChildrenResourcesHandler implements OperationStepHandler {
                             if (!hasFilteredData || !filteredData.isAddressFiltered(address, PathElement.pathElement(childType, entry.getKey()))) {
                                 result.get(entry.getKey()).set(entry.getValue());
                             }
+                            // Release the child's data now that it is part of the result
+                            entry.getValue().clear();
                         }
 
                         if (hasFilteredData) {
@@ -73,7 +73,6 @@ import org.jboss.as.controller.registry.PlaceholderResource;
 import org.jboss.as.controller.registry.Resource;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
-import org.jboss.dmr.Property;
 
 /**
  * {@link org.jboss.as.controller.OperationStepHandler} reading a part of the model. The result will only contain the current attributes of a node by default,
@@ -425,7 +424,9 @@ public class ReadResourceHandler extends GlobalOperationHandlers.AbstractMultiTa
         public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
 
             Map<String, ModelNode> sortedAttributes = new TreeMap<String, ModelNode>();
-            Map<String, ModelNode> sortedChildren = new TreeMap<String, ModelNode>();
+            // Child type -> child name -> child result, or null if the type has no children. The child results are
+            // only copied into the overall result once, after which they are released.
+            Map<String, Map<String, ModelNode>> sortedChildren = new TreeMap<String, Map<String, ModelNode>>();
             boolean failed = false;
             for (Map.Entry<String, ModelNode> entry : otherAttributes.entrySet()) {
                 ModelNode value = entry.getValue();
@@ -442,12 +443,12 @@ public class ReadResourceHandler extends GlobalOperationHandlers.AbstractMultiTa
                     PathElement path = entry.getKey();
                     ModelNode value = entry.getValue();
                     if (!value.has(FAILURE_DESCRIPTION)) {
-                        ModelNode childTypeNode = sortedChildren.get(path.getKey());
-                        if (childTypeNode == null) {
-                            childTypeNode = new ModelNode();
-                            sortedChildren.put(path.getKey(), childTypeNode);
+                        Map<String, ModelNode> children = sortedChildren.get(path.getKey());
+                        if (children == null) {
+                            children = new LinkedHashMap<String, ModelNode>();
+                            sortedChildren.put(path.getKey(), children);
                         }
-                        childTypeNode.get(path.getValue()).set(value.get(RESULT));
+                        children.put(path.getValue(), value.get(RESULT));
                     } else if (!failed && value.hasDefined(FAILURE_DESCRIPTION)) {
                         context.getFailureDescription().set(value.get(FAILURE_DESCRIPTION));
                         failed = true;
@@ -456,10 +457,17 @@ public class ReadResourceHandler extends GlobalOperationHandlers.AbstractMultiTa
             }
             if (!failed) {
                 for (Map.Entry<String, ModelNode> directChild : directChildren.entrySet()) {
-                    sortedChildren.put(directChild.getKey(), directChild.getValue());
+                    Map<String, ModelNode> children = null;
+                    if (directChild.getValue().isDefined()) {
+                        children = new LinkedHashMap<String, ModelNode>();
+                        for (String name : directChild.getValue().keys()) {
+                            children.put(name, directChild.getValue().get(name));
+                        }
+                    }
+                    sortedChildren.put(directChild.getKey(), children);
                 }
                 for (String nonExistentChildType : nonExistentChildTypes) {
-                    sortedChildren.put(nonExistentChildType, new ModelNode());
+                    sortedChildren.put(nonExistentChildType, null);
                 }
                 for (Map.Entry<String, ModelNode> metric : metrics.entrySet()) {
                     ModelNode value = metric.getValue();
@@ -476,18 +484,19 @@ public class ReadResourceHandler extends GlobalOperationHandlers.AbstractMultiTa
                     result.get(entry.getKey()).set(entry.getValue());
                 }
 
-                for (Map.Entry<String, ModelNode> entry : sortedChildren.entrySet()) {
-                    if (!entry.getValue().isDefined()) {
-                        result.get(entry.getKey()).set(entry.getValue());
-                    } else {
-                        ModelNode childTypeNode = new ModelNode();
-                        for (Property property : entry.getValue().asPropertyList()) {
-                            PathElement pe = PathElement.pathElement(entry.getKey(), property.getName());
+                for (Map.Entry<String, Map<String, ModelNode>> entry : sortedChildren.entrySet()) {
+                    final ModelNode childTypeNode = result.get(entry.getKey());
+                    childTypeNode.clear();
+                    if (entry.getValue() != null) {
+                        for (Map.Entry<String, ModelNode> child : entry.getValue().entrySet()) {
+                            PathElement pe = PathElement.pathElement(entry.getKey(), child.getKey());
                             if (!filteredData.isFilteredResource(address, pe)) {
-                                childTypeNode.get(property.getName()).set(property.getValue());
+                                childTypeNode.get(child.getKey()).set(child.getValue());
                             }
+                            // Release the child's data now that it is part of the result, rather than holding
+                            // both copies of the subtree until the whole response has been assembled
+                            child.getValue().clear();
                         }
-                        result.get(entry.getKey()).set(childTypeNode);
                     }
                 }
 
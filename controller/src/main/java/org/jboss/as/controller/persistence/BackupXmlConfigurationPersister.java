@@ -32,6 +32,7 @@ import org.jboss.as.controller.PathAddress;
 import org.jboss.dmr.ModelNode;
 import org.jboss.staxmapper.XMLElementReader;
 import org.jboss.staxmapper.XMLElementWriter;
+import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
  * An XML configuration persister which backs up the old file before overwriting it.
@@ -40,8 +41,16 @@ import org.jboss.staxmapper.XMLElementWriter;
  */
 public class BackupXmlConfigurationPersister extends XmlConfigurationPersister {
 
+    /**
+     * System property enabling the coalescing of configuration writes. Its value is the time in milliseconds during
+     * which further commits are awaited before writing, and may be 0 to only coalesce the commits made while a write
+     * is in progress. Writes are not coalesced if it is not set.
+     */
+    private static final String GROUP_COMMIT_WINDOW_PROPERTY = "jboss.config.group-commit-window";
+
     ConfigurationFile configurationFile;
     private final AtomicBoolean successfulBoot = new AtomicBoolean();
+    private final GroupCommitter groupCommitter;
     /**
      * Construct a new instance.
      *
@@ -53,6 +62,17 @@ public class BackupXmlConfigurationPersister extends XmlConfigurationPersister {
     public BackupXmlConfigurationPersister(final ConfigurationFile file, final QName rootElement, final XMLElementReader<List<ModelNode>> rootParser, final XMLElementWriter<ModelMarshallingContext> rootDeparser) {
         super(file.getBootFile(), rootElement, rootParser, rootDeparser);
         this.configurationFile = file;
+        final long groupCommitWindow = getGroupCommitWindow();
+        this.groupCommitter = (groupCommitWindow >= 0) ? new GroupCommitter(file, groupCommitWindow) : null;
+    }
+
+    private static long getGroupCommitWindow() {
+        final String value = WildFlySecurityManager.getPropertyPrivileged(GROUP_COMMIT_WINDOW_PROPERTY, null);
+        try {
+            return (value == null) ? -1 : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
     public void registerAdditionalRootElement(final QName anotherRoot, final XMLElementReader<List<ModelNode>> parser){
@@ -77,6 +97,9 @@ public class BackupXmlConfigurationPersister extends XmlConfigurationPersister {
                 }
             };
         }
+        if (groupCommitter != null) {
+            return new GroupCommitFilePersistenceResource(model, groupCommitter, this);
+        }
         return new ConfigurationFilePersistenceResource(model, configurationFile, this);
     }
 
@@ -54,6 +54,20 @@ public interface ConfigurationPersister {
         void rollback();
     }
 
+    /**
+     * A {@link PersistenceResource} whose {@link #commit()} only schedules the flush to permanent storage, allowing
+     * the flushes of several commits to be coalesced into a single write. Callers must invoke {@link #awaitCommit()}
+     * before reporting the outcome of the operation that stored the model.
+     */
+    interface DeferredPersistenceResource extends PersistenceResource {
+
+        /**
+         * Blocks until the model passed to {@link #commit()}, or a later one, has been flushed to permanent storage.
+         * Returns immediately if the resource was never committed.
+         */
+        void awaitCommit();
+    }
+
     /**
      * Persist the given configuration model.
      *
@@ -0,0 +1,172 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller.persistence;
+
+import static org.jboss.as.controller.ControllerLogger.MGMT_OP_LOGGER;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces the writes of a {@link ConfigurationFile}.
+ * <p/>
+ * Committed models are only queued, each superseding the previous one. The first thread to wait for its model to be
+ * written becomes the writer: it optionally waits for a short window so that further commits can arrive, writes
+ * the most recent model once, and releases every thread whose model is covered by that write. Only then does it
+ * refresh the copy of the written file kept in the history, so that the other waiting threads do not pay for it.
+ * The versioned history therefore receives one entry per write rather than one per commit.
+ */
+final class GroupCommitter {
+
+    private final ConfigurationFile configurationFile;
+    private final File fileName;
+    private final long window;
+
+    // Guarded by this
+    private ExposedByteArrayOutputStream pending;
+    private long submitted;
+    private long written;
+    private boolean writing;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param configurationFile the configuration file to write
+     * @param window the time in milliseconds the writer waits for further commits before writing, or 0 not to wait
+     */
+    GroupCommitter(final ConfigurationFile configurationFile, final long window) {
+        this.configurationFile = configurationFile;
+        this.fileName = configurationFile.getMainFile();
+        this.window = window;
+    }
+
+    /**
+     * Queues the given model for writing, superseding any model not yet written.
+     *
+     * @param marshalled the marshalled model
+     * @return the sequence number to pass to {@link #awaitWritten(long)}
+     */
+    synchronized long submit(final ExposedByteArrayOutputStream marshalled) {
+        pending = marshalled;
+        return ++submitted;
+    }
+
+    /**
+     * Blocks until the model with the given sequence number, or a later one, has been written.
+     *
+     * @param sequence a sequence number returned by {@link #submit(ExposedByteArrayOutputStream)}
+     */
+    void awaitWritten(final long sequence) {
+        boolean interrupted = false;
+        try {
+            synchronized (this) {
+                while (written < sequence) {
+                    if (!writing) {
+                        writing = true;
+                        break;
+                    }
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (written >= sequence) {
+                    return;
+                }
+            }
+            interrupted |= write();
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean write() {
+        boolean interrupted = false;
+        try {
+            if (window > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(window);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            final ExposedByteArrayOutputStream marshalled;
+            final long sequence;
+            synchronized (this) {
+                marshalled = pending;
+                sequence = submitted;
+                pending = null;
+            }
+            boolean committed = false;
+            try {
+                committed = commit(marshalled);
+            } finally {
+                synchronized (this) {
+                    written = sequence;
+                    notifyAll();
+                }
+            }
+            if (committed) {
+                try {
+                    configurationFile.fileWritten();
+                } catch (ConfigurationPersistenceException e) {
+                    MGMT_OP_LOGGER.errorf(e, e.toString());
+                }
+            }
+        } finally {
+            synchronized (this) {
+                writing = false;
+                notifyAll();
+            }
+        }
+        return interrupted;
+    }
+
+    private boolean commit(final ExposedByteArrayOutputStream marshalled) {
+        final File tempFileName = FilePersistenceUtils.createTempFile(fileName);
+        try {
+            try {
+                FilePersistenceUtils.writeToTempFile(marshalled, tempFileName);
+            } catch (Exception e) {
+                MGMT_OP_LOGGER.failedToStoreConfiguration(e, fileName.getName());
+                return false;
+            }
+            try {
+                configurationFile.backup();
+            } finally {
+                configurationFile.commitTempFile(tempFileName);
+            }
+            return true;
+        } catch (ConfigurationPersistenceException e) {
+            MGMT_OP_LOGGER.errorf(e, e.toString());
+            return false;
+        } finally {
+            if (tempFileName.exists() && !tempFileName.delete()) {
+                MGMT_OP_LOGGER.cannotDeleteTempFile(tempFileName.getName());
+                tempFileName.deleteOnExit();
+            }
+        }
+    }
+}
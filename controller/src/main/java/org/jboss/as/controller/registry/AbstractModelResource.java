@@ -174,19 +174,29 @@ public abstract class AbstractModelResource implements Resource {
             if(provider != null) {
                 return provider;
             } else {
-                final ResourceProvider newProvider = new DefaultResourceProvider();
+                final ResourceProvider newProvider = createResourceProvider();
                 children.put(type, newProvider);
                 return newProvider;
             }
         }
     }
 
+    /**
+     * Create the provider for a child type that has no {@link #registerResourceProvider(String, ResourceProvider) registered}
+     * provider.
+     *
+     * @return the provider
+     */
+    ResourceProvider createResourceProvider() {
+        return new DefaultResourceProvider();
+    }
+
     @Override
     public abstract Resource clone();
 
     static class DefaultResourceProvider implements ResourceProvider {
 
-        private final Map<String, Resource> children = new LinkedHashMap<String, Resource>();
+        final Map<String, Resource> children = new LinkedHashMap<String, Resource>();
 
         protected DefaultResourceProvider() {
         }
@@ -22,9 +22,14 @@
 
 package org.jboss.as.controller.registry;
 
+import org.jboss.as.controller.PathElement;
 import org.jboss.dmr.ModelNode;
 
 import java.util.ConcurrentModificationException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Standard {@link Resource} implementation.
@@ -32,12 +37,18 @@ import java.util.ConcurrentModificationException;
  * <p>Concurrency note: if a thread needs to modify a BasicResource, it must use the clone() method to obtain its
  * own copy of the resource. That instance cannot be made visible to other threads until all writes are complete.</p>
  *
+ * <p>Once a resource has been {@link #share(Resource) shared} as part of a published model it is not modified anymore,
+ * so a clone references its shared children instead of copying them. A shared child is only copied once it is
+ * navigated to through the clone, so that modifying a clone copies just the path to the modified resource.</p>
+ *
  * @author Emanuel Muckenhuber
  */
 class BasicResource extends AbstractModelResource implements Resource {
 
     /** The local model. */
     private final ModelNode model = new ModelNode();
+    /** Whether this resource is part of a published model, and may be referenced by several trees. */
+    private volatile boolean shared;
 
     protected BasicResource() {
     }
@@ -56,10 +67,11 @@ class BasicResource extends AbstractModelResource implements Resource {
     public boolean isModelDefined() {
         return model.isDefined();
     }
+
     @SuppressWarnings({"CloneDoesntCallSuperClone"})
     @Override
     public Resource clone() {
-        final Resource clone = new BasicResource();
+        final BasicResource clone = new BasicResource();
         for (;;) {
             try {
                 clone.writeModel(model);
@@ -69,11 +81,125 @@ class BasicResource extends AbstractModelResource implements Resource {
             }
         }
         for(final String childType : getChildTypes()) {
-            for(final ResourceEntry child : getChildren(childType)) {
-                clone.registerChild(child.getPathElement(), child.clone());
+            final ResourceProvider provider = getProvider(childType);
+            if (provider instanceof CopyOnWriteResourceProvider) {
+                // shared children are referenced rather than copied; they get copied when navigated to
+                for (final Map.Entry<String, Resource> child : ((CopyOnWriteResourceProvider) provider).snapshot().entrySet()) {
+                    final Resource resource = child.getValue();
+                    clone.registerChild(PathElement.pathElement(childType, child.getKey()), isShared(resource) ? resource : resource.clone());
+                }
+            } else {
+                for(final ResourceEntry child : getChildren(childType)) {
+                    clone.registerChild(child.getPathElement(), child.clone());
+                }
             }
         }
         return clone;
     }
 
+    @Override
+    ResourceProvider createResourceProvider() {
+        return new CopyOnWriteResourceProvider();
+    }
+
+    /**
+     * Marks the standard resources of a model that is about to be published as shared. Subtrees that are already
+     * shared are not visited again.
+     *
+     * @param resource the root of the model
+     */
+    static void share(final Resource resource) {
+        final Resource target = unwrap(resource);
+        if (target instanceof BasicResource) {
+            final BasicResource basic = (BasicResource) target;
+            if (!basic.shared) {
+                for (final String childType : basic.getChildTypes()) {
+                    final ResourceProvider provider = basic.getProvider(childType);
+                    if (provider instanceof CopyOnWriteResourceProvider) {
+                        for (final Resource child : ((CopyOnWriteResourceProvider) provider).snapshot().values()) {
+                            share(child);
+                        }
+                    }
+                }
+                basic.shared = true;
+            }
+        }
+    }
+
+    /**
+     * Gets the children of the given type for reading only, without copying shared children into {@code resource}.
+     *
+     * @param resource the resource
+     * @param childType the child type
+     * @return the children
+     */
+    static Set<ResourceEntry> readChildren(final Resource resource, final String childType) {
+        final Resource target = unwrap(resource);
+        if (!(target instanceof BasicResource)) {
+            return target.getChildren(childType);
+        }
+        final ResourceProvider provider = ((BasicResource) target).getProvider(childType);
+        if (!(provider instanceof CopyOnWriteResourceProvider)) {
+            return target.getChildren(childType);
+        }
+        final Set<ResourceEntry> entries = new LinkedHashSet<ResourceEntry>();
+        for (final Map.Entry<String, Resource> child : ((CopyOnWriteResourceProvider) provider).snapshot().entrySet()) {
+            final PathElement element = PathElement.pathElement(childType, child.getKey());
+            entries.add(new DelegateResource(child.getValue()) {
+                @Override
+                public String getName() {
+                    return element.getValue();
+                }
+
+                @Override
+                public PathElement getPathElement() {
+                    return element;
+                }
+            });
+        }
+        return entries;
+    }
+
+    private static boolean isShared(final Resource resource) {
+        final Resource target = unwrap(resource);
+        return target instanceof BasicResource && ((BasicResource) target).shared;
+    }
+
+    private static Resource unwrap(final Resource resource) {
+        return resource instanceof DelegateResource ? ((DelegateResource) resource).delegate : resource;
+    }
+
+    /**
+     * Hands out private copies of shared children, as long as the owning resource itself is not shared.
+     */
+    private class CopyOnWriteResourceProvider extends DefaultResourceProvider {
+
+        @Override
+        public Resource get(String name) {
+            synchronized (children) {
+                final Resource child = children.get(name);
+                if (shared || !isShared(child)) {
+                    return child;
+                }
+                final Resource copy = child.clone();
+                children.put(name, copy);
+                return copy;
+            }
+        }
+
+        @Override
+        public Resource remove(String name) {
+            synchronized (children) {
+                final Resource child = children.remove(name);
+                return shared || !isShared(child) ? child : child.clone();
+            }
+        }
+
+        Map<String, Resource> snapshot() {
+            synchronized (children) {
+                return new LinkedHashMap<String, Resource>(children);
+            }
+        }
+    }
+
 }
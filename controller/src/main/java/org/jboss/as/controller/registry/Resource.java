@@ -249,7 +249,7 @@ public interface Resource extends Cloneable {
                 final int newLevel = level == -1 ? -1 : level - 1;
                 for(final String childType : resource.getChildTypes()) {
                     model.get(childType).setEmptyObject();
-                    for(final ResourceEntry entry : resource.getChildren(childType)) {
+                    for(final ResourceEntry entry : BasicResource.readChildren(resource, childType)) {
                         if(filter.accepts(address.append(entry.getPathElement()), resource)) {
                             model.get(childType, entry.getName()).set(readModel(entry, newLevel));
                         }
@@ -259,6 +259,16 @@ public interface Resource extends Cloneable {
             return model;
         }
 
+        /**
+         * Marks the standard resources of a model that is about to be published as shared. Clones of the model then
+         * reference the shared resources instead of copying them, and only copy the resources they navigate to.
+         *
+         * @param resource the root resource of the model. Cannot be {@code null}
+         */
+        public static void share(final Resource resource) {
+            BasicResource.share(resource);
+        }
+
         /**
          * Navigate from a parent {@code resource} to the descendant resource at the given relative {@code addresss}.
          * <p>
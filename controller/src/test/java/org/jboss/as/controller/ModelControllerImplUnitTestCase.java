@@ -29,6 +29,7 @@ import org.jboss.as.controller.descriptions.DescriptionProvider;
 import org.jboss.as.controller.descriptions.NonResolvingResourceDescriptionResolver;
 import org.jboss.as.controller.operations.common.Util;
 import org.jboss.as.controller.operations.global.GlobalOperationHandlers;
+import org.jboss.as.controller.persistence.AbstractConfigurationPersister;
 import org.jboss.as.controller.persistence.ConfigurationPersistenceException;
 import org.jboss.as.controller.persistence.ConfigurationPersister;
 import org.jboss.as.controller.persistence.NullConfigurationPersister;
@@ -49,10 +50,14 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CHILD_TYPE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILED;
@@ -80,6 +85,7 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.VAL
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -104,10 +110,14 @@ public class ModelControllerImplUnitTestCase {
 
     @Before
     public void setupController() throws InterruptedException {
+        setupController(new NullConfigurationPersister());
+    }
+
+    private void setupController(final ConfigurationPersister persister) throws InterruptedException {
 
         container = ServiceContainer.Factory.create("test");
         ServiceTarget target = container.subTarget();
-        ModelControllerService svc = new ModelControllerService();
+        ModelControllerService svc = new ModelControllerService(persister);
         ServiceBuilder<ModelController> builder = target.addService(ServiceName.of("ModelController"), svc);
         builder.install();
         sharedState = svc.getSharedState();
@@ -165,6 +175,94 @@ public class ModelControllerImplUnitTestCase {
         assertTrue(rolledback);
     }
 
+    @Test
+    public void testModelGeneration() throws Exception {
+        ModelGenerationProvider provider = (ModelGenerationProvider) controller;
+        long root = provider.getModelGeneration(PathAddress.EMPTY_ADDRESS);
+        long child = provider.getModelGeneration(CHILD_ONE);
+        assertTrue(root > 0);
+        assertTrue(child > 0);
+        assertEquals(-1, provider.getModelGeneration(PathAddress.pathAddress(PathElement.pathElement("unknown"))));
+
+        // Changes to a sibling leave the generation of the child subtree alone
+        ModelNode result = controller.execute(getOperation("remove-child", CHILD_TWO, "attribute2", 0), null, null, null);
+        assertEquals(SUCCESS, result.get(OUTCOME).asString());
+        assertTrue(provider.getModelGeneration(PathAddress.EMPTY_ADDRESS) > root);
+        assertEquals(child, provider.getModelGeneration(CHILD_ONE));
+
+        // Changes to an ancestor invalidate the child subtree as well
+        root = provider.getModelGeneration(PathAddress.EMPTY_ADDRESS);
+        controller.execute(getOperation("good", "attr1", 5), null, null, null);
+        assertTrue(provider.getModelGeneration(PathAddress.EMPTY_ADDRESS) > root);
+        assertTrue(provider.getModelGeneration(CHILD_ONE) > child);
+
+        // Rolled back changes do not advance it
+        root = provider.getModelGeneration(PathAddress.EMPTY_ADDRESS);
+        controller.execute(getOperation("good", "attr1", 6), null, RollbackTransactionControl.INSTANCE, null);
+        assertEquals(root, provider.getModelGeneration(PathAddress.EMPTY_ADDRESS));
+    }
+
+    @Test
+    public void testOperationAwaitsDeferredPersistence() throws Exception {
+        final AtomicBoolean hold = new AtomicBoolean();
+        final CountDownLatch awaiting = new CountDownLatch(1);
+        final CountDownLatch written = new CountDownLatch(1);
+        final ConfigurationPersister persister = new AbstractConfigurationPersister(null) {
+            @Override
+            public PersistenceResource store(ModelNode model, Set<PathAddress> affectedAddresses) {
+                return new DeferredPersistenceResource() {
+                    @Override
+                    public void awaitCommit() {
+                        if (hold.get()) {
+                            awaiting.countDown();
+                            try {
+                                written.await(30, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void commit() {
+                    }
+
+                    @Override
+                    public void rollback() {
+                    }
+                };
+            }
+
+            @Override
+            public List<ModelNode> load() {
+                return Collections.emptyList();
+            }
+        };
+        shutdownServiceContainer();
+        setupController(persister);
+
+        hold.set(true);
+        final AtomicReference<ModelNode> result = new AtomicReference<ModelNode>();
+        final Thread executor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                result.set(controller.execute(getOperation("good", "attr1", 5), null, null, null));
+            }
+        });
+        executor.start();
+        try {
+            // The operation must wait for its configuration write before it reports its outcome
+            assertTrue(awaiting.await(30, TimeUnit.SECONDS));
+            executor.join(100);
+            assertTrue(executor.isAlive());
+            assertNull(result.get());
+        } finally {
+            written.countDown();
+        }
+        executor.join(TimeUnit.SECONDS.toMillis(30));
+        assertEquals(SUCCESS, result.get().get(OUTCOME).asString());
+    }
+
     @Test
     public void testModelStageFailureExecution() throws Exception {
         ModelNode result = controller.execute(getOperation("bad", "attr1", 5), null, null, null);
@@ -606,6 +704,13 @@ public class ModelControllerImplUnitTestCase {
 
     static class ModelControllerService extends TestModelControllerService {
 
+        ModelControllerService() {
+        }
+
+        ModelControllerService(final ConfigurationPersister configurationPersister) {
+            super(configurationPersister, new ControlledProcessState(true));
+        }
+
         @Override
         protected void initModel(Resource rootResource, ManagementResourceRegistration rootRegistration) {
 
@@ -632,7 +737,8 @@ public class ModelControllerImplUnitTestCase {
                     PathElement.pathElement("child"),
                     new NonResolvingResourceDescriptionResolver()
             );
-            rootRegistration.registerSubModel(childResource);
+            ManagementResourceRegistration childRegistration = rootRegistration.registerSubModel(childResource);
+            childRegistration.registerOperationHandler("remove-child", new ModelControllerImplUnitTestCase.RemoveChildHandler(), ModelControllerImplUnitTestCase.DESC_PROVIDER, false);
         }
 
     }
@@ -661,6 +767,15 @@ public class ModelControllerImplUnitTestCase {
         }
     }
 
+    public static class RemoveChildHandler implements OperationStepHandler {
+
+        @Override
+        public void execute(OperationContext context, ModelNode operation) {
+            context.removeResource(PathAddress.EMPTY_ADDRESS);
+            context.stepCompleted();
+        }
+    }
+
     public static class ModelStageGoodHandler implements OperationStepHandler {
 
         @Override
@@ -0,0 +1,130 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests of {@link AuditLogQueue}.
+ */
+public class AuditLogQueueTestCase {
+
+    /** Leaves the items in the queue, so that the test can inspect it */
+    private static final Runnable NOT_DRAINING = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    };
+
+    @Test
+    public void testDiscardWhenFull() {
+        AuditLogQueue<Integer> queue = new AuditLogQueue<Integer>(3, false, NOT_DRAINING, "test");
+        // The capacity is rounded up to a power of two
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(queue.offer(i));
+        }
+        Assert.assertFalse(queue.offer(4));
+        Assert.assertFalse(queue.offer(5));
+        Assert.assertEquals(2, queue.getAndResetDiscardedCount());
+        Assert.assertEquals(0, queue.getAndResetDiscardedCount());
+    }
+
+    @Test
+    public void testDrainInOrder() {
+        AuditLogQueue<Integer> queue = new AuditLogQueue<Integer>(4, false, NOT_DRAINING, "test");
+        List<Integer> batch = new ArrayList<Integer>();
+        // Several laps around the ring
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                Assert.assertTrue(queue.offer(lap * 4 + i));
+            }
+            Assert.assertEquals(2, queue.drainTo(batch, 2));
+            Assert.assertEquals(2, queue.drainTo(batch, 10));
+            Assert.assertEquals(0, queue.drainTo(batch, 10));
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Assert.assertEquals(Integer.valueOf(i), batch.get(i));
+        }
+    }
+
+    @Test
+    public void testBlockingProducers() throws Exception {
+        final int producers = 4;
+        final int itemsPerProducer = 10000;
+        final List<Integer> written = new ArrayList<Integer>();
+        final CountDownLatch done = new CountDownLatch(producers * itemsPerProducer);
+        @SuppressWarnings("unchecked")
+        final AuditLogQueue<Integer>[] holder = new AuditLogQueue[1];
+        holder[0] = new AuditLogQueue<Integer>(16, true, new Runnable() {
+            @Override
+            public void run() {
+                List<Integer> batch = new ArrayList<Integer>();
+                int count = holder[0].drainTo(batch, 8);
+                written.addAll(batch);
+                for (int i = 0; i < count; i++) {
+                    done.countDown();
+                }
+            }
+        }, "test");
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < itemsPerProducer; i++) {
+                        holder[0].offer(producer * itemsPerProducer + i);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+        Assert.assertEquals(0, holder[0].getAndResetDiscardedCount());
+        Assert.assertEquals(producers * itemsPerProducer, written.size());
+        // Items of a given producer are written in the order they were offered
+        int[] last = new int[producers];
+        for (int p = 0; p < producers; p++) {
+            last[p] = -1;
+        }
+        for (Integer item : written) {
+            int producer = item / itemsPerProducer;
+            Assert.assertTrue(item > last[producer]);
+            last[producer] = item;
+        }
+    }
+}
@@ -130,6 +130,37 @@ public class PersistanceResourceTestCase {
         checkFiles(null, "Four", "std", "Three", "Four", "Three");
     }
 
+    @Test
+    public void testGroupCommitPersistentConfigurationFile() throws Exception {
+        ConfigurationFile configurationFile = new ConfigurationFile(standardDir, "standard.xml", null, true);
+        Assert.assertEquals(standardFile.getCanonicalPath(), configurationFile.getBootFile().getCanonicalPath());
+        TestGroupCommitFilePersister persister = new TestGroupCommitFilePersister(new GroupCommitter(configurationFile, 0));
+
+        configurationFile.successfulBoot();
+        checkFiles(null, "std", "std", "std", "std");
+
+        storeAndAwait(persister, "One");
+        checkFiles(null, "One", "std", "std", "One", "std");
+
+        storeAndAwait(persister, "Two");
+        checkFiles(null, "Two", "std", "std", "Two", "std", "One");
+
+        // Commits which are not yet awaited are coalesced into a single write
+        ConfigurationPersister.DeferredPersistenceResource three = commit(persister, "Three");
+        ConfigurationPersister.DeferredPersistenceResource four = commit(persister, "Four");
+        checkFiles(null, "Two", "std", "std", "Two", "std", "One");
+        four.awaitCommit();
+        checkFiles(null, "Four", "std", "std", "Four", "std", "One", "Two");
+        three.awaitCommit();
+        checkFiles(null, "Four", "std", "std", "Four", "std", "One", "Two");
+
+        // A rolled back resource has nothing to wait for
+        ConfigurationPersister.DeferredPersistenceResource five = (ConfigurationPersister.DeferredPersistenceResource) persister.store(new ModelNode("Five"), Collections.<PathAddress>emptySet());
+        five.rollback();
+        five.awaitCommit();
+        checkFiles(null, "Four", "std", "std", "Four", "std", "One", "Two");
+    }
+
     @Test
     public void testOtherPersistentConfigurationFile() throws Exception {
         assertFileContents(standardFile, "std");
@@ -686,6 +717,16 @@ public class PersistanceResourceTestCase {
         persister.store(new ModelNode(s), Collections.<PathAddress>emptySet()).commit();
     }
 
+    private ConfigurationPersister.DeferredPersistenceResource commit(TestConfigurationPersister persister, String s) throws Exception {
+        ConfigurationPersister.DeferredPersistenceResource resource = (ConfigurationPersister.DeferredPersistenceResource) persister.store(new ModelNode(s), Collections.<PathAddress>emptySet());
+        resource.commit();
+        return resource;
+    }
+
+    private void storeAndAwait(TestConfigurationPersister persister, String s) throws Exception {
+        commit(persister, s).awaitCommit();
+    }
+
     private File createDir(File dir, String name) {
         checkDirectoryExists(dir);
         File created = new File(dir, name);
@@ -779,4 +820,17 @@ public class PersistanceResourceTestCase {
             return new ConfigurationFilePersistenceResource(model, configurationFile, this);
         }
     }
+
+    private class TestGroupCommitFilePersister extends TestConfigurationPersister {
+        private final GroupCommitter committer;
+
+        public TestGroupCommitFilePersister(GroupCommitter committer) {
+            this.committer = committer;
+        }
+
+        @Override
+        PersistenceResource create(ModelNode model) throws ConfigurationPersistenceException {
+            return new GroupCommitFilePersistenceResource(model, committer, this);
+        }
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.dmr.ModelNode;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the copy-on-write behaviour of clones of a {@link Resource.Tools#share(Resource) shared} model.
+ */
+public class SharedResourceUnitTestCase {
+
+    private static final PathElement SUBSYSTEM_A = PathElement.pathElement("subsystem", "a");
+    private static final PathElement SUBSYSTEM_B = PathElement.pathElement("subsystem", "b");
+    private static final PathElement CHILD = PathElement.pathElement("child", "one");
+
+    private Resource root;
+
+    @Before
+    public void setUp() {
+        root = Resource.Factory.create();
+        root.getModel().get("name").set("root");
+        final Resource a = Resource.Factory.create();
+        a.getModel().get("value").set(1);
+        final Resource child = Resource.Factory.create();
+        child.getModel().get("value").set(2);
+        a.registerChild(CHILD, child);
+        root.registerChild(SUBSYSTEM_A, a);
+        final Resource b = Resource.Factory.create();
+        b.getModel().get("value").set(3);
+        root.registerChild(SUBSYSTEM_B, b);
+        Resource.Tools.share(root);
+    }
+
+    @Test
+    public void testWriteCopiesOnlyNavigatedPath() {
+        final ModelNode original = Resource.Tools.readModel(root);
+        final Resource clone = root.clone();
+
+        clone.navigate(PathAddress.pathAddress(SUBSYSTEM_A, CHILD)).getModel().get("value").set(20);
+
+        assertEquals(original, Resource.Tools.readModel(root));
+        assertEquals(20, Resource.Tools.readModel(clone).get("subsystem", "a", "child", "one", "value").asInt());
+        assertNotSame(root.getChild(SUBSYSTEM_A), readChild(clone, SUBSYSTEM_A));
+        assertSame(root.getChild(SUBSYSTEM_B), readChild(clone, SUBSYSTEM_B));
+    }
+
+    @Test
+    public void testReadModelDoesNotCopy() {
+        final Resource clone = root.clone();
+        assertEquals(Resource.Tools.readModel(root), Resource.Tools.readModel(clone));
+        assertSame(root.getChild(SUBSYSTEM_A), readChild(clone, SUBSYSTEM_A));
+        assertSame(root.getChild(SUBSYSTEM_B), readChild(clone, SUBSYSTEM_B));
+    }
+
+    @Test
+    public void testRemovedChildIsPrivate() {
+        final Resource clone = root.clone();
+        final Resource removed = clone.removeChild(SUBSYSTEM_B);
+        removed.getModel().get("value").set(30);
+
+        assertFalse(clone.hasChild(SUBSYSTEM_B));
+        assertTrue(root.hasChild(SUBSYSTEM_B));
+        assertEquals(3, root.getChild(SUBSYSTEM_B).getModel().get("value").asInt());
+    }
+
+    @Test
+    public void testCloneOfClone() {
+        final Resource clone = root.clone();
+        final Resource a = clone.requireChild(SUBSYSTEM_A);
+        final Resource snapshot = clone.clone();
+        a.getModel().get("value").set(10);
+
+        assertEquals(1, snapshot.requireChild(SUBSYSTEM_A).getModel().get("value").asInt());
+        assertEquals(1, root.requireChild(SUBSYSTEM_A).getModel().get("value").asInt());
+
+        // publishing the clone shares its copied resources in turn
+        Resource.Tools.share(clone);
+        final Resource next = clone.clone();
+        assertSame(clone.getChild(SUBSYSTEM_A), readChild(next, SUBSYSTEM_A));
+        assertSame(root.getChild(SUBSYSTEM_B), readChild(next, SUBSYSTEM_B));
+    }
+
+    private static Resource readChild(final Resource resource, final PathElement element) {
+        for (Resource.ResourceEntry entry : BasicResource.readChildren(resource, element.getKey())) {
+            if (entry.getName().equals(element.getValue())) {
+                return ((AbstractModelResource.DelegateResource) entry).delegate;
+            }
+        }
+        return null;
+    }
+}
@@ -22,14 +22,16 @@
 
 package org.jboss.as.repository;
 
-import java.io.BufferedInputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.DigestOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
@@ -131,8 +133,9 @@ public interface ContentRepository {
         private static class ContentRepositoryImpl implements ContentRepository, Service<ContentRepository> {
 
             protected static final String CONTENT = "content";
+            private static final String SHA1 = "SHA-1";
+            private static final int BUFFER_SIZE = 65536;
             private final File repoRoot;
-            protected final MessageDigest messageDigest;
             private final Map<String, Set<Object>> deploymentHashReferences = new HashMap<String, Set<Object>>();
 
             protected ContentRepositoryImpl(final File repoRoot) {
@@ -151,8 +154,13 @@ public interface ContentRepository {
                 }
                 this.repoRoot = repoRoot;
 
+                // fail fast if the digest is not available; each upload then uses its own instance
+                createMessageDigest();
+            }
+
+            private static MessageDigest createMessageDigest() {
                 try {
-                    this.messageDigest = MessageDigest.getInstance("SHA-1");
+                    return MessageDigest.getInstance(SHA1);
                 } catch (NoSuchAlgorithmException e) {
                     throw DeploymentRepositoryMessages.MESSAGES.cannotObtainSha1(e, MessageDigest.class.getSimpleName());
                 }
@@ -160,36 +168,23 @@ public interface ContentRepository {
 
             @Override
             public byte[] addContent(InputStream stream) throws IOException {
-                byte[] sha1Bytes;
-                File tmp = File.createTempFile(CONTENT, "tmp", repoRoot);
-                FileOutputStream fos = new FileOutputStream(tmp);
-                synchronized (messageDigest) {
-                    messageDigest.reset();
-                    try {
-                        DigestOutputStream dos = new DigestOutputStream(fos, messageDigest);
-                        BufferedInputStream bis = new BufferedInputStream(stream);
-                        byte[] bytes = new byte[8192];
-                        int read;
-                        while ((read = bis.read(bytes)) > -1) {
-                            dos.write(bytes, 0, read);
-                        }
-                        fos.flush();
-                        fos.getFD().sync();
-                        fos.close();
-                        fos = null;
-                    }
-                    finally {
-                        safeClose(fos);
-                    }
-                    sha1Bytes = messageDigest.digest();
+                // Each upload hashes with its own digest, so concurrent uploads don't serialize on each other
+                final MessageDigest messageDigest = createMessageDigest();
+                final File tmp = File.createTempFile(CONTENT, "tmp", repoRoot);
+                try {
+                    writeContent(stream, tmp, messageDigest);
+                } catch (IOException e) {
+                    deleteTempFile(tmp);
+                    throw e;
+                } catch (RuntimeException e) {
+                    deleteTempFile(tmp);
+                    throw e;
                 }
+                final byte[] sha1Bytes = messageDigest.digest();
                 final File realFile = getDeploymentContentFile(sha1Bytes, true);
                 if(hasContent(sha1Bytes)) {
                     // we've already got this content
-                    if (!tmp.delete()) {
-                        DeploymentRepositoryLogger.ROOT_LOGGER.cannotDeleteTempFile(tmp.getName());
-                        tmp.deleteOnExit();
-                    }
+                    deleteTempFile(tmp);
                     DeploymentRepositoryLogger.ROOT_LOGGER.debugf("Content was already present in repository at location %s", realFile.getAbsolutePath());
                 } else {
                     moveTempToPermanent(tmp, realFile);
@@ -269,56 +264,88 @@ public interface ContentRepository {
                 }
             }
 
-            private void moveTempToPermanent(File tmpFile, File permanentFile) throws IOException {
-
-                if (!tmpFile.renameTo(permanentFile)) {
-                    // AS7-3574. Try to avoid writing the permanent file bit by bit in we crash in the middle.
-                    // Copy tmpFile to another tmpfile in the same dir as the permanent file (and thus same filesystem)
-                    // and see then if we can rename it.
-                    File localTmp = new File(permanentFile.getParent(), "tmp");
-                    try {
-                        copyFile(tmpFile, localTmp);
-                        if (!localTmp.renameTo(permanentFile)) {
-                            // No luck; need to copy
-                            copyFile(localTmp, permanentFile);
-                        }
-                    } catch (IOException e) {
-                        if (permanentFile.exists()) {
-                            permanentFile.delete();
-                        }
-                        throw e;
-                    } catch (RuntimeException e) {
-                        if (permanentFile.exists()) {
-                            permanentFile.delete();
+            /**
+             * Copies the stream into the given file, updating the digest from the same buffer that is written
+             * so the content is only read once.
+             */
+            private static void writeContent(InputStream stream, File file, MessageDigest messageDigest) throws IOException {
+                final FileOutputStream fos = new FileOutputStream(file);
+                try {
+                    final FileChannel channel = fos.getChannel();
+                    final byte[] bytes = new byte[BUFFER_SIZE];
+                    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                    int read;
+                    while ((read = stream.read(bytes)) > -1) {
+                        messageDigest.update(bytes, 0, read);
+                        buffer.clear().limit(read);
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
                         }
-                        throw e;
+                    }
+                    channel.force(true);
+                    fos.close();
+                } finally {
+                    safeClose(fos);
+                }
+            }
 
-                    } finally {
-                        if (!tmpFile.delete()) {
-                            DeploymentRepositoryLogger.ROOT_LOGGER.cannotDeleteTempFile(tmpFile.getName());
-                            tmpFile.deleteOnExit();
-                        }
-                        if (localTmp.exists() && !localTmp.delete()) {
-                            DeploymentRepositoryLogger.ROOT_LOGGER.cannotDeleteTempFile(localTmp.getName());
-                            localTmp.deleteOnExit();
-                        }
+            private void moveTempToPermanent(File tmpFile, File permanentFile) throws IOException {
+                try {
+                    // The temp file lives in the repository root, so this is normally a plain rename
+                    Files.move(tmpFile.toPath(), permanentFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    return;
+                } catch (IOException ignored) {
+                    // e.g. AtomicMoveNotSupportedException; fall through and copy
+                }
+                // AS7-3574. Try to avoid writing the permanent file bit by bit in we crash in the middle.
+                // Copy tmpFile to another tmpfile in the same dir as the permanent file (and thus same filesystem)
+                // and see then if we can rename it.
+                File localTmp = File.createTempFile(CONTENT, "tmp", permanentFile.getParentFile());
+                try {
+                    copyFile(tmpFile, localTmp);
+                    if (!localTmp.renameTo(permanentFile)) {
+                        // No luck; need to copy
+                        copyFile(localTmp, permanentFile);
+                    }
+                } catch (IOException e) {
+                    if (permanentFile.exists()) {
+                        permanentFile.delete();
+                    }
+                    throw e;
+                } catch (RuntimeException e) {
+                    if (permanentFile.exists()) {
+                        permanentFile.delete();
+                    }
+                    throw e;
+
+                } finally {
+                    deleteTempFile(tmpFile);
+                    if (localTmp.exists()) {
+                        deleteTempFile(localTmp);
                     }
                 }
             }
 
-            private void copyFile(File src, File dest) throws IOException {
+            private static void copyFile(File src, File dest) throws IOException {
                 FileOutputStream fos = null;
                 FileInputStream fis = null;
                 try {
                     fos = new FileOutputStream(dest);
                     fis = new FileInputStream(src);
-                    byte[] bytes = new byte[8192];
-                    int read;
-                    while ((read = fis.read(bytes)) > -1) {
-                        fos.write(bytes, 0, read);
+                    final FileChannel in = fis.getChannel();
+                    final FileChannel out = fos.getChannel();
+                    final long size = in.size();
+                    long position = 0;
+                    while (position < size) {
+                        // transferTo may move fewer bytes than requested, e.g. above 2GB on some platforms
+                        final long transferred = in.transferTo(position, size - position, out);
+                        if (transferred <= 0) {
+                            // nothing left to read, e.g. the source was truncated; fail rather than spin
+                            throw DeploymentRepositoryMessages.MESSAGES.incompleteCopy(src.getAbsolutePath(), position, size);
+                        }
+                        position += transferred;
                     }
-                    fos.flush();
-                    fos.getFD().sync();
+                    out.force(true);
                     fos.close();
                     fos = null;
                 } finally {
@@ -327,6 +354,13 @@ public interface ContentRepository {
                 }
             }
 
+            private static void deleteTempFile(File file) {
+                if (!file.delete()) {
+                    DeploymentRepositoryLogger.ROOT_LOGGER.cannotDeleteTempFile(file.getName());
+                    file.deleteOnExit();
+                }
+            }
+
             @Override
             public void removeContent(byte[] hash, Object reference) {
                 String hashString = HashUtil.bytesToHexString(hash);
@@ -22,6 +22,8 @@
 
 package org.jboss.as.repository;
 
+import java.io.IOException;
+
 import org.jboss.logging.annotations.Cause;
 import org.jboss.logging.annotations.Message;
 import org.jboss.logging.annotations.MessageBundle;
@@ -90,4 +92,17 @@ interface DeploymentRepositoryMessages {
      */
     @Message(id = 14924, value = "%s is null")
     IllegalArgumentException nullVar(String name);
+
+    /**
+     * Creates an exception indicating that copying the file, represented by the {@code path} parameter, stopped making
+     * progress before all of its content was copied.
+     *
+     * @param path     the path name.
+     * @param position the number of bytes copied.
+     * @param size     the expected number of bytes.
+     *
+     * @return an {@link IOException} for the error.
+     */
+    @Message(id = 14925, value = "Copying %s stopped after %d of %d bytes")
+    IOException incompleteCopy(String path, long position, long size);
 }
@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.server.deployment.scanner;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Watches a deployment directory tree for changes with the file system's {@link WatchService}, and collects the
+ * paths that were changed between two scans. Directories created in the tree are watched as soon as they are
+ * reported.
+ */
+class DeploymentDirectoryWatcher implements Closeable {
+
+    private final Path root;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new HashMap<WatchKey, Path>();
+    private Set<Path> changes = new HashSet<Path>();
+    /**
+     * Whether events may have been lost, in which case the whole tree has to be scanned. Nothing is known about the
+     * changes made before the watch was established.
+     */
+    private boolean overflow = true;
+
+    DeploymentDirectoryWatcher(final File root) throws IOException {
+        this.root = root.toPath();
+        try {
+            this.watchService = this.root.getFileSystem().newWatchService();
+        } catch (UnsupportedOperationException e) {
+            throw new IOException(e);
+        }
+        try {
+            register(this.root);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    Path getRoot() {
+        return root;
+    }
+
+    private void register(final Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+                keys.put(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(final Path file, final IOException exc) throws IOException {
+                if (exc instanceof NoSuchFileException) {
+                    // removed while walking the tree, the removal will be reported by the parent
+                    return FileVisitResult.CONTINUE;
+                }
+                throw exc;
+            }
+        });
+    }
+
+    /**
+     * Collects the events reported since the last call, without blocking.
+     *
+     * @return {@code true} if any event was reported
+     * @throws IOException if a new directory cannot be watched
+     */
+    synchronized boolean poll() throws IOException {
+        boolean reported = false;
+        WatchKey key;
+        while ((key = watchService.poll()) != null) {
+            reported = true;
+            final Path dir = keys.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW || dir == null) {
+                    overflow = true;
+                    continue;
+                }
+                final Path child = dir.resolve((Path) event.context());
+                changes.add(child);
+                if (event.kind() == ENTRY_CREATE && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    register(child);
+                }
+            }
+            if (!key.reset()) {
+                // the directory is gone
+                keys.remove(key);
+            }
+        }
+        return reported;
+    }
+
+    /**
+     * Returns the paths changed since the last call.
+     *
+     * @return the changed paths, or {@code null} if the whole tree needs to be scanned
+     */
+    synchronized Set<Path> takeChanges() {
+        final Set<Path> changes = overflow ? null : this.changes;
+        this.changes = new HashSet<Path>();
+        this.overflow = false;
+        return changes;
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
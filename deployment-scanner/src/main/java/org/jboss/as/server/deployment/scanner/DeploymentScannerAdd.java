@@ -64,6 +64,7 @@ import static org.jboss.as.server.deployment.scanner.DeploymentScannerDefinition
 import static org.jboss.as.server.deployment.scanner.DeploymentScannerDefinition.RUNTIME_FAILURE_CAUSES_ROLLBACK;
 import static org.jboss.as.server.deployment.scanner.DeploymentScannerDefinition.SCAN_ENABLED;
 import static org.jboss.as.server.deployment.scanner.DeploymentScannerDefinition.SCAN_INTERVAL;
+import static org.jboss.as.server.deployment.scanner.DeploymentScannerDefinition.WATCH_ENABLED;
 
 /**
  * Operation adding a new {@link DeploymentScannerService}.
@@ -105,6 +106,7 @@ class DeploymentScannerAdd implements OperationStepHandler {
             final Boolean autoDeployXml = AUTO_DEPLOY_XML.resolveModelAttribute(context, operation).asBoolean();
             final Long deploymentTimeout = DEPLOYMENT_TIMEOUT.resolveModelAttribute(context, operation).asLong();
             final Integer scanInterval = SCAN_INTERVAL.resolveModelAttribute(context, operation).asInt();
+            final Boolean watchEnabled = WATCH_ENABLED.resolveModelAttribute(context, operation).asBoolean();
 
             final ThreadFactory threadFactory = new JBossThreadFactory(new ThreadGroup("DeploymentScanner-threads"), Boolean.FALSE, null, "%G - %t", null, null, doPrivileged(GetAccessControlContextAction.getInstance()));
             final ScheduledExecutorService scheduledExecutorService = Executors.newScheduledThreadPool(2, threadFactory);
@@ -127,6 +129,7 @@ class DeploymentScannerAdd implements OperationStepHandler {
                 if (scanInterval != null) {
                     bootTimeScanner.setScanInterval(scanInterval);
                 }
+                bootTimeScanner.setWatchEnabled(watchEnabled);
             } else {
                 bootTimeScanner = null;
             }
@@ -235,9 +238,10 @@ class DeploymentScannerAdd implements OperationStepHandler {
         final Boolean autoDeployXml = AUTO_DEPLOY_XML.resolveModelAttribute(context, operation).asBoolean();
         final Long deploymentTimeout = DEPLOYMENT_TIMEOUT.resolveModelAttribute(context, operation).asLong();
         final Boolean rollback = RUNTIME_FAILURE_CAUSES_ROLLBACK.resolveModelAttribute(context, operation).asBoolean();
+        final Boolean watchEnabled = WATCH_ENABLED.resolveModelAttribute(context, operation).asBoolean();
         final ServiceTarget serviceTarget = context.getServiceTarget();
         DeploymentScannerService.addService(serviceTarget, name, relativeTo, path, interval, TimeUnit.MILLISECONDS,
-                autoDeployZip, autoDeployExp, autoDeployXml, enabled, deploymentTimeout, rollback, newControllers, bootTimeScanner, executorService, verificationHandler);
+                autoDeployZip, autoDeployExp, autoDeployXml, enabled, deploymentTimeout, rollback, watchEnabled, newControllers, bootTimeScanner, executorService, verificationHandler);
 
     }
 
@@ -110,7 +110,14 @@ public class DeploymentScannerDefinition extends SimpleResourceDefinition {
                     .setDefaultValue(new ModelNode().set(false))
                     .build();
 
-    protected static final SimpleAttributeDefinition[] ALL_ATTRIBUTES = {PATH,RELATIVE_TO,SCAN_ENABLED,SCAN_INTERVAL,AUTO_DEPLOY_EXPLODED,AUTO_DEPLOY_XML,AUTO_DEPLOY_ZIPPED,DEPLOYMENT_TIMEOUT};
+    protected static final SimpleAttributeDefinition WATCH_ENABLED =
+            new SimpleAttributeDefinitionBuilder(CommonAttributes.WATCH_ENABLED, ModelType.BOOLEAN, true)
+                    .setXmlName(Attribute.WATCH_ENABLED.getLocalName())
+                    .setAllowExpression(true)
+                    .setDefaultValue(new ModelNode().set(false))
+                    .build();
+
+    protected static final SimpleAttributeDefinition[] ALL_ATTRIBUTES = {PATH,RELATIVE_TO,SCAN_ENABLED,SCAN_INTERVAL,AUTO_DEPLOY_EXPLODED,AUTO_DEPLOY_XML,AUTO_DEPLOY_ZIPPED,DEPLOYMENT_TIMEOUT,WATCH_ENABLED};
 
     @Override
     public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
@@ -124,5 +131,6 @@ public class DeploymentScannerDefinition extends SimpleResourceDefinition {
         resourceRegistration.registerReadWriteAttribute(AUTO_DEPLOY_XML, null, WriteAutoDeployXMLAttributeHandler.INSTANCE);
         resourceRegistration.registerReadWriteAttribute(DEPLOYMENT_TIMEOUT, null, WriteDeploymentTimeoutAttributeHandler.INSTANCE);
         resourceRegistration.registerReadWriteAttribute(RUNTIME_FAILURE_CAUSES_ROLLBACK, null, WriteRuntimeFailureCausesRollbackAttributeHandler.INSTANCE);
+        resourceRegistration.registerReadWriteAttribute(WATCH_ENABLED, null, WriteWatchEnabledAttributeHandler.INSTANCE);
     }
 }
@@ -82,6 +82,7 @@ class DeploymentScannerParser_2_0 implements XMLStreamConstants, XMLElementReade
                 DeploymentScannerDefinition.AUTO_DEPLOY_XML.marshallAsAttribute(configuration, writer);
                 DeploymentScannerDefinition.DEPLOYMENT_TIMEOUT.marshallAsAttribute(configuration, writer);
                 DeploymentScannerDefinition.RUNTIME_FAILURE_CAUSES_ROLLBACK.marshallAsAttribute(configuration, writer);
+                DeploymentScannerDefinition.WATCH_ENABLED.marshallAsAttribute(configuration, writer);
             }
             writer.writeEndElement();
         }
@@ -182,6 +183,10 @@ class DeploymentScannerParser_2_0 implements XMLStreamConstants, XMLElementReade
                     DeploymentScannerDefinition.RUNTIME_FAILURE_CAUSES_ROLLBACK.parseAndSetParameter(value,operation,reader);
                     break;
                 }
+                case WATCH_ENABLED: {
+                    DeploymentScannerDefinition.WATCH_ENABLED.parseAndSetParameter(value,operation,reader);
+                    break;
+                }
                 default:
                     throw ParseUtils.unexpectedAttribute(reader, i);
             }
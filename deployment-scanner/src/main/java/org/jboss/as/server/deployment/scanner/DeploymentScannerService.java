@@ -62,6 +62,7 @@ public class DeploymentScannerService implements Service<DeploymentScanner> {
     private final String relativeTo;
     private final String path;
     private boolean rollbackOnRuntimeFailure;
+    private boolean watchEnabled;
 
     /**
      * The created scanner.
@@ -87,17 +88,18 @@ public class DeploymentScannerService implements Service<DeploymentScanner> {
      * @param scanInterval      the scan interval
      * @param scanEnabled       scan enabled
      * @param rollbackOnRuntimeFailure rollback on runtime failures
+     * @param watchEnabled      watch the deployment directory for changes
      * @param deploymentTimeout the deployment timeout
      * @param bootTimeService   the deployment scanner used in the boot time scan
      * @return
      */
     public static ServiceController<DeploymentScanner> addService(final ServiceTarget serviceTarget, final String name, final String relativeTo, final String path,
                                                                   final Integer scanInterval, TimeUnit unit, final Boolean autoDeployZip,
-                                                                  final Boolean autoDeployExploded, final Boolean autoDeployXml, final Boolean scanEnabled, final Long deploymentTimeout, Boolean rollbackOnRuntimeFailure,
+                                                                  final Boolean autoDeployExploded, final Boolean autoDeployXml, final Boolean scanEnabled, final Long deploymentTimeout, Boolean rollbackOnRuntimeFailure, final Boolean watchEnabled,
                                                                   final List<ServiceController<?>> newControllers, final FileSystemDeploymentService bootTimeService, final ScheduledExecutorService scheduledExecutorService,
                                                                   final ServiceListener<Object>... listeners) {
         final DeploymentScannerService service = new DeploymentScannerService(relativeTo, path, scanInterval, unit, autoDeployZip,
-                autoDeployExploded, autoDeployXml, scanEnabled, deploymentTimeout, rollbackOnRuntimeFailure, bootTimeService);
+                autoDeployExploded, autoDeployXml, scanEnabled, deploymentTimeout, rollbackOnRuntimeFailure, watchEnabled, bootTimeService);
         final ServiceName serviceName = getServiceName(name);
 
         ServiceBuilder<DeploymentScanner> builder = serviceTarget.addService(serviceName, service)
@@ -115,7 +117,7 @@ public class DeploymentScannerService implements Service<DeploymentScanner> {
 
     DeploymentScannerService(final String relativeTo, final String path, final Integer interval, final TimeUnit unit, final Boolean autoDeployZipped,
                              final Boolean autoDeployExploded, final Boolean autoDeployXml, final Boolean enabled, final Long deploymentTimeout,
-                             final Boolean rollbackOnRuntimeFailure, final FileSystemDeploymentService bootTimeService) {
+                             final Boolean rollbackOnRuntimeFailure, final Boolean watchEnabled, final FileSystemDeploymentService bootTimeService) {
         this.relativeTo = relativeTo;
         this.path = path;
         this.interval = interval == null ? DEFAULT_INTERVAL : interval.longValue();
@@ -125,6 +127,7 @@ public class DeploymentScannerService implements Service<DeploymentScanner> {
         this.autoDeployXml = autoDeployXml == null ? true : autoDeployXml.booleanValue();
         this.enabled = enabled == null ? true : enabled.booleanValue();
         this.rollbackOnRuntimeFailure = rollbackOnRuntimeFailure;
+        this.watchEnabled = watchEnabled == null ? false : watchEnabled.booleanValue();
         this.deploymentTimeout = deploymentTimeout;
         this.scanner = bootTimeService;
     }
@@ -162,6 +165,7 @@ public class DeploymentScannerService implements Service<DeploymentScanner> {
                 scanner.setAutoDeployZippedContent(autoDeployZipped);
                 scanner.setAutoDeployXMLContent(autoDeployXml);
                 scanner.setRuntimeFailureCausesRollback(rollbackOnRuntimeFailure);
+                scanner.setWatchEnabled(watchEnabled);
                 if (deploymentTimeout != null) {
                     scanner.setDeploymentTimeout(deploymentTimeout);
                 }
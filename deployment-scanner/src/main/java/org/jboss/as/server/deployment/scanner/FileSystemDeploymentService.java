@@ -27,9 +27,11 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -93,6 +95,9 @@ class FileSystemDeploymentService implements DeploymentScanner {
     static final String SKIP_DEPLOY = ".skipdeploy";
     static final String PENDING = ".pending";
 
+    private static final String[] MARKER_SUFFIXES = {DEPLOYED, FAILED_DEPLOY, DO_DEPLOY, DEPLOYING, UNDEPLOYING, UNDEPLOYED,
+            SKIP_DEPLOY, PENDING};
+
     static final String WEB_INF = "WEB-INF";
     static final String META_INF = "META-INF";
 
@@ -106,6 +111,16 @@ class FileSystemDeploymentService implements DeploymentScanner {
      */
     static final long DEFAULT_DEPLOYMENT_TIMEOUT = 600;
 
+    /**
+     * Period in milliseconds at which file system events are collected when watching the deployment directory
+     */
+    static final long WATCH_INTERVAL = 200;
+
+    /**
+     * Max period in milliseconds a burst of file system events may delay a scan
+     */
+    static final long MAX_WATCH_DELAY = 2000;
+
     private File deploymentDir;
     private long scanInterval = 0;
     private volatile boolean scanEnabled = false;
@@ -114,6 +129,9 @@ class FileSystemDeploymentService implements DeploymentScanner {
     private ScheduledFuture<?> scanTask;
     private ScheduledFuture<?> rescanIncompleteTask;
     private ScheduledFuture<?> rescanUndeployTask;
+    private ScheduledFuture<?> watchTask;
+    private volatile boolean watchEnabled;
+    private volatile DeploymentDirectoryWatcher watcher;
     private final Lock scanLock = new ReentrantLock();
 
     private final Map<String, DeploymentMarker> deployed = new HashMap<String, DeploymentMarker>();
@@ -153,6 +171,45 @@ class FileSystemDeploymentService implements DeploymentScanner {
 
     private final DeploymentScanRunnable scanRunnable = new DeploymentScanRunnable();
 
+    /**
+     * Collects the file system events of the watched deployment directory, and scans the changed entries once no
+     * more events are reported.
+     */
+    private class DeploymentWatchRunnable implements Runnable {
+
+        private long firstEvent;
+
+        @Override
+        public void run() {
+            final DeploymentDirectoryWatcher watcher = FileSystemDeploymentService.this.watcher;
+            if (watcher == null) {
+                return;
+            }
+            try {
+                final long now = System.currentTimeMillis();
+                if (watcher.poll()) {
+                    if (firstEvent == 0) {
+                        firstEvent = now;
+                    }
+                    if (now - firstEvent < MAX_WATCH_DELAY) {
+                        // coalesce the burst of events
+                        return;
+                    }
+                } else if (firstEvent == 0) {
+                    return;
+                }
+                firstEvent = 0;
+                scan(false, deploymentOperations, false);
+            } catch (IOException e) {
+                watchFailed(watcher, e);
+            } catch (Exception e) {
+                ROOT_LOGGER.scanException(e, deploymentDir.getAbsolutePath());
+            }
+        }
+    }
+
+    private final DeploymentWatchRunnable watchRunnable = new DeploymentWatchRunnable();
+
     FileSystemDeploymentService(final String relativeTo, final File deploymentDir, final File relativeToDir,
                                 final DeploymentOperations.Factory deploymentOperationsFactory, final ScheduledExecutorService scheduledExecutor)
             throws OperationFailedException {
@@ -241,6 +298,20 @@ class FileSystemDeploymentService implements DeploymentScanner {
         startScan();
     }
 
+    @Override
+    public boolean isWatchEnabled() {
+        return watchEnabled;
+    }
+
+    @Override
+    public synchronized void setWatchEnabled(boolean watchEnabled) {
+        if (watchEnabled != this.watchEnabled) {
+            cancelScan();
+            this.watchEnabled = watchEnabled;
+            startScan();
+        }
+    }
+
     @Override
     public void setDeploymentTimeout(long deploymentTimeout) {
         this.deploymentTimeout = deploymentTimeout;
@@ -356,14 +427,25 @@ class FileSystemDeploymentService implements DeploymentScanner {
             if (scanEnabled || oneOffScan) { // confirm the scan is still wanted
                 ROOT_LOGGER.tracef("Scanning directory %s for deployment content changes", deploymentDir.getAbsolutePath());
 
+                final Map<File, Set<String>> changes = oneOffScan || forcedUndeployScan ? null : getChanges();
+                final Set<String> changedNames;
                 ScanContext scanContext = new ScanContext(deploymentOperations);
-                if (!forcedUndeployScan)
-                    // skip directory scan since only undeployment required
-                    scanDirectory(deploymentDir, relativePath, scanContext);
+                if (changes == null) {
+                    changedNames = null;
+                    if (!forcedUndeployScan)
+                        // skip directory scan since only undeployment required
+                        scanDirectory(deploymentDir, relativePath, null, scanContext);
+                } else {
+                    changedNames = new HashSet<String>();
+                    for (Set<String> names : changes.values()) {
+                        changedNames.addAll(names);
+                    }
+                    scanChanges(changes, scanContext);
+                }
 
                 // WARN about markers with no associated content. Do this first in case any auto-deploy issue
                 // is due to a file that wasn't meant to be auto-deployed, but has a misspelled marker
-                ignoredMissingDeployments.retainAll(scanContext.ignoredMissingDeployments);
+                retainLogged(ignoredMissingDeployments, scanContext.ignoredMissingDeployments, changedNames);
                 for (String deploymentName : scanContext.ignoredMissingDeployments) {
                     if (ignoredMissingDeployments.add(deploymentName)) {
                         ROOT_LOGGER.deploymentNotFound(deploymentName);
@@ -371,7 +453,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
                 }
 
                 // Log INFO about non-auto-deploy files that have no marker files
-                noticeLogged.retainAll(scanContext.nonDeployable);
+                retainLogged(noticeLogged, scanContext.nonDeployable, changedNames);
                 for (String fileName : scanContext.nonDeployable) {
                     if (noticeLogged.add(fileName)) {
                         ROOT_LOGGER.deploymentTriggered(fileName, DO_DEPLOY);
@@ -379,7 +461,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
                 }
 
                 // Log ERROR about META-INF and WEB-INF dirs outside a deployment
-                illegalDirLogged.retainAll(scanContext.illegalDir);
+                retainLogged(illegalDirLogged, scanContext.illegalDir, changedNames);
                 for (String fileName : scanContext.illegalDir) {
                     if (illegalDirLogged.add(fileName)) {
                         ROOT_LOGGER.invalidExplodedDeploymentDirectory(fileName, deploymentDir.getAbsolutePath());
@@ -387,7 +469,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
                 }
 
                 // Log about deleting exploded deployments without first triggering undeploy by deleting .deployed
-                prematureExplodedContentDeletionLogged.retainAll(scanContext.prematureExplodedDeletions);
+                retainLogged(prematureExplodedContentDeletionLogged, scanContext.prematureExplodedDeletions, changedNames);
                 for (String fileName : scanContext.prematureExplodedDeletions) {
                     if (prematureExplodedContentDeletionLogged.add(fileName)) {
                         ROOT_LOGGER.explodedDeploymentContentDeleted(fileName, DEPLOYED);
@@ -563,9 +645,10 @@ class FileSystemDeploymentService implements DeploymentScanner {
      * Scan the given directory for content changes.
      *
      * @param directory   the directory to scan
+     * @param names       the names of the deployments to scan, or {@code null} to scan all the directory content
      * @param scanContext context of the scan
      */
-    private void scanDirectory(final File directory, final String relativePath, final ScanContext scanContext) {
+    private void scanDirectory(final File directory, final String relativePath, final Set<String> names, final ScanContext scanContext) {
         final File[] children = directory.listFiles(filter);
         if (children == null) {
             return;
@@ -573,6 +656,9 @@ class FileSystemDeploymentService implements DeploymentScanner {
 
         for (File child : children) {
             final String fileName = child.getName();
+            if (names != null && !names.contains(getDeploymentName(fileName))) {
+                continue;
+            }
             if (fileName.endsWith(DEPLOYED)) {
                 final String deploymentName = fileName.substring(0, fileName.length() - DEPLOYED.length());
                 DeploymentMarker deploymentMarker = deployed.get(deploymentName);
@@ -587,21 +673,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
                             scanContext.scannerTasks.add(new RedeployTask(deploymentName, child.lastModified(), directory,
                                     !child.isDirectory()));
                         } else {
-                            // AS7-784 check for undeploy or removal of the deployment via another management client
-                            Boolean isDeployed = scanContext.registeredDeployments.get(deploymentName);
-                            if (isDeployed == null || !isDeployed) {
-                                // It was undeployed or removed; get rid of the .deployed marker and
-                                // put down a .undeployed marker so we don't process this again
-                                deployed.remove(deploymentName);
-                                removeExtraneousMarker(child, fileName);
-                                final File marker = new File(directory, deploymentName + UNDEPLOYED);
-                                createMarkerFile(marker, deploymentName);
-                                if (isDeployed == null) {
-                                    DeploymentScannerLogger.ROOT_LOGGER.scannerDeploymentRemovedButNotByScanner(deploymentName, marker);
-                                } else {
-                                    DeploymentScannerLogger.ROOT_LOGGER.scannerDeploymentUndeployedButNotByScanner(deploymentName, marker);
-                                }
-                            }
+                            checkRegistered(directory, child, deploymentName, scanContext);
                         }
                     } else {
                         boolean autoDeployable = deploymentMarker.archive ? autoDeployZip : autoDeployExploded;
@@ -717,7 +789,157 @@ class FileSystemDeploymentService implements DeploymentScanner {
                     // Track for possible ERROR logging
                     scanContext.illegalDir.add(fileName);
                 } else {
-                    scanDirectory(child, relativePath + child.getName() + File.separator, scanContext);
+                    scanDirectory(child, relativePath + child.getName() + File.separator, null, scanContext);
+                }
+            }
+        }
+    }
+
+    /**
+     * AS7-784 check for undeploy or removal of the deployment via another management client
+     */
+    private void checkRegistered(final File directory, final File deployedMarker, final String deploymentName, final ScanContext scanContext) {
+        Boolean isDeployed = scanContext.registeredDeployments.get(deploymentName);
+        if (isDeployed == null || !isDeployed) {
+            // It was undeployed or removed; get rid of the .deployed marker and
+            // put down a .undeployed marker so we don't process this again
+            deployed.remove(deploymentName);
+            removeExtraneousMarker(deployedMarker, deployedMarker.getName());
+            final File marker = new File(directory, deploymentName + UNDEPLOYED);
+            createMarkerFile(marker, deploymentName);
+            if (isDeployed == null) {
+                DeploymentScannerLogger.ROOT_LOGGER.scannerDeploymentRemovedButNotByScanner(deploymentName, marker);
+            } else {
+                DeploymentScannerLogger.ROOT_LOGGER.scannerDeploymentUndeployedButNotByScanner(deploymentName, marker);
+            }
+        }
+    }
+
+    /**
+     * Gets the entries of the deployment directory tree changed since the previous scan.
+     *
+     * @return the names of the changed deployments keyed by their directory, or {@code null} if the whole
+     *         deployment directory needs to be scanned
+     */
+    private Map<File, Set<String>> getChanges() {
+        final DeploymentDirectoryWatcher watcher = this.watcher;
+        if (watcher == null) {
+            return null;
+        }
+        try {
+            watcher.poll();
+        } catch (IOException e) {
+            watchFailed(watcher, e);
+            return null;
+        }
+        final Set<Path> paths = watcher.takeChanges();
+        if (paths == null || firstScan || !incompleteDeployments.isEmpty() || !nonscannableLogged.isEmpty()) {
+            // the state of incomplete and non-scannable content is only tracked by full scans
+            return null;
+        }
+        final Map<File, Set<String>> changes = new HashMap<File, Set<String>>();
+        for (Path path : paths) {
+            final Path relative = watcher.getRoot().relativize(path);
+            final int count = relative.getNameCount();
+            File directory = deploymentDir.getAbsoluteFile();
+            for (int i = 0; i < count; i++) {
+                final String name = relative.getName(i).toString();
+                final File child = new File(directory, name);
+                // a change within deployment content is a change of the deployment itself
+                if (i == count - 1 || isEEArchive(name) || WEB_INF.equalsIgnoreCase(name) || META_INF.equalsIgnoreCase(name)
+                        || !child.isDirectory()) {
+                    Set<String> names = changes.get(directory);
+                    if (names == null) {
+                        changes.put(directory, names = new HashSet<String>());
+                    }
+                    names.add(getDeploymentName(name));
+                    break;
+                }
+                directory = child;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Scans only the changed entries of the deployment directory tree.
+     */
+    private void scanChanges(final Map<File, Set<String>> changes, final ScanContext scanContext) {
+        // only deployments whose content or markers have changed can have been removed
+        final Map<String, DeploymentMarker> unchanged = new HashMap<String, DeploymentMarker>();
+        final Iterator<Map.Entry<String, DeploymentMarker>> iterator = scanContext.toRemove.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, DeploymentMarker> entry = iterator.next();
+            if (!isChanged(entry.getKey(), entry.getValue().parentFolder.getAbsoluteFile(), changes)) {
+                unchanged.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+
+        for (Map.Entry<File, Set<String>> change : changes.entrySet()) {
+            final File directory = change.getKey();
+            if (isWithinChange(directory, changes)) {
+                // scanned as a whole with the changed directory containing it
+                continue;
+            }
+            final String directoryPath;
+            if (relativePath == null || directory.equals(deploymentDir.getAbsoluteFile())) {
+                directoryPath = relativePath;
+            } else {
+                directoryPath = relativePath + deploymentDir.getAbsoluteFile().toPath().relativize(directory.toPath()) + File.separator;
+            }
+            scanDirectory(directory, directoryPath, change.getValue(), scanContext);
+        }
+
+        for (Map.Entry<String, DeploymentMarker> entry : unchanged.entrySet()) {
+            final File directory = entry.getValue().parentFolder;
+            if (deployed.get(entry.getKey()) == entry.getValue()) {
+                checkRegistered(directory, new File(directory, entry.getKey() + DEPLOYED), entry.getKey(), scanContext);
+            }
+        }
+    }
+
+    private static boolean isChanged(final String deploymentName, final File parentFolder, final Map<File, Set<String>> changes) {
+        final Set<String> names = changes.get(parentFolder);
+        return (names != null && names.contains(deploymentName)) || isWithinChange(parentFolder, changes);
+    }
+
+    /**
+     * Whether the directory is within a directory which has been changed as a whole
+     */
+    private static boolean isWithinChange(final File directory, final Map<File, Set<String>> changes) {
+        for (File current = directory; current.getParentFile() != null; current = current.getParentFile()) {
+            final Set<String> names = changes.get(current.getParentFile());
+            if (names != null && names.contains(current.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getDeploymentName(final String fileName) {
+        for (String suffix : MARKER_SUFFIXES) {
+            if (fileName.endsWith(suffix)) {
+                return fileName.substring(0, fileName.length() - suffix.length());
+            }
+        }
+        return fileName;
+    }
+
+    /**
+     * Forgets the logged problems which were not found again by the scan.
+     *
+     * @param logged the problems that have been logged
+     * @param found the problems found by the scan
+     * @param scanned the names scanned, or {@code null} if all the deployment directory was scanned
+     */
+    private static void retainLogged(final Set<String> logged, final Set<String> found, final Set<String> scanned) {
+        if (scanned == null) {
+            logged.retainAll(found);
+        } else {
+            for (String name : scanned) {
+                if (!found.contains(name)) {
+                    logged.remove(name);
                 }
             }
         }
@@ -921,6 +1143,9 @@ class FileSystemDeploymentService implements DeploymentScanner {
     private synchronized void startScan() {
         if (scanEnabled) {
             if (scanInterval > 0) {
+                if (watchEnabled) {
+                    startWatch();
+                }
                 scanTask = scheduledExecutor.scheduleWithFixedDelay(scanRunnable, 0, scanInterval, TimeUnit.MILLISECONDS);
             } else {
                 scanTask = scheduledExecutor.schedule(scanRunnable, scanInterval, TimeUnit.MILLISECONDS);
@@ -928,10 +1153,47 @@ class FileSystemDeploymentService implements DeploymentScanner {
         }
     }
 
+    /**
+     * Invoke with the object monitor held
+     */
+    private void startWatch() {
+        try {
+            watcher = new DeploymentDirectoryWatcher(deploymentDir);
+        } catch (IOException e) {
+            // fall back to periodic scans of the whole directory
+            ROOT_LOGGER.cannotWatchDeploymentDirectory(e, deploymentDir.getAbsolutePath());
+            return;
+        }
+        watchTask = scheduledExecutor.scheduleWithFixedDelay(watchRunnable, WATCH_INTERVAL, WATCH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void watchFailed(final DeploymentDirectoryWatcher watcher, final IOException e) {
+        if (this.watcher == watcher) {
+            // fall back to periodic scans of the whole directory
+            ROOT_LOGGER.cannotWatchDeploymentDirectory(e, deploymentDir.getAbsolutePath());
+            stopWatch();
+        }
+    }
+
+    /**
+     * Invoke with the object monitor held
+     */
+    private void stopWatch() {
+        if (watchTask != null) {
+            watchTask.cancel(false);
+            watchTask = null;
+        }
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
     /**
      * Invoke with the object monitor held
      */
     private void cancelScan() {
+        stopWatch();
         if (rescanIncompleteTask != null) {
             rescanIncompleteTask.cancel(false);
             rescanIncompleteTask = null;
@@ -55,6 +55,21 @@ public interface DeploymentScanner {
      */
     void setScanInterval(long scanInterval);
 
+    /**
+     * Gets whether file system events are used to only scan the content that has changed.
+     *
+     * @return true if the deployment directory is watched for changes
+     */
+    boolean isWatchEnabled();
+
+    /**
+     * Sets whether file system events are used to only scan the content that has changed. This only
+     * applies to scanners with a positive scan interval.
+     *
+     * @param watchEnabled true if the deployment directory should be watched for changes
+     */
+    void setWatchEnabled(boolean watchEnabled);
+
     /**
      * Start the scanner, if not already started, using a default {@link DeploymentOperations}.
      *
@@ -18,7 +18,7 @@ public class DeploymentScannerParsingTestCase extends AbstractSubsystemBaseTest
                    "auto-deploy-xml=\"true\" deployment-timeout=\"60\"/>\n" +
             "    <deployment-scanner path=\"deployments\"  relative-to=\"jboss.server.base.dir\" " +
                    "scan-enabled=\"false\" scan-interval=\"5000\" " +
-                   "auto-deploy-xml=\"true\" deployment-timeout=\"30\"/>\n" +
+                   "auto-deploy-xml=\"true\" deployment-timeout=\"30\" watch-enabled=\"${custom.watch:true}\"/>\n" +
             "</subsystem>";
 
 
@@ -731,6 +731,42 @@ public class FileSystemDeploymentServiceUnitTestCase {
         assertEquals(0, ts.controller.deployed.size());
     }
 
+    @Test
+    public void testWatchedDeployAndUndeploy() throws Exception {
+        File nestedDir = new File(tmpDir, "nested");
+        File unchanged = createFile(tmpDir, "bar.war");
+        File unchangedDodeploy = createFile(tmpDir, "bar.war" + FileSystemDeploymentService.DO_DEPLOY);
+        File unchangedDeployed = new File(tmpDir, "bar.war" + FileSystemDeploymentService.DEPLOYED);
+        TesteeSet ts = createTestee();
+        ts.testee.setScanInterval(60000);
+        ts.testee.setWatchEnabled(true);
+        // the first scan after the watch is established covers the whole directory
+        ts.controller.addCompositeSuccessResponse(1);
+        ts.testee.scan();
+        assertTrue(unchangedDeployed.exists());
+        assertFalse(unchangedDodeploy.exists());
+        assertEquals(1, ts.controller.deployed.size());
+
+        File war = createFile(nestedDir, "foo.war");
+        File dodeploy = createFile(nestedDir, "foo.war" + FileSystemDeploymentService.DO_DEPLOY);
+        File deployed = new File(nestedDir, "foo.war" + FileSystemDeploymentService.DEPLOYED);
+        ts.controller.addCompositeSuccessResponse(1);
+        scanUntil(ts, deployed, true);
+        assertTrue(war.exists());
+        assertFalse(dodeploy.exists());
+        assertEquals(2, ts.controller.deployed.size());
+
+        assertTrue(deployed.delete());
+        ts.controller.addCompositeSuccessResponse(1);
+        scanUntil(ts, new File(nestedDir, "foo.war" + FileSystemDeploymentService.UNDEPLOYED), true);
+        assertTrue(war.exists());
+        assertEquals(1, ts.controller.deployed.size());
+        assertTrue(unchanged.exists());
+        assertTrue(unchangedDeployed.exists());
+
+        ts.testee.stopScanner();
+    }
+
     @Test
     public void testUndeployByContentDeletionZipped() throws Exception {
         undeployByContentDeletionZippedTest(tmpDir);
@@ -1580,6 +1616,17 @@ public class FileSystemDeploymentServiceUnitTestCase {
         return new TesteeSet(testee, sc);
     }
 
+    /**
+     * Scans until the file system events have been delivered and {@code marker} exists or not
+     */
+    private void scanUntil(TesteeSet ts, File marker, boolean exists) throws InterruptedException {
+        for (int i = 0; i < 100 && marker.exists() != exists; i++) {
+            Thread.sleep(50);
+            ts.testee.scan();
+        }
+        assertEquals(exists, marker.exists());
+    }
+
     private File createFile(String fileName) throws IOException {
         return createFile(tmpDir, fileName);
     }
@@ -1916,6 +1963,12 @@ public class FileSystemDeploymentServiceUnitTestCase {
             return null;
         }
 
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+            tasks.add(command);
+            return null;
+        }
+
         @Override
         public <T> AsyncFuture<T> submit(Callable<T> tCallable) {
             return new CallOnGetFuture<T>(tCallable);
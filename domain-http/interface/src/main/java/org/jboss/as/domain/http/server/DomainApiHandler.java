@@ -21,14 +21,20 @@
 */
 package org.jboss.as.domain.http.server;
 
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ACCESS;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ACCESS_MECHANISM;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.AUTHORIZATION;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.COMPOSITE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CORE_SERVICE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILED;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.HOST;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.INCLUDE_RUNTIME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.MANAGEMENT;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OPERATION_HEADERS;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.PROXIES;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_OPERATION_DESCRIPTION_OPERATION;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_OPERATION_NAMES_OPERATION;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_RESOURCE_DESCRIPTION_OPERATION;
@@ -44,12 +50,16 @@ import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeSet;
 
+import io.undertow.security.api.SecurityContext;
+import io.undertow.security.idm.Account;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.ETag;
@@ -59,11 +69,14 @@ import io.undertow.util.Headers;
 import io.undertow.util.HexConverter;
 import io.undertow.util.Methods;
 import org.jboss.as.controller.ModelController;
+import org.jboss.as.controller.ModelGenerationProvider;
 import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
 import org.jboss.as.controller.client.OperationBuilder;
 import org.jboss.as.controller.client.OperationMessageHandler;
 import org.jboss.as.core.security.AccessMechanism;
 import org.jboss.dmr.ModelNode;
+import org.wildfly.security.manager.WildFlySecurityManager;
 import org.xnio.IoUtils;
 import org.xnio.streams.ChannelInputStream;
 
@@ -75,26 +88,29 @@ class DomainApiHandler implements HttpHandler {
 
     /**
      * Represents all possible management operations that can be executed using HTTP GET. Cacheable operations
-     * have a {@code maxAge} property &gt; 0.
+     * have a {@code maxAge} property &gt; 0. Operations whose result only depends on the persistent model and its
+     * registrations, unless runtime data or proxied controllers are included, are {@code modelBased}.
      */
     enum GetOperation {
         /*
          *  It is essential that the GET requests exposed over the HTTP interface are for read only
          *  operations that do not modify the domain model or update anything server side.
          */
-        RESOURCE(READ_RESOURCE_OPERATION, 0),
-        ATTRIBUTE("read-attribute", 0),
-        RESOURCE_DESCRIPTION(READ_RESOURCE_DESCRIPTION_OPERATION, Common.ONE_WEEK),
-        SNAPSHOTS("list-snapshots", 0),
-        OPERATION_DESCRIPTION(READ_OPERATION_DESCRIPTION_OPERATION, Common.ONE_WEEK),
-        OPERATION_NAMES(READ_OPERATION_NAMES_OPERATION, 0);
+        RESOURCE(READ_RESOURCE_OPERATION, 0, true),
+        ATTRIBUTE("read-attribute", 0, false),
+        RESOURCE_DESCRIPTION(READ_RESOURCE_DESCRIPTION_OPERATION, Common.ONE_WEEK, true),
+        SNAPSHOTS("list-snapshots", 0, false),
+        OPERATION_DESCRIPTION(READ_OPERATION_DESCRIPTION_OPERATION, Common.ONE_WEEK, true),
+        OPERATION_NAMES(READ_OPERATION_NAMES_OPERATION, 0, true);
 
         private String realOperation;
         private int maxAge;
+        private boolean modelBased;
 
-        GetOperation(String realOperation, int maxAge) {
+        GetOperation(String realOperation, int maxAge, boolean modelBased) {
             this.realOperation = realOperation;
             this.maxAge = maxAge;
+            this.modelBased = modelBased;
         }
 
         public String realOperation() {
@@ -104,12 +120,41 @@ class DomainApiHandler implements HttpHandler {
         public int getMaxAge() {
             return maxAge;
         }
+
+        public boolean isModelBased() {
+            return modelBased;
+        }
     }
 
+    /**
+     * The number of rendered GET responses kept to answer repeated requests against an unchanged model without
+     * executing them again. Disabled by default. Setting it also answers conditional GET requests against an
+     * unchanged model with a 304, derived from the model generation; like cached responses, those skip the
+     * authorization and audit logging of the operation.
+     */
+    private static final String RESPONSE_CACHE_SIZE = "jboss.management.http.response-cache-size";
+    private static final int MAX_CACHED_RESPONSE_SIZE = 1024 * 1024;
+    private static final PathAddress AUTHORIZATION_ADDRESS = PathAddress.pathAddress(
+            PathElement.pathElement(CORE_SERVICE, MANAGEMENT), PathElement.pathElement(ACCESS, AUTHORIZATION));
+
     private final ModelController modelController;
+    /** Distinguishes the entity tags of this process from those handed out before a restart */
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+    private final RenderedResponseCache responseCache;
 
     DomainApiHandler(ModelController modelController) {
         this.modelController = modelController;
+        final int cacheSize = getResponseCacheSize();
+        this.responseCache = cacheSize > 0 && modelController instanceof ModelGenerationProvider
+                ? new RenderedResponseCache(cacheSize, MAX_CACHED_RESPONSE_SIZE) : null;
+    }
+
+    private static int getResponseCacheSize() {
+        try {
+            return Integer.parseInt(WildFlySecurityManager.getPropertyPrivileged(RESPONSE_CACHE_SIZE, "0"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
     }
 
     @Override
@@ -120,6 +165,7 @@ class DomainApiHandler implements HttpHandler {
 
         HeaderMap requestHeaders = exchange.getRequestHeaders();
         final boolean cachable;
+        final ETag generationTag;
         final boolean get = exchange.getRequestMethod().equals(Methods.GET);
         final boolean encode = Common.APPLICATION_DMR_ENCODED.equals(requestHeaders.getFirst(Headers.ACCEPT))
                 || Common.APPLICATION_DMR_ENCODED.equals(requestHeaders.getFirst(Headers.CONTENT_TYPE));
@@ -131,9 +177,11 @@ class DomainApiHandler implements HttpHandler {
                 operationParameterBuilder.maxAge(operation.getMaxAge());
                 dmr = convertGetRequest(exchange, operation);
                 cachable = operation.getMaxAge() > 0;
+                generationTag = responseCache != null && operation.isModelBased() ? getGenerationTag(exchange, dmr, encode) : null;
             } else {
                 dmr = convertPostRequest(exchange, encode);
                 cachable = false;
+                generationTag = null;
             }
         } catch (Exception e) {
             ROOT_LOGGER.debugf("Unable to construct ModelNode '%s'", e.getMessage());
@@ -148,10 +196,38 @@ class DomainApiHandler implements HttpHandler {
                     Common.sendError(exchange, encode, response);
                     return;
                 }
-                writeResponse(exchange, 200, response, operationParameterBuilder.build());
+                final OperationParameter operationParameter = operationParameterBuilder.build();
+                if (generationTag != null) {
+                    final byte[] data;
+                    try {
+                        data = DomainUtil.renderGetResponse(response, operationParameter);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                    responseCache.put(generationTag.getTag(), data);
+                    writeResponse(exchange, 200, data, operationParameter);
+                    return;
+                }
+                writeResponse(exchange, 200, response, operationParameter);
             }
         };
 
+        if (generationTag != null) {
+            // The model the request would be executed against is the one the client already holds a response for
+            operationParameterBuilder.etag(generationTag);
+            if (!ETagUtils.handleIfNoneMatch(exchange, generationTag, false)) {
+                exchange.setResponseCode(304);
+                DomainUtil.writeCacheHeaders(exchange, 304, operationParameterBuilder.build());
+                exchange.endExchange();
+                return;
+            }
+            final byte[] cached = responseCache.get(generationTag.getTag());
+            if (cached != null) {
+                writeResponse(exchange, 200, cached, operationParameterBuilder.build());
+                return;
+            }
+        }
+
         final boolean sendPreparedResponse = sendPreparedResponse(dmr);
         final ModelController.OperationTransactionControl control = sendPreparedResponse ? new ModelController.OperationTransactionControl() {
             @Override
@@ -167,7 +243,7 @@ class DomainApiHandler implements HttpHandler {
         try {
             dmr.get(OPERATION_HEADERS, ACCESS_MECHANISM).set(AccessMechanism.HTTP.toString());
             response = modelController.execute(dmr, OperationMessageHandler.logging, control, new OperationBuilder(dmr).build());
-            if (cachable) {
+            if (cachable && generationTag == null) {
                 // Use the MD5 of the model nodes toString() method as ETag
                 MessageDigest md = MessageDigest.getInstance("MD5");
                 md.update(response.toString().getBytes());
@@ -189,6 +265,47 @@ class DomainApiHandler implements HttpHandler {
         callback.sendResponse(response);
     }
 
+    /**
+     * Creates an entity tag for a model based GET request from the generation of the model it reads, so that
+     * conditional requests against an unchanged model can be answered without executing them. The tag also covers
+     * the request itself, the caller and the access control configuration, as those determine what the result shows.
+     *
+     * @return the entity tag, or {@code null} if changes to the result are not tracked by the model generation
+     */
+    private ETag getGenerationTag(final HttpServerExchange exchange, final ModelNode dmr, final boolean encode)
+            throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        if (!(modelController instanceof ModelGenerationProvider)
+                || (dmr.hasDefined(INCLUDE_RUNTIME) && dmr.get(INCLUDE_RUNTIME).asBoolean())
+                || (dmr.hasDefined(PROXIES) && dmr.get(PROXIES).asBoolean())) {
+            return null;
+        }
+        final PathAddress address = PathAddress.pathAddress(dmr.get(OP_ADDR));
+        if (address.isMultiTarget()) {
+            return null;
+        }
+        final ModelGenerationProvider generationProvider = (ModelGenerationProvider) modelController;
+        // Read before the operation executes, so the tag never claims a newer model than the result reflects
+        final long generation = generationProvider.getModelGeneration(address);
+        final long authorizationGeneration = generationProvider.getModelGeneration(AUTHORIZATION_ADDRESS);
+        if (generation < 0 || authorizationGeneration < 0) {
+            return null;
+        }
+
+        MessageDigest md = MessageDigest.getInstance("MD5");
+        md.update(dmr.toString().getBytes(Common.UTF_8));
+        md.update((byte) (encode ? 1 : 0));
+        final SecurityContext securityContext = exchange.getSecurityContext();
+        final Account account = securityContext != null ? securityContext.getAuthenticatedAccount() : null;
+        if (account != null) {
+            md.update(account.getPrincipal().getName().getBytes(Common.UTF_8));
+            for (String role : new TreeSet<String>(account.getRoles())) {
+                md.update((byte) 0);
+                md.update(role.getBytes(Common.UTF_8));
+            }
+        }
+        return new ETag(false, epoch + "-" + generation + "-" + authorizationGeneration + "-" + HexConverter.convertToHexString(md.digest()));
+    }
+
     private GetOperation getOperation(HttpServerExchange exchange) {
         Map<String, Deque<String>> queryParameters = exchange.getQueryParameters();
 
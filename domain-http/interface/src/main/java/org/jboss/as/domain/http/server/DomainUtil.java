@@ -25,8 +25,12 @@ import static io.undertow.util.Headers.HOST;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
 
 import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.nio.ByteBuffer;
 
 import io.undertow.server.HttpServerExchange;
@@ -58,14 +62,82 @@ public class DomainUtil {
             response = response.get(RESULT);
         }
         try {
-            byte[] data = getResponseBytes(response, operationParameter);
-            responseHeaders.put(Headers.CONTENT_LENGTH, data.length);
-            exchange.getResponseSender().send(ByteBuffer.wrap(data));
+            if (exchange.isBlocking()) {
+                writeResponse(exchange.getOutputStream(), response, operationParameter);
+            } else {
+                byte[] data = getResponseBytes(response, operationParameter);
+                responseHeaders.put(Headers.CONTENT_LENGTH, data.length);
+                exchange.getResponseSender().send(ByteBuffer.wrap(data));
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Renders the body of a successful response to the given GET request, in the form that
+     * {@link #writeResponse(HttpServerExchange, int, byte[], OperationParameter)} sends it.
+     */
+    static byte[] renderGetResponse(final ModelNode response, final OperationParameter operationParameter) throws IOException {
+        return getResponseBytes(response.get(RESULT), operationParameter);
+    }
+
+    /**
+     * Sends an already rendered response body.
+     */
+    static void writeResponse(final HttpServerExchange exchange, final int status, final byte[] data,
+            final OperationParameter operationParameter) {
+
+        exchange.setResponseCode(status);
+
+        final HeaderMap responseHeaders = exchange.getResponseHeaders();
+        final String contentType = operationParameter.isEncode() ? Common.APPLICATION_DMR_ENCODED : Common.APPLICATION_JSON;
+        responseHeaders.put(Headers.CONTENT_TYPE, contentType + "; charset=" + Common.UTF_8);
+        responseHeaders.put(Headers.CONTENT_LENGTH, data.length);
+
+        writeCacheHeaders(exchange, status, operationParameter);
+
+        try {
+            if (exchange.isBlocking()) {
+                final OutputStream out = exchange.getOutputStream();
+                try {
+                    out.write(data);
+                } finally {
+                    out.close();
+                }
+            } else {
+                exchange.getResponseSender().send(ByteBuffer.wrap(data));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Serializes the response straight into the response stream, so that large results (e.g. a recursive
+     * read-resource) are sent as they are serialized rather than first being converted to a string and then to bytes.
+     * Responses fitting in the exchange's buffer are still sent with a Content-Length, larger ones are chunked.
+     */
+    private static void writeResponse(final OutputStream out, final ModelNode modelNode, final OperationParameter operationParameter) throws IOException {
+        try {
+            if (operationParameter.isEncode()) {
+                BufferedOutputStream output = new BufferedOutputStream(out);
+                modelNode.writeBase64(output);
+                output.flush();
+            } else {
+                PrintWriter print = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, Common.UTF_8)));
+                modelNode.writeJSONString(print, !operationParameter.isPretty());
+                print.flush();
+                // PrintWriter swallows the IOExceptions of the underlying stream, don't let a truncated response pass
+                if (print.checkError()) {
+                    throw HttpServerMessages.MESSAGES.failedWritingResponse();
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
     private static byte[] getResponseBytes(final ModelNode modelNode, final OperationParameter operationParameter) throws IOException {
         if (operationParameter.isEncode()) {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -21,6 +21,9 @@
  */
 
 package org.jboss.as.domain.http.server;
+
+import java.io.IOException;
+
 import org.jboss.logging.Messages;
 import org.jboss.logging.annotations.Cause;
 import org.jboss.logging.annotations.Message;
@@ -69,6 +72,9 @@ public interface HttpServerMessages {
     @Message(id = 15139, value = "Invalid Credential Type '%s'")
     IllegalArgumentException invalidCredentialType(String value);
 
+    @Message(id = 15140, value = "Failed to write the management response")
+    IOException failedWritingResponse();
+
     /*
      * Message IDs 15100 to 15199 Reserved for the HTTP management interface, HttpServerLogger also contains messages in this
      * range commencing at 15100.
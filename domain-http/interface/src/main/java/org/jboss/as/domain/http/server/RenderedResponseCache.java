@@ -0,0 +1,60 @@
+/*
+* JBoss, Home of Professional Open Source.
+* Copyright 2013, Red Hat Middleware LLC, and individual contributors
+* as indicated by the @author tags. See the copyright.txt file in the
+* distribution for a full listing of individual contributors.
+*
+* This is free software; you can redistribute it and/or modify it
+* under the terms of the GNU Lesser General Public License as
+* published by the Free Software Foundation; either version 2.1 of
+* the License, or (at your option) any later version.
+*
+* This software is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this software; if not, write to the Free
+* Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+* 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+*/
+package org.jboss.as.domain.http.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A small least recently used cache of rendered GET responses, keyed by the value of the entity tag the response was
+ * sent with. As the entity tags of cached responses change with the model generation, superseded entries are never
+ * hit again and simply age out.
+ */
+final class RenderedResponseCache {
+
+    private final int maxEntrySize;
+    private final Map<String, byte[]> entries;
+
+    RenderedResponseCache(final int maxEntries, final int maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+        this.entries = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    synchronized byte[] get(final String key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(final String key, final byte[] data) {
+        if (data.length <= maxEntrySize) {
+            entries.put(key, data);
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,257 @@
+/*
+* JBoss, Home of Professional Open Source.
+* Copyright 2013, Red Hat Middleware LLC, and individual contributors
+* as indicated by the @author tags. See the copyright.txt file in the
+* distribution for a full listing of individual contributors.
+*
+* This is free software; you can redistribute it and/or modify it
+* under the terms of the GNU Lesser General Public License as
+* published by the Free Software Foundation; either version 2.1 of
+* the License, or (at your option) any later version.
+*
+* This software is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this software; if not, write to the Free
+* Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+* 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+*/
+package org.jboss.as.domain.http.server;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILED;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FAILURE_DESCRIPTION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.undertow.Undertow;
+import io.undertow.server.handlers.BlockingHandler;
+import org.jboss.as.controller.ModelController;
+import org.jboss.as.controller.ModelGenerationProvider;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.client.OperationAttachments;
+import org.jboss.as.controller.client.OperationMessageHandler;
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Test;
+
+public class DomainApiHandlerTestCase {
+
+    private static final String RESPONSE_CACHE_SIZE = "jboss.management.http.response-cache-size";
+    private static final PathAddress PARENT = PathAddress.pathAddress(PathElement.pathElement("subsystem", "x"));
+    private static final String ROOT_PATH = "/management";
+    private static final String CHILD_PATH = "/management/subsystem/x/foo/bar";
+
+    private final TestController controller = new TestController();
+    private Undertow server;
+    private int port;
+
+    @After
+    public void stopServer() {
+        System.clearProperty(RESPONSE_CACHE_SIZE);
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+    }
+
+    @Test
+    public void testConditionalGetExecutesWithoutOptIn() throws Exception {
+        startServer();
+
+        HttpURLConnection connection = get(null);
+        assertEquals(200, connection.getResponseCode());
+        final String etag = connection.getHeaderField("ETag");
+        read(connection);
+        assertEquals(1, controller.executions.get());
+
+        // Without the response cache a conditional GET is executed, so that it is authorized and audited
+        connection = get(etag);
+        assertEquals(200, connection.getResponseCode());
+        read(connection);
+        assertEquals(2, controller.executions.get());
+    }
+
+    @Test
+    public void testUnconditionalGet() throws Exception {
+        System.setProperty(RESPONSE_CACHE_SIZE, "0");
+        startServer();
+
+        for (int i = 1; i <= 2; i++) {
+            final HttpURLConnection connection = get(null);
+            assertEquals(200, connection.getResponseCode());
+            read(connection);
+            assertEquals(i, controller.executions.get());
+        }
+    }
+
+    @Test
+    public void testConditionalGetWithResponseCache() throws Exception {
+        System.setProperty(RESPONSE_CACHE_SIZE, "10");
+        startServer();
+
+        HttpURLConnection connection = get(null);
+        assertEquals(200, connection.getResponseCode());
+        final String etag = connection.getHeaderField("ETag");
+        assertNotNull(etag);
+        read(connection);
+        assertEquals(1, controller.executions.get());
+
+        // Unchanged model: answered from the model generation without executing the operation
+        connection = get(etag);
+        assertEquals(304, connection.getResponseCode());
+        assertEquals(1, controller.executions.get());
+
+        // Unconditional request against an unchanged model: answered from the response cache
+        connection = get(null);
+        assertEquals(200, connection.getResponseCode());
+        assertEquals(etag, connection.getHeaderField("ETag"));
+        read(connection);
+        assertEquals(1, controller.executions.get());
+
+        // Changed model: the old tag no longer matches and the operation is executed again
+        controller.generation.incrementAndGet();
+        connection = get(etag);
+        assertEquals(200, connection.getResponseCode());
+        read(connection);
+        assertEquals(2, controller.executions.get());
+    }
+
+    @Test
+    public void testConditionalGetAfterParentRemoved() throws Exception {
+        System.setProperty(RESPONSE_CACHE_SIZE, "10");
+        startServer();
+
+        HttpURLConnection connection = get(CHILD_PATH, null);
+        assertEquals(200, connection.getResponseCode());
+        final String etag = connection.getHeaderField("ETag");
+        assertNotNull(etag);
+        read(connection, "value");
+
+        // Removing the parent removes the child as well, so neither the old tag nor the cached body may be used
+        controller.setParent(null);
+        connection = get(CHILD_PATH, etag);
+        assertEquals(500, connection.getResponseCode());
+        connection = get(CHILD_PATH, null);
+        assertEquals(500, connection.getResponseCode());
+
+        // Adding the parent again with different content must not serve the child read before the removal
+        controller.setParent("other");
+        connection = get(CHILD_PATH, etag);
+        assertEquals(200, connection.getResponseCode());
+        assertFalse(etag.equals(connection.getHeaderField("ETag")));
+        read(connection, "other");
+        connection = get(CHILD_PATH, null);
+        assertEquals(200, connection.getResponseCode());
+        read(connection, "other");
+    }
+
+    private void startServer() throws IOException {
+        final ServerSocket socket = new ServerSocket(0);
+        try {
+            port = socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+        server = Undertow.builder()
+                .addHttpListener(port, "localhost")
+                .setHandler(new BlockingHandler(new DomainApiHandler(controller)))
+                .build();
+        server.start();
+    }
+
+    private HttpURLConnection get(final String ifNoneMatch) throws IOException {
+        return get(ROOT_PATH, ifNoneMatch);
+    }
+
+    private HttpURLConnection get(final String path, final String ifNoneMatch) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path + "?operation=resource").openConnection();
+        connection.setUseCaches(false);
+        if (ifNoneMatch != null) {
+            connection.setRequestProperty("If-None-Match", ifNoneMatch);
+        }
+        return connection;
+    }
+
+    private static ModelNode read(final HttpURLConnection connection) throws IOException {
+        return read(connection, "value");
+    }
+
+    private static ModelNode read(final HttpURLConnection connection, final String expected) throws IOException {
+        final InputStream in = connection.getInputStream();
+        try {
+            final ModelNode result = ModelNode.fromJSONStream(in);
+            assertEquals(expected, result.get("attr").asString());
+            return result;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static class TestController implements ModelController, ModelGenerationProvider {
+
+        private final AtomicInteger executions = new AtomicInteger();
+        private final AtomicInteger generation = new AtomicInteger(1);
+        /** Generations of changes made directly to a resource, which like the real controller also invalidate its descendants */
+        private final ConcurrentMap<PathAddress, Integer> resourceGenerations = new ConcurrentHashMap<PathAddress, Integer>();
+        private final AtomicInteger changes = new AtomicInteger(1);
+        private volatile String parent = "value";
+
+        void setParent(String value) {
+            parent = value;
+            resourceGenerations.put(PARENT, changes.incrementAndGet());
+        }
+
+        @Override
+        public ModelNode execute(ModelNode operation, OperationMessageHandler handler, OperationTransactionControl control, OperationAttachments attachments) {
+            executions.incrementAndGet();
+            final ModelNode response = new ModelNode();
+            final PathAddress address = PathAddress.pathAddress(operation.get(OP_ADDR));
+            final String value = address.size() == 0 ? "value" : parent;
+            if (value == null) {
+                response.get(OUTCOME).set(FAILED);
+                response.get(FAILURE_DESCRIPTION).set("Resource " + address + " not found");
+                return response;
+            }
+            response.get(OUTCOME).set(SUCCESS);
+            response.get(RESULT, "attr").set(value);
+            return response;
+        }
+
+        @Override
+        public ModelControllerClient createClient(Executor executor) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getModelGeneration(PathAddress address) {
+            long result = generation.get();
+            for (int i = 0; i < address.size(); i++) {
+                final Integer resourceGeneration = resourceGenerations.get(address.subAddress(0, i));
+                if (resourceGeneration != null) {
+                    result = Math.max(result, resourceGeneration);
+                }
+            }
+            return result;
+        }
+    }
+}
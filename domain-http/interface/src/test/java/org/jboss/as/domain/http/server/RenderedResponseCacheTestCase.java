@@ -0,0 +1,54 @@
+/*
+* JBoss, Home of Professional Open Source.
+* Copyright 2013, Red Hat Middleware LLC, and individual contributors
+* as indicated by the @author tags. See the copyright.txt file in the
+* distribution for a full listing of individual contributors.
+*
+* This is free software; you can redistribute it and/or modify it
+* under the terms of the GNU Lesser General Public License as
+* published by the Free Software Foundation; either version 2.1 of
+* the License, or (at your option) any later version.
+*
+* This software is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this software; if not, write to the Free
+* Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+* 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+*/
+package org.jboss.as.domain.http.server;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class RenderedResponseCacheTestCase {
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        RenderedResponseCache cache = new RenderedResponseCache(2, 16);
+        cache.put("a", new byte[] {1});
+        cache.put("b", new byte[] {2});
+        // touch a, so b is the eldest entry
+        assertArrayEquals(new byte[] {1}, cache.get("a"));
+        cache.put("c", new byte[] {3});
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertArrayEquals(new byte[] {1}, cache.get("a"));
+        assertArrayEquals(new byte[] {3}, cache.get("c"));
+    }
+
+    @Test
+    public void testOversizedResponsesAreNotCached() {
+        RenderedResponseCache cache = new RenderedResponseCache(2, 4);
+        cache.put("a", new byte[5]);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -72,7 +72,8 @@ public class BasicComponentInstance implements ComponentInstance {
         // Associated component
         this.component = component;
         this.preDestroy = preDestroyInterceptor;
-        this.methodMap = Collections.unmodifiableMap(methodInterceptors);
+        // no need to wrap the read only map that the component shares between its instances
+        this.methodMap = methodInterceptors == component.getInterceptorInstanceMap() ? methodInterceptors : Collections.unmodifiableMap(methodInterceptors);
     }
 
     /**
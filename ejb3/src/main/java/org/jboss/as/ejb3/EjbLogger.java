@@ -593,6 +593,22 @@ public interface EjbLogger extends BasicLogger {
     @Message(id = 14267, value = "The <%2$s xmlns=\"%1$s\"/> element will be ignored.")
     void deprecatedNamespace(String namespace, String element);
 
+    @LogMessage(level = ERROR)
+    @Message(id = 14268, value = "Failed to dispatch timeout task %s")
+    void failedToDispatchTimeout(@Cause Throwable cause, Runnable task);
+
+    @LogMessage(level = WARN)
+    @Message(id = 14269, value = "Timer journal segment %s is truncated or corrupt at offset %d, ignoring the remainder of the segment")
+    void truncatedTimerJournalSegment(File segment, long offset);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 14270, value = "Failed to compact timer journal %s")
+    void failedToCompactTimerJournal(File journal, @Cause Throwable cause);
+
+    @LogMessage(level = ERROR)
+    @Message(id = 14271, value = "Failed to write %d timer changes to the database")
+    void failedToWriteBehindTimers(int count, @Cause Throwable cause);
+
     // Don't add message ids greater that 14299!!! If you need more first check what EjbMessages is
     // using and take more (lower) numbers from the available range for this module. If the range for the module is
     // all used, go to https://community.jboss.org/docs/DOC-16810 and allocate another block for this subsystem
@@ -30,6 +30,7 @@ import org.jboss.as.ee.component.ViewConfiguration;
 import org.jboss.as.ee.component.ViewConfigurator;
 import org.jboss.as.ee.component.ViewDescription;
 import org.jboss.as.ejb3.remote.RemoteViewInjectionSource;
+import org.jboss.as.ejb3.remote.RemoteViewMethodIndex;
 import org.jboss.as.server.deployment.DeploymentPhaseContext;
 import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
 import org.jboss.invocation.proxy.ProxyFactory;
@@ -64,6 +65,9 @@ public class EJBViewDescription extends ViewDescription {
             @Override
             public void configure(final DeploymentPhaseContext context, final ComponentConfiguration componentConfiguration, final ViewDescription description, final ViewConfiguration configuration) throws DeploymentUnitProcessingException {
                 configuration.putPrivateData(MethodIntf.class, getMethodIntf());
+                if (getMethodIntf() == MethodIntf.REMOTE || getMethodIntf() == MethodIntf.HOME) {
+                    configuration.putPrivateData(RemoteViewMethodIndex.class, new RemoteViewMethodIndex());
+                }
             }
         });
         // add a view configurator for setting up application specific container interceptors for the EJB view
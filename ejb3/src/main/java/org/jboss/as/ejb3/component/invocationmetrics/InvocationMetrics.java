@@ -30,7 +30,6 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author <a href="mailto:cdewolf@redhat.com">Carlo de Wolf</a>
@@ -40,17 +39,40 @@ public class InvocationMetrics {
         final long invocations;
         final long executionTime;
         final long waitTime;
+        final long[] executionTimePercentiles;
 
-        private Values(final long invocations, final long waitTime, final long executionTime) {
+        private Values(final long invocations, final long waitTime, final long executionTime, final long[] executionTimePercentiles) {
             this.invocations = invocations;
             this.executionTime = executionTime;
             this.waitTime = waitTime;
+            this.executionTimePercentiles = executionTimePercentiles;
         }
 
         public long getExecutionTime() {
             return executionTime;
         }
 
+        /**
+         * @return the median execution time, in milliseconds
+         */
+        public long getExecutionTimeP50() {
+            return executionTimePercentiles[0];
+        }
+
+        /**
+         * @return the 99th percentile of the execution time, in milliseconds
+         */
+        public long getExecutionTimeP99() {
+            return executionTimePercentiles[1];
+        }
+
+        /**
+         * @return the 99.9th percentile of the execution time, in milliseconds
+         */
+        public long getExecutionTimeP999() {
+            return executionTimePercentiles[2];
+        }
+
         public long getInvocations() {
             return invocations;
         }
@@ -60,38 +82,60 @@ public class InvocationMetrics {
         }
     }
 
-    private final AtomicReference<Values> values = new AtomicReference<Values>(new Values(0, 0, 0));
+    private static final int INVOCATIONS = 0;
+    private static final int WAIT_TIME = 1;
+    private static final int EXECUTION_TIME = 2;
+
+    private static class MethodMetrics {
+        final String signature;
+        final StripedCounters counters = new StripedCounters(3);
+        final LatencyHistogram executionTimes = new LatencyHistogram();
+
+        MethodMetrics(final String signature) {
+            this.signature = signature;
+        }
+
+        Values values() {
+            final long[] percentiles = { executionTimes.getPercentile(0.5), executionTimes.getPercentile(0.99), executionTimes.getPercentile(0.999) };
+            return new Values(counters.sum(INVOCATIONS), counters.sum(WAIT_TIME), counters.sum(EXECUTION_TIME), percentiles);
+        }
+    }
+
+    private final StripedCounters values = new StripedCounters(3);
     private final AtomicLong concurrent = new AtomicLong(0);
     private final AtomicLong peakConcurrent = new AtomicLong(0);
 
-    private final ConcurrentMap<String, AtomicReference<Values>> methods = new ConcurrentHashMap<String, AtomicReference<Values>>();
+    // keyed by Method, which tells overloads apart and needs no key to be built per invocation
+    private final ConcurrentMap<Method, MethodMetrics> methods = new ConcurrentHashMap<Method, MethodMetrics>();
 
     void finishInvocation(final Method method, final long invocationWaitTime, final long invocationExecutionTime) {
         concurrent.decrementAndGet();
-        for(;;) {
-            final Values oldv = values.get();
-            final Values newv = new Values(oldv.invocations + 1, oldv.waitTime + invocationWaitTime, oldv.executionTime + invocationExecutionTime);
-            if (values.compareAndSet(oldv, newv))
-                break;
-        }
-        final AtomicReference<Values> methodValues = ref(methods, method.getName());
-        for (;;) {
-            final Values oldv = methodValues.get();
-            final Values newv = new Values(oldv.invocations + 1, oldv.waitTime + invocationWaitTime, oldv.executionTime + invocationExecutionTime);
-            if (methodValues.compareAndSet(oldv, newv))
-                break;
+        values.add(1, invocationWaitTime, invocationExecutionTime);
+        final MethodMetrics methodMetrics = metrics(method);
+        methodMetrics.counters.add(1, invocationWaitTime, invocationExecutionTime);
+        methodMetrics.executionTimes.record(invocationExecutionTime);
+    }
+
+    private MethodMetrics metrics(final Method method) {
+        MethodMetrics metrics = methods.get(method);
+        if (metrics == null) {
+            metrics = new MethodMetrics(signature(method));
+            final MethodMetrics prevMetrics = methods.putIfAbsent(method, metrics);
+            if (prevMetrics != null)
+                metrics = prevMetrics;
         }
+        return metrics;
     }
 
-    private static AtomicReference<Values> ref(final ConcurrentMap<String, AtomicReference<Values>> map, final String key) {
-        AtomicReference<Values> ref = map.get(key);
-        if (ref == null) {
-            ref = new AtomicReference<Values>(new Values(0, 0, 0));
-            final AtomicReference<Values> prevRef = map.putIfAbsent(key, ref);
-            if (prevRef != null)
-                ref = prevRef;
+    private static String signature(final Method method) {
+        final StringBuilder sb = new StringBuilder(method.getName()).append('(');
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0)
+                sb.append(',');
+            sb.append(parameterTypes[i].getName());
         }
-        return ref;
+        return sb.append(')').toString();
     }
 
     public long getConcurrent() {
@@ -99,13 +143,16 @@ public class InvocationMetrics {
     }
 
     public long getExecutionTime() {
-        return values.get().executionTime;
+        return values.sum(EXECUTION_TIME);
     }
 
     public long getInvocations() {
-        return values.get().invocations;
+        return values.sum(INVOCATIONS);
     }
 
+    /**
+     * Get the metrics per method, keyed by method signature, e.g. {@code foo(java.lang.String,int)}.
+     */
     public Map<String, Values> getMethods() {
         return new AbstractMap<String, Values>() {
             @Override
@@ -113,7 +160,7 @@ public class InvocationMetrics {
                 return new AbstractSet<Entry<String, Values>>() {
                     @Override
                     public Iterator<Entry<String, Values>> iterator() {
-                        final Iterator<Entry<String, AtomicReference<Values>>> delegate = methods.entrySet().iterator();
+                        final Iterator<MethodMetrics> delegate = methods.values().iterator();
                         return new Iterator<Entry<String, Values>>() {
                             @Override
                             public boolean hasNext() {
@@ -122,16 +169,16 @@ public class InvocationMetrics {
 
                             @Override
                             public Entry<String, Values> next() {
-                                final Entry<String, AtomicReference<Values>> next = delegate.next();
+                                final MethodMetrics next = delegate.next();
                                 return new Entry<String, Values>() {
                                     @Override
                                     public String getKey() {
-                                        return next.getKey();
+                                        return next.signature;
                                     }
 
                                     @Override
                                     public Values getValue() {
-                                        return next.getValue().get();
+                                        return next.values();
                                     }
 
                                     @Override
@@ -162,7 +209,7 @@ public class InvocationMetrics {
     }
 
     public long getWaitTime() {
-        return values.get().waitTime;
+        return values.sum(WAIT_TIME);
     }
 
     void startInvocation() {
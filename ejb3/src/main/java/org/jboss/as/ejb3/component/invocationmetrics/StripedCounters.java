@@ -0,0 +1,76 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.invocationmetrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A small, fixed group of counters which are spread over a number of stripes, so that concurrent
+ * updates from different threads usually land on different cache lines. Updates never allocate;
+ * reads sum all stripes and are therefore only weakly consistent with concurrent updates.
+ */
+final class StripedCounters {
+    // longs per stripe, one cache line on common hardware
+    private static final int STRIDE = 8;
+    private static final int STRIPES;
+    static {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+        while (stripes < processors && stripes < 64) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    private final AtomicLongArray cells;
+    private final int counters;
+
+    StripedCounters(final int counters) {
+        assert counters > 0 && counters <= STRIDE;
+        this.counters = counters;
+        this.cells = new AtomicLongArray(STRIPES * STRIDE);
+    }
+
+    private static int stripe() {
+        final long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 32)) & (STRIPES - 1);
+    }
+
+    /**
+     * Adds to the first three counters at once, touching a single stripe.
+     */
+    void add(final long first, final long second, final long third) {
+        final int base = stripe() * STRIDE;
+        cells.getAndAdd(base, first);
+        cells.getAndAdd(base + 1, second);
+        cells.getAndAdd(base + 2, third);
+    }
+
+    long sum(final int counter) {
+        assert counter < counters;
+        long sum = 0;
+        for (int i = counter; i < cells.length(); i += STRIDE) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+}
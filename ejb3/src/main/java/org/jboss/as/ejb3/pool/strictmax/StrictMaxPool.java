@@ -40,7 +40,7 @@ import java.util.concurrent.TimeUnit;
 public class StrictMaxPool<T> extends AbstractPool<T> {
 
     /**
-     * A FIFO semaphore that is set when the strict max size behavior is in effect.
+     * A semaphore (FIFO unless created non-fair) that is set when the strict max size behavior is in effect.
      * When set, only maxSize instances may be active and any attempt to get an
      * instance will block until an instance is freed.
      */
@@ -61,9 +61,13 @@ public class StrictMaxPool<T> extends AbstractPool<T> {
     private final LinkedList<T> pool = new LinkedList<T>();
 
     public StrictMaxPool(StatelessObjectFactory<T> factory, int maxSize, long timeout, TimeUnit timeUnit) {
+        this(factory, maxSize, timeout, timeUnit, true);
+    }
+
+    public StrictMaxPool(StatelessObjectFactory<T> factory, int maxSize, long timeout, TimeUnit timeUnit, boolean fair) {
         super(factory);
         this.maxSize = maxSize;
-        this.semaphore = new Semaphore(maxSize, true);
+        this.semaphore = new Semaphore(maxSize, fair);
         this.timeout = timeout;
         this.timeUnit = timeUnit;
     }
@@ -0,0 +1,225 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat Middleware LLC, and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.pool.strictmax;
+
+import static org.jboss.as.ejb3.EjbLogger.ROOT_LOGGER;
+import static org.jboss.as.ejb3.EjbMessages.MESSAGES;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.ejb3.pool.AbstractPool;
+import org.jboss.as.ejb3.pool.StatelessObjectFactory;
+
+/**
+ * A pool with a maximum size whose free instances are spread over a number of lock-free stripes.
+ * <p/>
+ * Each thread prefers the stripe selected by its thread id, and takes the most recently released
+ * instance from it. If that stripe is empty the other stripes are searched (work stealing) before
+ * a new instance is created. Permits are handed out by a {@link Semaphore} which may optionally
+ * be non-fair, in which case acquisition does not need to consult the wait queue.
+ */
+public class StripedStrictMaxPool<T> extends AbstractPool<T> {
+
+    private static final int MAX_STRIPES = 64;
+
+    /**
+     * Only maxSize instances may be active and any attempt to get an
+     * instance will block until an instance is freed.
+     */
+    private final Semaphore semaphore;
+    private final boolean fair;
+    /**
+     * The maximum number of instances allowed in the pool
+     */
+    private final int maxSize;
+    /**
+     * The time to wait for the semaphore.
+     */
+    private final long timeout;
+    private final TimeUnit timeUnit;
+    /**
+     * The free instances, a power of two number of stripes
+     */
+    private final ConcurrentLinkedDeque<T>[] stripes;
+    private final int mask;
+    /**
+     * The number of instances currently held in the stripes
+     */
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    public StripedStrictMaxPool(StatelessObjectFactory<T> factory, int maxSize, long timeout, TimeUnit timeUnit, boolean fair) {
+        super(factory);
+        this.maxSize = maxSize;
+        this.semaphore = new Semaphore(maxSize, fair);
+        this.fair = fair;
+        this.timeout = timeout;
+        this.timeUnit = timeUnit;
+        final int count = stripeCount(Math.min(Runtime.getRuntime().availableProcessors(), maxSize));
+        @SuppressWarnings("unchecked")
+        final ConcurrentLinkedDeque<T>[] stripes = new ConcurrentLinkedDeque[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ConcurrentLinkedDeque<T>();
+        }
+        this.stripes = stripes;
+        this.mask = count - 1;
+    }
+
+    private static int stripeCount(int parallelism) {
+        int count = 1;
+        while (count < parallelism && count < MAX_STRIPES) {
+            count <<= 1;
+        }
+        return count;
+    }
+
+    private int stripeIndex() {
+        final long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 32)) & mask;
+    }
+
+    public void discard(T ctx) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("Discard instance %s#%s", this, ctx);
+        }
+
+        semaphore.release();
+
+        // Let the super do any other remove stuff
+        super.doRemove(ctx);
+    }
+
+    public int getCurrentSize() {
+        return getCreateCount() - getRemoveCount();
+    }
+
+    public int getAvailableCount() {
+        return semaphore.availablePermits();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        throw MESSAGES.methodNotImplemented();
+    }
+
+    /**
+     * Get an instance without identity.
+     * Can be used by finders,create-methods, and activation
+     *
+     * @return Context /w instance
+     */
+    public T get() {
+        try {
+            // in non-fair mode barge first, so that an uncontended pool never parks
+            final boolean acquired = (!fair && semaphore.tryAcquire()) || semaphore.tryAcquire(timeout, timeUnit);
+            if (!acquired) {
+                throw MESSAGES.failedToAcquirePermit(timeout, timeUnit);
+            }
+        } catch (InterruptedException e) {
+            throw MESSAGES.acquireSemaphoreInterrupted();
+        }
+
+        final T pooledInstance = poll();
+        if (pooledInstance != null) {
+            return pooledInstance;
+        }
+
+        T bean = null;
+        try {
+            // Pool is empty, create an instance
+            bean = create();
+        } finally {
+            if (bean == null) {
+                semaphore.release();
+            }
+        }
+        return bean;
+    }
+
+    private T poll() {
+        final int home = stripeIndex();
+        T instance = stripes[home].pollFirst();
+        if (instance == null) {
+            // steal the least recently used instance of another stripe
+            for (int i = 1; i <= mask && instance == null; i++) {
+                instance = stripes[(home + i) & mask].pollLast();
+            }
+        }
+        if (instance != null) {
+            pooled.decrementAndGet();
+        }
+        return instance;
+    }
+
+    /**
+     * Return an instance after invocation.
+     * <p/>
+     * Called in 2 cases:
+     * a) Done with finder method
+     * b) Just removed
+     *
+     * @param obj
+     */
+    public void release(T obj) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("%s/%s Free instance: %s", pooled.get(), maxSize, this);
+        }
+
+        if (pooled.incrementAndGet() <= maxSize) {
+            stripes[stripeIndex()].offerFirst(obj);
+        } else {
+            pooled.decrementAndGet();
+            destroy(obj);
+        }
+        semaphore.release();
+    }
+
+    @Override
+    @Deprecated
+    public void remove(T ctx) {
+        if (ROOT_LOGGER.isTraceEnabled()) {
+            ROOT_LOGGER.tracef("Removing instance: %s#%s", this, ctx);
+        }
+
+        semaphore.release();
+        // let the super do the other remove stuff
+        super.doRemove(ctx);
+    }
+
+    public void start() {
+    }
+
+    public void stop() {
+        for (ConcurrentLinkedDeque<T> stripe : stripes) {
+            T obj;
+            while ((obj = stripe.pollFirst()) != null) {
+                pooled.decrementAndGet();
+                destroy(obj);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.remote;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.as.ee.component.ComponentView;
+
+/**
+ * Index of the methods of a remote view by method name and parameter type names, which is how remote invocations
+ * identify the invoked method.
+ * <p/>
+ * An instance is attached to the private data of every remote and home EJB view. The index itself is built from the
+ * view methods on first use and is immutable from then on.
+ */
+public final class RemoteViewMethodIndex {
+
+    private static final String[] NO_PARAMETERS = new String[0];
+
+    private volatile Map<String, IndexedMethod[]> methods;
+
+    /**
+     * Finds the view method with the given name and parameter types.
+     *
+     * @param componentView the view this index is attached to
+     * @param methodName the method name
+     * @param paramTypes the class names of the parameter types
+     * @return the method, or null if the view has no such method
+     */
+    public Method findMethod(final ComponentView componentView, final String methodName, final String[] paramTypes) {
+        Map<String, IndexedMethod[]> methods = this.methods;
+        if (methods == null) {
+            // building the index twice under contention is harmless, both are identical
+            this.methods = methods = index(componentView.getViewMethods());
+        }
+        final IndexedMethod[] overloads = methods.get(methodName);
+        if (overloads != null) {
+            for (IndexedMethod overload : overloads) {
+                if (Arrays.equals(overload.paramTypes, paramTypes)) {
+                    return overload.method;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, IndexedMethod[]> index(final Set<Method> viewMethods) {
+        final Map<String, IndexedMethod[]> methods = new HashMap<String, IndexedMethod[]>();
+        for (Method method : viewMethods) {
+            final Class<?>[] parameterTypes = method.getParameterTypes();
+            final String[] paramTypes = parameterTypes.length == 0 ? NO_PARAMETERS : new String[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                paramTypes[i] = parameterTypes[i].getName();
+            }
+            final IndexedMethod[] existing = methods.get(method.getName());
+            final IndexedMethod[] overloads;
+            if (existing == null) {
+                overloads = new IndexedMethod[1];
+            } else {
+                overloads = Arrays.copyOf(existing, existing.length + 1);
+            }
+            overloads[overloads.length - 1] = new IndexedMethod(method, paramTypes);
+            methods.put(method.getName(), overloads);
+        }
+        return Collections.unmodifiableMap(methods);
+    }
+
+    private static final class IndexedMethod {
+
+        private final Method method;
+        private final String[] paramTypes;
+
+        IndexedMethod(final Method method, final String[] paramTypes) {
+            this.method = method;
+            this.paramTypes = paramTypes;
+        }
+    }
+}
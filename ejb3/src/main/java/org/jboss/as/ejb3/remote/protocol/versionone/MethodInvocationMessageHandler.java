@@ -48,6 +48,7 @@ import org.jboss.as.ejb3.component.stateless.StatelessSessionComponent;
 import org.jboss.as.ejb3.deployment.DeploymentRepository;
 import org.jboss.as.ejb3.deployment.EjbDeploymentInformation;
 import org.jboss.as.ejb3.remote.RemoteAsyncInvocationCancelStatusService;
+import org.jboss.as.ejb3.remote.RemoteViewMethodIndex;
 import org.jboss.ejb.client.Affinity;
 import org.jboss.ejb.client.EJBClientInvocationContext;
 import org.jboss.ejb.client.EJBLocator;
@@ -331,6 +332,11 @@ class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
     }
 
     private Method findMethod(final ComponentView componentView, final String methodName, final String[] paramTypes) {
+        final RemoteViewMethodIndex index = componentView.getPrivateData(RemoteViewMethodIndex.class);
+        if (index != null) {
+            return index.findMethod(componentView, methodName, paramTypes);
+        }
+        // views that aren't set up by the EJB subsystem have no index
         final Set<Method> viewMethods = componentView.getViewMethods();
         for (final Method method : viewMethods) {
             if (method.getName().equals(methodName)) {
@@ -32,6 +32,8 @@ import org.jboss.as.controller.ServiceRemoveStepHandler;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
+import org.jboss.as.controller.operations.validation.LongRangeValidator;
 import org.jboss.as.controller.operations.validation.ModelTypeValidator;
 import org.jboss.as.controller.operations.validation.StringLengthValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
@@ -70,6 +72,15 @@ public class DatabaseDataStoreResourceDefinition extends SimpleResourceDefinitio
                     .setValidator(new StringLengthValidator(0))
                     .build();
 
+    public static final SimpleAttributeDefinition WRITE_BEHIND_INTERVAL =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.WRITE_BEHIND_INTERVAL, ModelType.LONG, true)
+                    .setAllowExpression(true)
+                    .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+                    .setDefaultValue(new ModelNode(0L))
+                    .setValidator(new LongRangeValidator(0, Long.MAX_VALUE, true, true))
+                    .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+                    .build();
+
     public static final Map<String, AttributeDefinition> ATTRIBUTES ;
 
     static {
@@ -77,6 +88,7 @@ public class DatabaseDataStoreResourceDefinition extends SimpleResourceDefinitio
         map.put(DATASOURCE_JNDI_NAME.getName(), DATASOURCE_JNDI_NAME);
         map.put(DATABASE.getName(), DATABASE);
         map.put(PARTITION.getName(), PARTITION);
+        map.put(WRITE_BEHIND_INTERVAL.getName(), WRITE_BEHIND_INTERVAL);
 
         ATTRIBUTES = Collections.unmodifiableMap(map);
     }
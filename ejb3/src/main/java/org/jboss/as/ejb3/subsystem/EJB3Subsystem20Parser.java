@@ -139,6 +139,47 @@ public class EJB3Subsystem20Parser extends EJB3Subsystem14Parser {
         }
     }
 
+    @Override
+    protected void parseStrictMaxPool(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
+        final int count = reader.getAttributeCount();
+        String poolName = null;
+        final ModelNode operation = Util.createAddOperation();
+        for (int i = 0; i < count; i++) {
+            requireNoNamespaceAttribute(reader, i);
+            final String value = reader.getAttributeValue(i);
+            final EJB3SubsystemXMLAttribute attribute = EJB3SubsystemXMLAttribute.forName(reader.getAttributeLocalName(i));
+            switch (attribute) {
+                case NAME:
+                    poolName = value;
+                    break;
+                case MAX_POOL_SIZE:
+                    StrictMaxPoolResourceDefinition.MAX_POOL_SIZE.parseAndSetParameter(value, operation, reader);
+                    break;
+                case INSTANCE_ACQUISITION_TIMEOUT:
+                    StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT.parseAndSetParameter(value, operation, reader);
+                    break;
+                case INSTANCE_ACQUISITION_TIMEOUT_UNIT:
+                    StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.parseAndSetParameter(value, operation, reader);
+                    break;
+                case STRIPED:
+                    StrictMaxPoolResourceDefinition.STRIPED.parseAndSetParameter(value, operation, reader);
+                    break;
+                case FAIR:
+                    StrictMaxPoolResourceDefinition.FAIR.parseAndSetParameter(value, operation, reader);
+                    break;
+                default:
+                    throw unexpectedAttribute(reader, i);
+            }
+        }
+        requireNoContent(reader);
+        if (poolName == null) {
+            throw missingRequired(reader, Collections.singleton(EJB3SubsystemXMLAttribute.NAME.getLocalName()));
+        }
+        // create /subsystem=ejb3/strict-max-bean-instance-pool=name:add(...)
+        operation.get(OP_ADDR).set(SUBSYSTEM_PATH.append(STRICT_MAX_BEAN_INSTANCE_POOL, poolName).toModelNode());
+        operations.add(operation);
+    }
+
     private void parseTimerService(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
 
         final ModelNode address = new ModelNode();
@@ -203,6 +244,7 @@ public class EJB3Subsystem20Parser extends EJB3Subsystem14Parser {
     private void parseFileDataStore(final XMLExtendedStreamReader reader, final List<ModelNode> operations) throws XMLStreamException {
         String dataStorePath = null;
         String dataStorePathRelativeTo = null;
+        ModelNode journal = null;
         String name = null;
         final EnumSet<EJB3SubsystemXMLAttribute> required = EnumSet.of(EJB3SubsystemXMLAttribute.NAME, EJB3SubsystemXMLAttribute.PATH);
         final int count = reader.getAttributeCount();
@@ -230,6 +272,12 @@ public class EJB3Subsystem20Parser extends EJB3Subsystem14Parser {
                     }
                     dataStorePathRelativeTo = FileDataStoreResourceDefinition.RELATIVE_TO.parse(value, reader).asString();
                     break;
+                case JOURNAL:
+                    if (journal != null) {
+                        throw unexpectedAttribute(reader, i);
+                    }
+                    journal = FileDataStoreResourceDefinition.JOURNAL.parse(value, reader);
+                    break;
                 default:
                     throw unexpectedAttribute(reader, i);
             }
@@ -248,6 +296,9 @@ public class EJB3Subsystem20Parser extends EJB3Subsystem14Parser {
         if (dataStorePathRelativeTo != null) {
             fileDataStoreAdd.get(RELATIVE_TO).set(dataStorePathRelativeTo);
         }
+        if (journal != null) {
+            fileDataStoreAdd.get(JOURNAL).set(journal);
+        }
         operations.add(fileDataStoreAdd);
         requireNoContent(reader);
     }
@@ -280,6 +331,9 @@ public class EJB3Subsystem20Parser extends EJB3Subsystem14Parser {
                 case PARTITION:
                     DatabaseDataStoreResourceDefinition.PARTITION.parseAndSetParameter(value, databaseDataStore, reader);
                     break;
+                case WRITE_BEHIND_INTERVAL:
+                    DatabaseDataStoreResourceDefinition.WRITE_BEHIND_INTERVAL.parseAndSetParameter(value, databaseDataStore, reader);
+                    break;
                 default:
                     throw unexpectedAttribute(reader, i);
             }
@@ -57,16 +57,19 @@ public interface EJB3SubsystemModel {
 
     String ENABLE_STATISTICS = "enable-statistics";
 
+    String FAIR = "fair";
     String FILE_DATA_STORE = "file-data-store";
 
     String MAX_POOL_SIZE = "max-pool-size";
     String STRICT_MAX_BEAN_INSTANCE_POOL = "strict-max-bean-instance-pool";
+    String STRIPED = "striped";
 
     String MAX_THREADS = "max-threads";
     String KEEPALIVE_TIME = "keepalive-time";
 
     String RELATIVE_TO = "relative-to";
     String PATH = "path";
+    String JOURNAL = "journal";
 
     String DEFAULT_SINGLETON_BEAN_ACCESS_TIMEOUT = "default-singleton-bean-access-timeout";
     String DEFAULT_STATEFUL_BEAN_ACCESS_TIMEOUT = "default-stateful-bean-access-timeout";
@@ -107,6 +110,7 @@ public interface EJB3SubsystemModel {
     String DATABASE = "database";
     String DATABASE_DATA_STORE = "database-data-store";
     String PARTITION  = "partition";
+    String WRITE_BEHIND_INTERVAL = "write-behind-interval";
 
     PathElement REMOTE_SERVICE_PATH = PathElement.pathElement(SERVICE, REMOTE);
     PathElement ASYNC_SERVICE_PATH = PathElement.pathElement(SERVICE, ASYNC);
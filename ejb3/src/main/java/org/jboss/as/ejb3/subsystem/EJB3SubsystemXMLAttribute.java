@@ -49,6 +49,8 @@ public enum EJB3SubsystemXMLAttribute {
     ENABLED("enabled"),
     ENABLE_BY_DEFAULT("enable-by-default"),
 
+    FAIR("fair"),
+
     @Deprecated GROUPS_PATH("groups-path"),
 
     @Deprecated IDLE_TIMEOUT("idle-timeout"),
@@ -56,6 +58,8 @@ public enum EJB3SubsystemXMLAttribute {
     INSTANCE_ACQUISITION_TIMEOUT("instance-acquisition-timeout"),
     INSTANCE_ACQUISITION_TIMEOUT_UNIT("instance-acquisition-timeout-unit"),
 
+    JOURNAL("journal"),
+
     KEEPALIVE_TIME("keepalive-time"),
 
     MAX_POOL_SIZE("max-pool-size"),
@@ -76,6 +80,7 @@ public enum EJB3SubsystemXMLAttribute {
     RESOURCE_ADAPTER_NAME("resource-adapter-name"),
 
     @Deprecated SESSIONS_PATH("sessions-path"),
+    STRIPED("striped"),
     @Deprecated SUBDIRECTORY_COUNT("subdirectory-count"),
 
     THREAD_POOL_NAME("thread-pool-name"),
@@ -84,6 +89,8 @@ public enum EJB3SubsystemXMLAttribute {
     USE_QUALIFIED_NAME("use-qualified-name"),
 
     VALUE("value"),
+
+    WRITE_BEHIND_INTERVAL("write-behind-interval"),
     ;
 
     private final String name;
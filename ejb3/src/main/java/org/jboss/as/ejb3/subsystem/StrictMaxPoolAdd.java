@@ -80,8 +80,10 @@ public class StrictMaxPoolAdd extends AbstractAddStepHandler {
         final int maxPoolSize = StrictMaxPoolResourceDefinition.MAX_POOL_SIZE.resolveModelAttribute(context, strictMaxPoolModel).asInt();
         final long timeout = StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT.resolveModelAttribute(context, strictMaxPoolModel).asLong();
         final String unit = StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.resolveModelAttribute(context, strictMaxPoolModel).asString();
+        final boolean striped = StrictMaxPoolResourceDefinition.STRIPED.resolveModelAttribute(context, strictMaxPoolModel).asBoolean();
+        final boolean fair = StrictMaxPoolResourceDefinition.FAIR.resolveModelAttribute(context, strictMaxPoolModel).asBoolean();
         // create the pool config
-        final PoolConfig strictMaxPoolConfig = new StrictMaxPoolConfig(poolName, maxPoolSize, timeout, TimeUnit.valueOf(unit));
+        final PoolConfig strictMaxPoolConfig = new StrictMaxPoolConfig(poolName, maxPoolSize, timeout, TimeUnit.valueOf(unit), striped, fair);
         // create and install the service
         final PoolConfigService poolConfigService = new PoolConfigService(strictMaxPoolConfig);
         final ServiceName serviceName = PoolConfigService.EJB_POOL_CONFIG_BASE_SERVICE_NAME.append(poolName);
@@ -38,6 +38,7 @@ import org.jboss.as.controller.operations.validation.TimeUnitValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.controller.registry.OperationEntry;
+import org.jboss.as.controller.transform.description.DiscardAttributeChecker;
 import org.jboss.as.controller.transform.description.RejectAttributeChecker;
 import org.jboss.as.controller.transform.description.ResourceTransformationDescriptionBuilder;
 import org.jboss.as.ejb3.component.pool.PoolConfigService;
@@ -77,6 +78,18 @@ public class StrictMaxPoolResourceDefinition extends SimpleResourceDefinition {
                     .setFlags(AttributeAccess.Flag.RESTART_NONE)
                     .setAllowExpression(true)
                     .build();
+    public static final SimpleAttributeDefinition STRIPED =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.STRIPED, ModelType.BOOLEAN, true)
+                    .setDefaultValue(new ModelNode(StrictMaxPoolConfig.DEFAULT_STRIPED))
+                    .setAllowExpression(true)
+                    .setFlags(AttributeAccess.Flag.RESTART_NONE)
+                    .build();
+    public static final SimpleAttributeDefinition FAIR =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.FAIR, ModelType.BOOLEAN, true)
+                    .setDefaultValue(new ModelNode(StrictMaxPoolConfig.DEFAULT_FAIR))
+                    .setAllowExpression(true)
+                    .setFlags(AttributeAccess.Flag.RESTART_NONE)
+                    .build();
 
     public static final Map<String, AttributeDefinition> ATTRIBUTES ;
 
@@ -85,6 +98,8 @@ public class StrictMaxPoolResourceDefinition extends SimpleResourceDefinition {
         map.put(MAX_POOL_SIZE.getName(), MAX_POOL_SIZE);
         map.put(INSTANCE_ACQUISITION_TIMEOUT.getName(), INSTANCE_ACQUISITION_TIMEOUT);
         map.put(INSTANCE_ACQUISITION_TIMEOUT_UNIT.getName(), INSTANCE_ACQUISITION_TIMEOUT_UNIT);
+        map.put(STRIPED.getName(), STRIPED);
+        map.put(FAIR.getName(), FAIR);
 
         ATTRIBUTES = Collections.unmodifiableMap(map);
     }
@@ -104,8 +119,23 @@ public class StrictMaxPoolResourceDefinition extends SimpleResourceDefinition {
     }
 
     static void registerTransformers_1_1_0(ResourceTransformationDescriptionBuilder parent) {
-        parent.addChildResource(INSTANCE.getPathElement())
-            .getAttributeBuilder()
+        ResourceTransformationDescriptionBuilder child = parent.addChildResource(INSTANCE.getPathElement());
+        child.getAttributeBuilder()
             .addRejectCheck(RejectAttributeChecker.SIMPLE_EXPRESSIONS, INSTANCE_ACQUISITION_TIMEOUT_UNIT);
+        registerStripedTransformers(child);
+    }
+
+    static void registerTransformers_1_2_0(ResourceTransformationDescriptionBuilder parent) {
+        registerStripedTransformers(parent.addChildResource(INSTANCE.getPathElement()));
+    }
+
+    /**
+     * Legacy hosts only know the fair, non-striped pool, so the new attributes can be dropped as long as they hold their defaults.
+     */
+    private static void registerStripedTransformers(ResourceTransformationDescriptionBuilder child) {
+        child.getAttributeBuilder()
+            .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(StrictMaxPoolConfig.DEFAULT_STRIPED)), STRIPED)
+            .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(StrictMaxPoolConfig.DEFAULT_FAIR)), FAIR)
+            .addRejectCheck(RejectAttributeChecker.DEFINED, STRIPED, FAIR);
     }
 }
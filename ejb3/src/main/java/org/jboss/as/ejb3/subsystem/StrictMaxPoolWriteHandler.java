@@ -47,7 +47,8 @@ public class StrictMaxPoolWriteHandler extends AbstractWriteAttributeHandler<Voi
 
     private StrictMaxPoolWriteHandler() {
         super(StrictMaxPoolResourceDefinition.MAX_POOL_SIZE, StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT,
-                StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT);
+                StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT, StrictMaxPoolResourceDefinition.STRIPED,
+                StrictMaxPoolResourceDefinition.FAIR);
     }
 
     @Override
@@ -78,6 +79,12 @@ public class StrictMaxPoolWriteHandler extends AbstractWriteAttributeHandler<Voi
                 } else if (StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.getName().equals(attributeName)) {
                     String timeoutUnit = StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.resolveModelAttribute(context, model).asString();
                     smpc.setTimeoutUnit(TimeUnit.valueOf(timeoutUnit));
+                } else if (StrictMaxPoolResourceDefinition.STRIPED.getName().equals(attributeName)) {
+                    boolean striped = StrictMaxPoolResourceDefinition.STRIPED.resolveModelAttribute(context, model).asBoolean();
+                    smpc.setStriped(striped);
+                } else if (StrictMaxPoolResourceDefinition.FAIR.getName().equals(attributeName)) {
+                    boolean fair = StrictMaxPoolResourceDefinition.FAIR.resolveModelAttribute(context, model).asBoolean();
+                    smpc.setFair(fair);
                 }
             }
         }
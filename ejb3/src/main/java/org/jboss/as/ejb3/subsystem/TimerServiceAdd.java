@@ -22,8 +22,9 @@
 
 package org.jboss.as.ejb3.subsystem;
 
+import java.security.AccessController;
 import java.util.List;
-import java.util.Timer;
+import java.util.concurrent.ThreadFactory;
 
 import org.jboss.as.controller.AbstractBoottimeAddStepHandler;
 import org.jboss.as.controller.AttributeDefinition;
@@ -34,6 +35,7 @@ import org.jboss.as.ejb3.deployment.processors.AroundTimeoutAnnotationParsingPro
 import org.jboss.as.ejb3.deployment.processors.TimerServiceDeploymentProcessor;
 import org.jboss.as.ejb3.deployment.processors.annotation.TimerServiceAnnotationProcessor;
 import org.jboss.as.ejb3.deployment.processors.merging.TimerMethodMergingProcessor;
+import org.jboss.as.ejb3.timerservice.TimingWheel;
 import org.jboss.as.server.AbstractDeploymentChainStep;
 import org.jboss.as.server.DeploymentProcessorTarget;
 import org.jboss.as.server.deployment.Phase;
@@ -44,6 +46,8 @@ import org.jboss.msc.service.ServiceName;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
+import org.jboss.threads.JBossThreadFactory;
+import org.wildfly.security.manager.action.GetAccessControlContextAction;
 
 import static org.jboss.as.ejb3.EjbLogger.ROOT_LOGGER;
 
@@ -93,29 +97,36 @@ public class TimerServiceAdd extends AbstractBoottimeAddStepHandler {
             }
         }, OperationContext.Stage.RUNTIME);
 
-        newControllers.add(context.getServiceTarget().addService(TimerServiceDeploymentProcessor.TIMER_SERVICE_NAME, new TimerValueService())
+        newControllers.add(context.getServiceTarget().addService(TimerServiceDeploymentProcessor.TIMER_SERVICE_NAME, new TimingWheelService())
                 .install());
 
     }
 
-    private static final class TimerValueService implements Service<Timer> {
+    /**
+     * The scheduler shared by all EJB timer services. Expired timeouts are only handed off to the timer service
+     * thread pool by its single worker thread.
+     */
+    private static final class TimingWheelService implements Service<TimingWheel> {
+
+        private static final ThreadFactory THREAD_FACTORY = new JBossThreadFactory(new ThreadGroup("EJB timer wheel"), Boolean.TRUE, null, "%G - %t", null, null, AccessController.doPrivileged(GetAccessControlContextAction.getInstance()));
 
-        private Timer timer;
+        private TimingWheel timingWheel;
 
         @Override
         public synchronized void start(final StartContext context) throws StartException {
-            timer = new Timer();
+            timingWheel = new TimingWheel(THREAD_FACTORY);
+            timingWheel.start();
         }
 
         @Override
         public synchronized void stop(final StopContext context) {
-            timer.cancel();
-            timer = null;
+            timingWheel.stop();
+            timingWheel = null;
         }
 
         @Override
-        public synchronized Timer getValue() throws IllegalStateException, IllegalArgumentException {
-            return timer;
+        public synchronized TimingWheel getValue() throws IllegalStateException, IllegalArgumentException {
+            return timingWheel;
         }
     }
 }
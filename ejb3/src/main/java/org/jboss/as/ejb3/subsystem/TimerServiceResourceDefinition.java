@@ -145,6 +145,10 @@ public class TimerServiceResourceDefinition extends SimpleResourceDefinition {
                 .addRejectCheck(RejectAttributeChecker.SIMPLE_EXPRESSIONS, FileDataStoreResourceDefinition.PATH)
                 .end();
         }
+        fileDataStore = fileDataStore.getAttributeBuilder()
+            .setDiscard(new DiscardAttributeChecker.DiscardAttributeValueChecker(new ModelNode(false)), FileDataStoreResourceDefinition.JOURNAL)
+            .addRejectCheck(RejectAttributeChecker.DEFINED, FileDataStoreResourceDefinition.JOURNAL)
+            .end();
         fileDataStore.addOperationTransformationOverride(ModelDescriptionConstants.ADD)
             .inheritResourceAttributeDefinitions()
             .setCustomOperationTransformer(dataStoreTransformer)
@@ -199,7 +203,9 @@ public class TimerServiceResourceDefinition extends SimpleResourceDefinition {
                 fileStore = new ModelNode();
             } else if ((untransformedModel.hasDefined(EJB3SubsystemModel.DATABASE_DATA_STORE)
                             && untransformedModel.get(EJB3SubsystemModel.DATABASE_DATA_STORE).keys().size() > 0)
-                        || untransformedModel.get(EJB3SubsystemModel.FILE_DATA_STORE).keys().size() > 1) {
+                        || untransformedModel.get(EJB3SubsystemModel.FILE_DATA_STORE).keys().size() > 1
+                        || (fileStore.hasDefined(EJB3SubsystemModel.JOURNAL) && !fileStore.get(EJB3SubsystemModel.JOURNAL).equals(new ModelNode(false)))) {
+                //the journal format is not understood by legacy file stores
                 rejectIncompatibleDataStores(context, address);
             }
 
@@ -61,6 +61,21 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
             .build();
 
+    private static final AttributeDefinition EXECUTION_TIME_P50 = new SimpleAttributeDefinitionBuilder("execution-time-p50", ModelType.LONG)
+            .setAllowNull(false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition EXECUTION_TIME_P99 = new SimpleAttributeDefinitionBuilder("execution-time-p99", ModelType.LONG)
+            .setAllowNull(false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
+    private static final AttributeDefinition EXECUTION_TIME_P999 = new SimpleAttributeDefinitionBuilder("execution-time-p999", ModelType.LONG)
+            .setAllowNull(false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+            .build();
+
     private static final AttributeDefinition INVOCATIONS = new SimpleAttributeDefinitionBuilder("invocations", ModelType.LONG)
             .setAllowNull(false)
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
@@ -80,7 +95,8 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
             .build();
 
-    private static final AttributeDefinition METHODS = ObjectTypeAttributeDefinition.Builder.of("methods", EXECUTION_TIME, INVOCATIONS, WAIT_TIME)
+    private static final AttributeDefinition METHODS = ObjectTypeAttributeDefinition.Builder.of("methods", EXECUTION_TIME, EXECUTION_TIME_P50, EXECUTION_TIME_P99,
+            EXECUTION_TIME_P999, INVOCATIONS, WAIT_TIME)
             .setAllowNull(false)
             .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
             .build();
@@ -208,6 +224,9 @@ public abstract class AbstractEJBComponentResourceDefinition extends SimpleResou
                     final InvocationMetrics.Values values = entry.getValue();
                     final ModelNode result = new ModelNode();
                     result.get("execution-time").set(values.getExecutionTime());
+                    result.get("execution-time-p50").set(values.getExecutionTimeP50());
+                    result.get("execution-time-p99").set(values.getExecutionTimeP99());
+                    result.get("execution-time-p999").set(values.getExecutionTimeP999());
                     result.get("invocations").set(values.getInvocations());
                     result.get("wait-time").set(values.getWaitTime());
                     context.getResult().get(entry.getKey()).set(result);
@@ -35,7 +35,10 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.ejb.EJBException;
 import javax.ejb.ScheduleExpression;
@@ -105,7 +108,7 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
 
     private final InjectedValue<ExecutorService> executorServiceInjectedValue = new InjectedValue<ExecutorService>();
 
-    private final InjectedValue<java.util.Timer> timerInjectedValue = new InjectedValue<java.util.Timer>();
+    private final InjectedValue<TimingWheel> timerInjectedValue = new InjectedValue<TimingWheel>();
 
     private final InjectedValue<TimedObjectInvoker> timedObjectInvoker = new InjectedValue<TimedObjectInvoker>();
 
@@ -122,12 +125,12 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
     /**
      * All timers which were created by this {@link TimerService}
      */
-    private final Map<String, TimerImpl> timers = Collections.synchronizedMap(new HashMap<String, TimerImpl>());
+    private final ConcurrentMap<String, TimerImpl> timers = new ConcurrentHashMap<String, TimerImpl>();
 
     /**
-     * Holds the {@link java.util.concurrent.Future} of each of the timer tasks that have been scheduled
+     * Holds the task of each of the timers that have been scheduled
      */
-    private final Map<String, java.util.TimerTask> scheduledTimerFutures = new HashMap<String, java.util.TimerTask>();
+    private final ConcurrentMap<String, Task<?>> scheduledTimerFutures = new ConcurrentHashMap<String, Task<?>>();
 
     /**
      * Key that is used to store timers that are waiting on transaction completion in the transaction local
@@ -388,12 +391,10 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         Object pk = currentPrimaryKey();
         final Set<Timer> activeTimers = new HashSet<Timer>();
         // get all active timers for this timerservice
-        synchronized (this.timers) {
-            for (final TimerImpl timer : this.timers.values()) {
-                if (timer.isActive()) {
-                    if (timer.getPrimaryKey() == null || timer.getPrimaryKey().equals(pk)) {
-                        activeTimers.add(timer);
-                    }
+        for (final TimerImpl timer : this.timers.values()) {
+            if (timer.isActive()) {
+                if (timer.getPrimaryKey() == null || timer.getPrimaryKey().equals(pk)) {
+                    activeTimers.add(timer);
                 }
             }
         }
@@ -840,71 +841,88 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
      * Creates and schedules a {@link org.jboss.as.ejb3.timerservice.task.TimerTask} for the next timeout of the passed <code>timer</code>
      */
     protected void scheduleTimeout(TimerImpl timer, boolean newTimer) {
-        synchronized (scheduledTimerFutures) {
-            if (!newTimer && !scheduledTimerFutures.containsKey(timer.getId())) {
-                //this timer has been cancelled by another thread. We just return
-                return;
-            }
+        final Task<?> previous = scheduledTimerFutures.get(timer.getId());
+        if (!newTimer && previous == null) {
+            //this timer has been cancelled by another thread. We just return
+            return;
+        }
 
-            Date nextExpiration = timer.getNextExpiration();
-            if (nextExpiration == null) {
-                ROOT_LOGGER.nextExpirationIsNull(timer);
-                return;
-            }
-            // create the timer task
-            final TimerTask<?> timerTask = timer.getTimerTask();
-            // find out how long is it away from now
-            long delay = nextExpiration.getTime() - System.currentTimeMillis();
-            // if in past, then trigger immediately
-            if (delay < 0) {
-                delay = 0;
-            }
-            long intervalDuration = timer.getInterval();
-            final Task task = new Task(timerTask);
+        Date nextExpiration = timer.getNextExpiration();
+        if (nextExpiration == null) {
+            ROOT_LOGGER.nextExpirationIsNull(timer);
+            return;
+        }
+        // create the timer task
+        final TimerTask<?> timerTask = timer.getTimerTask();
+        // find out how long is it away from now
+        long delay = nextExpiration.getTime() - System.currentTimeMillis();
+        // if in past, then trigger immediately
+        if (delay < 0) {
+            delay = 0;
+        }
+        long intervalDuration = timer.getInterval();
+        final Task<?> task = new Task(timerTask);
+        // maintain it in timerservice for future use (like cancellation). This happens before the task is handed to
+        // the wheel, so that a timeout which is due immediately, or a concurrent cancellation, already finds it
+        final Task<?> replaced;
+        if (newTimer) {
+            replaced = this.scheduledTimerFutures.put(timer.getId(), task);
+        } else if (this.scheduledTimerFutures.replace(timer.getId(), previous, task)) {
+            replaced = null;
+        } else {
+            // the timer was cancelled or rescheduled by another thread in the meantime
+            return;
+        }
+        boolean scheduled = false;
+        try {
             if (intervalDuration > 0) {
                 ROOT_LOGGER.debug("Scheduling timer " + timer + " at fixed rate, starting at " + delay
                         + " milliseconds from now with repeated interval=" + intervalDuration);
                 // schedule the task
-                this.timerInjectedValue.getValue().scheduleAtFixedRate(task, delay, intervalDuration);
-                // maintain it in timerservice for future use (like cancellation)
-                this.scheduledTimerFutures.put(timer.getId(), task);
+                task.setTimeout(this.timerInjectedValue.getValue().scheduleAtFixedRate(task, delay, intervalDuration, TimeUnit.MILLISECONDS));
             } else {
                 ROOT_LOGGER.debug("Scheduling a single action timer " + timer + " starting at " + delay + " milliseconds from now");
                 // schedule the task
-                this.timerInjectedValue.getValue().schedule(task, delay);
-                // maintain it in timerservice for future use (like cancellation)
-                this.scheduledTimerFutures.put(timer.getId(), task);
-
+                task.setTimeout(this.timerInjectedValue.getValue().schedule(task, delay, TimeUnit.MILLISECONDS));
+            }
+            scheduled = true;
+        } finally {
+            if (!scheduled) {
+                // put back whatever was registered before, unless the timer has been cancelled in the meantime
+                final Task<?> restored = newTimer ? replaced : previous;
+                if (restored != null) {
+                    this.scheduledTimerFutures.replace(timer.getId(), task, restored);
+                } else {
+                    this.scheduledTimerFutures.remove(timer.getId(), task);
+                }
+                task.cancel();
             }
         }
+        if (replaced != null) {
+            replaced.cancel();
+        }
     }
 
     /**
-     * Cancels any scheduled {@link java.util.concurrent.Future} corresponding to the passed <code>timer</code>
+     * Cancels any scheduled task corresponding to the passed <code>timer</code>
      *
      * @param timer
      */
     protected void cancelTimeout(final TimerImpl timer) {
-        synchronized (this.scheduledTimerFutures) {
-            java.util.TimerTask timerTask = this.scheduledTimerFutures.remove(timer.getId());
-            if (timerTask != null) {
-                timerTask.cancel();
-            }
+        final Task<?> task = this.scheduledTimerFutures.remove(timer.getId());
+        if (task != null) {
+            task.cancel();
         }
     }
 
     public void invokeTimeout(final TimerImpl timer) {
-        synchronized (this.scheduledTimerFutures) {
-            if (this.scheduledTimerFutures.containsKey(timer.getId())) {
-                timer.getTimerTask().run();
-            }
+        if (this.scheduledTimerFutures.containsKey(timer.getId())) {
+            timer.getTimerTask().run();
         }
     }
 
     public boolean isScheduled(final String tid){
-        synchronized (this.scheduledTimerFutures) {
-            return this.scheduledTimerFutures.containsKey(tid);
-        }
+        return this.scheduledTimerFutures.containsKey(tid);
     }
 
     /**
@@ -1067,7 +1085,7 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         return executorServiceInjectedValue;
     }
 
-    public InjectedValue<java.util.Timer> getTimerInjectedValue() {
+    public InjectedValue<TimingWheel> getTimerInjectedValue() {
         return timerInjectedValue;
     }
 
@@ -1173,14 +1191,25 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
         }
     }
 
-    private class Task<T extends TimerImpl> extends java.util.TimerTask {
+    private class Task<T extends TimerImpl> implements Runnable {
 
         private final TimerTask<T> delegate;
 
+        private volatile TimingWheel.Timeout timeout;
+        private volatile boolean cancelled;
+
         public Task(final TimerTask<T> delegate) {
             this.delegate = delegate;
         }
 
+        void setTimeout(final TimingWheel.Timeout timeout) {
+            this.timeout = timeout;
+            // the task is registered before it is scheduled, so it may already have been cancelled
+            if (cancelled) {
+                timeout.cancel();
+            }
+        }
+
         @Override
         public void run() {
             final ExecutorService executor = executorServiceInjectedValue.getOptionalValue();
@@ -1189,10 +1218,13 @@ public class TimerServiceImpl implements TimerService, Service<TimerService> {
             }
         }
 
-        @Override
-        public boolean cancel() {
+        public void cancel() {
+            cancelled = true;
             delegate.cancel();
-            return super.cancel();
+            final TimingWheel.Timeout timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
         }
     }
 
@@ -0,0 +1,350 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice;
+
+import static org.jboss.as.ejb3.EjbLogger.ROOT_LOGGER;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A hashed timing wheel which schedules and cancels timeouts in constant time.
+ * <p/>
+ * The wheel is an array of buckets, each covering one tick. A timeout is placed in the bucket of its
+ * deadline, together with the number of full revolutions left before it is due. A single worker thread
+ * advances the wheel once per tick, collects everything that is due in the current bucket and then
+ * dispatches that batch. Callers never touch the buckets directly: new and cancelled timeouts are handed
+ * to the worker through lock-free queues, so neither scheduling nor cancelling contends on a lock.
+ * <p/>
+ * Dispatching runs the task on the worker thread, so tasks are expected to hand the real work off to
+ * an executor.
+ */
+public class TimingWheel {
+
+    /**
+     * A scheduled task.
+     */
+    public interface Timeout {
+
+        /**
+         * Cancels this timeout. Cancelling a timeout which has already expired or been cancelled has no effect.
+         *
+         * @return {@code true} if this call cancelled the timeout
+         */
+        boolean cancel();
+
+        boolean isCancelled();
+    }
+
+    public static final long DEFAULT_TICK_MILLIS = 10;
+    public static final int DEFAULT_WHEEL_SIZE = 4096;
+
+    // bound the work the worker does per tick when a burst of timeouts gets scheduled
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<Entry>();
+    private final Queue<Entry> cancelled = new ConcurrentLinkedQueue<Entry>();
+    private final Thread worker;
+    private final long startTime;
+    private volatile boolean running;
+
+    // only accessed by the worker thread
+    private long tick;
+
+    public TimingWheel(final ThreadFactory threadFactory) {
+        this(threadFactory, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    public TimingWheel(final ThreadFactory threadFactory, final long tickDuration, final TimeUnit unit, final int wheelSize) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.startTime = System.nanoTime();
+        this.worker = threadFactory.newThread(new Worker());
+    }
+
+    public void start() {
+        running = true;
+        worker.start();
+    }
+
+    /**
+     * Stops the worker thread. Timeouts which have not expired yet are discarded.
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+        boolean interrupted = false;
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Schedules a task to run once after the given delay.
+     */
+    public Timeout schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        return add(new Entry(this, task, now() + unit.toNanos(Math.max(delay, 0)), 0));
+    }
+
+    /**
+     * Schedules a task to run after the given delay, and then repeatedly at a fixed rate until cancelled.
+     */
+    public Timeout scheduleAtFixedRate(final Runnable task, final long delay, final long period, final TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return add(new Entry(this, task, now() + unit.toNanos(Math.max(delay, 0)), unit.toNanos(period)));
+    }
+
+    private Entry add(final Entry entry) {
+        pending.add(entry);
+        return entry;
+    }
+
+    private long now() {
+        return System.nanoTime() - startTime;
+    }
+
+    private final class Worker implements Runnable {
+
+        private final List<Entry> expired = new ArrayList<Entry>();
+
+        @Override
+        public void run() {
+            while (running) {
+                final long deadline = waitForNextTick();
+                if (deadline < 0) {
+                    break;
+                }
+                removeCancelled();
+                transferPending();
+                wheel[(int) (tick & mask)].expire(deadline, expired);
+                dispatch();
+                tick++;
+            }
+            for (Bucket bucket : wheel) {
+                bucket.clear();
+            }
+            pending.clear();
+            cancelled.clear();
+        }
+
+        private long waitForNextTick() {
+            final long deadline = tickNanos * (tick + 1);
+            for (;;) {
+                final long sleepNanos = deadline - now();
+                if (sleepNanos <= 0) {
+                    return deadline;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return -1;
+                    }
+                }
+            }
+        }
+
+        private void removeCancelled() {
+            Entry entry;
+            while ((entry = cancelled.poll()) != null) {
+                if (entry.bucket != null) {
+                    entry.bucket.remove(entry);
+                }
+            }
+        }
+
+        private void transferPending() {
+            for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+                final Entry entry = pending.poll();
+                if (entry == null) {
+                    break;
+                }
+                if (entry.state != Entry.PENDING) {
+                    continue;
+                }
+                final long due = entry.deadline / tickNanos;
+                entry.remainingRounds = (due - tick) / wheel.length;
+                // anything already overdue goes into the current bucket
+                wheel[(int) (Math.max(due, tick) & mask)].add(entry);
+            }
+        }
+
+        private void dispatch() {
+            for (Entry entry : expired) {
+                if (entry.period > 0) {
+                    if (entry.state != Entry.PENDING) {
+                        continue;
+                    }
+                    entry.deadline += entry.period;
+                    pending.add(entry);
+                } else if (!Entry.STATE_UPDATER.compareAndSet(entry, Entry.PENDING, Entry.EXPIRED)) {
+                    continue;
+                }
+                try {
+                    entry.task.run();
+                } catch (Throwable t) {
+                    ROOT_LOGGER.failedToDispatchTimeout(t, entry.task);
+                }
+            }
+            expired.clear();
+        }
+    }
+
+    private static final class Entry implements Timeout {
+        static final int PENDING = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+        static final AtomicIntegerFieldUpdater<Entry> STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        final TimingWheel owner;
+        final Runnable task;
+        final long period;
+        volatile int state = PENDING;
+
+        // only accessed by the worker thread
+        long deadline;
+        long remainingRounds;
+        Bucket bucket;
+        Entry prev;
+        Entry next;
+
+        Entry(final TimingWheel owner, final Runnable task, final long deadline, final long period) {
+            this.owner = owner;
+            this.task = task;
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE_UPDATER.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            owner.cancelled.add(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        @Override
+        public String toString() {
+            return "Timeout{task=" + task + ", period=" + period + ", state=" + state + '}';
+        }
+    }
+
+    /**
+     * A doubly linked list of entries, so that cancelled entries can be unlinked in constant time.
+     */
+    private static final class Bucket {
+        private Entry head;
+        private Entry tail;
+
+        void add(final Entry entry) {
+            entry.bucket = this;
+            if (head == null) {
+                head = tail = entry;
+            } else {
+                tail.next = entry;
+                entry.prev = tail;
+                tail = entry;
+            }
+        }
+
+        void remove(final Entry entry) {
+            if (entry.bucket != this) {
+                return;
+            }
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            } else {
+                tail = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.bucket = null;
+        }
+
+        void expire(final long deadline, final List<Entry> expired) {
+            Entry entry = head;
+            while (entry != null) {
+                final Entry next = entry.next;
+                if (entry.state != Entry.PENDING) {
+                    remove(entry);
+                } else if (entry.remainingRounds <= 0 && entry.deadline <= deadline) {
+                    remove(entry);
+                    expired.add(entry);
+                } else {
+                    entry.remainingRounds--;
+                }
+                entry = next;
+            }
+        }
+
+        void clear() {
+            Entry entry = head;
+            while (entry != null) {
+                final Entry next = entry.next;
+                entry.prev = null;
+                entry.next = null;
+                entry.bucket = null;
+                entry = next;
+            }
+            head = tail = null;
+        }
+    }
+}
@@ -31,18 +31,35 @@ import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.security.AccessController;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
+import javax.transaction.TransactionManager;
+import javax.transaction.TransactionSynchronizationRegistry;
 
 import org.jboss.as.ejb3.EjbLogger;
+import org.jboss.as.ejb3.component.stateful.CurrentSynchronizationCallback;
 import org.jboss.as.ejb3.timerservice.CalendarTimer;
 import org.jboss.as.ejb3.timerservice.TimerImpl;
 import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
@@ -65,23 +82,56 @@ import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
+import org.jboss.threads.JBossThreadFactory;
 import org.jboss.util.Base64;
+import org.wildfly.security.manager.action.GetAccessControlContextAction;
 
 /**
+ * Database based persistent timer store.
+ * <p/>
+ * By default every change is written as it happens. If a write-behind interval is configured changes are instead
+ * coalesced per timer, so only the latest state of a timer is written, and flushed at that interval as JDBC batches
+ * on a single connection. Changes made within a transaction are only queued once it has committed, and all flushes run
+ * on the write-behind thread, so the local transaction of a flush never interferes with a transaction of the caller.
+ *
  * @author Stuart Douglas
  */
 public class DatabaseTimerPersistence implements TimerPersistence, Service<DatabaseTimerPersistence> {
 
+    private static final ThreadFactory THREAD_FACTORY = new JBossThreadFactory(new ThreadGroup("EJB timer write-behind"), Boolean.TRUE, null, "%G - %t", null, null, AccessController.doPrivileged(GetAccessControlContextAction.getInstance()));
+
+    /**
+     * The number of rows the driver is asked to fetch at a time when loading timers
+     */
+    private static final int LOAD_FETCH_SIZE = 1000;
+
     private final InjectedValue<ManagedReferenceFactory> dataSourceInjectedValue = new InjectedValue<ManagedReferenceFactory>();
     private final InjectedValue<ModuleLoader> moduleLoader = new InjectedValue<ModuleLoader>();
+    private final InjectedValue<TransactionManager> transactionManager = new InjectedValue<TransactionManager>();
+    private final InjectedValue<TransactionSynchronizationRegistry> transactionSynchronizationRegistry = new InjectedValue<TransactionSynchronizationRegistry>();
     private final String name;
     private final String database;
     private final String partition;
+    private final long writeBehindInterval;
     private volatile ManagedReference managedReference;
     private volatile DataSource dataSource;
     private volatile Properties sql;
     private MarshallerFactory factory;
     private MarshallingConfiguration configuration;
+    /**
+     * Tables created by earlier versions store the primary key and info as Base64 encoded strings
+     */
+    private volatile boolean binaryColumns;
+
+    private final Map<String, PendingWrite> pendingWrites = new LinkedHashMap<String, PendingWrite>();
+    private final Object flushLock = new Object();
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+    private volatile ScheduledExecutorService writeBehindExecutor;
 
     private static final String CREATE_TABLE = "create-table";
     private static final String CREATE_TIMER = "create-timer";
@@ -91,9 +141,14 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
     private static final String DELETE_TIMER = "delete-timer";
 
     public DatabaseTimerPersistence(final String name, final String database, String partition) {
+        this(name, database, partition, 0);
+    }
+
+    public DatabaseTimerPersistence(final String name, final String database, String partition, final long writeBehindInterval) {
         this.name = name;
         this.database = database;
         this.partition = partition;
+        this.writeBehindInterval = writeBehindInterval;
     }
 
     @Override
@@ -115,10 +170,26 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
             safeClose(stream);
         }
         runCreateTable();
+        binaryColumns = hasBinaryColumns();
+        if (writeBehindInterval > 0) {
+            final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(THREAD_FACTORY);
+            executor.scheduleWithFixedDelay(flushTask, writeBehindInterval, writeBehindInterval, TimeUnit.MILLISECONDS);
+            writeBehindExecutor = executor;
+        }
     }
 
     @Override
     public void stop(final StopContext context) {
+        final ScheduledExecutorService executor = writeBehindExecutor;
+        if (executor != null) {
+            writeBehindExecutor = null;
+            try {
+                //write whatever is still pending before the datasource goes away
+                flush(executor);
+            } finally {
+                executor.shutdown();
+            }
+        }
         managedReference.release();
         managedReference = null;
         dataSource = null;
@@ -166,6 +237,41 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         }
     }
 
+    private boolean hasBinaryColumns() {
+        String loadTimer = sql(LOAD_TIMER);
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = dataSource.getConnection();
+            preparedStatement = connection.prepareStatement(loadTimer);
+            preparedStatement.setString(1, "NON-EXISTENT");
+            preparedStatement.setString(2, "NON-EXISTENT");
+            preparedStatement.setString(3, "NON-EXISTENT");
+            resultSet = preparedStatement.executeQuery();
+            final ResultSetMetaData metaData = resultSet.getMetaData();
+            return isBinary(metaData.getColumnType(7)) && isBinary(metaData.getColumnType(8));
+        } catch (SQLException e) {
+            return false;
+        } finally {
+            safeClose(resultSet);
+            safeClose(preparedStatement);
+            safeClose(connection);
+        }
+    }
+
+    private static boolean isBinary(final int type) {
+        switch (type) {
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     private String sql(final String key) {
         if (database != null) {
             String result = sql.getProperty(key + "." + database);
@@ -178,6 +284,10 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
 
     @Override
     public void addTimer(final TimerImpl timerEntity) {
+        if (writeBehindInterval > 0) {
+            writeBehindOnCommit(timerEntity, true);
+            return;
+        }
         String createTimer = sql(CREATE_TIMER);
         Connection connection = null;
         PreparedStatement statement = null;
@@ -199,6 +309,10 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
 
     @Override
     public void persistTimer(final TimerImpl timerEntity) {
+        if (writeBehindInterval > 0) {
+            writeBehindOnCommit(timerEntity, false);
+            return;
+        }
         Connection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
@@ -208,19 +322,12 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
                     timerEntity.getState() == TimerState.EXPIRED) {
                 String deleteTimer = sql(DELETE_TIMER);
                 statement = connection.prepareStatement(deleteTimer);
-                statement.setString(1, timerEntity.getTimedObjectId());
-                statement.setString(2, timerEntity.getId());
-                statement.setString(3, partition);
+                deleteParameters(timerEntity, statement);
                 statement.execute();
             } else {
                 String updateTimer = sql(UPDATE_TIMER);
                 statement = connection.prepareStatement(updateTimer);
-                statement.setTimestamp(1, timestamp(timerEntity.getNextExpiration()));
-                statement.setTimestamp(2, timestamp(timerEntity.getPreviousRun()));
-                statement.setString(3, timerEntity.getState().name());
-                statement.setString(4, timerEntity.getTimedObjectId());
-                statement.setString(5, timerEntity.getId());
-                statement.setString(6, partition);
+                updateParameters(timerEntity, statement);
                 statement.execute();
             }
         } catch (SQLException e) {
@@ -232,6 +339,190 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         }
     }
 
+    /**
+     * Queues the timer to be written with the next flush once the current transaction, if any, has committed.
+     */
+    private void writeBehindOnCommit(final TimerImpl timer, final boolean newTimer) {
+        try {
+            final int status = transactionManager.getValue().getStatus();
+            if (status == Status.STATUS_MARKED_ROLLBACK || status == Status.STATUS_ROLLEDBACK ||
+                    status == Status.STATUS_ROLLING_BACK) {
+                //no need to persist anyway
+                return;
+            }
+
+            if (status == Status.STATUS_NO_TRANSACTION ||
+                    status == Status.STATUS_UNKNOWN || isBeforeCompletion()
+                    || status == Status.STATUS_COMMITTED) {
+                writeBehind(timer, newTimer);
+            } else {
+                final String key = timerTransactionKey(timer);
+                Object existing = transactionSynchronizationRegistry.getValue().getResource(key);
+                //check is there is already a write behind sync for this timer
+                if (existing == null) {
+                    transactionSynchronizationRegistry.getValue().registerInterposedSynchronization(new WriteBehindTransactionSynchronization(key, newTimer));
+                }
+                //update the most recent version of the timer to be written
+                transactionSynchronizationRegistry.getValue().putResource(key, timer);
+            }
+        } catch (SystemException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String timerTransactionKey(final TimerImpl timer) {
+        return "org.jboss.as.ejb3.timerTransactionKey." + timer.getId();
+    }
+
+    private boolean isBeforeCompletion() {
+        final CurrentSynchronizationCallback.CallbackType type = CurrentSynchronizationCallback.get();
+        if (type != null) {
+            return type == CurrentSynchronizationCallback.CallbackType.BEFORE_COMPLETION;
+        }
+        return false;
+    }
+
+    /**
+     * Queues the timer to be written with the next flush, replacing any change to the same timer that is still
+     * pending.
+     */
+    private void writeBehind(final TimerImpl timer, final boolean newTimer) {
+        synchronized (pendingWrites) {
+            final PendingWrite existing = pendingWrites.get(timer.getId());
+            //a timer that has not been inserted yet is inserted with its latest state
+            pendingWrites.put(timer.getId(), new PendingWrite(timer, newTimer || (existing != null && existing.insert)));
+        }
+    }
+
+    /**
+     * Flushes the pending changes on the write-behind thread and waits until they have been written. The flush commits
+     * a local transaction of its own, which must not happen on a thread that may be associated with a JTA transaction.
+     */
+    private void flush(final ScheduledExecutorService executor) {
+        final Future<?> flushed = executor.submit(flushTask);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    flushed.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Writes all pending changes as JDBC batches in a single transaction. Changes that could not be written are
+     * queued again, unless they have been superseded in the meantime.
+     */
+    private void flush() {
+        synchronized (flushLock) {
+            final List<PendingWrite> writes;
+            synchronized (pendingWrites) {
+                if (pendingWrites.isEmpty()) {
+                    return;
+                }
+                writes = new ArrayList<PendingWrite>(pendingWrites.values());
+                pendingWrites.clear();
+            }
+            Connection connection = null;
+            PreparedStatement insert = null;
+            PreparedStatement update = null;
+            PreparedStatement delete = null;
+            boolean autoCommit = true;
+            try {
+                connection = dataSource.getConnection();
+                autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                for (final PendingWrite write : writes) {
+                    final TimerImpl timer = write.timer;
+                    try {
+                        if (timer.getState() == TimerState.CANCELED ||
+                                timer.getState() == TimerState.EXPIRED) {
+                            if (write.insert) {
+                                //never made it to the database
+                                continue;
+                            }
+                            if (delete == null) {
+                                delete = connection.prepareStatement(sql(DELETE_TIMER));
+                            }
+                            deleteParameters(timer, delete);
+                            delete.addBatch();
+                        } else if (write.insert) {
+                            if (insert == null) {
+                                insert = connection.prepareStatement(sql(CREATE_TIMER));
+                            }
+                            statementParameters(timer, insert);
+                            insert.addBatch();
+                        } else {
+                            if (update == null) {
+                                update = connection.prepareStatement(sql(UPDATE_TIMER));
+                            }
+                            updateParameters(timer, update);
+                            update.addBatch();
+                        }
+                    } catch (RuntimeException e) {
+                        //the timer could not be serialized, retrying will not help
+                        EjbLogger.ROOT_LOGGER.failedToWriteBehindTimers(1, e);
+                    }
+                }
+                if (insert != null) {
+                    insert.executeBatch();
+                }
+                if (update != null) {
+                    update.executeBatch();
+                }
+                if (delete != null) {
+                    delete.executeBatch();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                EjbLogger.ROOT_LOGGER.failedToWriteBehindTimers(writes.size(), e);
+                rollback(connection);
+                synchronized (pendingWrites) {
+                    for (final PendingWrite write : writes) {
+                        final PendingWrite current = pendingWrites.get(write.timer.getId());
+                        if (current == null) {
+                            pendingWrites.put(write.timer.getId(), write);
+                        } else if (write.insert && !current.insert) {
+                            pendingWrites.put(write.timer.getId(), new PendingWrite(current.timer, true));
+                        }
+                    }
+                }
+            } finally {
+                safeClose(insert);
+                safeClose(update);
+                safeClose(delete);
+                if (connection != null) {
+                    try {
+                        connection.setAutoCommit(autoCommit);
+                    } catch (SQLException e) {
+                        EjbLogger.EJB3_LOGGER.tracef(e, "Restoring auto commit failed");
+                    }
+                }
+                safeClose(connection);
+            }
+        }
+    }
+
+    private static void rollback(final Connection connection) {
+        try {
+            if (connection != null) {
+                connection.rollback();
+            }
+        } catch (Throwable t) {
+            EjbLogger.EJB3_LOGGER.tracef(t, "Rollback failed");
+        }
+    }
+
     @Override
     public void timerUndeployed(final String timedObjectId) {
 
@@ -239,13 +530,20 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
 
     @Override
     public List<TimerImpl> loadActiveTimers(final String timedObjectId, final TimerServiceImpl timerService) {
+        final ScheduledExecutorService executor = writeBehindExecutor;
+        if (executor != null) {
+            //make sure timers that are still pending are loaded as well
+            flush(executor);
+        }
         String loadTimer = sql(LOAD_ALL_TIMERS);
         Connection connection = null;
         PreparedStatement statement = null;
         ResultSet resultSet = null;
         try {
             connection = dataSource.getConnection();
-            statement = connection.prepareStatement(loadTimer);
+            //read the timers as they are fetched, rather than having the driver materialize the whole result first
+            statement = connection.prepareStatement(loadTimer, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(LOAD_FETCH_SIZE);
             statement.setString(1, timedObjectId);
             statement.setString(2, partition);
             resultSet = statement.executeQuery();
@@ -317,8 +615,8 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         builder.setRepeatInterval(resultSet.getLong(4));
         builder.setNextDate(resultSet.getTimestamp(5));
         builder.setPreviousRun(resultSet.getTimestamp(6));
-        builder.setPrimaryKey(deSerialize(resultSet.getString(7)));
-        builder.setInfo((Serializable) deSerialize(resultSet.getString(8)));
+        builder.setPrimaryKey(deSerialize(resultSet, 7));
+        builder.setInfo((Serializable) deSerialize(resultSet, 8));
         builder.setTimerState(TimerState.valueOf(resultSet.getString(9)));
         builder.setPersistent(true);
         return builder.build(timerService);
@@ -331,8 +629,8 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         statement.setLong(4, timerEntity.getInterval());
         statement.setTimestamp(5, timestamp(timerEntity.getNextExpiration()));
         statement.setTimestamp(6, timestamp(timerEntity.getPreviousRun()));
-        statement.setString(7, serialize((Serializable) timerEntity.getPrimaryKey()));
-        statement.setString(8, serialize(timerEntity.getTimerInfo()));
+        setSerialized(statement, 7, (Serializable) timerEntity.getPrimaryKey());
+        setSerialized(statement, 8, timerEntity.getTimerInfo());
         statement.setString(9, timerEntity.getState().name());
 
         if (timerEntity instanceof CalendarTimer) {
@@ -386,7 +684,39 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         statement.setString(25, partition);
     }
 
-    private String serialize(final Serializable serializable) {
+    private void updateParameters(final TimerImpl timerEntity, final PreparedStatement statement) throws SQLException {
+        statement.setTimestamp(1, timestamp(timerEntity.getNextExpiration()));
+        statement.setTimestamp(2, timestamp(timerEntity.getPreviousRun()));
+        statement.setString(3, timerEntity.getState().name());
+        statement.setString(4, timerEntity.getTimedObjectId());
+        statement.setString(5, timerEntity.getId());
+        statement.setString(6, partition);
+    }
+
+    private void deleteParameters(final TimerImpl timerEntity, final PreparedStatement statement) throws SQLException {
+        statement.setString(1, timerEntity.getTimedObjectId());
+        statement.setString(2, timerEntity.getId());
+        statement.setString(3, partition);
+    }
+
+    private void setSerialized(final PreparedStatement statement, final int index, final Serializable serializable) throws SQLException {
+        final byte[] data = serialize(serializable);
+        if (binaryColumns) {
+            statement.setBytes(index, data);
+        } else {
+            statement.setString(index, data == null ? null : Base64.encodeBytes(data));
+        }
+    }
+
+    private Object deSerialize(final ResultSet resultSet, final int index) throws SQLException {
+        if (binaryColumns) {
+            final byte[] data = resultSet.getBytes(index);
+            return data == null ? null : deSerialize(data);
+        }
+        return deSerialize(resultSet.getString(index));
+    }
+
+    private byte[] serialize(final Serializable serializable) {
         if (serializable == null) {
             return null;
         }
@@ -400,14 +730,18 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return Base64.encodeBytes(out.toByteArray());
+        return out.toByteArray();
     }
 
     public Object deSerialize(final String data) throws SQLException {
         if (data == null) {
             return null;
         }
-        InputStream in = new ByteArrayInputStream(Base64.decode(data));
+        return deSerialize(Base64.decode(data));
+    }
+
+    private Object deSerialize(final byte[] data) {
+        InputStream in = new ByteArrayInputStream(data);
         try {
             final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
             unmarshaller.start(new InputStreamByteInput(in));
@@ -439,6 +773,53 @@ public class DatabaseTimerPersistence implements TimerPersistence, Service<Datab
         return moduleLoader;
     }
 
+    public InjectedValue<TransactionManager> getTransactionManager() {
+        return transactionManager;
+    }
+
+    public InjectedValue<TransactionSynchronizationRegistry> getTransactionSynchronizationRegistry() {
+        return transactionSynchronizationRegistry;
+    }
+
+    private final class WriteBehindTransactionSynchronization implements Synchronization {
+
+        private final String transactionKey;
+        private final boolean newTimer;
+        private volatile TimerImpl timer;
+
+        public WriteBehindTransactionSynchronization(final String transactionKey, final boolean newTimer) {
+            this.transactionKey = transactionKey;
+            this.newTimer = newTimer;
+        }
+
+        @Override
+        public void beforeCompletion() {
+            //get the latest version of the entity
+            timer = (TimerImpl) transactionSynchronizationRegistry.getValue().getResource(transactionKey);
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            if (timer != null && status == Status.STATUS_COMMITTED) {
+                writeBehind(timer, newTimer);
+            }
+        }
+    }
+
+    private static final class PendingWrite {
+
+        final TimerImpl timer;
+        /**
+         * If the timer has not been written to the database yet
+         */
+        final boolean insert;
+
+        PendingWrite(final TimerImpl timer, final boolean insert) {
+            this.timer = timer;
+            this.insert = insert;
+        }
+    }
+
     private static void safeClose(final Closeable resource) {
         try {
             if (resource != null) {
@@ -295,39 +295,7 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
 
                     final TimerEntity entity = unmarshaller.readObject(TimerEntity.class);
 
-                    //we load the legacy timer entity class, and turn it into a timer state
-
-                    TimerImpl.Builder builder;
-                    if (entity instanceof CalendarTimerEntity) {
-                        CalendarTimerEntity c = (CalendarTimerEntity) entity;
-                        builder = CalendarTimer.builder()
-                                .setScheduleExprSecond(c.getSecond())
-                                .setScheduleExprMinute(c.getMinute())
-                                .setScheduleExprHour(c.getHour())
-                                .setScheduleExprDayOfWeek(c.getDayOfWeek())
-                                .setScheduleExprDayOfMonth(c.getDayOfMonth())
-                                .setScheduleExprMonth(c.getMonth())
-                                .setScheduleExprYear(c.getYear())
-                                .setScheduleExprStartDate(c.getStartDate())
-                                .setScheduleExprEndDate(c.getEndDate())
-                                .setScheduleExprTimezone(c.getTimezone())
-                                .setAutoTimer(c.isAutoTimer())
-                                .setTimeoutMethod(CalendarTimer.getTimeoutMethod(c.getTimeoutMethod(), timerService.getTimedObjectInvoker().getValue()));
-                    } else {
-                        builder = TimerImpl.builder();
-                    }
-                    builder.setId(entity.getId())
-                            .setTimedObjectId(entity.getTimedObjectId())
-                            .setInitialDate(entity.getInitialDate())
-                            .setRepeatInterval(entity.getInterval())
-                            .setNextDate(entity.getNextDate())
-                            .setPreviousRun(entity.getPreviousRun())
-                            .setInfo(entity.getInfo())
-                            .setPrimaryKey(entity.getPrimaryKey())
-                            .setTimerState(entity.getTimerState())
-                            .setPersistent(true);
-
-                    timers.put(entity.getId(), builder.build(timerService));
+                    timers.put(entity.getId(), createTimer(entity, timerService));
                     unmarshaller.finish();
                 } catch (Exception e) {
                     ROOT_LOGGER.failToRestoreTimersFromFile(timerFile, e);
@@ -348,6 +316,42 @@ public class FileTimerPersistence implements TimerPersistence, Service<FileTimer
         return timers;
     }
 
+    /**
+     * Turns a loaded legacy timer entity into a timer state
+     */
+    static TimerImpl createTimer(final TimerEntity entity, final TimerServiceImpl timerService) {
+        TimerImpl.Builder builder;
+        if (entity instanceof CalendarTimerEntity) {
+            CalendarTimerEntity c = (CalendarTimerEntity) entity;
+            builder = CalendarTimer.builder()
+                    .setScheduleExprSecond(c.getSecond())
+                    .setScheduleExprMinute(c.getMinute())
+                    .setScheduleExprHour(c.getHour())
+                    .setScheduleExprDayOfWeek(c.getDayOfWeek())
+                    .setScheduleExprDayOfMonth(c.getDayOfMonth())
+                    .setScheduleExprMonth(c.getMonth())
+                    .setScheduleExprYear(c.getYear())
+                    .setScheduleExprStartDate(c.getStartDate())
+                    .setScheduleExprEndDate(c.getEndDate())
+                    .setScheduleExprTimezone(c.getTimezone())
+                    .setAutoTimer(c.isAutoTimer())
+                    .setTimeoutMethod(CalendarTimer.getTimeoutMethod(c.getTimeoutMethod(), timerService.getTimedObjectInvoker().getValue()));
+        } else {
+            builder = TimerImpl.builder();
+        }
+        builder.setId(entity.getId())
+                .setTimedObjectId(entity.getTimedObjectId())
+                .setInitialDate(entity.getInitialDate())
+                .setRepeatInterval(entity.getInterval())
+                .setNextDate(entity.getNextDate())
+                .setPreviousRun(entity.getPreviousRun())
+                .setInfo(entity.getInfo())
+                .setPrimaryKey(entity.getPrimaryKey())
+                .setTimerState(entity.getTimerState())
+                .setPersistent(true);
+        return builder.build(timerService);
+    }
+
     private File fileName(String timedObjectId, String timerId) {
         return new File(getDirectory(timedObjectId) + File.separator + timerId.replace(File.separator, "-"));
     }
@@ -0,0 +1,956 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import static org.jboss.as.ejb3.EjbLogger.ROOT_LOGGER;
+import static org.jboss.as.ejb3.EjbMessages.MESSAGES;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.AccessController;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
+import javax.transaction.TransactionManager;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.jboss.as.controller.services.path.PathManager;
+import org.jboss.as.ejb3.component.stateful.CurrentSynchronizationCallback;
+import org.jboss.as.ejb3.timerservice.CalendarTimer;
+import org.jboss.as.ejb3.timerservice.TimerImpl;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.persistence.CalendarTimerEntity;
+import org.jboss.as.ejb3.timerservice.persistence.TimerEntity;
+import org.jboss.as.ejb3.timerservice.persistence.TimerPersistence;
+import org.jboss.marshalling.InputStreamByteInput;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.ModularClassResolver;
+import org.jboss.marshalling.OutputStreamByteOutput;
+import org.jboss.marshalling.Unmarshaller;
+import org.jboss.marshalling.river.RiverMarshallerFactory;
+import org.jboss.modules.ModuleLoader;
+import org.jboss.msc.service.Service;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
+import org.jboss.msc.value.InjectedValue;
+import org.jboss.threads.JBossThreadFactory;
+import org.wildfly.security.manager.action.GetAccessControlContextAction;
+
+/**
+ * File based persistent timer store that keeps the timers of each timed object in a segmented, append-only journal.
+ * <p/>
+ * Every change to a timer is appended as a single checksummed record to the active segment of the journal of its
+ * timed object. Records are written by a single writer thread that drains everything queued up since its last write
+ * and syncs each journal it touched once per batch (group commit), callers block until the batch holding their record
+ * has been synced. Once a journal holds considerably more records than live timers it is compacted into a single
+ * segment that holds the latest record of every live timer. Loading the timers of a timed object replays its journal in
+ * one sequential read.
+ * <p/>
+ * Timers written by {@link FileTimerPersistence} into the same directory are imported into the journal the first time
+ * the timers of their timed object are loaded.
+ */
+public class JournalTimerPersistence implements TimerPersistence, Service<JournalTimerPersistence> {
+
+    /**
+     * The size after which the writer starts a new segment
+     */
+    private static final long SEGMENT_SIZE = 16 * 1024 * 1024;
+    /**
+     * The number of records a journal must hold before it is compacted
+     */
+    private static final int COMPACTION_THRESHOLD = 4096;
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String TEMP_SUFFIX = ".tmp";
+    /**
+     * Every record starts with the length and the checksum of its body
+     */
+    private static final int HEADER_SIZE = 8;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    private static final ThreadFactory THREAD_FACTORY = new JBossThreadFactory(new ThreadGroup("EJB timer journal"), Boolean.TRUE, null, "%G - %t", null, null, AccessController.doPrivileged(GetAccessControlContextAction.getInstance()));
+    private static final Record SHUTDOWN = new Record(null, null);
+
+    private final boolean createIfNotExists;
+    private MarshallerFactory factory;
+    private MarshallingConfiguration configuration;
+    private final InjectedValue<TransactionManager> transactionManager = new InjectedValue<TransactionManager>();
+    private final InjectedValue<TransactionSynchronizationRegistry> transactionSynchronizationRegistry = new InjectedValue<TransactionSynchronizationRegistry>();
+    private final InjectedValue<ModuleLoader> moduleLoader = new InjectedValue<ModuleLoader>();
+    private final InjectedValue<PathManager> pathManager = new InjectedValue<PathManager>();
+    private final String path;
+    private final String pathRelativeTo;
+    private File baseDir;
+    private PathManager.Callback.Handle callbackHandle;
+
+    private final ConcurrentMap<String, Journal> journals = new ConcurrentHashMap<String, Journal>();
+    /**
+     * The records that close the journals of undeployed timed objects, which are only reopened once they are closed
+     */
+    private final ConcurrentMap<String, Record> closing = new ConcurrentHashMap<String, Record>();
+    private final BlockingQueue<Record> queue = new LinkedBlockingQueue<Record>();
+    private Thread writer;
+
+    public JournalTimerPersistence(final boolean createIfNotExists, final String path, final String pathRelativeTo) {
+        this.createIfNotExists = createIfNotExists;
+        this.path = path;
+        this.pathRelativeTo = pathRelativeTo;
+    }
+
+    @Override
+    public synchronized void start(final StartContext context) {
+
+        final RiverMarshallerFactory factory = new RiverMarshallerFactory();
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setClassResolver(ModularClassResolver.getInstance(moduleLoader.getValue()));
+
+        this.configuration = configuration;
+        this.factory = factory;
+        if (pathRelativeTo != null) {
+            callbackHandle = pathManager.getValue().registerCallback(pathRelativeTo, PathManager.ReloadServerCallback.create(), PathManager.Event.UPDATED, PathManager.Event.REMOVED);
+        }
+        baseDir = new File(pathManager.getValue().resolveRelativePathEntry(path, pathRelativeTo));
+        if (!baseDir.exists()) {
+            if (createIfNotExists) {
+                if (!baseDir.mkdirs()) {
+                    throw MESSAGES.failToCreateTimerFileStoreDir(baseDir);
+                }
+            } else {
+                throw MESSAGES.timerFileStoreDirNotExist(baseDir);
+            }
+        }
+        if (!baseDir.isDirectory()) {
+            throw MESSAGES.invalidTimerFileStoreDir(baseDir);
+        }
+        writer = THREAD_FACTORY.newThread(new Writer());
+        writer.start();
+    }
+
+    @Override
+    public synchronized void stop(final StopContext context) {
+        queue.add(SHUTDOWN);
+        boolean interrupted = false;
+        try {
+            while (writer.isAlive()) {
+                try {
+                    writer.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        writer = null;
+        // anything queued after the writer finished will never be written
+        final List<Record> remaining = new ArrayList<Record>();
+        queue.drainTo(remaining);
+        for (Record record : remaining) {
+            if (record.bytes == null) {
+                record.journal.release();
+            }
+            record.complete(new ClosedChannelException());
+        }
+        for (Journal journal : journals.values()) {
+            journal.close();
+        }
+        journals.clear();
+        closing.clear();
+        if (callbackHandle != null) {
+            callbackHandle.remove();
+        }
+        factory = null;
+        configuration = null;
+    }
+
+    @Override
+    public JournalTimerPersistence getValue() throws IllegalStateException, IllegalArgumentException {
+        return this;
+    }
+
+    @Override
+    public void addTimer(final TimerImpl timer) {
+        persistTimer(timer, true);
+    }
+
+    @Override
+    public void persistTimer(final TimerImpl timer) {
+        persistTimer(timer, false);
+    }
+
+    private void persistTimer(final TimerImpl timer, final boolean newTimer) {
+        try {
+            final int status = transactionManager.getValue().getStatus();
+            if (status == Status.STATUS_MARKED_ROLLBACK || status == Status.STATUS_ROLLEDBACK ||
+                    status == Status.STATUS_ROLLING_BACK) {
+                //no need to persist anyway
+                return;
+            }
+
+            if (status == Status.STATUS_NO_TRANSACTION ||
+                    status == Status.STATUS_UNKNOWN || isBeforeCompletion()
+                    || status == Status.STATUS_COMMITTED) {
+                writeTimer(timer, newTimer);
+            } else {
+                final String key = timerTransactionKey(timer);
+                Object existing = transactionSynchronizationRegistry.getValue().getResource(key);
+                //check is there is already a persist sync for this timer
+                if (existing == null) {
+                    transactionSynchronizationRegistry.getValue().registerInterposedSynchronization(new PersistTransactionSynchronization(key, newTimer));
+                }
+                //update the most recent version of the timer to be persisted
+                transactionSynchronizationRegistry.getValue().putResource(key, timer);
+            }
+        } catch (SystemException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Queues the current state of the timer for the journal of its timed object and waits until it has been synced.
+     */
+    private void writeTimer(final TimerImpl timer, final boolean newTimer) {
+        final boolean removed = timer.getState() == TimerState.CANCELED || timer.getState() == TimerState.EXPIRED;
+        final Journal journal = getJournal(timer.getTimedObjectId());
+        final Record record;
+        final boolean added;
+        try {
+            journal.lock.lock();
+            try {
+                final Set<String> timers = journal.getTimers();
+                if (removed) {
+                    if (!timers.remove(timer.getId())) {
+                        return;
+                    }
+                    added = false;
+                } else if (newTimer || timers.contains(timer.getId())) {
+                    //if it is not a new timer and is not live then it has
+                    //been removed by another thread.
+                    added = timers.add(timer.getId());
+                } else {
+                    return;
+                }
+                journal.liveCount = timers.size();
+                //encoded and queued under the lock so that the journal ends with the most recent state of the timer
+                record = new Record(journal, removed ? encode(REMOVE, timer.getId(), null) : encode(PUT, timer.getId(), marshall(timer)));
+                queue.add(record);
+            } finally {
+                journal.lock.unlock();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        try {
+            record.await();
+        } catch (RuntimeException e) {
+            //the record did not make it into the journal, so the timer is as live as it was before
+            journal.lock.lock();
+            try {
+                if (removed) {
+                    journal.timers.add(timer.getId());
+                } else if (added) {
+                    journal.timers.remove(timer.getId());
+                }
+                journal.liveCount = journal.timers.size();
+            } finally {
+                journal.lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private String timerTransactionKey(final TimerImpl timer) {
+        return "org.jboss.as.ejb3.timerTransactionKey." + timer.getId();
+    }
+
+    @Override
+    public void timerUndeployed(final String timedObjectId) {
+        final Journal journal = journals.get(timedObjectId);
+        if (journal != null) {
+            //closed by the writer, once everything queued before has been written
+            final Record record = new Record(journal, null);
+            closing.put(timedObjectId, record);
+            journals.remove(timedObjectId, journal);
+            queue.add(record);
+        }
+    }
+
+    private boolean isBeforeCompletion() {
+        final CurrentSynchronizationCallback.CallbackType type = CurrentSynchronizationCallback.get();
+        if (type != null) {
+            return type == CurrentSynchronizationCallback.CallbackType.BEFORE_COMPLETION;
+        }
+        return false;
+    }
+
+    @Override
+    public List<TimerImpl> loadActiveTimers(final String timedObjectId, final TimerServiceImpl timerService) {
+        final Journal journal = getJournal(timedObjectId);
+        final List<TimerImpl> timers = new ArrayList<TimerImpl>();
+        journal.lock.lock();
+        try {
+            final Map<String, byte[]> states = journal.replay();
+            importTimers(journal, states);
+            final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
+            for (Map.Entry<String, byte[]> state : states.entrySet()) {
+                try {
+                    final TimerEntity entity = unmarshall(unmarshaller, state.getValue());
+                    timers.add(mostRecentEntityVersion(FileTimerPersistence.createTimer(entity, timerService)));
+                } catch (Exception e) {
+                    ROOT_LOGGER.failToRestoreTimersForObjectId(timedObjectId, e);
+                }
+            }
+        } catch (IOException e) {
+            ROOT_LOGGER.failToRestoreTimersForObjectId(timedObjectId, e);
+        } finally {
+            journal.lock.unlock();
+        }
+        return timers;
+    }
+
+    /**
+     * Moves timers that were stored one per file by {@link FileTimerPersistence} into the journal. Should be called
+     * under lock.
+     */
+    private void importTimers(final Journal journal, final Map<String, byte[]> states) throws IOException {
+        final File[] files = journal.directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        final Map<File, Record> imported = new LinkedHashMap<File, Record>();
+        final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
+        for (File file : files) {
+            final String name = file.getName();
+            if (file.isDirectory() || name.endsWith(SEGMENT_SUFFIX) || name.endsWith(TEMP_SUFFIX)) {
+                continue;
+            }
+            try {
+                final byte[] data = Files.readAllBytes(file.toPath());
+                final String id = unmarshall(unmarshaller, data).getId();
+                Record record = null;
+                if (!states.containsKey(id)) {
+                    states.put(id, data);
+                    journal.getTimers().add(id);
+                    record = new Record(journal, encode(PUT, id, data));
+                    queue.add(record);
+                }
+                imported.put(file, record);
+            } catch (Exception e) {
+                ROOT_LOGGER.failToRestoreTimersFromFile(file, e);
+            }
+        }
+        journal.liveCount = journal.getTimers().size();
+        for (Map.Entry<File, Record> entry : imported.entrySet()) {
+            if (entry.getValue() != null) {
+                entry.getValue().await();
+            }
+            entry.getKey().delete();
+        }
+    }
+
+    /**
+     * Returns either the loaded entity or the most recent version of the entity that has
+     * been persisted in this transaction.
+     */
+    private TimerImpl mostRecentEntityVersion(final TimerImpl timerImpl) {
+        try {
+            final int status = transactionManager.getValue().getStatus();
+            if (status == Status.STATUS_UNKNOWN ||
+                    status == Status.STATUS_NO_TRANSACTION) {
+                return timerImpl;
+            }
+            final String key = timerTransactionKey(timerImpl);
+            TimerImpl existing = (TimerImpl) transactionSynchronizationRegistry.getValue().getResource(key);
+            return existing != null ? existing : timerImpl;
+        } catch (SystemException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Journal getJournal(final String timedObjectId) {
+        Journal journal = journals.get(timedObjectId);
+        if (journal == null) {
+            //the journal of a redeployed timed object is only reopened once it has been closed for its previous
+            //deployment, as both would otherwise append segments to the same directory
+            final Record closed = closing.get(timedObjectId);
+            if (closed != null) {
+                closed.awaitCompletion();
+            }
+            final Journal addedJournal = new Journal(timedObjectId, new File(baseDir, timedObjectId.replace(File.separator, "-")));
+            journal = journals.putIfAbsent(timedObjectId, addedJournal);
+            if (journal == null) {
+                journal = addedJournal;
+            }
+        }
+        return journal;
+    }
+
+    private byte[] marshall(final TimerImpl timer) throws IOException {
+        final TimerEntity entity;
+        if (timer instanceof CalendarTimer) {
+            entity = new CalendarTimerEntity((CalendarTimer) timer);
+        } else {
+            entity = new TimerEntity(timer);
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Marshaller marshaller = factory.createMarshaller(configuration);
+        marshaller.start(new OutputStreamByteOutput(out));
+        marshaller.writeObject(entity);
+        marshaller.finish();
+        return out.toByteArray();
+    }
+
+    private static TimerEntity unmarshall(final Unmarshaller unmarshaller, final byte[] data) throws IOException, ClassNotFoundException {
+        unmarshaller.start(new InputStreamByteInput(new ByteArrayInputStream(data)));
+        final TimerEntity entity = unmarshaller.readObject(TimerEntity.class);
+        unmarshaller.finish();
+        return entity;
+    }
+
+    /**
+     * Encodes a journal record: the length and CRC32 of the body, followed by the body which holds the record
+     * type, the timer id and the marshalled timer entity, if any.
+     */
+    private static byte[] encode(final byte type, final String timerId, final byte[] data) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_SIZE + 64 + (data == null ? 0 : data.length));
+        final DataOutputStream output = new DataOutputStream(out);
+        output.writeLong(0);
+        output.writeByte(type);
+        output.writeUTF(timerId);
+        if (data != null) {
+            output.write(data);
+        }
+        output.flush();
+        final byte[] bytes = out.toByteArray();
+        final CRC32 checksum = new CRC32();
+        checksum.update(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+        ByteBuffer.wrap(bytes).putInt(bytes.length - HEADER_SIZE).putInt((int) checksum.getValue());
+        return bytes;
+    }
+
+    /**
+     * Reads the records of a segment in order. A record that is incomplete or fails its checksum ends the segment,
+     * as it can only have been left behind by a crash while it was being written.
+     *
+     * @param limit the number of bytes of the segment that have been completely written, or -1 for the whole file
+     * @return the number of records read
+     */
+    private static int scan(final File segment, final long sequence, final long limit, final RecordVisitor visitor) throws IOException {
+        final long length = limit < 0 ? segment.length() : limit;
+        final CRC32 checksum = new CRC32();
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(segment), BUFFER_SIZE));
+        int records = 0;
+        try {
+            long position = 0;
+            while (position < length) {
+                if (position + HEADER_SIZE > length) {
+                    ROOT_LOGGER.truncatedTimerJournalSegment(segment, position);
+                    break;
+                }
+                final int size = input.readInt();
+                final int crc = input.readInt();
+                if (size <= 0 || position + HEADER_SIZE + size > length) {
+                    ROOT_LOGGER.truncatedTimerJournalSegment(segment, position);
+                    break;
+                }
+                final byte[] body = new byte[size];
+                input.readFully(body);
+                checksum.reset();
+                checksum.update(body, 0, size);
+                if ((int) checksum.getValue() != crc) {
+                    ROOT_LOGGER.truncatedTimerJournalSegment(segment, position);
+                    break;
+                }
+                final ByteArrayInputStream in = new ByteArrayInputStream(body);
+                final DataInputStream bodyInput = new DataInputStream(in);
+                final byte type = bodyInput.readByte();
+                final String timerId = bodyInput.readUTF();
+                visitor.visit(sequence, position, type, timerId, body, size - in.available());
+                position += HEADER_SIZE + size;
+                records++;
+            }
+        } finally {
+            safeClose(input);
+        }
+        return records;
+    }
+
+    private static void safeClose(final Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            ROOT_LOGGER.failToCloseFile(e);
+        }
+    }
+
+    private interface RecordVisitor {
+
+        void visit(long sequence, long position, byte type, String timerId, byte[] body, int dataOffset) throws IOException;
+    }
+
+    /**
+     * The journal of a single timed object, a directory holding numbered segments which are replayed in order.
+     */
+    private static final class Journal {
+
+        private final String timedObjectId;
+        private final File directory;
+        /**
+         * Guards the ids of the live timers, and keeps the writer from compacting the journal while it is replayed
+         */
+        private final Lock lock = new ReentrantLock();
+        private Set<String> timers;
+        private volatile int liveCount;
+
+        // the following are guarded by this, and only appended to by the writer
+        private FileChannel channel;
+        private long sequence;
+        private long written;
+        private int records;
+        private boolean released;
+        private boolean torn;
+
+        Journal(final String timedObjectId, final File directory) {
+            this.timedObjectId = timedObjectId;
+            this.directory = directory;
+        }
+
+        /**
+         * Returns the ids of the live timers, replaying the journal if it has not been loaded yet. Should be called
+         * under lock.
+         */
+        Set<String> getTimers() throws IOException {
+            if (timers == null) {
+                replay();
+            }
+            return timers;
+        }
+
+        /**
+         * Replays the journal, returning the most recently persisted state of each live timer. Should be called
+         * under lock.
+         */
+        Map<String, byte[]> replay() throws IOException {
+            final Map<String, byte[]> states = new LinkedHashMap<String, byte[]>();
+            final RecordVisitor visitor = new RecordVisitor() {
+                @Override
+                public void visit(final long sequence, final long position, final byte type, final String timerId, final byte[] body, final int dataOffset) {
+                    if (type == PUT) {
+                        states.put(timerId, Arrays.copyOfRange(body, dataOffset, body.length));
+                    } else {
+                        states.remove(timerId);
+                    }
+                }
+            };
+            int count = 0;
+            for (Map.Entry<Long, Long> segment : snapshot().entrySet()) {
+                count += scan(segment(segment.getKey()), segment.getKey(), segment.getValue(), visitor);
+            }
+            if (timers == null) {
+                timers = new HashSet<String>(states.keySet());
+                liveCount = timers.size();
+                replayed(count);
+            }
+            return states;
+        }
+
+        /**
+         * Returns the segments of the journal with the number of bytes that can be read from each, which is
+         * only limited for the segment that is currently being appended to.
+         */
+        private synchronized SortedMap<Long, Long> snapshot() {
+            final SortedMap<Long, Long> segments = new TreeMap<Long, Long>();
+            for (Long segment : segments()) {
+                segments.put(segment, channel != null && segment == sequence ? written : -1L);
+            }
+            return segments;
+        }
+
+        private synchronized void replayed(final int count) {
+            records += count;
+        }
+
+        synchronized void append(final byte[] record) throws IOException {
+            if (channel == null || torn || written >= SEGMENT_SIZE) {
+                roll();
+            }
+            final ByteBuffer buffer = ByteBuffer.wrap(record);
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                discardPartialRecord();
+                throw e;
+            }
+            written += record.length;
+            records++;
+        }
+
+        /**
+         * Removes the bytes of a record that could only be written in part, as replay stops at the first torn record
+         * of a segment and would lose every record appended behind it. If they cannot be removed, the next record
+         * starts a new segment instead.
+         */
+        private void discardPartialRecord() {
+            try {
+                channel.truncate(written);
+                channel.position(written);
+            } catch (IOException e) {
+                torn = true;
+            }
+        }
+
+        synchronized void sync() throws IOException {
+            if (channel != null) {
+                channel.force(false);
+                if (released) {
+                    //only reopened for records that were written after its timed object was undeployed
+                    close();
+                }
+            }
+        }
+
+        synchronized boolean needsCompaction() {
+            return !released && records > COMPACTION_THRESHOLD && records > 2 * liveCount;
+        }
+
+        /**
+         * Rewrites the journal into a single segment that only holds the most recent record of each live timer.
+         * <p/>
+         * The compacted segment is numbered after all the segments it replaces, so the journal replays correctly
+         * even if the server stops before the old segments have been deleted.
+         */
+        synchronized void compact() throws IOException {
+            sync();
+            close();
+            final List<Long> segments = segments();
+            if (segments.isEmpty()) {
+                return;
+            }
+            // first pass: find the most recent record of each live timer
+            final Map<String, long[]> latest = new HashMap<String, long[]>();
+            for (Long segment : segments) {
+                scan(segment(segment), segment, -1, new RecordVisitor() {
+                    @Override
+                    public void visit(final long sequence, final long position, final byte type, final String timerId, final byte[] body, final int dataOffset) {
+                        if (type == PUT) {
+                            latest.put(timerId, new long[] {sequence, position});
+                        } else {
+                            latest.remove(timerId);
+                        }
+                    }
+                });
+            }
+            // second pass: copy those records into the new segment
+            final long target = segments.get(segments.size() - 1) + 1;
+            final File temp = new File(directory, target + SEGMENT_SUFFIX + TEMP_SUFFIX);
+            final FileOutputStream out = new FileOutputStream(temp);
+            try {
+                final OutputStream output = new BufferedOutputStream(out, BUFFER_SIZE);
+                for (Long segment : segments) {
+                    scan(segment(segment), segment, -1, new RecordVisitor() {
+                        @Override
+                        public void visit(final long sequence, final long position, final byte type, final String timerId, final byte[] body, final int dataOffset) throws IOException {
+                            final long[] location = latest.get(timerId);
+                            if (type == PUT && location != null && location[0] == sequence && location[1] == position) {
+                                output.write(encode(PUT, timerId, Arrays.copyOfRange(body, dataOffset, body.length)));
+                            }
+                        }
+                    });
+                }
+                output.flush();
+                out.getFD().sync();
+            } finally {
+                safeClose(out);
+            }
+            Files.move(temp.toPath(), segment(target).toPath(), StandardCopyOption.ATOMIC_MOVE);
+            for (Long segment : segments) {
+                segment(segment).delete();
+            }
+            sequence = target;
+            records = latest.size();
+        }
+
+        synchronized void close() {
+            if (channel != null) {
+                safeClose(channel);
+                channel = null;
+            }
+        }
+
+        /**
+         * Closes the journal of an undeployed timed object for good, it is no longer compacted.
+         */
+        synchronized void release() {
+            close();
+            released = true;
+        }
+
+        private void roll() throws IOException {
+            if (channel != null) {
+                channel.force(false);
+                close();
+            }
+            if (!directory.exists() && !directory.mkdirs()) {
+                ROOT_LOGGER.failToCreateDirectoryForPersistTimers(directory);
+            }
+            // always start a fresh segment, so nothing is ever appended behind a torn record
+            final List<Long> segments = segments();
+            sequence = Math.max(sequence, segments.isEmpty() ? 0 : segments.get(segments.size() - 1)) + 1;
+            channel = new FileOutputStream(segment(sequence)).getChannel();
+            written = 0;
+            torn = false;
+        }
+
+        private File segment(final long sequence) {
+            return new File(directory, sequence + SEGMENT_SUFFIX);
+        }
+
+        private List<Long> segments() {
+            final List<Long> segments = new ArrayList<Long>();
+            final File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    final String name = file.getName();
+                    if (name.endsWith(SEGMENT_SUFFIX)) {
+                        try {
+                            segments.add(Long.valueOf(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException ignore) {
+                            // not a segment
+                        }
+                    }
+                }
+            }
+            Collections.sort(segments);
+            return segments;
+        }
+    }
+
+    /**
+     * A record queued for the writer, a record without bytes closes its journal
+     */
+    private static final class Record {
+
+        private final Journal journal;
+        private final byte[] bytes;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile IOException failure;
+
+        Record(final Journal journal, final byte[] bytes) {
+            this.journal = journal;
+            this.bytes = bytes;
+        }
+
+        void complete(final IOException failure) {
+            if (this.failure == null) {
+                this.failure = failure;
+            }
+            done.countDown();
+        }
+
+        void await() {
+            awaitCompletion();
+            if (failure != null) {
+                throw new RuntimeException(failure);
+            }
+        }
+
+        /**
+         * Waits until the writer is done with the record, whether it succeeded or not.
+         */
+        void awaitCompletion() {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        done.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes queued records in batches, syncing every journal of a batch once.
+     */
+    private final class Writer implements Runnable {
+
+        @Override
+        public void run() {
+            final List<Record> batch = new ArrayList<Record>();
+            final Map<Journal, IOException> synced = new LinkedHashMap<Journal, IOException>();
+            boolean running = true;
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    // only the shutdown record stops the writer
+                    continue;
+                }
+                queue.drainTo(batch, MAX_BATCH_SIZE);
+                for (Record record : batch) {
+                    if (record == SHUTDOWN) {
+                        running = false;
+                        continue;
+                    }
+                    try {
+                        if (record.bytes != null) {
+                            record.journal.append(record.bytes);
+                        }
+                        if (!synced.containsKey(record.journal)) {
+                            synced.put(record.journal, null);
+                        }
+                    } catch (IOException e) {
+                        record.complete(e);
+                    }
+                }
+                for (Map.Entry<Journal, IOException> entry : synced.entrySet()) {
+                    try {
+                        entry.getKey().sync();
+                    } catch (IOException e) {
+                        entry.setValue(e);
+                    }
+                }
+                for (Record record : batch) {
+                    if (record == SHUTDOWN) {
+                        continue;
+                    }
+                    if (record.bytes == null) {
+                        //closed before it is completed, as completing it allows the journal to be reopened
+                        record.journal.release();
+                        closing.remove(record.journal.timedObjectId, record);
+                    }
+                    record.complete(synced.get(record.journal));
+                }
+                for (Journal journal : synced.keySet()) {
+                    //compaction deletes segments, so it never runs while the journal is replayed. A journal that is
+                    //locked is compacted after a later batch instead, as the holder of the lock may be waiting for
+                    //a record of this one
+                    if (journal.needsCompaction() && journal.lock.tryLock()) {
+                        try {
+                            journal.compact();
+                        } catch (IOException e) {
+                            ROOT_LOGGER.failedToCompactTimerJournal(journal.directory, e);
+                        } finally {
+                            journal.lock.unlock();
+                        }
+                    }
+                }
+                batch.clear();
+                synced.clear();
+            }
+        }
+    }
+
+    private final class PersistTransactionSynchronization implements Synchronization {
+
+        private final String transactionKey;
+        private final boolean newTimer;
+        private volatile TimerImpl timer;
+
+        public PersistTransactionSynchronization(final String transactionKey, final boolean newTimer) {
+            this.transactionKey = transactionKey;
+            this.newTimer = newTimer;
+        }
+
+        @Override
+        public void beforeCompletion() {
+            //get the latest version of the entity
+            timer = (TimerImpl) transactionSynchronizationRegistry.getValue().getResource(transactionKey);
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            if (timer != null && status == Status.STATUS_COMMITTED) {
+                writeTimer(timer, newTimer);
+            }
+        }
+    }
+
+    public InjectedValue<TransactionManager> getTransactionManager() {
+        return transactionManager;
+    }
+
+    public InjectedValue<TransactionSynchronizationRegistry> getTransactionSynchronizationRegistry() {
+        return transactionSynchronizationRegistry;
+    }
+
+    public InjectedValue<ModuleLoader> getModuleLoader() {
+        return moduleLoader;
+    }
+
+    public InjectedValue<PathManager> getPathManager() {
+        return pathManager;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.invocationmetrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link InvocationMetrics}.
+ */
+public class InvocationMetricsTestCase {
+
+    public void foo() {
+    }
+
+    public void foo(String s, int i) {
+    }
+
+    @Test
+    public void testOverloadsAreTrackedSeparately() throws Exception {
+        final InvocationMetrics metrics = new InvocationMetrics();
+        invoke(metrics, getClass().getMethod("foo"), 1, 10);
+        invoke(metrics, getClass().getMethod("foo", String.class, int.class), 2, 20);
+        invoke(metrics, getClass().getMethod("foo", String.class, int.class), 3, 30);
+
+        assertEquals(3, metrics.getInvocations());
+        assertEquals(6, metrics.getWaitTime());
+        assertEquals(60, metrics.getExecutionTime());
+        assertEquals(0, metrics.getConcurrent());
+
+        final Map<String, InvocationMetrics.Values> methods = metrics.getMethods();
+        assertEquals(2, methods.size());
+        assertEquals(1, methods.get("foo()").getInvocations());
+        final InvocationMetrics.Values overload = methods.get("foo(java.lang.String,int)");
+        assertEquals(2, overload.getInvocations());
+        assertEquals(5, overload.getWaitTime());
+        assertEquals(50, overload.getExecutionTime());
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        final InvocationMetrics metrics = new InvocationMetrics();
+        for (int i = 1; i <= 1000; i++) {
+            invoke(metrics, getClass().getMethod("foo"), 0, i);
+        }
+        final InvocationMetrics.Values values = metrics.getMethods().get("foo()");
+        assertWithin(500, values.getExecutionTimeP50());
+        assertWithin(990, values.getExecutionTimeP99());
+        assertWithin(999, values.getExecutionTimeP999());
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        for (long value : new long[] { 0, 1, 3, 4, 7, 8, 9, 1000, 123456789L, Long.MAX_VALUE }) {
+            final int index = LatencyHistogram.index(value);
+            assertTrue(value <= LatencyHistogram.highestValue(index));
+            assertTrue(index == 0 || value > LatencyHistogram.highestValue(index - 1));
+        }
+    }
+
+    private static void invoke(InvocationMetrics metrics, java.lang.reflect.Method method, long waitTime, long executionTime) {
+        metrics.startInvocation();
+        metrics.finishInvocation(method, waitTime, executionTime);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        // the histogram reports the upper bound of a bucket, which is at most 25% off
+        assertTrue(actual + " should be close to " + expected, actual >= expected && actual <= expected * 5 / 4);
+    }
+}
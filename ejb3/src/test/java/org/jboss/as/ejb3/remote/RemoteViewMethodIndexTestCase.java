@@ -0,0 +1,170 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.jboss.as.ee.component.ComponentView;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that {@link RemoteViewMethodIndex} resolves remote invocations to the same view methods as the linear scan
+ * over the view methods that it replaced.
+ */
+public class RemoteViewMethodIndexTestCase {
+
+    private Set<Method> viewMethods;
+    private ComponentView view;
+    private RemoteViewMethodIndex index;
+
+    @Before
+    public void setup() {
+        this.viewMethods = new LinkedHashSet<Method>(Arrays.asList(RemoteView.class.getMethods()));
+        this.view = mock(ComponentView.class);
+        when(this.view.getViewMethods()).thenReturn(this.viewMethods);
+        this.index = new RemoteViewMethodIndex();
+    }
+
+    @Test
+    public void testOverloadedMethods() throws Exception {
+        assertFound(RemoteView.class.getMethod("greet"), "greet");
+        assertFound(RemoteView.class.getMethod("greet", String.class), "greet", String.class.getName());
+        assertFound(RemoteView.class.getMethod("greet", String.class, int.class), "greet", String.class.getName(), "int");
+        assertFound(RemoteView.class.getMethod("greet", String[].class), "greet", String[].class.getName());
+        assertFound(RemoteView.class.getMethod("count", int.class), "count", "int");
+        assertFound(RemoteView.class.getMethod("count", long.class), "count", "long");
+    }
+
+    @Test
+    public void testMethodsInheritedFromSeveralViewInterfaces() throws Exception {
+        // echo is declared by both super interfaces, the view carries a method for each declaration
+        int declarations = 0;
+        for (Method method : this.viewMethods) {
+            if (method.getName().equals("echo")) {
+                declarations++;
+            }
+        }
+        assertEquals(2, declarations);
+        final Method echo = this.index.findMethod(this.view, "echo", new String[] { Object.class.getName() });
+        assertNotNull(echo);
+        assertSame(scan("echo", Object.class.getName()), echo);
+
+        assertFound(Base.class.getMethod("name"), "name");
+        assertFound(Greeter.class.getMethod("greet", String.class), "greet", String.class.getName());
+    }
+
+    @Test
+    public void testUnknownMethod() {
+        assertNotFound("unknown");
+        assertNotFound("greet", Integer.class.getName());
+        assertNotFound("greet", String.class.getName(), Integer.class.getName());
+        assertNotFound("greet", String.class.getName(), "int", "int");
+        assertNotFound("count", Integer.class.getName());
+        assertNotFound("count", Long.class.getName());
+        assertNotFound("echo");
+        assertNotFound("echo", String.class.getName());
+        assertNotFound("name", String.class.getName());
+    }
+
+    @Test
+    public void testIndexIsBuiltOnce() throws Exception {
+        assertFound(RemoteView.class.getMethod("name"), "name");
+        assertNotFound("unknown");
+        assertFound(RemoteView.class.getMethod("count", int.class), "count", "int");
+        verify(this.view, times(1)).getViewMethods();
+    }
+
+    private void assertFound(final Method expected, final String methodName, final String... paramTypes) {
+        final Method method = scan(methodName, paramTypes);
+        assertEquals(expected, method);
+        assertSame(method, this.index.findMethod(this.view, methodName, paramTypes));
+    }
+
+    private void assertNotFound(final String methodName, final String... paramTypes) {
+        assertNull(scan(methodName, paramTypes));
+        assertNull(this.index.findMethod(this.view, methodName, paramTypes));
+    }
+
+    /**
+     * The lookup remote invocations used before the index, kept as the reference for the resolution.
+     */
+    private Method scan(final String methodName, final String... paramTypes) {
+        for (final Method method : this.viewMethods) {
+            if (method.getName().equals(methodName)) {
+                final Class<?>[] methodParamTypes = method.getParameterTypes();
+                if (methodParamTypes.length != paramTypes.length) {
+                    continue;
+                }
+                boolean found = true;
+                for (int i = 0; i < methodParamTypes.length; i++) {
+                    if (!methodParamTypes[i].getName().equals(paramTypes[i])) {
+                        found = false;
+                        break;
+                    }
+                }
+                if (found) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    public interface Echo {
+        Object echo(Object value);
+    }
+
+    public interface Base {
+        Object echo(Object value);
+
+        String name();
+    }
+
+    public interface Greeter {
+        String greet();
+
+        String greet(String name);
+
+        String greet(String name, int times);
+
+        String greet(String[] names);
+    }
+
+    public interface RemoteView extends Echo, Base, Greeter {
+        void count(int value);
+
+        void count(long value);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link TimingWheel} on a small wheel with a short tick, so that timeouts need several rounds to expire.
+ */
+public class TimingWheelTestCase {
+
+    private static final long TICK_MILLIS = 1;
+    private static final int WHEEL_SIZE = 8;
+
+    private final List<Thread> workers = new ArrayList<Thread>();
+    private TimingWheel wheel;
+
+    @Before
+    public void setup() {
+        wheel = new TimingWheel(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "timing-wheel-test");
+                thread.setDaemon(true);
+                workers.add(thread);
+                return thread;
+            }
+        }, TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE);
+        wheel.start();
+    }
+
+    @After
+    public void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    public void testExpiryAfterSeveralRounds() throws Exception {
+        final long delay = 10 * TICK_MILLIS * WHEEL_SIZE;
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        final long[] expired = new long[1];
+        final TimingWheel.Timeout timeout = wheel.schedule(new Runnable() {
+            @Override
+            public void run() {
+                expired[0] = System.nanoTime();
+                latch.countDown();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(expired[0] - start) >= delay);
+        assertFalse(timeout.cancel());
+        assertFalse(timeout.isCancelled());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final TimingWheel.Timeout cancelled = wheel.schedule(new Counter(runs), 5 * TICK_MILLIS * WHEEL_SIZE, TimeUnit.MILLISECONDS);
+        // expires in the same bucket as the cancelled timeout, one round later
+        wheel.schedule(new Latch(latch), 6 * TICK_MILLIS * WHEEL_SIZE, TimeUnit.MILLISECONDS);
+
+        assertTrue(cancelled.cancel());
+        assertTrue(cancelled.isCancelled());
+        assertFalse(cancelled.cancel());
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void testFixedRate() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(5);
+        final long period = 2 * TICK_MILLIS * WHEEL_SIZE;
+        final long start = System.nanoTime();
+        final TimingWheel.Timeout timeout = wheel.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+                latch.countDown();
+            }
+        }, 0, period, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 4 * period);
+        assertTrue(timeout.cancel());
+
+        // no further runs once the cancellation has been picked up
+        final int cancelledRuns = runs.get();
+        awaitTicks(4 * period);
+        assertTrue(runs.get() <= cancelledRuns + 1);
+        final int finalRuns = runs.get();
+        awaitTicks(4 * period);
+        assertEquals(finalRuns, runs.get());
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        wheel.schedule(new Counter(runs), 2 * TICK_MILLIS * WHEEL_SIZE, TimeUnit.MILLISECONDS);
+        wheel.scheduleAtFixedRate(new Counter(runs), 2 * TICK_MILLIS * WHEEL_SIZE, TICK_MILLIS, TimeUnit.MILLISECONDS);
+
+        wheel.stop();
+
+        assertEquals(1, workers.size());
+        assertFalse(workers.get(0).isAlive());
+        awaitTicks(4 * TICK_MILLIS * WHEEL_SIZE);
+        assertEquals(0, runs.get());
+    }
+
+    private static void awaitTicks(final long millis) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(millis);
+    }
+
+    private static class Counter implements Runnable {
+        private final AtomicInteger runs;
+
+        Counter(final AtomicInteger runs) {
+            this.runs = runs;
+        }
+
+        @Override
+        public void run() {
+            runs.incrementAndGet();
+        }
+    }
+
+    private static class Latch implements Runnable {
+        private final CountDownLatch latch;
+
+        Latch(final CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionManager;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.jboss.as.ejb3.timerservice.TimerImpl;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker;
+import org.jboss.as.naming.ManagedReference;
+import org.jboss.as.naming.ManagedReferenceFactory;
+import org.jboss.modules.ModuleFinder;
+import org.jboss.modules.ModuleLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests the write-behind mode of {@link DatabaseTimerPersistence} against a mocked datasource.
+ */
+public class DatabaseTimerPersistenceTestCase {
+
+    private static final String TIMED_OBJECT_ID = "test-ear.test-ejb.TimerBean";
+
+    private final Map<Object, Object> resources = new HashMap<Object, Object>();
+    private final List<Synchronization> synchronizations = new ArrayList<Synchronization>();
+    private volatile int status = Status.STATUS_NO_TRANSACTION;
+    private volatile Thread committer;
+
+    private TimerServiceImpl timerService;
+    private Connection connection;
+    private PreparedStatement insert;
+    private PreparedStatement update;
+    private PreparedStatement delete;
+    private DatabaseTimerPersistence persistence;
+
+    @Before
+    public void setUp() throws Exception {
+        final TimedObjectInvoker invoker = mock(TimedObjectInvoker.class);
+        when(invoker.getTimedObjectId()).thenReturn(TIMED_OBJECT_ID);
+        timerService = mock(TimerServiceImpl.class);
+        when(timerService.getInvoker()).thenReturn(invoker);
+
+        final ResultSet resultSet = mock(ResultSet.class);
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnType(anyInt())).thenReturn(Types.LONGVARBINARY);
+        final PreparedStatement load = mock(PreparedStatement.class);
+        when(load.executeQuery()).thenReturn(resultSet);
+        insert = mock(PreparedStatement.class);
+        update = mock(PreparedStatement.class);
+        delete = mock(PreparedStatement.class);
+        connection = mock(Connection.class);
+        when(connection.prepareStatement("load-timer")).thenReturn(load);
+        when(connection.prepareStatement("load-all-timers", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)).thenReturn(load);
+        when(connection.prepareStatement("create-timer")).thenReturn(insert);
+        when(connection.prepareStatement("update-timer")).thenReturn(update);
+        when(connection.prepareStatement("delete-timer")).thenReturn(delete);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                committer = Thread.currentThread();
+                return null;
+            }
+        }).when(connection).commit();
+        final DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        final ManagedReference reference = mock(ManagedReference.class);
+        when(reference.getInstance()).thenReturn(dataSource);
+        final ManagedReferenceFactory referenceFactory = mock(ManagedReferenceFactory.class);
+        when(referenceFactory.getReference()).thenReturn(reference);
+
+        final TransactionManager transactionManager = mock(TransactionManager.class);
+        when(transactionManager.getStatus()).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(final InvocationOnMock invocation) {
+                return status;
+            }
+        });
+        final TransactionSynchronizationRegistry registry = mock(TransactionSynchronizationRegistry.class);
+        when(registry.getResource(any())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) {
+                return resources.get(invocation.getArguments()[0]);
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                resources.put(invocation.getArguments()[0], invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(registry).putResource(any(), any());
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                synchronizations.add((Synchronization) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(registry).registerInterposedSynchronization(any(Synchronization.class));
+
+        // only flushed when the timers are loaded or the store stops
+        persistence = new DatabaseTimerPersistence("test", null, "default", TimeUnit.HOURS.toMillis(1));
+        persistence.getDataSourceInjectedValue().inject(referenceFactory);
+        persistence.getModuleLoader().inject(new ModuleLoader(new ModuleFinder[0]));
+        persistence.getTransactionManager().inject(transactionManager);
+        persistence.getTransactionSynchronizationRegistry().inject(registry);
+        persistence.start(null);
+    }
+
+    @After
+    public void tearDown() {
+        persistence.stop(null);
+    }
+
+    @Test
+    public void testChangesAreCoalesced() throws Exception {
+        final TimerImpl created = timer("created");
+        persistence.addTimer(created);
+        created.setNextTimeout(new Date(2000));
+        persistence.persistTimer(created);
+        final TimerImpl shortLived = timer("short-lived");
+        persistence.addTimer(shortLived);
+        shortLived.setTimerState(TimerState.CANCELED);
+        persistence.persistTimer(shortLived);
+        final TimerImpl existing = timer("existing");
+        persistence.persistTimer(existing);
+        existing.setNextTimeout(new Date(3000));
+        persistence.persistTimer(existing);
+        final TimerImpl removed = timer("removed");
+        removed.setTimerState(TimerState.CANCELED);
+        persistence.persistTimer(removed);
+        verify(connection, never()).prepareStatement("create-timer");
+        verify(connection, never()).prepareStatement("update-timer");
+        verify(connection, never()).prepareStatement("delete-timer");
+
+        // a transaction of the caller must not be committed by the flush
+        status = Status.STATUS_ACTIVE;
+        persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService);
+        verify(insert).addBatch();
+        verify(insert).setString(1, "created");
+        verify(insert).setTimestamp(5, new Timestamp(2000));
+        verify(insert).executeBatch();
+        verify(update).addBatch();
+        verify(update).setTimestamp(1, new Timestamp(3000));
+        verify(update).setString(5, "existing");
+        verify(delete).addBatch();
+        verify(delete).setString(2, "removed");
+        verify(connection).commit();
+        assertNotNull(committer);
+        assertNotSame(Thread.currentThread(), committer);
+
+        // nothing left to write
+        persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService);
+        verify(connection).commit();
+    }
+
+    @Test
+    public void testRolledBackChangesAreNotWritten() throws Exception {
+        status = Status.STATUS_ACTIVE;
+        persistence.addTimer(timer("rolled-back"));
+        complete(Status.STATUS_ROLLEDBACK);
+
+        status = Status.STATUS_MARKED_ROLLBACK;
+        persistence.addTimer(timer("marked-rollback"));
+        assertEquals(0, synchronizations.size());
+
+        status = Status.STATUS_ACTIVE;
+        final TimerImpl committed = timer("committed");
+        persistence.addTimer(committed);
+        committed.setNextTimeout(new Date(2000));
+        persistence.persistTimer(committed);
+        assertEquals(1, synchronizations.size());
+        // not written before the transaction has committed
+        persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService);
+        verify(connection, never()).prepareStatement("create-timer");
+        complete(Status.STATUS_COMMITTED);
+
+        persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService);
+        verify(insert).addBatch();
+        verify(insert).setString(1, "committed");
+        verify(insert).setTimestamp(5, new Timestamp(2000));
+        verify(connection).commit();
+    }
+
+    @Test
+    public void testFailedFlushIsRetried() throws Exception {
+        when(insert.executeBatch()).thenThrow(new SQLException("test")).thenReturn(new int[] {1});
+        persistence.addTimer(timer("retried"));
+
+        // the failure is logged, it does not reach the caller
+        persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService);
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+
+        persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService);
+        verify(insert, times(2)).addBatch();
+        verify(insert, times(2)).setString(1, "retried");
+        verify(connection).commit();
+    }
+
+    private void complete(final int outcome) {
+        for (Synchronization synchronization : synchronizations) {
+            synchronization.beforeCompletion();
+        }
+        status = outcome;
+        for (Synchronization synchronization : synchronizations) {
+            synchronization.afterCompletion(outcome);
+        }
+        synchronizations.clear();
+        resources.clear();
+        status = Status.STATUS_NO_TRANSACTION;
+    }
+
+    private TimerImpl timer(final String id) {
+        return TimerImpl.builder()
+                .setId(id)
+                .setTimedObjectId(TIMED_OBJECT_ID)
+                .setInitialDate(new Date(1000))
+                .setRepeatInterval(1000)
+                .setInfo(id)
+                .setTimerState(TimerState.ACTIVE)
+                .setPersistent(true)
+                .setNewTimer(true)
+                .build(timerService);
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.persistence.filestore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.transaction.Status;
+import javax.transaction.TransactionManager;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.jboss.as.controller.services.path.PathManager;
+import org.jboss.as.ejb3.timerservice.TimerImpl;
+import org.jboss.as.ejb3.timerservice.TimerServiceImpl;
+import org.jboss.as.ejb3.timerservice.TimerState;
+import org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker;
+import org.jboss.modules.ModuleFinder;
+import org.jboss.modules.ModuleLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that {@link JournalTimerPersistence} replays the most recent state of every live timer, also while its journal
+ * is compacted and when its timed object is redeployed.
+ */
+public class JournalTimerPersistenceTestCase {
+
+    private static final String TIMED_OBJECT_ID = "test-ear.test-ejb.TimerBean";
+
+    private File directory;
+    private TimerServiceImpl timerService;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("timer-journal").toFile();
+        final TimedObjectInvoker invoker = mock(TimedObjectInvoker.class);
+        when(invoker.getTimedObjectId()).thenReturn(TIMED_OBJECT_ID);
+        timerService = mock(TimerServiceImpl.class);
+        when(timerService.getInvoker()).thenReturn(invoker);
+    }
+
+    @After
+    public void tearDown() {
+        delete(directory);
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        JournalTimerPersistence persistence = start();
+        try {
+            assertTrue(persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService).isEmpty());
+            final TimerImpl updated = timer("updated");
+            final TimerImpl canceled = timer("canceled");
+            persistence.addTimer(timer("unchanged"));
+            persistence.addTimer(updated);
+            persistence.addTimer(canceled);
+            updated.setNextTimeout(new Date(2000));
+            persistence.persistTimer(updated);
+            canceled.setTimerState(TimerState.CANCELED);
+            persistence.persistTimer(canceled);
+            // a timer that is no longer live is not brought back by an update
+            canceled.setTimerState(TimerState.ACTIVE);
+            persistence.persistTimer(canceled);
+        } finally {
+            persistence.stop(null);
+        }
+
+        persistence = start();
+        try {
+            final Map<String, TimerImpl> timers = load(persistence);
+            assertEquals(2, timers.size());
+            assertEquals(new Date(1000), timers.get("unchanged").getNextExpiration());
+            assertEquals(new Date(2000), timers.get("updated").getNextExpiration());
+            assertNull(timers.get("canceled"));
+        } finally {
+            persistence.stop(null);
+        }
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        final int timerCount = 4;
+        final int updates = 3000;
+        final JournalTimerPersistence persistence = start();
+        final File journal = new File(directory, TIMED_OBJECT_ID);
+        final TimerImpl[] timers = new TimerImpl[timerCount];
+        final long recordSize;
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        try {
+            final Thread[] writers = new Thread[timerCount];
+            for (int i = 0; i < timerCount; i++) {
+                final TimerImpl timer = timers[i] = timer("timer" + i);
+                persistence.addTimer(timer);
+                writers[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (int update = 1; update <= updates; update++) {
+                                timer.setNextTimeout(new Date(update));
+                                persistence.persistTimer(timer);
+                            }
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        }
+                    }
+                });
+            }
+            recordSize = size(journal) / timerCount;
+            for (Thread writer : writers) {
+                writer.start();
+            }
+            // replays the journal while it is being compacted
+            boolean writing = true;
+            while (writing) {
+                assertEquals(timerCount, persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService).size());
+                writing = false;
+                for (Thread writer : writers) {
+                    writing |= writer.isAlive();
+                }
+            }
+            assertNull(failure.get());
+            // compaction is deferred while the journal is replayed, this write triggers it if it is still due
+            persistence.persistTimer(timers[0]);
+        } finally {
+            persistence.stop(null);
+        }
+        assertTrue(size(journal) < recordSize * timerCount * updates / 2);
+        for (String name : journal.list()) {
+            assertFalse(name, name.endsWith(".tmp"));
+        }
+
+        final JournalTimerPersistence restarted = start();
+        try {
+            final Map<String, TimerImpl> loaded = load(restarted);
+            assertEquals(timerCount, loaded.size());
+            for (TimerImpl timer : loaded.values()) {
+                assertEquals(new Date(updates), timer.getNextExpiration());
+            }
+        } finally {
+            restarted.stop(null);
+        }
+    }
+
+    @Test
+    public void testRedeploy() throws Exception {
+        final JournalTimerPersistence persistence = start();
+        try {
+            persistence.addTimer(timer("redeployed"));
+            for (int deployment = 1; deployment <= 50; deployment++) {
+                final TimerImpl timer = load(persistence).get("redeployed");
+                assertEquals(new Date(deployment == 1 ? 1000 : deployment - 1), timer.getNextExpiration());
+                timer.setNextTimeout(new Date(deployment));
+                persistence.persistTimer(timer);
+                persistence.timerUndeployed(TIMED_OBJECT_ID);
+            }
+            assertEquals(new Date(50), load(persistence).get("redeployed").getNextExpiration());
+        } finally {
+            persistence.stop(null);
+        }
+
+        final JournalTimerPersistence restarted = start();
+        try {
+            final Map<String, TimerImpl> timers = load(restarted);
+            assertEquals(1, timers.size());
+            assertEquals(new Date(50), timers.get("redeployed").getNextExpiration());
+        } finally {
+            restarted.stop(null);
+        }
+    }
+
+    private JournalTimerPersistence start() throws Exception {
+        final TransactionManager transactionManager = mock(TransactionManager.class);
+        when(transactionManager.getStatus()).thenReturn(Status.STATUS_NO_TRANSACTION);
+        final PathManager pathManager = mock(PathManager.class);
+        when(pathManager.resolveRelativePathEntry(directory.getPath(), null)).thenReturn(directory.getPath());
+
+        final JournalTimerPersistence persistence = new JournalTimerPersistence(false, directory.getPath(), null);
+        persistence.getTransactionManager().inject(transactionManager);
+        persistence.getTransactionSynchronizationRegistry().inject(mock(TransactionSynchronizationRegistry.class));
+        persistence.getModuleLoader().inject(new ModuleLoader(new ModuleFinder[0]));
+        persistence.getPathManager().inject(pathManager);
+        persistence.start(null);
+        return persistence;
+    }
+
+    private TimerImpl timer(final String id) {
+        return TimerImpl.builder()
+                .setId(id)
+                .setTimedObjectId(TIMED_OBJECT_ID)
+                .setInitialDate(new Date(1000))
+                .setRepeatInterval(1000)
+                .setInfo(id)
+                .setTimerState(TimerState.ACTIVE)
+                .setPersistent(true)
+                .setNewTimer(true)
+                .build(timerService);
+    }
+
+    private Map<String, TimerImpl> load(final JournalTimerPersistence persistence) {
+        final List<TimerImpl> timers = persistence.loadActiveTimers(TIMED_OBJECT_ID, timerService);
+        final Map<String, TimerImpl> result = new HashMap<String, TimerImpl>();
+        for (TimerImpl timer : timers) {
+            result.put(timer.getId(), timer);
+        }
+        assertEquals(timers.size(), result.size());
+        return result;
+    }
+
+    private static long size(final File journal) {
+        long size = 0;
+        for (File segment : journal.listFiles()) {
+            size += segment.length();
+        }
+        return size;
+    }
+
+    private static void delete(final File file) {
+        final File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -161,6 +161,13 @@ public class Configuration {
      */
     public static final String JPA_ALLOW_TWO_PHASE_BOOTSTRAP = "wildfly.jpa.twophasebootstrap";
 
+    /**
+     * maximum number of idle entity managers kept for reuse by transaction scoped entity managers invoked outside of a
+     * JTA transaction (defaults to 0, which disables pooling).  Pooled entity managers are cleared before reuse,
+     * so applications must not keep using queries obtained outside of a transaction after the invocation ends.
+     */
+    public static final String JPA_NON_TX_ENTITY_MANAGER_POOL_SIZE = "wildfly.jpa.nontxpoolsize";
+
     /**
      * set to false to ignore default data source (defaults to true)
      */
@@ -255,6 +262,24 @@ public class Configuration {
         return result;
     }
 
+    /**
+     * Determine how many idle non-transactional entity managers should be pooled
+     *
+     * @param pu
+     * @return the maximum number of pooled entity managers, 0 if pooling is disabled
+     */
+    public static int nonTxEntityManagerPoolSize(PersistenceUnitMetadata pu) {
+        int result = 0;
+        if (pu.getProperties().containsKey(Configuration.JPA_NON_TX_ENTITY_MANAGER_POOL_SIZE)) {
+            try {
+                result = Math.max(0, Integer.parseInt(pu.getProperties().getProperty(Configuration.JPA_NON_TX_ENTITY_MANAGER_POOL_SIZE).trim()));
+            } catch (NumberFormatException ignored) {
+                result = 0;
+            }
+        }
+        return result;
+    }
+
     /**
      * Determine if the default data-source should be used
      *
@@ -34,6 +34,7 @@ import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
 import javax.persistence.FlushModeType;
 import javax.persistence.LockModeType;
+import javax.persistence.PersistenceException;
 import javax.persistence.Query;
 import javax.persistence.StoredProcedureQuery;
 import javax.persistence.SynchronizationType;
@@ -70,6 +71,15 @@ public abstract class AbstractEntityManager implements EntityManager {
 
     public abstract SynchronizationType getSynchronizationType();
 
+    /**
+     * Invoked when a call on the underlying entity manager failed with a persistence exception, which may have left
+     * its persistence context in an inconsistent state. The exception is rethrown after this method returns.
+     *
+     * @param exception the persistence exception
+     */
+    protected void persistenceExceptionThrown(PersistenceException exception) {
+    }
+
     public <T> T unwrap(Class<T> cls) {
         return getEntityManager().unwrap(cls);
     }
@@ -83,6 +93,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             // return a Query wrapper around the result.
             EntityManager entityManager = getEntityManager();
             return detachTypedQueryNonTxInvocation(entityManager,entityManager.createNamedQuery(name, resultClass));
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -100,6 +113,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             // return a Query wrapper around the result.
             EntityManager entityManager = getEntityManager();
             return detachTypedQueryNonTxInvocation(entityManager,entityManager.createQuery(criteriaQuery));
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -117,6 +133,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             // return a Query wrapper around the result.
             EntityManager entityManager = getEntityManager();
             return detachTypedQueryNonTxInvocation(entityManager,entityManager.createQuery(qlString, resultClass));
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -131,6 +150,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             getEntityManager().detach(entity);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -148,6 +170,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             T result = underlyingEntityManager.find(entityClass, primaryKey, properties);
             detachNonTxInvocation(underlyingEntityManager);
             return result;
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -165,6 +190,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             T result = underlyingEntityManager.find(entityClass, primaryKey, lockMode);
             detachNonTxInvocation(underlyingEntityManager);
             return result;
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -182,6 +210,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             T result = underlyingEntityManager.find(entityClass, primaryKey, lockMode, properties);
             detachNonTxInvocation(underlyingEntityManager);
             return result;
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -199,6 +230,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             T result = getEntityManager().find(entityClass, primaryKey);
             detachNonTxInvocation(underlyingEntityManager);
             return result;
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -214,6 +248,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().getCriteriaBuilder();
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -228,6 +265,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().getEntityManagerFactory();
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -243,6 +283,9 @@ public abstract class AbstractEntityManager implements EntityManager {
         LockModeType result = null;
         try {
             result = getEntityManager().getLockMode(entity);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -258,6 +301,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().getMetamodel();
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -272,6 +318,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().getProperties();
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -286,6 +335,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             getEntityManager().lock(entity, lockMode, properties);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -301,6 +353,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             getEntityManager().setProperty(propertyName, value);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -315,6 +370,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             getEntityManager().clear();
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -329,6 +387,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             getEntityManager().close();
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -343,6 +404,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().contains(entity);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -360,6 +424,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             // return a Query wrapper around the result.
             EntityManager entityManager = getEntityManager();
             return detachQueryNonTxInvocation(entityManager, entityManager.createNamedQuery(name));
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -378,6 +445,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             // return a Query wrapper around the result.
             EntityManager entityManager = getEntityManager();
             return detachQueryNonTxInvocation(entityManager, entityManager.createNativeQuery(sqlString, resultClass));
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -395,6 +465,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             // return a Query wrapper around the result.
             EntityManager entityManager = getEntityManager();
             return detachQueryNonTxInvocation(entityManager, entityManager.createNativeQuery(sqlString, resultSetMapping));
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -412,6 +485,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             // return a Query wrapper around the result.
             EntityManager entityManager = getEntityManager();
             return detachQueryNonTxInvocation(entityManager, entityManager.createNativeQuery(sqlString));
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -429,6 +505,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             // return a Query wrapper around the result.
             EntityManager entityManager = getEntityManager();
             return detachQueryNonTxInvocation(entityManager, entityManager.createQuery(ejbqlString));
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -443,6 +522,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             getEntityManager().flush();
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -457,6 +539,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().getDelegate();
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -471,6 +556,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().getFlushMode();
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -488,6 +576,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             T result = getEntityManager().getReference(entityClass, primaryKey);
             detachNonTxInvocation(underlyingEntityManager);
             return result;
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -502,6 +593,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().getTransaction();
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -523,6 +617,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             getEntityManager().joinTransaction();
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -537,6 +634,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             getEntityManager().lock(entity, lockMode);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -552,6 +652,9 @@ public abstract class AbstractEntityManager implements EntityManager {
         try {
             transactionIsRequired();
             return getEntityManager().merge(entity);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -567,6 +670,9 @@ public abstract class AbstractEntityManager implements EntityManager {
         try {
             transactionIsRequired();
             getEntityManager().persist(entity);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -582,6 +688,9 @@ public abstract class AbstractEntityManager implements EntityManager {
         try {
             transactionIsRequired();
             getEntityManager().refresh(entity);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -597,6 +706,9 @@ public abstract class AbstractEntityManager implements EntityManager {
         try {
             transactionIsRequired();
             getEntityManager().refresh(entity, properties);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -612,6 +724,9 @@ public abstract class AbstractEntityManager implements EntityManager {
         try {
             transactionIsRequired();
             getEntityManager().refresh(entity, lockMode);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -627,6 +742,9 @@ public abstract class AbstractEntityManager implements EntityManager {
         try {
             transactionIsRequired();
             getEntityManager().refresh(entity, lockMode, properties);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -642,6 +760,9 @@ public abstract class AbstractEntityManager implements EntityManager {
         try {
             transactionIsRequired();
             getEntityManager().remove(entity);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -656,6 +777,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             getEntityManager().setFlushMode(flushMode);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -671,6 +795,9 @@ public abstract class AbstractEntityManager implements EntityManager {
         try {
             return getEntityManager().createQuery(criteriaUpdate);
 
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -685,6 +812,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().createQuery(criteriaDelete);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -699,6 +829,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().createNamedStoredProcedureQuery(name);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -713,6 +846,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().createStoredProcedureQuery(procedureName);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -727,6 +863,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().createStoredProcedureQuery(procedureName, resultClasses);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -741,6 +880,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().createStoredProcedureQuery(procedureName, resultSetMappings);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -755,6 +897,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().createEntityGraph(tClass);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -770,6 +915,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().createEntityGraph(s);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -784,6 +932,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().getEntityGraph(s);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -798,6 +949,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().getEntityGraphs(tClass);
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -812,6 +966,9 @@ public abstract class AbstractEntityManager implements EntityManager {
             start = System.currentTimeMillis();
         try {
             return getEntityManager().isJoinedToTransaction();
+        } catch (PersistenceException e) {
+            persistenceExceptionThrown(e);
+            throw e;
         } finally {
             if (isTraceEnabled) {
                 long elapsed = System.currentTimeMillis() - start;
@@ -52,12 +52,16 @@ public class NonTxEmCloser {
 
     /**
      * current session bean invocation is ending, close any transactional entity managers created without a JTA
-     * transaction.
+     * transaction (or hand them back to the {@link NonTxEntityManagerPool} they were taken from).
      */
     public static void popCall() {
         Map<String, EntityManager> emStack = nonTxStack.pop();
         if (emStack != null) {
-            for (EntityManager entityManager : emStack.values()) {
+            for (Map.Entry<String, EntityManager> entry : emStack.entrySet()) {
+                EntityManager entityManager = entry.getValue();
+                if (NonTxEntityManagerPool.release(entry.getKey(), entityManager)) {
+                    continue;
+                }
                 try {
                     if (entityManager.isOpen()) {
                         entityManager.close();
@@ -73,6 +77,20 @@ public class NonTxEmCloser {
         }
     }
 
+    /**
+     * current session bean invocation failed, so none of the transactional entity managers created without a JTA
+     * transaction during it are handed back to their {@link NonTxEntityManagerPool}; they are closed by
+     * {@link #popCall()} instead.
+     */
+    public static void discardCall() {
+        Map<String, EntityManager> emStack = nonTxStack.get();
+        if (emStack != null) {
+            for (Map.Entry<String, EntityManager> entry : emStack.entrySet()) {
+                NonTxEntityManagerPool.discard(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
     /**
      * Return the transactional entity manager for the specified scoped persistence unit name
      *
@@ -87,6 +105,14 @@ public class NonTxEmCloser {
         return null;
     }
 
+    /**
+     * @return true if a session bean (or web) invocation is in progress, in which case entity managers passed to
+     * {@link #add(String, EntityManager)} will be closed (or pooled) when the invocation ends.
+     */
+    public static boolean isInCall() {
+        return nonTxStack.getList() != null;
+    }
+
     public static void add(String puScopedName, EntityManager entityManager) {
         Map<String, EntityManager> map = nonTxStack.get();
         if (map == null && nonTxStack.getList() != null) {
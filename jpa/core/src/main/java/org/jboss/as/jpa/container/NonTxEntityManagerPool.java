@@ -0,0 +1,200 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.jpa.container;
+
+import static org.jboss.as.jpa.messages.JpaLogger.ROOT_LOGGER;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Bounded pool of idle entity managers, used by a {@link TransactionScopedEntityManager} outside of a JTA transaction
+ * instead of creating (and later closing) a new underlying entity manager for each component invocation.
+ * <p/>
+ * A pool only exists for persistence units that enable {@link org.jboss.as.jpa.config.Configuration#JPA_NON_TX_ENTITY_MANAGER_POOL_SIZE}.
+ * Entity managers taken from the pool are tracked by {@link NonTxEmCloser} like any other non-transactional entity
+ * manager, and are cleared and handed back when the invocation ends. Clearing only resets the persistence context, so
+ * an entity manager whose other session state may have been changed by the application (properties, flush mode or
+ * anything reachable through the provider's own API), or that was used by a failed call or invocation, is
+ * {@link #discard(String, EntityManager) discarded} and closed instead of being handed to another invocation.
+ */
+public final class NonTxEntityManagerPool {
+
+    /**
+     * Key = scoped persistence unit name
+     */
+    private static final ConcurrentMap<String, NonTxEntityManagerPool> pools = new ConcurrentHashMap<>();
+
+    private final String puScopedName;
+    private final int maxIdle;
+    private final ConcurrentLinkedQueue<EntityManager> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    // entity managers handed out by this pool that have not been released yet
+    private final Set<EntityManager> inUse = Collections.newSetFromMap(new ConcurrentHashMap<EntityManager, Boolean>());
+    private volatile boolean closed;
+
+    private NonTxEntityManagerPool(final String puScopedName, final int maxIdle) {
+        this.puScopedName = puScopedName;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Start pooling non-transactional entity managers for the specified persistence unit.
+     *
+     * @param puScopedName is the fully (application deployment) scoped name of persistence unit
+     * @param maxIdle      maximum number of idle entity managers kept for reuse
+     */
+    public static void register(final String puScopedName, final int maxIdle) {
+        NonTxEntityManagerPool previous = pools.put(puScopedName, new NonTxEntityManagerPool(puScopedName, maxIdle));
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Stop pooling for the specified persistence unit and close the idle entity managers.  Must be called before the
+     * entity manager factory is closed.
+     *
+     * @param puScopedName is the fully (application deployment) scoped name of persistence unit
+     */
+    public static void unregister(final String puScopedName) {
+        NonTxEntityManagerPool pool = pools.remove(puScopedName);
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Return the pool for the specified persistence unit
+     *
+     * @param puScopedName
+     * @return the pool or null if pooling is not enabled for the persistence unit
+     */
+    public static NonTxEntityManagerPool get(final String puScopedName) {
+        return pools.get(puScopedName);
+    }
+
+    /**
+     * Hand an entity manager that was obtained from {@link #take()} or {@link #adopt(EntityManager)} back to its pool.
+     *
+     * @param puScopedName  is the fully (application deployment) scoped name of persistence unit
+     * @param entityManager the underlying entity manager
+     * @return true if the entity manager was kept for reuse, false if the caller must close it
+     */
+    static boolean release(final String puScopedName, final EntityManager entityManager) {
+        NonTxEntityManagerPool pool = pools.get(puScopedName);
+        return pool != null && pool.release(entityManager);
+    }
+
+    /**
+     * Exclude an entity manager obtained from {@link #take()} or {@link #adopt(EntityManager)} from reuse, so that it
+     * is closed rather than released when the invocation ends.
+     *
+     * @param puScopedName  is the fully (application deployment) scoped name of persistence unit
+     * @param entityManager the underlying entity manager
+     */
+    public static void discard(final String puScopedName, final EntityManager entityManager) {
+        NonTxEntityManagerPool pool = pools.get(puScopedName);
+        if (pool != null) {
+            pool.inUse.remove(entityManager);
+        }
+    }
+
+    /**
+     * Take an idle entity manager from the pool.
+     *
+     * @return an open entity manager with an empty persistence context, or null if none is idle
+     */
+    public EntityManager take() {
+        EntityManager entityManager;
+        while ((entityManager = idle.poll()) != null) {
+            idleCount.decrementAndGet();
+            if (entityManager.isOpen()) {
+                inUse.add(entityManager);
+                return entityManager;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Track a newly created entity manager, so that it is returned to this pool when the invocation ends.
+     *
+     * @param entityManager the underlying entity manager
+     */
+    public void adopt(final EntityManager entityManager) {
+        inUse.add(entityManager);
+    }
+
+    private boolean release(final EntityManager entityManager) {
+        if (!inUse.remove(entityManager) || closed) {
+            return false;
+        }
+        try {
+            if (!entityManager.isOpen()) {
+                return false;
+            }
+            entityManager.clear();
+        } catch (RuntimeException e) {
+            if (ROOT_LOGGER.isTraceEnabled()) {
+                ROOT_LOGGER.tracef(e, "Could not reset (non-transactional) container managed entity manager for %s, it will be closed", puScopedName);
+            }
+            return false;
+        }
+        if (idleCount.incrementAndGet() > maxIdle) {
+            idleCount.decrementAndGet();
+            return false;
+        }
+        idle.offer(entityManager);
+        if (closed && idle.remove(entityManager)) {
+            // raced with close()
+            idleCount.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void close() {
+        closed = true;
+        inUse.clear();
+        EntityManager entityManager;
+        while ((entityManager = idle.poll()) != null) {
+            idleCount.decrementAndGet();
+            try {
+                if (entityManager.isOpen()) {
+                    entityManager.close();
+                }
+            } catch (RuntimeException safeToIgnore) {
+                if (ROOT_LOGGER.isTraceEnabled()) {
+                    ROOT_LOGGER.trace("Could not close pooled (non-transactional) container managed entity manager.", safeToIgnore);
+                }
+            }
+        }
+    }
+}
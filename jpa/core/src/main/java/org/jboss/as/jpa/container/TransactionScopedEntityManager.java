@@ -29,6 +29,8 @@ import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
+import javax.persistence.FlushModeType;
+import javax.persistence.PersistenceException;
 import javax.persistence.SynchronizationType;
 
 import org.jboss.as.jpa.service.PersistenceUnitServiceImpl;
@@ -79,13 +81,80 @@ public class TransactionScopedEntityManager extends AbstractEntityManager implem
         } else {
             entityManager = NonTxEmCloser.get(puScopedName);
             if (entityManager == null) {
-                entityManager = createEntityManager(emf, properties, synchronizationType);
+                // only entity managers created with the persistence unit defaults are pooled, and only when the
+                // current invocation will hand them back
+                final NonTxEntityManagerPool pool = (properties == null || properties.isEmpty())
+                        && SynchronizationType.SYNCHRONIZED.equals(synchronizationType)
+                        && NonTxEmCloser.isInCall() ? NonTxEntityManagerPool.get(puScopedName) : null;
+                entityManager = pool != null ? pool.take() : null;
+                if (entityManager == null) {
+                    entityManager = createEntityManager(emf, properties, synchronizationType);
+                    if (pool != null) {
+                        pool.adopt(entityManager);
+                    }
+                }
                 NonTxEmCloser.add(puScopedName, entityManager);
             }
         }
         return entityManager;
     }
 
+    /*
+     * The following methods can change session state that EntityManager.clear() does not reset, so the non-transactional
+     * entity manager they were invoked on is not reused by other invocations.
+     */
+
+    @Override
+    public <T> T unwrap(Class<T> cls) {
+        try {
+            return super.unwrap(cls);
+        } finally {
+            discardNonTxEntityManager();
+        }
+    }
+
+    @Override
+    public Object getDelegate() {
+        try {
+            return super.getDelegate();
+        } finally {
+            discardNonTxEntityManager();
+        }
+    }
+
+    @Override
+    public void setProperty(String propertyName, Object value) {
+        try {
+            super.setProperty(propertyName, value);
+        } finally {
+            discardNonTxEntityManager();
+        }
+    }
+
+    @Override
+    public void setFlushMode(FlushModeType flushMode) {
+        try {
+            super.setFlushMode(flushMode);
+        } finally {
+            discardNonTxEntityManager();
+        }
+    }
+
+    /**
+     * A non-transactional entity manager that failed is not reused either, as its persistence context may be inconsistent.
+     */
+    @Override
+    protected void persistenceExceptionThrown(PersistenceException exception) {
+        discardNonTxEntityManager();
+    }
+
+    private void discardNonTxEntityManager() {
+        final EntityManager entityManager = NonTxEmCloser.get(puScopedName);
+        if (entityManager != null) {
+            NonTxEntityManagerPool.discard(puScopedName, entityManager);
+        }
+    }
+
     @Override
     protected boolean isExtendedPersistenceContext() {
         return false;
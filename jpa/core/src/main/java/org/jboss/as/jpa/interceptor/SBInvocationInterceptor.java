@@ -45,6 +45,12 @@ public class SBInvocationInterceptor implements Interceptor {
         NonTxEmCloser.pushCall();
         try {
             return context.proceed();   // call the next interceptor or target
+        } catch (Exception e) {
+            NonTxEmCloser.discardCall();
+            throw e;
+        } catch (Error e) {
+            NonTxEmCloser.discardCall();
+            throw e;
         } finally {
             NonTxEmCloser.popCall();
         }
@@ -538,7 +538,15 @@ public class PersistenceUnitServiceHandler {
                 CacheDeploymentListener.clearInternalDeploymentServiceBuilder();
             }
 
-            phaseContext.addToAttachmentList(Attachments.NEXT_PHASE_DEPS, puServiceName);
+            if (Configuration.needClassFileTransformer(pu)) {
+                // require that the class transformer is registered before the next deployment phase loads application classes
+                phaseContext.addToAttachmentList(Attachments.NEXT_PHASE_DEPS, puServiceName);
+            } else {
+                // nothing to register before application classes are loaded, so let the metadata phase overlap with the
+                // rest of the deployment (phase 2 depends on phase 1 and the deployment completes only once both have started)
+                JPA_LOGGER.tracef("persistence unit %s in deployment %s doesn't need a class transformer, phase 1 will not delay the next deployment phase",
+                        pu.getPersistenceUnitName(), deploymentUnit.getName());
+            }
 
             builder.setInitialMode(ServiceController.Mode.ACTIVE)
                 .addInjection(service.getPropertiesInjector(), properties);
@@ -37,6 +37,8 @@ import javax.validation.ValidatorFactory;
 
 import org.jboss.as.jpa.beanmanager.ProxyBeanManager;
 import org.jboss.as.jpa.classloader.TempClassLoaderFactoryImpl;
+import org.jboss.as.jpa.config.Configuration;
+import org.jboss.as.jpa.container.NonTxEntityManagerPool;
 import org.jboss.as.jpa.spi.PersistenceUnitService;
 import org.jboss.as.jpa.subsystem.PersistenceUnitRegistryImpl;
 import org.jboss.as.jpa.util.JPAServiceNames;
@@ -166,6 +168,10 @@ public class PersistenceUnitServiceImpl implements Service<PersistenceUnitServic
                                         }
                                         entityManagerFactory = createContainerEntityManagerFactory();
                                     }
+                                    final int nonTxPoolSize = Configuration.nonTxEntityManagerPoolSize(pu);
+                                    if (nonTxPoolSize > 0) {
+                                        NonTxEntityManagerPool.register(getScopedPersistenceUnitName(), nonTxPoolSize);
+                                    }
                                     persistenceUnitRegistry.add(getScopedPersistenceUnitName(), getValue());
                                     context.complete();
                                 } catch (Throwable t) {
@@ -216,6 +222,8 @@ public class PersistenceUnitServiceImpl implements Service<PersistenceUnitServic
                                 if (entityManagerFactory != null) {
                                     WritableServiceBasedNamingStore.pushOwner(deploymentUnitServiceName);
                                     try {
+                                        // pooled entity managers must be closed before their factory
+                                        NonTxEntityManagerPool.unregister(getScopedPersistenceUnitName());
                                         if (entityManagerFactory.isOpen()) {
                                             entityManagerFactory.close();
                                         }
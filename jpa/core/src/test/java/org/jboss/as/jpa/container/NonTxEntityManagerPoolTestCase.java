@@ -0,0 +1,254 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.jpa.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import javax.persistence.SynchronizationType;
+import javax.transaction.TransactionManager;
+
+import org.jboss.as.jpa.transaction.TransactionUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link NonTxEntityManagerPool}, and how {@link NonTxEmCloser} hands entity managers back to it.
+ */
+public class NonTxEntityManagerPoolTestCase {
+
+    private static final String PU = "test.jar#pool";
+
+    private NonTxEntityManagerPool pool;
+
+    @Before
+    public void register() {
+        NonTxEntityManagerPool.register(PU, 1);
+        pool = NonTxEntityManagerPool.get(PU);
+        assertNotNull(pool);
+    }
+
+    @After
+    public void unregister() {
+        NonTxEntityManagerPool.unregister(PU);
+        assertNull(NonTxEntityManagerPool.get(PU));
+    }
+
+    @Test
+    public void testReleasedEntityManagerIsReused() {
+        assertNull(pool.take());
+        final MockEntityManager mock = new MockEntityManager();
+        pool.adopt(mock.proxy);
+        assertTrue(NonTxEntityManagerPool.release(PU, mock.proxy));
+        assertEquals(1, mock.clears);
+        assertTrue(mock.open);
+
+        assertSame(mock.proxy, pool.take());
+        assertNull(pool.take());
+        // taken entity managers are released again
+        assertTrue(NonTxEntityManagerPool.release(PU, mock.proxy));
+    }
+
+    @Test
+    public void testOnlyAdoptedEntityManagersAreReleased() {
+        final MockEntityManager mock = new MockEntityManager();
+        assertFalse(NonTxEntityManagerPool.release(PU, mock.proxy));
+        pool.adopt(mock.proxy);
+        assertFalse(NonTxEntityManagerPool.release("other.jar#pool", mock.proxy));
+        assertTrue(NonTxEntityManagerPool.release(PU, mock.proxy));
+        // an entity manager is only released once per adoption
+        assertFalse(NonTxEntityManagerPool.release(PU, mock.proxy));
+    }
+
+    @Test
+    public void testPoolIsBounded() {
+        final MockEntityManager first = new MockEntityManager();
+        final MockEntityManager second = new MockEntityManager();
+        pool.adopt(first.proxy);
+        pool.adopt(second.proxy);
+        assertTrue(NonTxEntityManagerPool.release(PU, first.proxy));
+        assertFalse(NonTxEntityManagerPool.release(PU, second.proxy));
+    }
+
+    @Test
+    public void testDiscardedEntityManagerIsNotReleased() {
+        final MockEntityManager mock = new MockEntityManager();
+        pool.adopt(mock.proxy);
+        NonTxEntityManagerPool.discard(PU, mock.proxy);
+        assertFalse(NonTxEntityManagerPool.release(PU, mock.proxy));
+        assertEquals(0, mock.clears);
+        assertNull(pool.take());
+    }
+
+    @Test
+    public void testUnusableEntityManagersAreNotReused() {
+        final MockEntityManager closed = new MockEntityManager();
+        pool.adopt(closed.proxy);
+        closed.open = false;
+        assertFalse(NonTxEntityManagerPool.release(PU, closed.proxy));
+
+        final MockEntityManager failing = new MockEntityManager();
+        failing.failClear = true;
+        pool.adopt(failing.proxy);
+        assertFalse(NonTxEntityManagerPool.release(PU, failing.proxy));
+
+        // closed while idle
+        final MockEntityManager idle = new MockEntityManager();
+        pool.adopt(idle.proxy);
+        assertTrue(NonTxEntityManagerPool.release(PU, idle.proxy));
+        idle.open = false;
+        assertNull(pool.take());
+    }
+
+    @Test
+    public void testUnregisterClosesIdleEntityManagers() {
+        final MockEntityManager idle = new MockEntityManager();
+        final MockEntityManager inUse = new MockEntityManager();
+        pool.adopt(idle.proxy);
+        pool.adopt(inUse.proxy);
+        assertTrue(NonTxEntityManagerPool.release(PU, idle.proxy));
+
+        NonTxEntityManagerPool.unregister(PU);
+        assertFalse(idle.open);
+        // the entity managers still in use are closed by their invocation
+        assertTrue(inUse.open);
+        assertFalse(NonTxEntityManagerPool.release(PU, inUse.proxy));
+        assertNull(pool.take());
+    }
+
+    @Test
+    public void testInvocationEndHandsEntityManagersBack() {
+        assertFalse(NonTxEmCloser.isInCall());
+        final MockEntityManager pooled = new MockEntityManager();
+        final MockEntityManager unpooled = new MockEntityManager();
+
+        NonTxEmCloser.pushCall();
+        assertTrue(NonTxEmCloser.isInCall());
+        pool.adopt(pooled.proxy);
+        NonTxEmCloser.add(PU, pooled.proxy);
+        NonTxEmCloser.add("other.jar#pool", unpooled.proxy);
+        NonTxEmCloser.popCall();
+        assertFalse(NonTxEmCloser.isInCall());
+
+        assertTrue(pooled.open);
+        assertFalse(unpooled.open);
+        assertSame(pooled.proxy, pool.take());
+    }
+
+    @Test
+    public void testFailedInvocationDiscardsEntityManagers() {
+        final MockEntityManager mock = new MockEntityManager();
+
+        NonTxEmCloser.pushCall();
+        pool.adopt(mock.proxy);
+        NonTxEmCloser.add(PU, mock.proxy);
+        NonTxEmCloser.discardCall();
+        NonTxEmCloser.popCall();
+
+        assertFalse(mock.open);
+        assertEquals(0, mock.clears);
+        assertNull(pool.take());
+    }
+
+    @Test
+    public void testPersistenceExceptionDiscardsEntityManager() {
+        final MockEntityManager mock = new MockEntityManager();
+        pool.adopt(mock.proxy);
+        assertTrue(NonTxEntityManagerPool.release(PU, mock.proxy));
+        // no transaction is active
+        TransactionUtil.setTransactionManager((TransactionManager) Proxy.newProxyInstance(TransactionManager.class.getClassLoader(),
+                new Class<?>[] {TransactionManager.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        return null;
+                    }
+                }));
+        try {
+            final EntityManager entityManager = new TransactionScopedEntityManager(PU, null, (EntityManagerFactory) null, SynchronizationType.SYNCHRONIZED);
+            NonTxEmCloser.pushCall();
+            try {
+                entityManager.persist(new Object());
+                fail("PersistenceException expected");
+            } catch (PersistenceException expected) {
+                // the application may catch it and complete the invocation normally
+            } finally {
+                NonTxEmCloser.popCall();
+            }
+        } finally {
+            TransactionUtil.setTransactionManager(null);
+        }
+
+        assertFalse(mock.open);
+        assertNull(pool.take());
+    }
+
+    private static final class MockEntityManager implements InvocationHandler {
+
+        final EntityManager proxy = (EntityManager) Proxy.newProxyInstance(MockEntityManager.class.getClassLoader(),
+                new Class<?>[] {EntityManager.class}, this);
+        volatile boolean open = true;
+        volatile boolean failClear;
+        int clears;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "isOpen":
+                    return open;
+                case "close":
+                    open = false;
+                    return null;
+                case "persist":
+                    throw new PersistenceException();
+                case "clear":
+                    if (failClear) {
+                        throw new IllegalStateException();
+                    }
+                    clears++;
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "MockEntityManager@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+    }
+}
@@ -30,7 +30,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.NavigableSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.naming.Binding;
 import javax.naming.CannotProceedException;
@@ -63,6 +66,14 @@ public class ServiceBasedNamingStore implements NamingStore {
 
     private ConcurrentSkipListSet<ServiceName> boundServices = new ConcurrentSkipListSet<ServiceName>();
 
+    /**
+     * Names already resolved to the binder service bound at them, so that repeated lookups skip building the service
+     * name and searching the registry. An entry is only valid while no binding has been added to or removed from
+     * this store since it was resolved.
+     */
+    private final ConcurrentMap<Name, Resolution> resolutions = new ConcurrentHashMap<Name, Resolution>();
+    private final AtomicInteger bindingsVersion = new AtomicInteger();
+
     public ServiceBasedNamingStore(final ServiceRegistry serviceRegistry, final ServiceName serviceNameBase) {
         this.serviceRegistry = serviceRegistry;
         this.serviceNameBase = serviceNameBase;
@@ -77,13 +88,21 @@ public class ServiceBasedNamingStore implements NamingStore {
         if (name.isEmpty()) {
             return new NamingContext(EMPTY_NAME, this, null);
         }
+        final int version = bindingsVersion.get();
+        final Resolution resolution = resolutions.get(name);
+        if (resolution != null && resolution.version == version) {
+            return getValue(name, resolution.serviceName, resolution.controller, dereference);
+        }
         final ServiceName lookupName = buildServiceName(name);
-        Object obj = lookup(name.toString(), lookupName, dereference);
-        if (obj == null) {
+        final ServiceController<?> controller = serviceRegistry.getService(lookupName);
+        Object obj = getValue(name, lookupName, controller, dereference);
+        if (obj != null) {
+            resolutions.put((Name) name.clone(), new Resolution(version, lookupName, controller));
+        } else {
             final ServiceName lower = boundServices.lower(lookupName);
             if (lower != null && lower.isParentOf(lookupName)) {
                 // Parent might be a reference or a link
-                obj = lookup(name.toString(), lower, dereference);
+                obj = lookup(name, lower, dereference);
                 //if the lower is a context that has been explicitly bound then
                 //we do not return a resolve result, as this will result in an
                 //infinite loop
@@ -122,8 +141,11 @@ public class ServiceBasedNamingStore implements NamingStore {
         return cpe;
     }
 
-    private Object lookup(final String name, final ServiceName lookupName, boolean dereference) throws NamingException {
-        final ServiceController<?> controller = serviceRegistry.getService(lookupName);
+    private Object lookup(final Name name, final ServiceName lookupName, boolean dereference) throws NamingException {
+        return getValue(name, lookupName, serviceRegistry.getService(lookupName), dereference);
+    }
+
+    private Object getValue(final Name name, final ServiceName lookupName, final ServiceController<?> controller, boolean dereference) throws NamingException {
         final Object object;
         if (controller != null) {
             try {
@@ -153,7 +175,7 @@ public class ServiceBasedNamingStore implements NamingStore {
         boolean isContextBinding = false;
         if (floor != null && floor.isParentOf(lookupName)) {
             // Parent might be a reference or a link
-            Object obj = lookup(name.toString(), floor, true);
+            Object obj = lookup(name, floor, true);
             if (obj instanceof NamingContext) {
                 isContextBinding = true;
             } else if (obj != null) {
@@ -170,7 +192,7 @@ public class ServiceBasedNamingStore implements NamingStore {
             if (childParts.length > lookupParts.length + 1) {
                 childContexts.add(childParts[lookupParts.length]);
             } else {
-                final Object binding = lookup(name.toString(), child, false);
+                final Object binding = lookup(name, child, false);
                 final String bindingType;
                 if (binding instanceof ContextListManagedReferenceFactory) {
                     bindingType = ContextListManagedReferenceFactory.class.cast(binding)
@@ -197,7 +219,7 @@ public class ServiceBasedNamingStore implements NamingStore {
         boolean isContextBinding = false;
         if (floor != null && floor.isParentOf(lookupName)) {
             // Parent might be a reference or a link
-            Object obj = lookup(name.toString(), floor, true);
+            Object obj = lookup(name, floor, true);
             if (obj instanceof NamingContext) {
                 isContextBinding = true;
             } else if (obj != null) {
@@ -213,7 +235,7 @@ public class ServiceBasedNamingStore implements NamingStore {
             if (childParts.length > lookupParts.length + 1) {
                 childContexts.add(childParts[lookupParts.length]);
             } else {
-                final Object binding = lookup(name.toString(), child, true);
+                final Object binding = lookup(name, child, true);
                 results.add(new Binding(childParts[childParts.length - 1], binding));
             }
         }
@@ -244,6 +266,7 @@ public class ServiceBasedNamingStore implements NamingStore {
 
     public void close() throws NamingException {
         boundServices.clear();
+        invalidateResolutions();
     }
 
     public void addNamingListener(Name target, int scope, NamingListener listener) {
@@ -258,10 +281,18 @@ public class ServiceBasedNamingStore implements NamingStore {
             throw MESSAGES.serviceAlreadyBound(serviceName);
         }
         boundServices.add(serviceName);
+        invalidateResolutions();
     }
 
     public void remove(final ServiceName serviceName) {
         boundServices.remove(serviceName);
+        invalidateResolutions();
+    }
+
+    private void invalidateResolutions() {
+        // entries put by lookups racing with this are already stale, as they carry the previous version
+        bindingsVersion.incrementAndGet();
+        resolutions.clear();
     }
 
     protected ServiceName buildServiceName(final Name name) {
@@ -315,6 +346,18 @@ public class ServiceBasedNamingStore implements NamingStore {
         return serviceRegistry;
     }
 
+    private static final class Resolution {
+        private final int version;
+        private final ServiceName serviceName;
+        private final ServiceController<?> controller;
+
+        private Resolution(final int version, final ServiceName serviceName, final ServiceController<?> controller) {
+            this.version = version;
+            this.serviceName = serviceName;
+            this.controller = controller;
+        }
+    }
+
     @Override
     public Name getBaseName() throws NamingException {
         if (baseName == null) {
@@ -37,6 +37,7 @@ import javax.naming.NamingException;
 
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceName;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
@@ -98,6 +99,25 @@ public class ServiceBasedNamingStoreTestCase {
         assertEquals(value, obj);
     }
 
+    @Test
+    public void testLookupBindingAfterRebinding() throws Exception {
+        final ServiceName bindingName = ServiceName.JBOSS.append("foo", "bar");
+        final Object value = new Object();
+        bindObject(bindingName, value);
+        assertEquals(value, store.lookup(new CompositeName("foo/bar")));
+        // repeated lookups are resolved from the cache
+        assertEquals(value, store.lookup(new CompositeName("foo/bar")));
+
+        final ServiceController<?> controller = container.getRequiredService(bindingName);
+        store.remove(bindingName);
+        controller.setMode(ServiceController.Mode.REMOVE);
+        container.awaitStability();
+
+        final Object newValue = new Object();
+        bindObject(bindingName, newValue);
+        assertEquals(newValue, store.lookup(new CompositeName("foo/bar")));
+    }
+
     @Test
     public void testLookupParentContext() throws Exception {
         final ServiceName bindingName = ServiceName.JBOSS.append("foo", "bar");
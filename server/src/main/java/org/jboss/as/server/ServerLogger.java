@@ -26,6 +26,7 @@ import static org.jboss.logging.Logger.Level.ERROR;
 import static org.jboss.logging.Logger.Level.INFO;
 import static org.jboss.logging.Logger.Level.WARN;
 
+import java.io.File;
 import java.net.URISyntaxException;
 import java.util.jar.Attributes;
 
@@ -401,4 +402,12 @@ public interface ServerLogger extends BasicLogger {
     @LogMessage(level = Logger.Level.INFO)
     @Message(id = 15971, value = "Deployment restart detected for deployment %s, performing full redeploy instead.")
     void deploymentRestartDetected(String deployment);
+
+    @LogMessage(level = WARN)
+    @Message(id = 15972, value = "Could not read cached annotation index %s, the resource root will be indexed again")
+    void cannotReadCachedAnnotationIndex(File file, @Cause Throwable cause);
+
+    @LogMessage(level = WARN)
+    @Message(id = 15973, value = "Could not write cached annotation index %s")
+    void cannotWriteCachedAnnotationIndex(File file, @Cause Throwable cause);
 }
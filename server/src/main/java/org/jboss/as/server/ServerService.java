@@ -31,6 +31,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.ServiceLoader;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -75,6 +76,7 @@ import org.jboss.as.server.deployment.DeploymentUnitProcessor;
 import org.jboss.as.server.deployment.Phase;
 import org.jboss.as.server.deployment.ServiceLoaderProcessor;
 import org.jboss.as.server.deployment.SubDeploymentProcessor;
+import org.jboss.as.server.deployment.annotation.AnnotationIndexCache;
 import org.jboss.as.server.deployment.annotation.AnnotationIndexProcessor;
 import org.jboss.as.server.deployment.annotation.CleanupAnnotationIndexProcessor;
 import org.jboss.as.server.deployment.annotation.CompositeIndexProcessor;
@@ -135,6 +137,7 @@ public final class ServerService extends AbstractControllerService {
 
     private final InjectedValue<ExternalModuleService> injectedExternalModuleService = new InjectedValue<ExternalModuleService>();
     private final InjectedValue<PathManager> injectedPathManagerService = new InjectedValue<PathManager>();
+    private final InjectedValue<ExecutorService> injectedAnnotationIndexExecutor = new InjectedValue<ExecutorService>();
 
     private final Bootstrap.Configuration configuration;
     private final BootstrapListener bootstrapListener;
@@ -205,6 +208,9 @@ public final class ServerService extends AbstractControllerService {
         serviceTarget.addService(Services.JBOSS_SERVER_EXECUTOR, serverExecutorService)
                 .addAliases(ManagementRemotingServices.SHUTDOWN_EXECUTOR_NAME) // Use this executor for mgmt shutdown for now
                 .install();
+        final ThreadFactory indexThreadFactory = new JBossThreadFactory(threadGroup, Boolean.FALSE, null, "ServerService Annotation Index Thread -- %t", null, null, doPrivileged(GetAccessControlContextAction.getInstance()));
+        serviceTarget.addService(Services.JBOSS_ANNOTATION_INDEX_EXECUTOR, new AnnotationIndexExecutorService(indexThreadFactory))
+                .install();
 
         DelegatingResourceDefinition rootResourceDefinition = new DelegatingResourceDefinition();
         ServerService service = new ServerService(configuration, processState, null, bootstrapListener, rootResourceDefinition, runningModeControl, vaultReader, auditLogger, authorizer);
@@ -215,6 +221,7 @@ public final class ServerService extends AbstractControllerService {
         serviceBuilder.addDependency(Services.JBOSS_EXTERNAL_MODULE_SERVICE, ExternalModuleService.class,
                 service.injectedExternalModuleService);
         serviceBuilder.addDependency(PathManagerService.SERVICE_NAME, PathManager.class, service.injectedPathManagerService);
+        serviceBuilder.addDependency(Services.JBOSS_ANNOTATION_INDEX_EXECUTOR, ExecutorService.class, service.injectedAnnotationIndexExecutor);
         if (configuration.getServerEnvironment().isAllowModelControllerExecutor()) {
             serviceBuilder.addDependency(Services.JBOSS_SERVER_EXECUTOR, ExecutorService.class, service.getExecutorServiceInjector());
         }
@@ -288,7 +295,9 @@ public final class ServerService extends AbstractControllerService {
             DeployerChainAddHandler.addDeploymentProcessor(SERVER_NAME, Phase.STRUCTURE, Phase.STRUCTURE_CONTENT_OVERRIDE, new ContentOverrideDeploymentUnitProcessor(deploymentOverlayIndexService));
             DeployerChainAddHandler.addDeploymentProcessor(SERVER_NAME, Phase.STRUCTURE, Phase.STRUCTURE_SUB_DEPLOYMENT, new SubDeploymentProcessor());
             DeployerChainAddHandler.addDeploymentProcessor(SERVER_NAME, Phase.STRUCTURE, Phase.STRUCTURE_MODULE_IDENTIFIERS, new ModuleIdentifierProcessor());
-            DeployerChainAddHandler.addDeploymentProcessor(SERVER_NAME, Phase.STRUCTURE, Phase.STRUCTURE_ANNOTATION_INDEX, new AnnotationIndexProcessor());
+            DeployerChainAddHandler.addDeploymentProcessor(SERVER_NAME, Phase.STRUCTURE, Phase.STRUCTURE_ANNOTATION_INDEX, new AnnotationIndexProcessor(
+                    new AnnotationIndexCache(new File(serverEnvironment.getServerDataDir(), "annotation-index"), injectedContentRepository.getValue(), deploymentOverlayIndexService),
+                    injectedAnnotationIndexExecutor.getValue()));
             DeployerChainAddHandler.addDeploymentProcessor(SERVER_NAME, Phase.STRUCTURE, Phase.STRUCTURE_PARSE_JBOSS_ALL_XML, new JBossAllXMLParsingProcessor());
             DeployerChainAddHandler.addDeploymentProcessor(SERVER_NAME, Phase.STRUCTURE, Phase.STRUCTURE_JBOSS_DEPLOYMENT_STRUCTURE, new DeploymentStructureDescriptorParser());
             DeployerChainAddHandler.addDeploymentProcessor(SERVER_NAME, Phase.STRUCTURE, Phase.STRUCTURE_CLASS_PATH, new ManifestClassPathProcessor());
@@ -431,6 +440,41 @@ public final class ServerService extends AbstractControllerService {
         }
     }
 
+    /**
+     * Fixed size pool that indexes the partitions of large resource roots in parallel. Its threads are started along
+     * with the service, so that they do not inherit the context of the deployment that first uses them.
+     */
+    private static class AnnotationIndexExecutorService implements Service<ExecutorService> {
+
+        private final ThreadFactory threadFactory;
+        private ThreadPoolExecutor executorService;
+
+        private AnnotationIndexExecutorService(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+        }
+
+        @Override
+        public synchronized void start(StartContext context) throws StartException {
+            final int parallelism = Runtime.getRuntime().availableProcessors();
+            executorService = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(), threadFactory);
+            executorService.prestartAllCoreThreads();
+        }
+
+        @Override
+        public synchronized void stop(StopContext context) {
+            if (executorService != null) {
+                executorService.shutdown();
+                executorService = null;
+            }
+        }
+
+        @Override
+        public synchronized ExecutorService getValue() throws IllegalStateException, IllegalArgumentException {
+            return executorService;
+        }
+    }
+
     private static class DelegatingResourceDefinition implements ResourceDefinition {
         private volatile ResourceDefinition delegate;
 
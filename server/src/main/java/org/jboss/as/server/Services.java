@@ -53,6 +53,11 @@ public final class Services {
      */
     static final ServiceName JBOSS_SERVER_EXECUTOR = JBOSS_AS.append("server-executor");
 
+    /**
+     * The service corresponding to the {@link java.util.concurrent.ExecutorService} that indexes large deployment resource roots.
+     */
+    static final ServiceName JBOSS_ANNOTATION_INDEX_EXECUTOR = JBOSS_AS.append("annotation-index-executor");
+
     /**
      * The service corresponding to the {@link org.jboss.as.server.moduleservice.ServiceModuleLoader} for this instance.
      */
@@ -0,0 +1,232 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (c) 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.annotation;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CONTENT;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.as.controller.HashUtil;
+import org.jboss.as.controller.registry.Resource;
+import org.jboss.as.repository.ContentRepository;
+import org.jboss.as.server.ServerLogger;
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DeploymentModelUtils;
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.DeploymentUtils;
+import org.jboss.as.server.deployment.module.ResourceRoot;
+import org.jboss.as.server.deploymentoverlay.service.DeploymentOverlayIndexService;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.vfs.VFSUtils;
+import org.jboss.vfs.VirtualFile;
+
+/**
+ * An on-disk cache of the annotation indexes generated for the resource roots of managed deployments.
+ * <p/>
+ * Entries are stored in one directory per deployment content hash, so an unchanged archive (and every jar
+ * nested in it) can be reused across redeploys and restarts. A resource root is only cached if the content
+ * of its top level deployment is fully identified by a single hash from the {@link ContentRepository},
+ * and no deployment overlay applies to it. Directories of content that has been removed from the
+ * repository are purged whenever a new content hash is cached.
+ */
+public class AnnotationIndexCache {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String SUFFIX = ".idx";
+
+    private final File cacheDir;
+    private final ContentRepository contentRepository;
+    private final DeploymentOverlayIndexService overlayIndexService;
+
+    public AnnotationIndexCache(final File cacheDir, final ContentRepository contentRepository, final DeploymentOverlayIndexService overlayIndexService) {
+        this.cacheDir = cacheDir;
+        this.contentRepository = contentRepository;
+        this.overlayIndexService = overlayIndexService;
+    }
+
+    /**
+     * Returns the cache entry for a resource root of the given deployment.
+     *
+     * @param deploymentUnit the deployment unit the resource root belongs to
+     * @param resourceRoot the resource root
+     * @return the entry, or {@code null} if the index of the resource root cannot be cached
+     */
+    public Entry getEntry(final DeploymentUnit deploymentUnit, final ResourceRoot resourceRoot) {
+        final DeploymentUnit topDeploymentUnit = DeploymentUtils.getTopDeploymentUnit(deploymentUnit);
+        final Resource deploymentResource = topDeploymentUnit.getAttachment(DeploymentModelUtils.DEPLOYMENT_RESOURCE);
+        final ResourceRoot deploymentRoot = topDeploymentUnit.getAttachment(Attachments.DEPLOYMENT_ROOT);
+        if (deploymentResource == null || deploymentRoot == null) {
+            return null;
+        }
+        // unmanaged content has no hash, and may change without the deployment being replaced
+        final List<byte[]> hashes = DeploymentUtils.getDeploymentHash(deploymentResource);
+        if (hashes.size() != 1 || deploymentResource.getModel().get(CONTENT).asList().size() != 1) {
+            return null;
+        }
+        if (!overlayIndexService.getOverrides(topDeploymentUnit.getName()).isEmpty()
+                || (deploymentUnit != topDeploymentUnit && !overlayIndexService.getOverrides(deploymentUnit.getName()).isEmpty())) {
+            return null;
+        }
+
+        final VirtualFile root = resourceRoot.getRoot();
+        final String path;
+        if (root.equals(deploymentRoot.getRoot())) {
+            path = "";
+        } else {
+            try {
+                path = root.getPathNameRelativeTo(deploymentRoot.getRoot());
+            } catch (IllegalArgumentException e) {
+                // not part of the deployment content
+                return null;
+            }
+        }
+
+        final StringBuilder key = new StringBuilder(path);
+        final List<String> indexIgnorePathList = resourceRoot.getAttachment(Attachments.INDEX_IGNORE_PATHS);
+        if (indexIgnorePathList != null && !indexIgnorePathList.isEmpty()) {
+            final List<String> indexIgnorePaths = new ArrayList<String>(indexIgnorePathList);
+            Collections.sort(indexIgnorePaths);
+            for (String indexIgnorePath : indexIgnorePaths) {
+                key.append('\u0000').append(indexIgnorePath);
+            }
+        }
+        final File hashDir = new File(cacheDir, HashUtil.bytesToHexString(hashes.get(0)));
+        return new Entry(hashDir, new File(hashDir, digest(key.toString()) + SUFFIX));
+    }
+
+    private static String digest(final String key) {
+        try {
+            return HashUtil.bytesToHexString(MessageDigest.getInstance("SHA-1").digest(key.getBytes(UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void purge() {
+        final File[] hashDirs = cacheDir.listFiles();
+        if (hashDirs == null) {
+            return;
+        }
+        for (File hashDir : hashDirs) {
+            final byte[] hash;
+            try {
+                hash = HashUtil.hexStringToByteArray(hashDir.getName());
+            } catch (RuntimeException e) {
+                continue;
+            }
+            if (!contentRepository.hasContent(hash)) {
+                ServerLogger.DEPLOYMENT_LOGGER.tracef("Removing cached annotation indexes for content %s", hashDir.getName());
+                VFSUtils.recursiveDelete(hashDir);
+            }
+        }
+    }
+
+    /**
+     * The cached index of a single resource root.
+     */
+    public final class Entry {
+
+        private final File hashDir;
+        private final File file;
+
+        Entry(final File hashDir, final File file) {
+            this.hashDir = hashDir;
+            this.file = file;
+        }
+
+        /**
+         * Reads the cached index.
+         *
+         * @return the index, or {@code null} if it has not been cached or could not be read
+         */
+        public Index read() {
+            if (!file.isFile()) {
+                return null;
+            }
+            InputStream in = null;
+            try {
+                in = new FileInputStream(file);
+                final Index index = new IndexReader(in).read();
+                ServerLogger.DEPLOYMENT_LOGGER.tracef("Read cached index %s", file);
+                return index;
+            } catch (Exception e) {
+                ServerLogger.DEPLOYMENT_LOGGER.cannotReadCachedAnnotationIndex(file, e);
+                VFSUtils.safeClose(in);
+                in = null;
+                file.delete();
+                return null;
+            } finally {
+                VFSUtils.safeClose(in);
+            }
+        }
+
+        /**
+         * Writes the index to the cache. Failures are logged and otherwise ignored.
+         *
+         * @param index the index
+         */
+        public void write(final Index index) {
+            if (!hashDir.isDirectory()) {
+                purge();
+                if (!hashDir.mkdirs() && !hashDir.isDirectory()) {
+                    ServerLogger.DEPLOYMENT_LOGGER.cannotWriteCachedAnnotationIndex(file, null);
+                    return;
+                }
+            }
+            File temp = null;
+            OutputStream out = null;
+            try {
+                temp = File.createTempFile("index", SUFFIX, hashDir);
+                out = new FileOutputStream(temp);
+                new IndexWriter(out).write(index);
+                out.close();
+                out = null;
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                temp = null;
+                ServerLogger.DEPLOYMENT_LOGGER.tracef("Wrote cached index %s", file);
+            } catch (IOException e) {
+                ServerLogger.DEPLOYMENT_LOGGER.cannotWriteCachedAnnotationIndex(file, e);
+            } finally {
+                VFSUtils.safeClose(out);
+                if (temp != null) {
+                    temp.delete();
+                }
+            }
+        }
+    }
+}
@@ -22,6 +22,8 @@
 
 package org.jboss.as.server.deployment.annotation;
 
+import java.util.concurrent.ExecutorService;
+
 import org.jboss.as.server.deployment.DeploymentPhaseContext;
 import org.jboss.as.server.deployment.DeploymentUnit;
 import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
@@ -37,6 +39,29 @@ import org.jboss.as.server.deployment.module.ResourceRoot;
  */
 public class AnnotationIndexProcessor implements DeploymentUnitProcessor {
 
+    private final AnnotationIndexCache cache;
+    private final ExecutorService executor;
+
+    public AnnotationIndexProcessor() {
+        this(null);
+    }
+
+    /**
+     * @param cache the cache for the indexes of managed deployment content, may be {@code null}
+     */
+    public AnnotationIndexProcessor(final AnnotationIndexCache cache) {
+        this(cache, null);
+    }
+
+    /**
+     * @param cache the cache for the indexes of managed deployment content, may be {@code null}
+     * @param executor the executor used to index large resource roots in parallel, may be {@code null}
+     */
+    public AnnotationIndexProcessor(final AnnotationIndexCache cache, final ExecutorService executor) {
+        this.cache = cache;
+        this.executor = executor;
+    }
+
     /**
      * Process this deployment for annotations.  This will use an annotation indexer to create an index of all annotations
      * found in this deployment and attach it to the deployment unit context.
@@ -48,7 +73,7 @@ public class AnnotationIndexProcessor implements DeploymentUnitProcessor {
     public void deploy(DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
         final DeploymentUnit deploymentUnit = phaseContext.getDeploymentUnit();
         for (ResourceRoot resourceRoot : DeploymentUtils.allResourceRoots(deploymentUnit)) {
-            ResourceRootIndexer.indexResourceRoot(resourceRoot);
+            ResourceRootIndexer.indexResourceRoot(resourceRoot, cache == null ? null : cache.getEntry(deploymentUnit, resourceRoot), executor);
         }
     }
 
@@ -31,18 +31,30 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Composite annotation index.  Represents an annotation index for an entire deployment.
+ * <p/>
+ * The per root indexes are merged into a single set of lookup tables the first time the index is queried, so that
+ * the cost of a query does not grow with the number of roots. The returned collections are immutable and shared
+ * between callers.
  *
  * @author John Bailey
  */
 public class CompositeIndex {
     final Collection<Index> indexes;
+    private volatile MergedIndex merged;
+    private final ConcurrentMap<DotName, Set<ClassInfo>> allKnownSubclasses = new ConcurrentHashMap<DotName, Set<ClassInfo>>();
+    private final ConcurrentMap<DotName, Set<ClassInfo>> allKnownImplementors = new ConcurrentHashMap<DotName, Set<ClassInfo>>();
 
     public CompositeIndex(final Collection<Index> indexes) {
         this.indexes = indexes;
@@ -55,32 +67,33 @@ public class CompositeIndex {
         }
     }
 
+    private MergedIndex merged() {
+        MergedIndex merged = this.merged;
+        if (merged == null) {
+            synchronized (this) {
+                merged = this.merged;
+                if (merged == null) {
+                    this.merged = merged = new MergedIndex(indexes);
+                }
+            }
+        }
+        return merged;
+    }
+
     /**
      * @see {@link Index#getAnnotations(org.jboss.jandex.DotName)}
      */
     public List<AnnotationInstance> getAnnotations(final DotName annotationName) {
-        final List<AnnotationInstance> allInstances = new ArrayList<AnnotationInstance>();
-        for (Index index : indexes) {
-            final List<AnnotationInstance> list = index.getAnnotations(annotationName);
-            if (list != null) {
-                allInstances.addAll(list);
-            }
-        }
-        return Collections.unmodifiableList(allInstances);
+        final List<AnnotationInstance> allInstances = merged().annotations.get(annotationName);
+        return allInstances == null ? Collections.<AnnotationInstance>emptyList() : allInstances;
     }
 
     /**
      * @see {@link Index#getKnownDirectSubclasses(org.jboss.jandex.DotName)}
      */
     public Set<ClassInfo> getKnownDirectSubclasses(final DotName className) {
-        final Set<ClassInfo> allKnown = new HashSet<ClassInfo>();
-        for (Index index : indexes) {
-            final List<ClassInfo> list = index.getKnownDirectSubclasses(className);
-            if (list != null) {
-                allKnown.addAll(list);
-            }
-        }
-        return Collections.unmodifiableSet(allKnown);
+        final Set<ClassInfo> allKnown = merged().subclasses.get(className);
+        return allKnown == null ? Collections.<ClassInfo>emptySet() : allKnown;
     }
 
     /**
@@ -91,13 +104,21 @@ public class CompositeIndex {
      * @return All known subclasses
      */
     public Set<ClassInfo> getAllKnownSubclasses(final DotName className) {
-        final Set<ClassInfo> allKnown = new HashSet<ClassInfo>();
-        final Set<DotName> processedClasses = new HashSet<DotName>();
-        getAllKnownSubClasses(className, allKnown, processedClasses);
-        return allKnown;
+        Set<ClassInfo> result = allKnownSubclasses.get(className);
+        if (result == null) {
+            final Set<ClassInfo> allKnown = new HashSet<ClassInfo>();
+            final Set<DotName> processedClasses = new HashSet<DotName>();
+            getAllKnownSubClasses(merged(), className, allKnown, processedClasses);
+            result = Collections.unmodifiableSet(allKnown);
+            final Set<ClassInfo> existing = allKnownSubclasses.putIfAbsent(className, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+        return result;
     }
 
-    private void getAllKnownSubClasses(DotName className, Set<ClassInfo> allKnown, Set<DotName> processedClasses) {
+    private void getAllKnownSubClasses(MergedIndex merged, DotName className, Set<ClassInfo> allKnown, Set<DotName> processedClasses) {
         final Set<DotName> subClassesToProcess = new HashSet<DotName>();
         subClassesToProcess.add(className);
         while (!subClassesToProcess.isEmpty()) {
@@ -105,21 +126,19 @@ public class CompositeIndex {
             DotName name = toProcess.next();
             toProcess.remove();
             processedClasses.add(name);
-            getAllKnownSubClasses(name, allKnown, subClassesToProcess, processedClasses);
+            getAllKnownSubClasses(merged, name, allKnown, subClassesToProcess, processedClasses);
         }
     }
 
-    private void getAllKnownSubClasses(DotName name, Set<ClassInfo> allKnown, Set<DotName> subClassesToProcess,
+    private void getAllKnownSubClasses(MergedIndex merged, DotName name, Set<ClassInfo> allKnown, Set<DotName> subClassesToProcess,
             Set<DotName> processedClasses) {
-        for (Index index : indexes) {
-            final List<ClassInfo> list = index.getKnownDirectSubclasses(name);
-            if (list != null) {
-                for (final ClassInfo clazz : list) {
-                    final DotName className = clazz.name();
-                    if (!processedClasses.contains(className)) {
-                        allKnown.add(clazz);
-                        subClassesToProcess.add(className);
-                    }
+        final Set<ClassInfo> set = merged.subclasses.get(name);
+        if (set != null) {
+            for (final ClassInfo clazz : set) {
+                final DotName className = clazz.name();
+                if (!processedClasses.contains(className)) {
+                    allKnown.add(clazz);
+                    subClassesToProcess.add(className);
                 }
             }
         }
@@ -129,14 +148,8 @@ public class CompositeIndex {
      * @see {@link Index#getKnownDirectImplementors(DotName)}
      */
     public Set<ClassInfo> getKnownDirectImplementors(final DotName className) {
-        final Set<ClassInfo> allKnown = new HashSet<ClassInfo>();
-        for (Index index : indexes) {
-            final List<ClassInfo> list = index.getKnownDirectImplementors(className);
-            if (list != null) {
-                allKnown.addAll(list);
-            }
-        }
-        return Collections.unmodifiableSet(allKnown);
+        final Set<ClassInfo> allKnown = merged().implementors.get(className);
+        return allKnown == null ? Collections.<ClassInfo>emptySet() : allKnown;
     }
 
     /**
@@ -150,36 +163,43 @@ public class CompositeIndex {
      * @return All known implementors of the interface
      */
     public Set<ClassInfo> getAllKnownImplementors(final DotName interfaceName) {
-        final Set<ClassInfo> allKnown = new HashSet<ClassInfo>();
-        final Set<DotName> subInterfacesToProcess = new HashSet<DotName>();
-        final Set<DotName> processedClasses = new HashSet<DotName>();
-        subInterfacesToProcess.add(interfaceName);
-        while (!subInterfacesToProcess.isEmpty()) {
-            final Iterator<DotName> toProcess = subInterfacesToProcess.iterator();
-            DotName name = toProcess.next();
-            toProcess.remove();
-            processedClasses.add(name);
-            getKnownImplementors(name, allKnown, subInterfacesToProcess, processedClasses);
+        Set<ClassInfo> result = allKnownImplementors.get(interfaceName);
+        if (result == null) {
+            final MergedIndex merged = merged();
+            final Set<ClassInfo> allKnown = new HashSet<ClassInfo>();
+            final Set<DotName> subInterfacesToProcess = new HashSet<DotName>();
+            final Set<DotName> processedClasses = new HashSet<DotName>();
+            subInterfacesToProcess.add(interfaceName);
+            while (!subInterfacesToProcess.isEmpty()) {
+                final Iterator<DotName> toProcess = subInterfacesToProcess.iterator();
+                DotName name = toProcess.next();
+                toProcess.remove();
+                processedClasses.add(name);
+                getKnownImplementors(merged, name, allKnown, subInterfacesToProcess, processedClasses);
+            }
+            result = Collections.unmodifiableSet(allKnown);
+            final Set<ClassInfo> existing = allKnownImplementors.putIfAbsent(interfaceName, result);
+            if (existing != null) {
+                result = existing;
+            }
         }
-        return allKnown;
+        return result;
     }
 
-    private void getKnownImplementors(DotName name, Set<ClassInfo> allKnown, Set<DotName> subInterfacesToProcess,
+    private void getKnownImplementors(MergedIndex merged, DotName name, Set<ClassInfo> allKnown, Set<DotName> subInterfacesToProcess,
             Set<DotName> processedClasses) {
-        for (Index index : indexes) {
-            final List<ClassInfo> list = index.getKnownDirectImplementors(name);
-            if (list != null) {
-                for (final ClassInfo clazz : list) {
-                    final DotName className = clazz.name();
-                    if (!processedClasses.contains(className)) {
-                        if (Modifier.isInterface(clazz.flags())) {
-                            subInterfacesToProcess.add(className);
-                        } else {
-                            if (!allKnown.contains(clazz)) {
-                                allKnown.add(clazz);
-                                processedClasses.add(className);
-                                getAllKnownSubClasses(className, allKnown, processedClasses);
-                            }
+        final Set<ClassInfo> set = merged.implementors.get(name);
+        if (set != null) {
+            for (final ClassInfo clazz : set) {
+                final DotName className = clazz.name();
+                if (!processedClasses.contains(className)) {
+                    if (Modifier.isInterface(clazz.flags())) {
+                        subInterfacesToProcess.add(className);
+                    } else {
+                        if (!allKnown.contains(clazz)) {
+                            allKnown.add(clazz);
+                            processedClasses.add(className);
+                            getAllKnownSubClasses(merged, className, allKnown, processedClasses);
                         }
                     }
                 }
@@ -191,30 +211,92 @@ public class CompositeIndex {
      * @see {@link Index#getClassByName(org.jboss.jandex.DotName)}
      */
     public ClassInfo getClassByName(final DotName className) {
-        for (Index index : indexes) {
-            final ClassInfo info = index.getClassByName(className);
-            if (info != null) {
-                return info;
-            }
-        }
-        return null;
+        return merged().classes.get(className);
     }
 
     /**
      * @see {@link org.jboss.jandex.Index#getKnownClasses()}
      */
     public Collection<ClassInfo> getKnownClasses() {
-        final List<ClassInfo> allKnown = new ArrayList<ClassInfo>();
-        for (Index index : indexes) {
-            final Collection<ClassInfo> list = index.getKnownClasses();
-            if (list != null) {
-                allKnown.addAll(list);
-            }
-        }
-        return Collections.unmodifiableCollection(allKnown);
+        return merged().knownClasses;
     }
 
     public Collection<Index> getIndexes() {
         return Collections.unmodifiableCollection(indexes);
     }
+
+    /**
+     * The lookup tables of all indexes, merged in index order. The order matters to the traversals above when the same
+     * class is known to several indexes.
+     */
+    private static final class MergedIndex {
+        final Map<DotName, List<AnnotationInstance>> annotations = new HashMap<DotName, List<AnnotationInstance>>();
+        final Map<DotName, Set<ClassInfo>> subclasses = new HashMap<DotName, Set<ClassInfo>>();
+        final Map<DotName, Set<ClassInfo>> implementors = new HashMap<DotName, Set<ClassInfo>>();
+        final Map<DotName, ClassInfo> classes = new HashMap<DotName, ClassInfo>();
+        final Collection<ClassInfo> knownClasses;
+
+        MergedIndex(final Collection<Index> indexes) {
+            final List<ClassInfo> allKnown = new ArrayList<ClassInfo>();
+            for (Index index : indexes) {
+                final Collection<ClassInfo> list = index.getKnownClasses();
+                if (list == null) {
+                    continue;
+                }
+                // the keys of the index's own tables are only reachable through the classes it contains
+                final Set<DotName> annotationNames = new HashSet<DotName>();
+                final Set<DotName> superNames = new HashSet<DotName>();
+                final Set<DotName> interfaceNames = new HashSet<DotName>();
+                for (ClassInfo clazz : list) {
+                    allKnown.add(clazz);
+                    if (!classes.containsKey(clazz.name())) {
+                        classes.put(clazz.name(), clazz);
+                    }
+                    annotationNames.addAll(clazz.annotations().keySet());
+                    if (clazz.superName() != null) {
+                        superNames.add(clazz.superName());
+                    }
+                    Collections.addAll(interfaceNames, clazz.interfaces());
+                }
+                for (DotName name : annotationNames) {
+                    final List<AnnotationInstance> instances = index.getAnnotations(name);
+                    if (instances != null && !instances.isEmpty()) {
+                        List<AnnotationInstance> merged = annotations.get(name);
+                        if (merged == null) {
+                            annotations.put(name, merged = new ArrayList<AnnotationInstance>(instances.size()));
+                        }
+                        merged.addAll(instances);
+                    }
+                }
+                for (DotName name : superNames) {
+                    add(subclasses, name, index.getKnownDirectSubclasses(name));
+                }
+                for (DotName name : interfaceNames) {
+                    add(implementors, name, index.getKnownDirectImplementors(name));
+                }
+            }
+            for (Map.Entry<DotName, List<AnnotationInstance>> entry : annotations.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+            seal(subclasses);
+            seal(implementors);
+            knownClasses = Collections.unmodifiableCollection(allKnown);
+        }
+
+        private static void add(final Map<DotName, Set<ClassInfo>> map, final DotName name, final List<ClassInfo> classes) {
+            if (classes != null && !classes.isEmpty()) {
+                Set<ClassInfo> merged = map.get(name);
+                if (merged == null) {
+                    map.put(name, merged = new LinkedHashSet<ClassInfo>());
+                }
+                merged.addAll(classes);
+            }
+        }
+
+        private static void seal(final Map<DotName, Set<ClassInfo>> map) {
+            for (Map.Entry<DotName, Set<ClassInfo>> entry : map.entrySet()) {
+                entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+            }
+        }
+    }
 }
@@ -23,9 +23,16 @@
 package org.jboss.as.server.deployment.annotation;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.jboss.as.server.ServerLogger;
 import org.jboss.as.server.ServerMessages;
@@ -33,6 +40,9 @@ import org.jboss.as.server.deployment.Attachments;
 import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
 import org.jboss.as.server.deployment.module.ResourceRoot;
 import org.jboss.as.server.moduleservice.ModuleIndexBuilder;
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
 import org.jboss.jandex.Index;
 import org.jboss.jandex.IndexReader;
 import org.jboss.jandex.Indexer;
@@ -44,13 +54,48 @@ import org.jboss.vfs.util.SuffixMatchFilter;
 
 /**
  * Utility class for indexing a resource root
+ * <p/>
+ * If an executor is given, resource roots with many classes are split into partitions which are indexed in parallel
+ * on that executor, each with its own {@link Indexer}, and the partial indexes are then merged.
  */
 public class ResourceRootIndexer {
 
+    /**
+     * Resource roots with fewer classes than this are indexed on the calling thread
+     */
+    private static final int PARALLEL_THRESHOLD = 256;
+    /**
+     * The minimum number of classes in a partition
+     */
+    private static final int MIN_PARTITION_SIZE = 64;
+
     /**
      * Creates and attaches the annotation index to a resource root, if it has not already been attached
      */
     public static void indexResourceRoot(final ResourceRoot resourceRoot) throws DeploymentUnitProcessingException {
+        indexResourceRoot(resourceRoot, null);
+    }
+
+    /**
+     * Creates and attaches the annotation index to a resource root, if it has not already been attached. If a cache
+     * entry is given the index is read from it if possible, and otherwise stored in it once generated.
+     *
+     * @param resourceRoot the resource root
+     * @param cacheEntry the cache entry of the resource root, may be {@code null}
+     */
+    public static void indexResourceRoot(final ResourceRoot resourceRoot, final AnnotationIndexCache.Entry cacheEntry) throws DeploymentUnitProcessingException {
+        indexResourceRoot(resourceRoot, cacheEntry, null);
+    }
+
+    /**
+     * Creates and attaches the annotation index to a resource root, if it has not already been attached. If a cache
+     * entry is given the index is read from it if possible, and otherwise stored in it once generated.
+     *
+     * @param resourceRoot the resource root
+     * @param cacheEntry the cache entry of the resource root, may be {@code null}
+     * @param executor the executor used to index large resource roots in parallel, may be {@code null}
+     */
+    public static void indexResourceRoot(final ResourceRoot resourceRoot, final AnnotationIndexCache.Entry cacheEntry, final ExecutorService executor) throws DeploymentUnitProcessingException {
         if (resourceRoot.getAttachment(Attachments.ANNOTATION_INDEX) != null) {
             return;
         }
@@ -73,6 +118,14 @@ public class ResourceRootIndexer {
             return;
         }
 
+        if (cacheEntry != null) {
+            final Index index = cacheEntry.read();
+            if (index != null) {
+                resourceRoot.putAttachment(Attachments.ANNOTATION_INDEX, index);
+                return;
+            }
+        }
+
         final List<String> indexIgnorePathList = resourceRoot.getAttachment(Attachments.INDEX_IGNORE_PATHS);
         final Set<String> indexIgnorePaths;
         if (indexIgnorePathList != null && !indexIgnorePathList.isEmpty()) {
@@ -82,7 +135,6 @@ public class ResourceRootIndexer {
         }
 
         final VirtualFile virtualFile = resourceRoot.getRoot();
-        final Indexer indexer = new Indexer();
         try {
             final VisitorAttributes visitorAttributes = new VisitorAttributes();
             visitorAttributes.setLeavesOnly(true);
@@ -93,22 +145,97 @@ public class ResourceRootIndexer {
             });
 
             final List<VirtualFile> classChildren = virtualFile.getChildren(new SuffixMatchFilter(".class", visitorAttributes));
-            for (VirtualFile classFile : classChildren) {
-                InputStream inputStream = null;
-                try {
-                    inputStream = classFile.openStream();
-                    indexer.index(inputStream);
-                } catch (Exception e) {
-                    ServerLogger.DEPLOYMENT_LOGGER.cannotIndexClass(classFile.getPathNameRelativeTo(virtualFile), virtualFile.getPathName(), e);
-                } finally {
-                    VFSUtils.safeClose(inputStream);
-                }
+            final int parallelism = Runtime.getRuntime().availableProcessors();
+            final Index index;
+            if (executor == null || classChildren.size() < PARALLEL_THRESHOLD || parallelism == 1) {
+                index = index(virtualFile, classChildren);
+            } else {
+                index = parallelIndex(virtualFile, classChildren, parallelism, executor);
             }
-            final Index index = indexer.complete();
             resourceRoot.putAttachment(Attachments.ANNOTATION_INDEX, index);
             ServerLogger.DEPLOYMENT_LOGGER.tracef("Generated index for archive %s", virtualFile);
+            if (cacheEntry != null) {
+                cacheEntry.write(index);
+            }
         } catch (Throwable t) {
             throw ServerMessages.MESSAGES.deploymentIndexingFailed(t);
         }
     }
+
+    static Index index(final VirtualFile virtualFile, final List<VirtualFile> classFiles) {
+        final Indexer indexer = new Indexer();
+        for (VirtualFile classFile : classFiles) {
+            InputStream inputStream = null;
+            try {
+                inputStream = classFile.openStream();
+                indexer.index(inputStream);
+            } catch (Exception e) {
+                ServerLogger.DEPLOYMENT_LOGGER.cannotIndexClass(classFile.getPathNameRelativeTo(virtualFile), virtualFile.getPathName(), e);
+            } finally {
+                VFSUtils.safeClose(inputStream);
+            }
+        }
+        return indexer.complete();
+    }
+
+    static Index parallelIndex(final VirtualFile virtualFile, final List<VirtualFile> classFiles, final int parallelism, final ExecutorService executor) throws Throwable {
+        // a few partitions per worker, so that partitions with large classes do not hold up the others
+        final int partitionSize = Math.max(MIN_PARTITION_SIZE, classFiles.size() / (parallelism * 4) + 1);
+        final List<Callable<Index>> partitions = new ArrayList<Callable<Index>>();
+        for (int i = 0; i < classFiles.size(); i += partitionSize) {
+            final List<VirtualFile> partition = classFiles.subList(i, Math.min(i + partitionSize, classFiles.size()));
+            partitions.add(new Callable<Index>() {
+                public Index call() {
+                    return index(virtualFile, partition);
+                }
+            });
+        }
+        final List<Index> indexes = new ArrayList<Index>(partitions.size());
+        try {
+            for (Future<Index> future : executor.invokeAll(partitions)) {
+                indexes.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+        return merge(indexes);
+    }
+
+    /**
+     * Merges the indexes of disjoint sets of classes, in the same way as the {@link Indexer} would have built a single index.
+     */
+    private static Index merge(final List<Index> indexes) {
+        final Map<DotName, List<AnnotationInstance>> annotations = new HashMap<DotName, List<AnnotationInstance>>();
+        final Map<DotName, List<ClassInfo>> subclasses = new HashMap<DotName, List<ClassInfo>>();
+        final Map<DotName, List<ClassInfo>> implementors = new HashMap<DotName, List<ClassInfo>>();
+        final Map<DotName, ClassInfo> classes = new HashMap<DotName, ClassInfo>();
+        for (Index index : indexes) {
+            for (ClassInfo classInfo : index.getKnownClasses()) {
+                classes.put(classInfo.name(), classInfo);
+                for (Map.Entry<DotName, List<AnnotationInstance>> entry : classInfo.annotations().entrySet()) {
+                    List<AnnotationInstance> instances = annotations.get(entry.getKey());
+                    if (instances == null) {
+                        annotations.put(entry.getKey(), instances = new ArrayList<AnnotationInstance>());
+                    }
+                    instances.addAll(entry.getValue());
+                }
+                final DotName superName = classInfo.superName();
+                if (superName != null) {
+                    add(subclasses, superName, classInfo);
+                }
+                for (DotName interfaceName : classInfo.interfaces()) {
+                    add(implementors, interfaceName, classInfo);
+                }
+            }
+        }
+        return Index.create(annotations, subclasses, implementors, classes);
+    }
+
+    private static void add(final Map<DotName, List<ClassInfo>> map, final DotName name, final ClassInfo classInfo) {
+        List<ClassInfo> list = map.get(name);
+        if (list == null) {
+            map.put(name, list = new ArrayList<ClassInfo>());
+        }
+        list.add(classInfo);
+    }
 }
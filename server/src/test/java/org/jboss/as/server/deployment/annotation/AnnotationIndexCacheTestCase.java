@@ -0,0 +1,200 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.server.deployment.annotation;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CONTENT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.HASH;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jboss.as.controller.HashUtil;
+import org.jboss.as.controller.registry.Resource;
+import org.jboss.as.repository.ContentRepository;
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DeploymentModelUtils;
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.module.ResourceRoot;
+import org.jboss.as.server.deploymentoverlay.service.DeploymentOverlayIndexService;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.vfs.VFS;
+import org.jboss.vfs.VFSUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Tests that {@link AnnotationIndexCache} reuses the index of unchanged deployment content, and does not reuse it once the
+ * content has changed.
+ */
+public class AnnotationIndexCacheTestCase {
+
+    static class Original {
+    }
+
+    static class Added {
+    }
+
+    private static final DotName ORIGINAL = DotName.createSimple(Original.class.getName());
+    private static final DotName ADDED = DotName.createSimple(Added.class.getName());
+    private static final byte[] ORIGINAL_HASH = hash(1);
+    private static final byte[] CHANGED_HASH = hash(2);
+
+    private final Set<String> contents = new HashSet<String>();
+    private final DeploymentUnit deploymentUnit = mock(DeploymentUnit.class);
+    private File dir;
+    private File cacheDir;
+    private File deploymentDir;
+    private AnnotationIndexCache cache;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("annotation-index-cache").toFile();
+        cacheDir = new File(dir, "cache");
+        deploymentDir = new File(dir, "deployment");
+        copyClass(Original.class);
+
+        final ContentRepository contentRepository = mock(ContentRepository.class);
+        when(contentRepository.hasContent(any(byte[].class))).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return contents.contains(HashUtil.bytesToHexString((byte[]) invocation.getArguments()[0]));
+            }
+        });
+        when(deploymentUnit.getName()).thenReturn("test.jar");
+        when(deploymentUnit.getAttachment(Attachments.DEPLOYMENT_ROOT)).thenReturn(newResourceRoot());
+        deploy(ORIGINAL_HASH);
+        cache = new AnnotationIndexCache(cacheDir, contentRepository, new DeploymentOverlayIndexService());
+    }
+
+    @After
+    public void cleanup() {
+        VFSUtils.recursiveDelete(dir);
+    }
+
+    @Test
+    public void testCacheHit() throws Exception {
+        final ResourceRoot resourceRoot = newResourceRoot();
+        final AnnotationIndexCache.Entry entry = cache.getEntry(deploymentUnit, resourceRoot);
+        assertNotNull(entry);
+        assertNull(entry.read());
+        ResourceRootIndexer.indexResourceRoot(resourceRoot, entry);
+        assertNotNull(resourceRoot.getAttachment(Attachments.ANNOTATION_INDEX).getClassByName(ORIGINAL));
+
+        // the classes of a redeployment of the same content are not read again
+        assertTrue(classFile(Original.class).delete());
+        final ResourceRoot redeployed = newResourceRoot();
+        final AnnotationIndexCache.Entry redeployedEntry = cache.getEntry(deploymentUnit, redeployed);
+        assertNotNull(redeployedEntry.read());
+        ResourceRootIndexer.indexResourceRoot(redeployed, redeployedEntry);
+        assertNotNull(redeployed.getAttachment(Attachments.ANNOTATION_INDEX).getClassByName(ORIGINAL));
+    }
+
+    @Test
+    public void testChangedRoot() throws Exception {
+        final ResourceRoot resourceRoot = newResourceRoot();
+        ResourceRootIndexer.indexResourceRoot(resourceRoot, cache.getEntry(deploymentUnit, resourceRoot));
+        final File originalDir = new File(cacheDir, HashUtil.bytesToHexString(ORIGINAL_HASH));
+        assertTrue(originalDir.isDirectory());
+
+        // replacing the content changes its hash, and removes the original content from the repository
+        copyClass(Added.class);
+        contents.clear();
+        deploy(CHANGED_HASH);
+        final ResourceRoot changed = newResourceRoot();
+        final AnnotationIndexCache.Entry entry = cache.getEntry(deploymentUnit, changed);
+        assertNull(entry.read());
+        ResourceRootIndexer.indexResourceRoot(changed, entry);
+        final Index index = changed.getAttachment(Attachments.ANNOTATION_INDEX);
+        assertNotNull(index.getClassByName(ORIGINAL));
+        assertNotNull(index.getClassByName(ADDED));
+
+        // the indexes of the original content are purged once the changed content is cached
+        assertFalse(originalDir.exists());
+        assertNotNull(cache.getEntry(deploymentUnit, newResourceRoot()).read());
+    }
+
+    @Test
+    public void testChangedIndexIgnorePaths() throws Exception {
+        final ResourceRoot resourceRoot = newResourceRoot();
+        ResourceRootIndexer.indexResourceRoot(resourceRoot, cache.getEntry(deploymentUnit, resourceRoot));
+
+        final ResourceRoot ignoring = newResourceRoot();
+        ignoring.addToAttachmentList(Attachments.INDEX_IGNORE_PATHS, "org");
+        assertNull(cache.getEntry(deploymentUnit, ignoring).read());
+        assertNotNull(cache.getEntry(deploymentUnit, newResourceRoot()).read());
+    }
+
+    @Test
+    public void testUnmanagedContent() {
+        final Resource resource = Resource.Factory.create();
+        resource.getModel().get(CONTENT).add().get("path").set(deploymentDir.getAbsolutePath());
+        when(deploymentUnit.getAttachment(DeploymentModelUtils.DEPLOYMENT_RESOURCE)).thenReturn(resource);
+        assertNull(cache.getEntry(deploymentUnit, newResourceRoot()));
+    }
+
+    private void deploy(final byte[] hash) {
+        contents.add(HashUtil.bytesToHexString(hash));
+        final Resource resource = Resource.Factory.create();
+        resource.getModel().get(CONTENT).add().get(HASH).set(hash);
+        when(deploymentUnit.getAttachment(DeploymentModelUtils.DEPLOYMENT_RESOURCE)).thenReturn(resource);
+    }
+
+    private ResourceRoot newResourceRoot() {
+        return new ResourceRoot(VFS.getChild(deploymentDir.toURI()), null);
+    }
+
+    private File classFile(final Class<?> clazz) {
+        return new File(deploymentDir, clazz.getName().replace('.', File.separatorChar) + ".class");
+    }
+
+    private void copyClass(final Class<?> clazz) throws IOException {
+        final File file = classFile(clazz);
+        file.getParentFile().mkdirs();
+        final InputStream in = clazz.getResourceAsStream(clazz.getName().substring(clazz.getName().lastIndexOf('.') + 1) + ".class");
+        try {
+            Files.copy(in, file.toPath());
+        } finally {
+            VFSUtils.safeClose(in);
+        }
+    }
+
+    private static byte[] hash(final int value) {
+        final byte[] hash = new byte[20];
+        hash[hash.length - 1] = (byte) value;
+        return hash;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.annotation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.junit.Test;
+
+/**
+ * Tests the lookups of a {@link CompositeIndex} over several, overlapping, indexes.
+ */
+public class CompositeIndexTestCase {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Marker {
+    }
+
+    interface Service {
+    }
+
+    interface SubService extends Service {
+    }
+
+    @Marker
+    static class Base implements SubService {
+    }
+
+    static class Child extends Base {
+    }
+
+    static class GrandChild extends Child {
+    }
+
+    @Marker
+    static class Other implements Service {
+    }
+
+    private static final DotName MARKER = DotName.createSimple(Marker.class.getName());
+    private static final DotName SERVICE = DotName.createSimple(Service.class.getName());
+    private static final DotName BASE = DotName.createSimple(Base.class.getName());
+
+    // Base is known to both indexes
+    private final Index first = index(Service.class, SubService.class, Base.class, Child.class);
+    private final Index second = index(Base.class, GrandChild.class, Other.class);
+    private final CompositeIndex composite = new CompositeIndex(Arrays.asList(first, second));
+
+    @Test
+    public void testGetAnnotations() {
+        final List<AnnotationInstance> annotations = composite.getAnnotations(MARKER);
+        // one instance per index that contains the annotated class
+        assertEquals(3, annotations.size());
+        assertEquals(names(Base.class, Other.class), targetNames(annotations));
+        assertTrue(composite.getAnnotations(DotName.createSimple("unknown")).isEmpty());
+        assertImmutable(annotations);
+    }
+
+    @Test
+    public void testGetAllKnownSubclasses() {
+        final Set<ClassInfo> subclasses = composite.getAllKnownSubclasses(BASE);
+        // GrandChild is only reachable through Child, which lives in the other index
+        assertEquals(names(Child.class, GrandChild.class), classNames(subclasses));
+        assertSame(subclasses, composite.getAllKnownSubclasses(BASE));
+        assertImmutable(subclasses);
+        assertImmutable(composite.getKnownDirectSubclasses(BASE));
+    }
+
+    @Test
+    public void testGetAllKnownImplementors() {
+        final Set<ClassInfo> implementors = composite.getAllKnownImplementors(SERVICE);
+        assertEquals(names(Base.class, Child.class, GrandChild.class, Other.class), classNames(implementors));
+        assertSame(implementors, composite.getAllKnownImplementors(SERVICE));
+        assertImmutable(implementors);
+        assertImmutable(composite.getKnownDirectImplementors(SERVICE));
+    }
+
+    @Test
+    public void testGetClassByName() {
+        // the first index that knows a class wins
+        assertSame(first.getClassByName(BASE), composite.getClassByName(BASE));
+        assertSame(second.getClassByName(DotName.createSimple(Other.class.getName())),
+                composite.getClassByName(DotName.createSimple(Other.class.getName())));
+        assertEquals(null, composite.getClassByName(DotName.createSimple("unknown")));
+
+        final Collection<ClassInfo> known = composite.getKnownClasses();
+        assertEquals(first.getKnownClasses().size() + second.getKnownClasses().size(), known.size());
+        assertImmutable(known);
+    }
+
+    private static <T> void assertImmutable(final Collection<T> collection) {
+        try {
+            collection.clear();
+            fail("collection can be modified");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    private static Set<String> names(final Class<?>... classes) {
+        final Set<String> names = new HashSet<String>();
+        for (Class<?> clazz : classes) {
+            names.add(clazz.getName());
+        }
+        return names;
+    }
+
+    private static Set<String> classNames(final Collection<ClassInfo> classes) {
+        final Set<String> names = new HashSet<String>();
+        for (ClassInfo clazz : classes) {
+            names.add(clazz.name().toString());
+        }
+        return names;
+    }
+
+    private static Set<String> targetNames(final Collection<AnnotationInstance> annotations) {
+        final Set<String> names = new HashSet<String>();
+        for (AnnotationInstance annotation : annotations) {
+            names.add(((ClassInfo) annotation.target()).name().toString());
+        }
+        return names;
+    }
+
+    private static Index index(final Class<?>... classes) {
+        final Indexer indexer = new Indexer();
+        for (Class<?> clazz : classes) {
+            final InputStream in = CompositeIndexTestCase.class.getClassLoader().getResourceAsStream(clazz.getName().replace('.', '/') + ".class");
+            try {
+                indexer.index(in);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        return indexer.complete();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2013, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.server.deployment.annotation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.vfs.VFS;
+import org.jboss.vfs.VirtualFile;
+import org.jboss.vfs.VisitorAttributes;
+import org.jboss.vfs.util.SuffixMatchFilter;
+import org.junit.Test;
+
+/**
+ * Tests that {@link ResourceRootIndexer} builds the same index whether a resource root is indexed sequentially or in parallel.
+ */
+public class ResourceRootIndexerTestCase {
+
+    @Test
+    public void testParallelIndexEqualsSequentialIndex() throws Throwable {
+        // the compiled classes of the org.jboss.as.server package, which contains several hundred classes
+        final URL url = ResourceRootIndexer.class.getResource("ResourceRootIndexer.class");
+        assumeTrue("file".equals(url.getProtocol()));
+        final File dir = new File(url.toURI()).getParentFile().getParentFile().getParentFile();
+        final VirtualFile root = VFS.getChild(dir.toURI());
+        final List<VirtualFile> classFiles = root.getChildren(new SuffixMatchFilter(".class", VisitorAttributes.RECURSE_LEAVES_ONLY));
+        assertTrue(classFiles.size() > 256);
+
+        final Index sequential = ResourceRootIndexer.index(root, classFiles);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final Index parallel;
+        try {
+            parallel = ResourceRootIndexer.parallelIndex(root, classFiles, 4, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(classFiles.size(), sequential.getKnownClasses().size());
+        assertIndexEquals(sequential, parallel);
+    }
+
+    private static void assertIndexEquals(final Index expected, final Index actual) {
+        assertEquals(names(expected.getKnownClasses()), names(actual.getKnownClasses()));
+        final Set<DotName> annotations = new HashSet<DotName>();
+        final Set<DotName> supertypes = new HashSet<DotName>();
+        for (ClassInfo classInfo : expected.getKnownClasses()) {
+            final ClassInfo actualInfo = actual.getClassByName(classInfo.name());
+            assertNotNull(classInfo.name().toString(), actualInfo);
+            assertEquals(classInfo.superName(), actualInfo.superName());
+            assertEquals(Arrays.asList(classInfo.interfaces()), Arrays.asList(actualInfo.interfaces()));
+            annotations.addAll(classInfo.annotations().keySet());
+            if (classInfo.superName() != null) {
+                supertypes.add(classInfo.superName());
+            }
+            supertypes.addAll(Arrays.asList(classInfo.interfaces()));
+        }
+        for (DotName annotation : annotations) {
+            assertEquals(annotation.toString(), targets(expected.getAnnotations(annotation)), targets(actual.getAnnotations(annotation)));
+        }
+        for (DotName supertype : supertypes) {
+            assertEquals(supertype.toString(), names(expected.getKnownDirectSubclasses(supertype)), names(actual.getKnownDirectSubclasses(supertype)));
+            assertEquals(supertype.toString(), names(expected.getKnownDirectImplementors(supertype)), names(actual.getKnownDirectImplementors(supertype)));
+        }
+    }
+
+    private static Set<DotName> names(final Iterable<ClassInfo> classes) {
+        final Set<DotName> names = new HashSet<DotName>();
+        for (ClassInfo classInfo : classes) {
+            names.add(classInfo.name());
+        }
+        return names;
+    }
+
+    private static List<String> targets(final List<AnnotationInstance> instances) {
+        final List<String> targets = new ArrayList<String>();
+        for (AnnotationInstance instance : instances) {
+            targets.add(String.valueOf(instance.target()));
+        }
+        Collections.sort(targets);
+        return targets;
+    }
+}
@@ -2,6 +2,7 @@ package org.jboss.as.test.clustering.cluster.dispatcher.bean;
 
 import java.util.Map;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -14,6 +15,7 @@ import org.wildfly.clustering.dispatcher.Command;
 import org.wildfly.clustering.dispatcher.CommandDispatcher;
 import org.wildfly.clustering.dispatcher.CommandDispatcherFactory;
 import org.wildfly.clustering.dispatcher.CommandResponse;
+import org.wildfly.clustering.dispatcher.CommandResponseListener;
 import org.wildfly.clustering.group.Node;
 
 @Singleton
@@ -54,6 +56,16 @@ public class CommandDispatcherBean implements CommandDispatcher<Node> {
         return this.dispatcher.submitOnCluster(command, excludedNodes);
     }
 
+    @Override
+    public <R> Future<R> submitOnNode(Command<R, Node> command, Node node, CommandResponseListener<R> listener, long timeout, TimeUnit unit) {
+        return this.dispatcher.submitOnNode(command, node, listener, timeout, unit);
+    }
+
+    @Override
+    public <R> Future<Map<Node, CommandResponse<R>>> submitOnCluster(Command<R, Node> command, CommandResponseListener<R> listener, long timeout, TimeUnit unit, Node... excludedNodes) {
+        return this.dispatcher.submitOnCluster(command, listener, timeout, unit, excludedNodes);
+    }
+
     @Override
     public void close() {
         this.dispatcher.close();